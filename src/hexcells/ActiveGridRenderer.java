@@ -0,0 +1,283 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Активная отрисовка GridPanel отдельным потоком с фиксированной частотой кадров.
+ * Кадр собирается в ускоренном VolatileImage из двух кэшированных статических слоёв
+ * (ячейки и правила) и небольшого динамического слоя: подсветка недавно изменённых
+ * ячеек, ячейка под курсором и подсказка.
+ * Поток отрисовки не читает Board: статические слои строятся в потоке Swing,
+ * а изменения ячеек приходят снимками через очередь и дорисовываются в слой ячеек.
+ */
+final class ActiveGridRenderer {
+    private static final long FLASH_NANOS = TimeUnit.MILLISECONDS.toNanos(400); // Длительность подсветки изменения
+
+    /**
+     * Снимок видимого состояния ячейки.
+     */
+    static final class CellSprite {
+        final int q;
+        final int r;
+        final boolean revealed;
+        final boolean mine;
+        final boolean flagged;
+        final int value;
+        long changedAt;
+
+        CellSprite(int q, int r, Cell cell) {
+            this.q = q;
+            this.r = r;
+            this.revealed = cell.isRevealed();
+            this.mine = cell.isMine();
+            this.flagged = cell.isFlagged();
+            this.value = cell.getRevealedValue();
+        }
+    }
+
+    private final GridPanel panel;
+    private final long framePeriodNanos;
+    private final Object layerLock = new Object();
+    private final ConcurrentLinkedQueue<CellSprite> pendingSprites = new ConcurrentLinkedQueue<>();
+    private final List<CellSprite> flashing = new ArrayList<>(); // Только поток отрисовки
+
+    private BufferedImage cellsLayer; // Под layerLock
+    private volatile BufferedImage rulesLayer;
+    private volatile HexCoord hover;
+    private volatile HexCoord hint;
+    private volatile HintType hintType;
+    private volatile boolean dirty = true;
+    private volatile Thread thread;
+    private VolatileImage backBuffer; // Только поток отрисовки
+
+    /**
+     * @param panel Панель, в которую выводятся кадры
+     * @param framesPerSecond Частота кадров
+     */
+    ActiveGridRenderer(GridPanel panel, int framesPerSecond) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Частота кадров должна быть положительной: " + framesPerSecond);
+        }
+        this.panel = panel;
+        this.framePeriodNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+    }
+
+    /**
+     * Запускает поток отрисовки.
+     */
+    void start() {
+        if (thread != null) {
+            return;
+        }
+        Thread renderThread = new Thread(this::renderLoop, "hexcells-render");
+        renderThread.setDaemon(true);
+        thread = renderThread;
+        renderThread.start();
+    }
+
+    /**
+     * Останавливает поток отрисовки.
+     */
+    void stop() {
+        Thread renderThread = thread;
+        thread = null;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+        }
+    }
+
+    /**
+     * Публикует заново построенные статические слои (вызывается в потоке Swing).
+     * Изменения ячеек, поставленные в очередь раньше, уже учтены в новом слое,
+     * а их повторная дорисовка безвредна: очередь упорядочена, последний снимок — актуальный.
+     */
+    void setStaticLayers(BufferedImage cells, BufferedImage rules) {
+        synchronized (layerLock) {
+            cellsLayer = cells;
+        }
+        rulesLayer = rules;
+        dirty = true;
+    }
+
+    /**
+     * Ставит в очередь изменение ячейки (вызывается в потоке Swing).
+     */
+    void cellChanged(CellSprite sprite) {
+        pendingSprites.add(sprite);
+        dirty = true;
+    }
+
+    void setHover(HexCoord coord) {
+        hover = coord;
+        dirty = true;
+    }
+
+    void setHint(HexCoord coord, HintType type) {
+        hintType = type;
+        hint = coord;
+        dirty = true;
+    }
+
+    /**
+     * Рисует статические слои в переданный контекст (для перерисовок, инициированных Swing).
+     * @return false, если слои ещё не построены
+     */
+    boolean paintStatic(Graphics g) {
+        BufferedImage cells;
+        synchronized (layerLock) {
+            cells = cellsLayer;
+            if (cells != null) {
+                g.drawImage(cells, 0, 0, null);
+            }
+        }
+        BufferedImage rules = rulesLayer;
+        if (rules != null) {
+            g.drawImage(rules, 0, 0, null);
+        }
+        dirty = true;
+        return cells != null;
+    }
+
+    private void renderLoop() {
+        long next = System.nanoTime();
+        while (thread == Thread.currentThread()) {
+            if (dirty || !flashing.isEmpty()) {
+                long start = System.nanoTime();
+                if (renderFrame(start) && GameMetrics.ENABLED) {
+                    GameMetrics.frameRendered(start);
+                }
+            }
+            next += framePeriodNanos;
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(this, delay);
+            } else {
+                next = System.nanoTime(); // Отстали: не пытаемся догонять пропущенные кадры
+            }
+        }
+    }
+
+    /**
+     * Собирает и выводит один кадр.
+     * @return true, если кадр выведен
+     */
+    private boolean renderFrame(long now) {
+        dirty = false;
+        int width = panel.getWidth();
+        int height = panel.getHeight();
+        if (!panel.isShowing() || width <= 0 || height <= 0) {
+            return false;
+        }
+
+        GraphicsConfiguration gc = panel.getGraphicsConfiguration();
+        if (gc == null) {
+            return false;
+        }
+        do {
+            if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height
+                    || backBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (backBuffer != null) {
+                    backBuffer.flush();
+                }
+                backBuffer = gc.createCompatibleVolatileImage(width, height);
+            }
+
+            Graphics2D g2d = backBuffer.createGraphics();
+            try {
+                g2d.setColor(panel.getBackground());
+                g2d.fillRect(0, 0, width, height);
+                composeStatic(g2d, now);
+                composeDynamic(g2d, now);
+            } finally {
+                g2d.dispose();
+            }
+        } while (backBuffer.contentsLost());
+
+        Graphics screen = panel.getGraphics();
+        if (screen == null) {
+            return false;
+        }
+        try {
+            screen.drawImage(backBuffer, 0, 0, null);
+            Toolkit.getDefaultToolkit().sync();
+        } finally {
+            screen.dispose();
+        }
+        return true;
+    }
+
+    /**
+     * Дорисовывает накопленные изменения в слой ячеек и выводит статические слои.
+     */
+    private void composeStatic(Graphics2D g2d, long now) {
+        synchronized (layerLock) {
+            if (cellsLayer == null) {
+                pendingSprites.clear();
+            } else {
+                Graphics2D layer = cellsLayer.createGraphics();
+                try {
+                    layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    for (CellSprite sprite; (sprite = pendingSprites.poll()) != null; ) {
+                        panel.paintCell(layer, sprite.q, sprite.r, sprite.revealed, sprite.mine, sprite.flagged, sprite.value);
+                        sprite.changedAt = now;
+                        flashing.add(sprite);
+                    }
+                } finally {
+                    layer.dispose();
+                }
+                g2d.drawImage(cellsLayer, 0, 0, null);
+            }
+        }
+        BufferedImage rules = rulesLayer;
+        if (rules != null) {
+            g2d.drawImage(rules, 0, 0, null);
+        }
+    }
+
+    /**
+     * Рисует динамический слой: затухающая подсветка изменений, курсор и подсказка.
+     */
+    private void composeDynamic(Graphics2D g2d, long now) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setStroke(new BasicStroke(3));
+        for (Iterator<CellSprite> it = flashing.iterator(); it.hasNext(); ) {
+            CellSprite sprite = it.next();
+            long age = now - sprite.changedAt;
+            if (age >= FLASH_NANOS) {
+                it.remove();
+                continue;
+            }
+            int alpha = (int) (255 * (FLASH_NANOS - age) / FLASH_NANOS);
+            g2d.setColor(new Color(255, 200, 0, alpha));
+            g2d.drawPolygon(hexagon(sprite.q, sprite.r));
+        }
+
+        HexCoord hoverCoord = hover;
+        if (hoverCoord != null) {
+            g2d.setStroke(new BasicStroke(2));
+            g2d.setColor(new Color(0, 90, 255));
+            g2d.drawPolygon(hexagon(hoverCoord.getQ(), hoverCoord.getR()));
+        }
+
+        HexCoord hintCoord = hint;
+        if (hintCoord != null) {
+            g2d.setStroke(new BasicStroke(4));
+            g2d.setColor(hintType == HintType.MINE ? GridPanel.HINT_MINE_COLOR : GridPanel.HINT_SAFE_COLOR);
+            g2d.drawPolygon(hexagon(hintCoord.getQ(), hintCoord.getR()));
+        }
+    }
+
+    private Polygon hexagon(int q, int r) {
+        Point2D.Double center = panel.hexToPixel(q, r);
+        return HexGeometry.createHexagon(center, GridPanel.HEX_RADIUS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,580 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Решатель с прерыванием в любой момент: выводы ищутся по уровням возрастающей стоимости,
+ * и по истечении срока возвращается всё найденное к этому моменту.
+ * <ol>
+ * <li>SINGLE — каждое ограничение по отдельности (число ячейки или распространитель правила
+ * из его модуля), с распространением выводов до неподвижной точки;</li>
+ * <li>PAIRWISE — пары пересекающихся ограничений: границы числа мин в пересечении
+ * фиксируют части, входящие только в одно из них;</li>
+ * <li>GLOBAL — исключение Гаусса по всем ограничениям-счётчикам (GaussianDeduction).</li>
+ * </ol>
+ * Новые выводы более дорогого уровня снова запускают дешёвые уровни. Срок и прерывание
+ * потока проверяются каждые несколько десятков операций, в том числе при сборке
+ * ограничений, поэтому решатель останавливается в пределах миллисекунд после срока.
+ * Ограничения строятся по видимому игроку состоянию: флаги считаются минами.
+ * Память и подготовка не зависят от площади уровня: свои выводы решатель хранит
+ * страничными масками поверх масок доски, а индекс «ячейка → ограничения» — отсортированным
+ * массивом вхождений. Поиск открытых ячеек с неизвестными соседями пропускает слова
+ * маски, рядом с которыми нет неизвестных ячеек, — O(площадь / 64) операций со словами.
+ */
+public final class AnytimeSolver {
+    private static final int CHECK_INTERVAL = 64; // Операций между проверками срока
+    private static final byte UNKNOWN = SequenceRunTracker.UNKNOWN;
+    private static final byte MINE = SequenceRunTracker.MINE;
+    private static final byte SAFE = SequenceRunTracker.SAFE;
+
+    /**
+     * Уровень рассуждений, которым получен вывод.
+     */
+    public enum Tier {
+        SINGLE,   // Одно ограничение
+        PAIRWISE, // Пара пересекающихся ограничений
+        GLOBAL    // Все ограничения-счётчики вместе
+    }
+
+    /**
+     * Получатель выводов по мере их нахождения.
+     */
+    @FunctionalInterface
+    interface DeductionListener {
+        /**
+         * @param deduction Новый вывод
+         * @param tier Уровень, которым он получен
+         */
+        void deduced(HintResult deduction, Tier tier);
+    }
+
+    /**
+     * Результат решения: выводы в порядке нахождения и уровни, которыми они получены.
+     */
+    public static final class Result {
+        private final List<HintResult> deductions;
+        private final List<Tier> tiers;
+        private final Tier reachedTier;
+        private final boolean complete;
+
+        private Result(List<HintResult> deductions, List<Tier> tiers, Tier reachedTier, boolean complete) {
+            this.deductions = Collections.unmodifiableList(deductions);
+            this.tiers = Collections.unmodifiableList(tiers);
+            this.reachedTier = reachedTier;
+            this.complete = complete;
+        }
+
+        /**
+         * Выводы в порядке нахождения: сначала дешёвые.
+         */
+        public List<HintResult> getDeductions() {
+            return deductions;
+        }
+
+        /**
+         * Уровень, которым получен вывод.
+         * @param index Номер вывода в getDeductions()
+         */
+        public Tier getTier(int index) {
+            return tiers.get(index);
+        }
+
+        /**
+         * Самый дорогой уровень, до которого дошёл решатель.
+         */
+        public Tier getReachedTier() {
+            return reachedTier;
+        }
+
+        /**
+         * true, если все уровни отработали до неподвижной точки до срока;
+         * false — решение прервано, и выводов может быть больше.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    private final BoardView board;
+    private final DeductionListener listener;
+    private final CompiledRules rules;
+    private final int cols;
+    private final long deadlineNanos;
+    private final CellBits deduced;        // Ячейки, выведенные решателем (бит r * cols + q)
+    private final CellBits deducedMines;   // Выведенные мины среди них
+    private final List<int[]> cells = new ArrayList<>();          // Ячейки ограничений
+    private final List<HintTechnique> techniques = new ArrayList<>();
+    private int[] sums = new int[16];      // Ожидаемое число мин (для последовательностей — длина серии)
+    private int[] propagators = new int[16]; // Правило с собственным распространителем или -1 для счётчика
+    private final CompiledRule.CellStates states;
+    private long[] occurrences;            // Вхождения (ячейка << 32 | ограничение) по возрастанию
+    private final List<HintResult> deductions = new ArrayList<>();
+    private final List<Tier> tiers = new ArrayList<>();
+    private Tier reachedTier = Tier.SINGLE;
+    private boolean stopped;
+    private int operations;
+
+    private AnytimeSolver(BoardView board, long deadlineNanos, DeductionListener listener) {
+        this.board = board;
+        this.listener = listener;
+        this.rules = board.getCompiledRules();
+        this.cols = board.getCols();
+        this.deadlineNanos = deadlineNanos;
+        this.deduced = new CellBits(board.getRows(), cols);
+        this.deducedMines = new CellBits(board.getRows(), cols);
+        this.states = this::state;
+    }
+
+    /**
+     * Ищет выводы до срока.
+     * @param board Доска (не изменяется; вызывающий отвечает за отсутствие параллельных изменений)
+     * @param deadlineNanos Срок по System.nanoTime()
+     * @return Найденные выводы
+     */
+    public static Result solve(Board board, long deadlineNanos) {
+        return solve(board.view(), deadlineNanos, null);
+    }
+
+    /**
+     * Ищет выводы до срока, сообщая каждый сразу после нахождения.
+     * @param board Видимое состояние доски
+     * @param deadlineNanos Срок по System.nanoTime()
+     * @param listener Получатель выводов (вызывается в потоке решателя) или null
+     * @return Найденные выводы
+     */
+    static Result solve(BoardView board, long deadlineNanos, DeductionListener listener) {
+        AnytimeSolver solver = new AnytimeSolver(board, deadlineNanos, listener);
+        boolean complete = solver.run();
+        return new Result(solver.deductions, solver.tiers, solver.reachedTier, complete);
+    }
+
+    private boolean run() {
+        if (!buildConstraints()) {
+            return false;
+        }
+        while (true) {
+            reachedTier = Tier.SINGLE;
+            if (!propagateSingle()) {
+                return false;
+            }
+            reachedTier = Tier.PAIRWISE;
+            int found = deductions.size();
+            if (!comparePairs()) {
+                return false;
+            }
+            if (deductions.size() > found) {
+                continue;
+            }
+            reachedTier = Tier.GLOBAL;
+            if (!eliminateGlobally()) {
+                return false;
+            }
+            if (deductions.size() == found) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Собирает ограничения: числа открытых ячеек с неизвестными соседями и правила уровня.
+     * @return false, если срок истёк
+     */
+    private boolean buildConstraints() {
+        // Открытые безопасные ячейки берутся из битовых масок доски, без обхода объектов Cell
+        CellBits revealed = board.getRevealedBits();
+        CellBits flagged = board.getFlaggedBits();
+        CellBits mines = board.getMineBits();
+        int[] neighbors = new int[Board.NEIGHBOR_OFFSETS.length];
+        for (int word = revealed.nextNonZeroWord(0); word >= 0; word = revealed.nextNonZeroWord(word + 1)) {
+            if (expired()) {
+                return false;
+            }
+            // Только открытые игроком ячейки: выведенные безопасными своё число ещё не показали
+            long safeWord = revealed.word(word) & ~flagged.word(word) & ~mines.word(word);
+            if (safeWord == 0 || !unknownNear(word)) {
+                continue;
+            }
+            for (long bits = safeWord; bits != 0; bits &= bits - 1) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int q = index % cols;
+                int r = index / cols;
+                int count = 0;
+                boolean open = false;
+                for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                    int nq = q + offset[0];
+                    int nr = r + offset[1];
+                    if (board.hasCell(nq, nr)) {
+                        neighbors[count++] = nr * cols + nq;
+                        open |= state(nr * cols + nq) == UNKNOWN;
+                    }
+                }
+                if (open) {
+                    // Очевидные выводы появляются уже при сборке, до первого полного прохода
+                    addConstraint(Arrays.copyOf(neighbors, count),
+                            board.getNeighborMineCount(q, r), HintTechnique.MINESWEEPER, -1);
+                    checkCount(cells.size() - 1);
+                }
+            }
+        }
+
+        // Счётчики решаются здесь и участвуют в PAIRWISE и GLOBAL; остальные правила — только своим распространителем
+        for (int i = 0; i < rules.size(); i++) {
+            if (expired()) {
+                return false;
+            }
+            addConstraint(rules.getCellIndices(i), rules.getExpected(i), rules.getTechnique(i),
+                    rules.isCount(i) ? -1 : i);
+        }
+
+        // Обратный индекс: вхождения ячеек в ограничения, сгруппированные по ячейке
+        int occurrenceCount = 0;
+        for (int[] constraint : cells) {
+            occurrenceCount += constraint.length;
+        }
+        occurrences = new long[occurrenceCount];
+        int occurrence = 0;
+        for (int c = 0; c < cells.size(); c++) {
+            if (expired()) {
+                return false;
+            }
+            for (int cell : cells.get(c)) {
+                if (cell != CompiledRules.OFF_GRID) {
+                    occurrences[occurrence++] = (long) cell << 32 | c;
+                }
+            }
+        }
+        occurrences = Arrays.copyOf(occurrences, occurrence);
+        Arrays.sort(occurrences);
+        return !expiredNow();
+    }
+
+    /**
+     * Проверяет, могут ли рядом с ячейками слова маски быть неизвестные ячейки.
+     * Соседи ячейки i — это i ± 1, i ± cols, i - cols + 1 и i + cols - 1, поэтому
+     * достаточно трёх отрезков индексов шириной 66 бит. Ячейки вне формы и выведенные
+     * решателем считаются неизвестными: проверка может лишь не отбросить слово.
+     */
+    private boolean unknownNear(int word) {
+        int low = word << 6;
+        int high = low + 63;
+        return unknownIn(low - 1, high + 1) || unknownIn(low - cols, high - cols + 1)
+                || unknownIn(low + cols - 1, high + cols);
+    }
+
+    /**
+     * Есть ли среди индексов from..to (включительно) не открытые и не помеченные флагом.
+     */
+    private boolean unknownIn(long from, long to) {
+        CellBits revealed = board.getRevealedBits();
+        CellBits flagged = board.getFlaggedBits();
+        from = Math.max(from, 0);
+        to = Math.min(to, ((long) revealed.wordCount() << 6) - 1);
+        for (long word = from >> 6; word <= to >> 6; word++) {
+            long range = -1L;
+            if (word == from >> 6) {
+                range &= -1L << from;
+            }
+            if (word == to >> 6) {
+                range &= -1L >>> (63 - (to & 63));
+            }
+            if ((~(revealed.word((int) word) | flagged.word((int) word)) & range) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addConstraint(int[] constraintCells, int sum, HintTechnique technique, int propagator) {
+        int index = cells.size();
+        if (index == sums.length) {
+            sums = Arrays.copyOf(sums, index * 2);
+            propagators = Arrays.copyOf(propagators, index * 2);
+        }
+        cells.add(constraintCells);
+        techniques.add(technique);
+        sums[index] = sum;
+        propagators[index] = propagator;
+    }
+
+    /**
+     * Уровень SINGLE: очередь ограничений, затронутых новыми выводами, до неподвижной точки.
+     * @return false, если срок истёк
+     */
+    private boolean propagateSingle() {
+        int count = cells.size();
+        int[] queue = new int[count];
+        boolean[] queued = new boolean[count];
+        int head = 0;
+        int size = count;
+        for (int c = 0; c < count; c++) {
+            queue[c] = c;
+            queued[c] = true;
+        }
+        while (size > 0) {
+            if (expired()) {
+                return false;
+            }
+            int c = queue[head];
+            head = (head + 1) % count;
+            size--;
+            queued[c] = false;
+
+            int found = deductions.size();
+            if (propagators[c] >= 0) {
+                propagateRule(c);
+            } else {
+                checkCount(c);
+            }
+
+            // Ограничения, затронутые новыми выводами, снова ставятся в очередь
+            for (int d = found; d < deductions.size(); d++) {
+                HintResult deduction = deductions.get(d);
+                int cell = deduction.getCoord().getR() * cols + deduction.getCoord().getQ();
+                for (int k = firstOccurrence(cell); k < occurrences.length && occurrenceCell(k) == cell; k++) {
+                    int affected = (int) occurrences[k];
+                    if (!queued[affected]) {
+                        queued[affected] = true;
+                        queue[(head + size) % count] = affected;
+                        size++;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет ограничение-счётчик: если мины уже найдены или нужны во всех оставшихся
+     * ячейках, остальные ячейки определены.
+     */
+    private void checkCount(int c) {
+        int unknownCount = 0;
+        int remaining = sums[c];
+        for (int cell : cells.get(c)) {
+            byte state = state(cell);
+            if (state == MINE) {
+                remaining--;
+            } else if (state == UNKNOWN) {
+                unknownCount++;
+            }
+        }
+        if (unknownCount > 0 && (remaining == 0 || remaining == unknownCount)) {
+            for (int cell : cells.get(c)) {
+                deduce(cell, remaining != 0, Tier.SINGLE, techniques.get(c));
+            }
+        }
+    }
+
+    /**
+     * Проверяет правило распространителем его модуля по текущим выводам.
+     */
+    private void propagateRule(int c) {
+        HintTechnique technique = techniques.get(c);
+        rules.propagate(propagators[c], states, (cell, mine) -> {
+            deduce(cell, mine, Tier.SINGLE, technique);
+            return true;
+        });
+    }
+
+    /**
+     * Уровень PAIRWISE: для пересекающихся ограничений A и B число мин в пересечении
+     * ограничено обоими; если граница достигается, части «только A», «только B» или
+     * само пересечение определяются целиком. Принадлежность ячейки A проверяется
+     * двоичным поиском по отсортированной копии A, пары отмечаются штампами ограничений.
+     * @return false, если срок истёк
+     */
+    private boolean comparePairs() {
+        int count = cells.size();
+        int[] pairStamp = new int[count];
+        for (int a = 0; a < count; a++) {
+            if (propagators[a] >= 0) {
+                continue;
+            }
+            if (expired()) {
+                return false;
+            }
+            int remainingA = sums[a];
+            int unknownA = 0;
+            for (int cell : cells.get(a)) {
+                byte state = state(cell);
+                if (state == MINE) {
+                    remainingA--;
+                } else if (state == UNKNOWN) {
+                    unknownA++;
+                }
+            }
+            if (unknownA == 0) {
+                continue;
+            }
+            int[] sortedA = cells.get(a).clone();
+            Arrays.sort(sortedA);
+            int found = deductions.size();
+            pairs:
+            for (int cell : cells.get(a)) {
+                if (state(cell) != UNKNOWN) {
+                    continue;
+                }
+                for (int k = firstOccurrence(cell); k < occurrences.length && occurrenceCell(k) == cell; k++) {
+                    int b = (int) occurrences[k];
+                    if (b <= a || pairStamp[b] == a + 1 || propagators[b] >= 0) {
+                        continue;
+                    }
+                    pairStamp[b] = a + 1;
+                    if (expired()) {
+                        return false;
+                    }
+                    comparePair(a, b, remainingA, unknownA, sortedA);
+                    if (deductions.size() > found) {
+                        break pairs; // Счётчики A устарели; выводы сначала распространит уровень SINGLE
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void comparePair(int a, int b, int remainingA, int unknownA, int[] sortedA) {
+        int remainingB = sums[b];
+        int onlyB = 0;
+        int common = 0;
+        for (int cell : cells.get(b)) {
+            byte state = state(cell);
+            if (state == MINE) {
+                remainingB--;
+            } else if (state == UNKNOWN) {
+                if (Arrays.binarySearch(sortedA, cell) >= 0) {
+                    common++;
+                } else {
+                    onlyB++;
+                }
+            }
+        }
+        int onlyA = unknownA - common;
+        if (common == 0 || (onlyA == 0 && onlyB == 0)) {
+            return;
+        }
+        int low = Math.max(0, Math.max(remainingA - onlyA, remainingB - onlyB));
+        int high = Math.min(common, Math.min(remainingA, remainingB));
+        if (low > high) {
+            return; // Противоречие (ошибочные флаги): выводы по паре ненадёжны
+        }
+        // Пересечение целиком
+        if (low == common || high == 0) {
+            markPart(b, sortedA, true, low == common);
+        }
+        // Часть только A: в ней remainingA - (мин в пересечении) мин
+        if (onlyA > 0 && (remainingA - high == onlyA || remainingA - low == 0)) {
+            markPart(a, sortedA, false, remainingA - high == onlyA);
+        }
+        // Часть только B
+        if (onlyB > 0 && (remainingB - high == onlyB || remainingB - low == 0)) {
+            markPart(b, sortedA, false, remainingB - high == onlyB);
+        }
+    }
+
+    /**
+     * Выводит неизвестные ячейки ограничения c, лежащие в пересечении с A (inCommon)
+     * или вне его.
+     */
+    private void markPart(int c, int[] sortedA, boolean inCommon, boolean mine) {
+        for (int cell : cells.get(c)) {
+            if (state(cell) == UNKNOWN && (Arrays.binarySearch(sortedA, cell) >= 0) == inCommon) {
+                deduce(cell, mine, Tier.PAIRWISE, HintTechnique.PAIRWISE);
+            }
+        }
+    }
+
+    /**
+     * Уровень GLOBAL: исключение Гаусса по остаткам ограничений-счётчиков.
+     * @return false, если срок истёк
+     */
+    private boolean eliminateGlobally() {
+        Set<LinearConstraint> system = new LinkedHashSet<>();
+        for (int c = 0; c < cells.size(); c++) {
+            if (propagators[c] >= 0) {
+                continue;
+            }
+            int[] unknown = new int[cells.get(c).length];
+            int unknownCount = 0;
+            int remaining = sums[c];
+            for (int cell : cells.get(c)) {
+                byte state = state(cell);
+                if (state == MINE) {
+                    remaining--;
+                } else if (state == UNKNOWN) {
+                    unknown[unknownCount++] = cell;
+                }
+            }
+            if (unknownCount > 0) {
+                system.add(new LinearConstraint(Arrays.copyOf(unknown, unknownCount), remaining));
+            }
+        }
+        if (expiredNow()) {
+            return false;
+        }
+        for (HintResult result : GaussianDeduction.deduce(cols, new ArrayList<>(system), deadlineNanos)) {
+            HexCoord coord = result.getCoord();
+            deduce(coord.getR() * cols + coord.getQ(), result.getType() == HintType.MINE, Tier.GLOBAL,
+                    HintTechnique.LINEAR);
+        }
+        return !expiredNow();
+    }
+
+    private void deduce(int cell, boolean mine, Tier tier, HintTechnique technique) {
+        if (state(cell) != UNKNOWN) {
+            return;
+        }
+        deduced.set(cell);
+        if (mine) {
+            deducedMines.set(cell);
+        }
+        HintResult deduction = new HintResult(new HexCoord(cell % cols, cell / cols),
+                mine ? HintType.MINE : HintType.SAFE, technique);
+        deductions.add(deduction);
+        tiers.add(tier);
+        if (listener != null) {
+            listener.deduced(deduction, tier);
+        }
+    }
+
+    /**
+     * Известное состояние ячейки: вывод решателя или видимое состояние доски.
+     */
+    private byte state(int cell) {
+        if (deduced.get(cell)) {
+            return deducedMines.get(cell) ? MINE : SAFE;
+        }
+        return board.getKnownState(cell);
+    }
+
+    /**
+     * Первое вхождение ячейки в occurrences или место, где оно было бы.
+     * Ключ (ячейка << 32) - 1 в массиве не встречается, поэтому поиск даёт нижнюю границу.
+     */
+    private int firstOccurrence(int cell) {
+        return -Arrays.binarySearch(occurrences, ((long) cell << 32) - 1) - 1;
+    }
+
+    private int occurrenceCell(int k) {
+        return (int) (occurrences[k] >>> 32);
+    }
+
+    /**
+     * Проверяет срок раз в CHECK_INTERVAL операций.
+     */
+    private boolean expired() {
+        return (++operations % CHECK_INTERVAL) == 0 ? expiredNow() : stopped;
+    }
+
+    private boolean expiredNow() {
+        if (!stopped && (System.nanoTime() > deadlineNanos || Thread.currentThread().isInterrupted())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package hexcells;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Автосохранение партии в фоновом потоке.
+ * В потоке Swing снимается только копия масок доски (GameSave.capture), запись
+ * идёт в фоне. Снимки объединяются: если предыдущий ещё не записан, он заменяется
+ * новым, так что частые ходы не выстраивают очередь записей.
+ */
+public class AutosaveService implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 5; // Ожидание последней записи при закрытии
+
+    private final Path file;
+    private final ExecutorService executor;
+    private final AtomicReference<GameSave> pending = new AtomicReference<>();
+
+    /**
+     * Конструктор.
+     * @param file Файл автосохранения
+     */
+    public AutosaveService(Path file) {
+        this.file = file;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "hexcells-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Файл автосохранения уровня в каталоге пользователя; имя определяется ключом уровня.
+     * @param board Доска с инициализированным уровнем
+     * @return Путь к файлу
+     */
+    public static Path defaultFile(Board board) {
+        return Paths.get(System.getProperty("user.home"), ".hexcells", "saves",
+                String.format("%016x.sav", board.getLevelKey()));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Снимает состояние доски и ставит его на запись (вызывается в потоке Swing).
+     * @param board Доска
+     */
+    public void save(Board board) {
+        if (pending.getAndSet(GameSave.capture(board)) == null) {
+            executor.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Отменяет незаписанный снимок и удаляет файл автосохранения (например, после конца партии).
+     */
+    public void discard() {
+        pending.set(null);
+        executor.execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Не удалось удалить автосохранение: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Дожидается записи последнего снимка и останавливает поток.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writePending() {
+        GameSave save = pending.getAndSet(null);
+        if (save == null) {
+            return;
+        }
+        try {
+            save.write(file);
+        } catch (IOException e) {
+            System.err.println("Не удалось записать автосохранение: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
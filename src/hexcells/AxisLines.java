@@ -0,0 +1,314 @@
+package hexcells;
+
+import java.util.Arrays;
+
+/**
+ * Счётчики мин вдоль трёх осей гексагональной сетки.
+ * Для каждой оси ячейки уровня выписаны подряд линия за линией (отсутствующие ячейки
+ * пропускаются), после каждой линии — разделитель. Число отмеченных ячеек на отрезке
+ * линии — разность префиксных сумм по этому массиву: для неизменяемого набора мин уровня
+ * суммы и серии хранятся готовыми (запрос O(1)), для изменяемых наборов ведётся дерево
+ * Фенвика (изменение ячейки и запрос — O(log n) по каждой из трёх осей).
+ * Позиция ячейки в массиве оси не хранится, а находится двоичным поиском по началам линий
+ * и внутри линии, поэтому память — O(ячеек уровня + rows + cols), а не O(rows * cols);
+ * построение проверяет форму в каждой клетке прямоугольника, то есть стоит O(rows * cols).
+ * Ведутся три набора: мины уровня (с сериями), известные игроку мины и неизвестные ячейки.
+ * Строится доской при первом обращении. Не потокобезопасен.
+ */
+public final class AxisLines {
+    /** Шаг вдоль оси: индексы в Board.NEIGHBOR_OFFSETS, направление d лежит на оси d / 2. */
+    private static final int[] AXIS_DIRECTIONS = {0, 2, 4};
+    private static final int AXES = AXIS_DIRECTIONS.length;
+
+    /**
+     * Счётчик одного набора отмеченных ячеек по трём осям.
+     */
+    private final class Counter {
+        private final CellBits marks;
+        private final boolean mutable;
+        private final int[][] sums = new int[AXES][];   // Префиксные суммы или дерево Фенвика (с единицы)
+        private final int[][] runStarts;                // Начал серий до позиции или null
+
+        /**
+         * Конструктор.
+         * @param marks Отмеченные ячейки (принадлежат счётчику)
+         * @param mutable true — набор изменяется через set(), серии не ведутся;
+         *                false — набор неизменяем, ведутся серии
+         */
+        Counter(CellBits marks, boolean mutable) {
+            this.marks = marks;
+            this.mutable = mutable;
+            this.runStarts = mutable ? null : new int[AXES][];
+            for (int axis = 0; axis < AXES; axis++) {
+                int[] cells = cellAt[axis];
+                int[] counts = new int[cells.length + 1];
+                int[] starts = mutable ? null : new int[cells.length + 1];
+                boolean previous = false;
+                for (int slot = 0; slot < cells.length; slot++) {
+                    boolean marked = isMarked(cells[slot]);
+                    if (mutable) {
+                        counts[slot + 1] = marked ? 1 : 0;
+                    } else {
+                        counts[slot + 1] = counts[slot] + (marked ? 1 : 0);
+                        starts[slot + 1] = starts[slot] + (marked && !previous ? 1 : 0);
+                    }
+                    previous = marked;
+                }
+                if (mutable) {
+                    // Построение дерева Фенвика за O(n): каждый узел отдаёт сумму родителю
+                    for (int i = 1; i < counts.length; i++) {
+                        int parent = i + (i & -i);
+                        if (parent < counts.length) {
+                            counts[parent] += counts[i];
+                        }
+                    }
+                }
+                sums[axis] = counts;
+                if (starts != null) {
+                    runStarts[axis] = starts;
+                }
+            }
+        }
+
+        boolean isMarked(int index) {
+            return index >= 0 && marks.get(index);
+        }
+
+        /**
+         * Отмечает ячейку или снимает отметку: O(log n) по каждой оси.
+         * Только для изменяемых наборов.
+         */
+        void set(int index, boolean marked) {
+            if (isMarked(index) == marked) {
+                return;
+            }
+            marks.flip(index);
+            for (int axis = 0; axis < AXES; axis++) {
+                int slot = slotOf(axis, index);
+                if (slot < 0) {
+                    continue;
+                }
+                int[] tree = sums[axis];
+                for (int i = slot + 1; i < tree.length; i += i & -i) {
+                    tree[i] += marked ? 1 : -1;
+                }
+            }
+        }
+
+        /**
+         * Число отмеченных ячеек на позициях [0, end) массива оси.
+         */
+        private int prefix(int axis, int end) {
+            int[] tree = sums[axis];
+            if (!mutable) {
+                return tree[end];
+            }
+            int sum = 0;
+            for (int i = end; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        int count(int axis, int start, int end) {
+            return prefix(axis, end) - prefix(axis, start);
+        }
+
+        int runs(int axis, int start, int end) {
+            int runs = runStarts[axis][end] - runStarts[axis][start];
+            // Серия, начавшаяся до отрезка и продолжающаяся в нём
+            if (start > 0 && isMarked(cellAt[axis][start]) && isMarked(cellAt[axis][start - 1])) {
+                runs++;
+            }
+            return runs;
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int[][] lineStart = new int[AXES][]; // Клетка прямоугольника, с которой начинается линия, по возрастанию
+    private final int[][] lineSlot = new int[AXES][];  // Первая позиция линии в массиве оси; последний элемент — длина массива
+    private final int[][] cellAt = new int[AXES][];    // Индекс ячейки по позиции; -1 — разделитель линий
+    private final Counter mines;
+    private final Counter knownMines;
+    private final Counter unknown;
+
+    /**
+     * Конструктор.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param mask Форма уровня
+     * @param mineBits Маска мин уровня (не изменяется)
+     * @param states Известное игроку состояние ячеек
+     */
+    AxisLines(int rows, int cols, CellMask mask, CellBits mineBits, CompiledRule.CellStates states) {
+        this.rows = rows;
+        this.cols = cols;
+        for (int axis = 0; axis < AXES; axis++) {
+            buildAxis(axis, mask);
+        }
+        CellBits known = new CellBits(rows, cols);
+        CellBits hidden = new CellBits(rows, cols);
+        for (int slot = 0; slot < cellAt[0].length; slot++) {
+            int index = cellAt[0][slot];
+            if (index < 0) {
+                continue;
+            }
+            byte state = states.get(index);
+            if (state == SequenceRunTracker.MINE) {
+                known.set(index);
+            } else if (state == SequenceRunTracker.UNKNOWN) {
+                hidden.set(index);
+            }
+        }
+        this.mines = new Counter(mineBits.copy(), false);
+        this.knownMines = new Counter(known, true);
+        this.unknown = new Counter(hidden, true);
+    }
+
+    /**
+     * Выписывает линии оси: линия начинается в клетке прямоугольника, предшественник
+     * которой вдоль оси лежит вне прямоугольника. Линии перечисляются по возрастанию
+     * индекса начальной клетки.
+     */
+    private void buildAxis(int axis, CellMask mask) {
+        int[] step = Board.NEIGHBOR_OFFSETS[AXIS_DIRECTIONS[axis]];
+        int[] starts = new int[rows + cols];
+        int[] firstSlots = new int[rows + cols + 1];
+        int lines = 0;
+        int[] cells = new int[64];
+        int size = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int q = 0; q < cols; q++) {
+                int pq = q - step[0];
+                int pr = r - step[1];
+                if (pq >= 0 && pq < cols && pr >= 0 && pr < rows) {
+                    continue;
+                }
+                starts[lines] = r * cols + q;
+                firstSlots[lines++] = size;
+                for (int lq = q, lr = r; lq >= 0 && lq < cols && lr >= 0 && lr < rows; lq += step[0], lr += step[1]) {
+                    if (mask.contains(lq, lr)) {
+                        if (size + 1 >= cells.length) {
+                            cells = Arrays.copyOf(cells, cells.length * 2);
+                        }
+                        cells[size++] = lr * cols + lq;
+                    }
+                }
+                if (size >= cells.length) {
+                    cells = Arrays.copyOf(cells, cells.length * 2);
+                }
+                cells[size++] = -1;
+            }
+        }
+        firstSlots[lines] = size;
+        lineStart[axis] = Arrays.copyOf(starts, lines);
+        lineSlot[axis] = Arrays.copyOf(firstSlots, lines + 1);
+        cellAt[axis] = Arrays.copyOf(cells, size);
+    }
+
+    /**
+     * Позиция ячейки в массиве оси: линия находится по её начальной клетке, позиция в
+     * линии — двоичным поиском по расстоянию от начала. O(log(rows + cols) + log длины линии).
+     * @return Позиция или -1, если ячейки нет в форме уровня
+     */
+    private int slotOf(int axis, int index) {
+        int[] step = Board.NEIGHBOR_OFFSETS[AXIS_DIRECTIONS[axis]];
+        int q = index % cols;
+        int r = index / cols;
+        int distance = Math.min(stepsBack(q, step[0], cols), stepsBack(r, step[1], rows));
+        int delta = step[1] * cols + step[0];
+        int start = index - distance * delta;
+        int line = Arrays.binarySearch(lineStart[axis], start);
+        int[] cells = cellAt[axis];
+        int low = lineSlot[axis][line];
+        int high = lineSlot[axis][line + 1] - 2; // Без разделителя
+        if (low + distance <= high && cells[low + distance] == index) {
+            return low + distance; // Линия без пропусков
+        }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = (cells[mid] - start) / delta;
+            if (position < distance) {
+                low = mid + 1;
+            } else if (position > distance) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Сколько шагов назад вдоль оси можно сделать по одной координате, не выйдя из прямоугольника.
+     */
+    private static int stepsBack(int coordinate, int step, int size) {
+        if (step > 0) {
+            return coordinate;
+        }
+        return step < 0 ? size - 1 - coordinate : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Обновляет известное игроку состояние ячейки.
+     * @param index Плоский индекс r * cols + q
+     * @param state SequenceRunTracker.UNKNOWN, MINE или SAFE
+     */
+    void update(int index, byte state) {
+        knownMines.set(index, state == SequenceRunTracker.MINE);
+        unknown.set(index, state == SequenceRunTracker.UNKNOWN);
+    }
+
+    /**
+     * Находит отрезок оси, занятый ячейками луча.
+     * @param direction Направление луча (индекс в Board.NEIGHBOR_OFFSETS)
+     * @param cells Плоские индексы ячеек луча по порядку
+     * @return Начальная позиция отрезка (конец — начало + cells.length) или -1, если ячейки
+     *         не образуют сплошного отрезка линии (например, луч пропускает ячейку уровня)
+     */
+    public int segmentStart(int direction, int[] cells) {
+        if (cells.length == 0 || direction < 0 || direction >= Board.NEIGHBOR_OFFSETS.length) {
+            return -1;
+        }
+        int axis = direction >> 1;
+        int first = slotOf(axis, cells[0]);
+        int last = slotOf(axis, cells[cells.length - 1]);
+        if (first < 0 || last < 0) {
+            return -1;
+        }
+        int start = Math.min(first, last);
+        return Math.max(first, last) - start == cells.length - 1 ? start : -1;
+    }
+
+    /**
+     * Число мин уровня на отрезке оси.
+     * @param direction Направление луча
+     * @param start Начало отрезка из segmentStart()
+     * @param length Длина отрезка
+     */
+    public int countMines(int direction, int start, int length) {
+        return mines.count(direction >> 1, start, start + length);
+    }
+
+    /**
+     * Число серий подряд идущих мин уровня на отрезке оси.
+     */
+    public int countMineRuns(int direction, int start, int length) {
+        return mines.runs(direction >> 1, start, start + length);
+    }
+
+    /**
+     * Число известных игроку мин (флаги и открытые мины) на отрезке оси.
+     */
+    public int countKnownMines(int direction, int start, int length) {
+        return knownMines.count(direction >> 1, start, start + length);
+    }
+
+    /**
+     * Число неизвестных игроку ячеек на отрезке оси.
+     */
+    public int countUnknown(int direction, int start, int length) {
+        return unknown.count(direction >> 1, start, start + length);
+    }
+}
\ No newline at end of file
@@ -1,19 +1,68 @@
 package hexcells;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
 /**
  * Класс, представляющий игровую доску Hexcells.
+ * Ячейки хранятся в {@link CellStorage}: плотно для прямоугольных уровней
+ * и блоками по требованию для уровней произвольной формы.
  */
 public class Board {
+    /** Смещения (dq, dr) соседей в гексагональной сетке (остроконечные гексагоны). */
+    static final int[][] NEIGHBOR_OFFSETS = {
+            {+1, 0}, {-1, 0}, {0, +1}, {0, -1}, {+1, -1}, {-1, +1}
+    };
+
     private final int rows;
     private final int cols;
-    private final Cell[][] grid;
+    private CellStorage storage; // Ячейки уровня и числа соседних мин
+    private boolean storageFresh; // Хранилище только что создано под форму инициализируемого уровня
     private final List<Rule> activeRules;
+    private final CellBits mineBits; // Битовая маска мин, бит r * cols + q
+    private final CellBits revealedBits; // Открытые ячейки, бит r * cols + q
+    private final CellBits flaggedBits; // Ячейки с флагом, бит r * cols + q
+    private int moveCount; // Успешные открытия ячеек и переключения флагов
+    private CompiledRules compiledRules;
+    private long levelKey; // Ключ Зобриста уровня
+    private long zobristHash; // Хеш состояния: ключ уровня XOR ключи открытых ячеек и флагов
+
+    // Инкрементальный учёт серий для SequenceRule: трекер по индексу правила
+    // и вхождения ячеек в последовательности, отсортированные по индексу ячейки
+    // (null, если последовательностей нет)
+    private SequenceRunTracker[] sequenceTrackers;
+    private int[] sequenceEntryCell;
+    private int[] sequenceEntryRule;
+    private int[] sequenceEntryPosition;
+    // Счётчики мин вдоль осей для LineRule: строятся при первом обращении (null до него)
+    private AxisLines axisLines;
+    private final CompiledRule.CellStates knownStates = new CompiledRule.CellStates() {
+        @Override
+        public byte get(int index) {
+            return getKnownState(index);
+        }
+
+        @Override
+        public AxisLines getAxisLines() {
+            return Board.this.getAxisLines();
+        }
+    };
     private boolean gameOver;
     private boolean gameWon;
+    private int hiddenSafeCells; // Неоткрытые ячейки без мин
+    private int unflaggedMines; // Мины без флага
+
+    // Подписчики и накопленные изменения текущего пакета
+    private final List<BoardListener> listeners;
+    private final CellBits pendingCells; // Уже учтённые в pendingList ячейки
+    private int[] pendingList = new int[16]; // Индексы изменённых ячеек пакета в порядке изменения
+    private int pendingCount;
+    private boolean pendingReset;
+    private int batchDepth;
+    private boolean batchWasGameOver;
+    private boolean batchWasGameWon;
 
     /**
      * Конструктор, создающий доску заданного размера.
@@ -21,65 +70,324 @@ public class Board {
      * @param cols Количество столбцов
      */
     public Board(int rows, int cols) {
+        this(rows, cols, new CellStorage.Dense(rows, cols));
+    }
+
+    /**
+     * Конструктор, создающий доску сразу под форму уровня и инициализирующий его.
+     * Для уровней произвольной формы память выделяется только под существующие ячейки,
+     * поэтому большие разреженные карты следует создавать этим конструктором.
+     * @param source Источник данных уровня
+     */
+    public Board(LevelSource source) {
+        this(source.getRows(), source.getCols(), CellStorage.create(source, source.getRows(), source.getCols()));
+        this.storageFresh = true;
+        initializeLevel(source);
+    }
+
+    /**
+     * Создаёт независимую копию доски для анализа в другом потоке:
+     * ячейки, мины, правила, трекеры серий и хеш. Подписчики не копируются.
+     * @return Копия доски
+     */
+    public Board snapshot() {
+        Board copy = new Board(rows, cols, storage.copy(), mineBits.copy(), revealedBits.copy(), flaggedBits.copy());
+        copy.moveCount = moveCount;
+        copy.activeRules.addAll(activeRules);
+        copy.compiledRules = compiledRules;
+        copy.buildSequenceTrackers();
+        if (copy.sequenceEntryCell != null) {
+            copy.storage.forEach((q, r, cell) -> {
+                if (cell.isRevealed() || cell.isFlagged()) {
+                    copy.updateSequenceTrackers(r * cols + q, cell);
+                }
+            });
+        }
+        copy.levelKey = levelKey;
+        copy.zobristHash = zobristHash;
+        copy.gameOver = gameOver;
+        copy.gameWon = gameWon;
+        copy.hiddenSafeCells = hiddenSafeCells;
+        copy.unflaggedMines = unflaggedMines;
+        return copy;
+    }
+
+    /**
+     * Представление видимого игроку состояния без копирования масок, вместе со счётчиками осей.
+     * Действительно до следующего изменения доски и только в её потоке.
+     */
+    BoardView view() {
+        return new BoardView(rows, cols, storage, mineBits, revealedBits, flaggedBits, compiledRules, knownStates);
+    }
+
+    /**
+     * Неизменяемый снимок видимого игроку состояния для анализа в другом потоке.
+     * В отличие от snapshot() копируются только занятые страницы масок, а форма уровня
+     * берётся из хранилища: присутствие ячеек в нём не меняется, новый уровень другой
+     * формы получает новое хранилище.
+     */
+    BoardView knownSnapshot() {
+        return new BoardView(rows, cols, storage, mineBits.copy(), revealedBits.copy(), flaggedBits.copy(),
+                compiledRules, null);
+    }
+
+    private Board(int rows, int cols, CellStorage storage) {
+        this(rows, cols, storage, new CellBits(rows, cols), new CellBits(rows, cols), new CellBits(rows, cols));
+    }
+
+    private Board(int rows, int cols, CellStorage storage, CellBits mineBits, CellBits revealedBits,
+                  CellBits flaggedBits) {
         this.rows = rows;
         this.cols = cols;
-        this.grid = new Cell[rows][cols];
+        this.storage = storage;
         this.activeRules = new ArrayList<>();
+        this.mineBits = mineBits;
+        this.revealedBits = revealedBits;
+        this.flaggedBits = flaggedBits;
+        this.compiledRules = CompiledRules.compile(activeRules, rows, cols);
+        buildSequenceTrackers();
         this.gameOver = false;
         this.gameWon = false;
-
-        // Инициализация ячеек
-        for (int r = 0; r < rows; r++) {
-            for (int q = 0; q < cols; q++) {
-                grid[r][q] = new Cell();
-            }
-        }
+        this.listeners = new ArrayList<>();
+        this.pendingCells = new CellBits(rows, cols);
     }
 
     /**
      * Инициализирует уровень на основе конфигурации.
-     * @param config Конфигурация уровня
+     * Мины и правила читаются потоком из источника (LevelConfig или читателя уровня),
+     * промежуточные списки координат не создаются.
+     * @param source Источник данных уровня
      */
-    public void initializeLevel(LevelConfig config) {
+    public void initializeLevel(LevelSource source) {
+        if (!GameMetrics.ENABLED) {
+            doInitializeLevel(source);
+            return;
+        }
+        GameEvents.LevelInitEvent event = new GameEvents.LevelInitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        doInitializeLevel(source);
+        GameMetrics.LEVEL_INIT.recordSince(start);
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.rules = activeRules.size();
+            event.commit();
+        }
+    }
+
+    private void doInitializeLevel(LevelSource source) {
+        beginChange();
+        try {
+            resetLevel(source);
+            pendingReset = true;
+        } finally {
+            endChange();
+        }
+    }
+
+    private void resetLevel(LevelSource source) {
         gameOver = false;
         gameWon = false;
         activeRules.clear();
-
-        // Сбрасываем ячейки
-        for (int r = 0; r < rows; r++) {
-            for (int q = 0; q < cols; q++) {
-                Cell cell = grid[r][q];
+        revealedBits.clear();
+        flaggedBits.clear();
+        moveCount = 0;
+
+        // Сбрасываем ячейки; для уровня другой формы создаём новое хранилище
+        if (storageFresh) {
+            storageFresh = false;
+        } else if (source.isRectangular() && storage.isFull()) {
+            storage.forEach((q, r, cell) -> {
                 cell.setMine(false);
                 cell.setRevealed(false);
                 cell.setFlagged(false);
                 cell.setRevealedValue(-1);
-            }
+            });
+        } else {
+            storage = CellStorage.create(source, rows, cols);
         }
 
-        // Устанавливаем мины
-        for (HexCoord mineCoord : config.getMines()) {
-            Cell cell = getCell(mineCoord);
+        // Устанавливаем мины (мины в отсутствующих ячейках игнорируются)
+        mineBits.clear();
+        source.forEachMine((q, r) -> {
+            Cell cell = storage.get(q, r);
             if (cell != null) {
                 cell.setMine(true);
+                mineBits.set(r * cols + q);
             }
-        }
+        });
 
         // Добавляем правила
-        for (RuleData ruleData : config.getRuleDataList()) {
-            if (ruleData instanceof SequenceRuleData) {
-                SequenceRuleData data = (SequenceRuleData) ruleData;
-                activeRules.add(new SequenceRule(data.getCellsInSequence(), data.getExpectedConsecutiveMines()));
-            } else if (ruleData instanceof GroupRuleData) {
-                GroupRuleData data = (GroupRuleData) ruleData;
-                activeRules.add(new GroupRule(data.getCellsInGroup(), data.getExpectedGroupedMines()));
-            } else if (ruleData instanceof EdgeRuleData) {
-                EdgeRuleData data = (EdgeRuleData) ruleData;
-                activeRules.add(new EdgeRule(data.getCellCoord(), data.getExpectedNeighborMines()));
+        source.forEachRule(ruleData -> {
+            Rule rule = createRule(ruleData);
+            if (rule != null) {
+                activeRules.add(rule);
             }
+        });
+        compiledRules = CompiledRules.compile(activeRules, rows, cols, storage);
+        buildSequenceTrackers();
+        axisLines = null;
+
+        // Рассчитываем числа соседних мин построчно и revealedValue открытых ячеек
+        NeighborCounter.countRows(mineBits, rows, cols, (r, bit0, bit1, bit2) ->
+                storage.forEachInRow(r, (q, row, cell) ->
+                        storage.setNeighborMines(q, r, NeighborCounter.countAt(bit0, bit1, bit2, q))));
+        calculateAllNeighborRules();
+        recountWinCounters();
+        levelKey = Zobrist.levelKey(rows, cols, mineBits, compiledRules);
+        if (!storage.isFull()) {
+            levelKey = shapeKey(levelKey);
         }
+        zobristHash = levelKey;
+    }
 
-        // Рассчитываем revealedValue для всех ячеек
-        calculateAllNeighborRules();
+    /**
+     * Добавляет к ключу уровня его форму: уровни с одинаковыми минами и правилами,
+     * но разным набором ячеек, получают разные ключи.
+     */
+    private long shapeKey(long key) {
+        long[] hash = {key};
+        storage.forEach((q, r, cell) -> hash[0] = Zobrist.mix(hash[0] + r * cols + q));
+        return hash[0];
+    }
+
+    /**
+     * Создаёт трекеры серий для всех SequenceRule и индекс ячеек, входящих в последовательности.
+     * Все ячейки доски скрыты, поэтому в трекерах известны только ячейки вне сетки (безопасные).
+     */
+    private void buildSequenceTrackers() {
+        int ruleCount = compiledRules.size();
+        sequenceTrackers = new SequenceRunTracker[ruleCount];
+        sequenceEntryCell = null;
+        sequenceEntryRule = null;
+        sequenceEntryPosition = null;
+
+        int entryCount = 0;
+        for (int i = 0; i < ruleCount; i++) {
+            if (compiledRules.getType(i) == CompiledRules.TYPE_SEQUENCE) {
+                entryCount += compiledRules.getCellIndices(i).length;
+            }
+        }
+        if (entryCount == 0) {
+            return;
+        }
+
+        // Вхождение упаковано как (ячейка << 32 | номер), номер — порядковый номер вхождения;
+        // сортировка группирует вхождения одной ячейки без массива на всю площадь
+        long[] entries = new long[entryCount];
+        int[] entryRule = new int[entryCount];
+        int[] entryPosition = new int[entryCount];
+        int count = 0;
+        for (int i = 0; i < ruleCount; i++) {
+            if (compiledRules.getType(i) != CompiledRules.TYPE_SEQUENCE) {
+                continue;
+            }
+            int[] indices = compiledRules.getCellIndices(i);
+            SequenceRunTracker tracker = new SequenceRunTracker(indices.length, compiledRules.getExpected(i));
+            for (int position = 0; position < indices.length; position++) {
+                int index = indices[position];
+                if (index == CompiledRules.OFF_GRID) {
+                    tracker.set(position, SequenceRunTracker.SAFE);
+                } else {
+                    entries[count] = (long) index << 32 | count;
+                    entryRule[count] = i;
+                    entryPosition[count] = position;
+                    count++;
+                }
+            }
+            sequenceTrackers[i] = tracker;
+        }
+        Arrays.sort(entries, 0, count);
+        sequenceEntryCell = new int[count];
+        sequenceEntryRule = new int[count];
+        sequenceEntryPosition = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            int entry = (int) entries[slot];
+            sequenceEntryCell[slot] = (int) (entries[slot] >>> 32);
+            sequenceEntryRule[slot] = entryRule[entry];
+            sequenceEntryPosition[slot] = entryPosition[entry];
+        }
+    }
+
+    /**
+     * Передаёт новое известное игроку состояние ячейки трекерам последовательностей.
+     */
+    private void updateSequenceTrackers(int index, Cell cell) {
+        if (sequenceEntryCell == null) {
+            return;
+        }
+        int slot = Arrays.binarySearch(sequenceEntryCell, index);
+        if (slot < 0) {
+            return;
+        }
+        while (slot > 0 && sequenceEntryCell[slot - 1] == index) {
+            slot--;
+        }
+        byte state;
+        if (cell.isFlagged()) {
+            state = SequenceRunTracker.MINE;
+        } else if (cell.isRevealed()) {
+            state = cell.isMine() ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE;
+        } else {
+            state = SequenceRunTracker.UNKNOWN;
+        }
+        for (; slot < sequenceEntryCell.length && sequenceEntryCell[slot] == index; slot++) {
+            sequenceTrackers[sequenceEntryRule[slot]].set(sequenceEntryPosition[slot], state);
+        }
+    }
+
+    /**
+     * Возвращает трекер серий правила последовательности.
+     * Трекер отражает известное игроку состояние: открытые ячейки и флаги.
+     * @param ruleIndex Индекс правила в getActiveRules()
+     * @return Трекер или null, если правило не является SequenceRule
+     */
+    public SequenceRunTracker getSequenceTracker(int ruleIndex) {
+        return sequenceTrackers[ruleIndex];
+    }
+
+    /**
+     * Создаёт правило по его данным из конфигурации уровня модулем из RuleRegistry.
+     * @param ruleData Данные правила
+     * @return Правило или null, если тип данных не поддерживается
+     */
+    static Rule createRule(RuleData ruleData) {
+        return RuleRegistry.createRule(ruleData);
+    }
+
+    /**
+     * Возвращает счётчики мин вдоль осей сетки; при первом вызове строит их за O(rows * cols),
+     * далее они обновляются при каждом изменении ячейки.
+     */
+    AxisLines getAxisLines() {
+        if (axisLines == null) {
+            axisLines = new AxisLines(rows, cols, storage, mineBits, this::getKnownState);
+        }
+        return axisLines;
+    }
+
+    /**
+     * Известное игроку состояние ячеек для распространителей правил (см. getKnownState),
+     * вместе со счётчиками осей.
+     */
+    CompiledRule.CellStates getKnownStates() {
+        return knownStates;
+    }
+
+    /**
+     * Возвращает известное игроку состояние ячейки без создания объектов: флаг считается миной.
+     * @param index Плоский индекс r * cols + q
+     * @return SequenceRunTracker.UNKNOWN, MINE или SAFE
+     */
+    byte getKnownState(int index) {
+        if (flaggedBits.get(index)) {
+            return SequenceRunTracker.MINE;
+        }
+        if (!revealedBits.get(index)) {
+            return SequenceRunTracker.UNKNOWN;
+        }
+        return mineBits.get(index) ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE;
     }
 
     /**
@@ -88,6 +396,28 @@ public class Board {
      * @return true, если ячейка открыта успешно, false, если игра завершена или ячейка уже открыта/флагована
      */
     public boolean revealCell(HexCoord coord) {
+        if (!GameMetrics.ENABLED) {
+            return doRevealCell(coord);
+        }
+        GameEvents.RevealEvent event = new GameEvents.RevealEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean revealed = doRevealCell(coord);
+        GameMetrics.REVEAL.recordSince(start);
+        if (revealed) {
+            GameMetrics.cellRevealed();
+        }
+        if (event.shouldCommit()) {
+            event.q = coord.getQ();
+            event.r = coord.getR();
+            event.revealed = revealed;
+            event.mine = revealed && getCell(coord).isMine();
+            event.commit();
+        }
+        return revealed;
+    }
+
+    private boolean doRevealCell(HexCoord coord) {
         if (gameOver || gameWon) {
             return false;
         }
@@ -97,25 +427,29 @@ public class Board {
             return false;
         }
 
-        cell.setRevealed(true);
-        if (cell.isMine()) {
-            gameOver = true;
-            return true;
-        }
-
-        // Рассчитываем revealedValue
-        int mineCount = 0;
-        for (HexCoord neighborCoord : getNeighbors(coord)) {
-            Cell neighbor = getCell(neighborCoord);
-            if (neighbor != null && neighbor.isMine()) {
-                mineCount++;
+        beginChange();
+        try {
+            cell.setRevealed(true);
+            int index = cellIndex(coord);
+            revealedBits.set(index);
+            moveCount++;
+            zobristHash ^= Zobrist.cellKey(index, Zobrist.REVEALED);
+            markChanged(coord);
+            if (cell.isMine()) {
+                gameOver = true;
+                return true;
             }
-        }
-        cell.setRevealedValue(mineCount);
 
-        // Проверяем условия победы
-        checkWinCondition();
-        return true;
+            // revealedValue берётся из заранее посчитанных чисел соседних мин
+            cell.setRevealedValue(storage.getNeighborMines(coord.getQ(), coord.getR()));
+
+            // Проверяем условия победы по счётчикам, без обхода всей доски
+            hiddenSafeCells--;
+            updateWinState();
+            return true;
+        } finally {
+            endChange();
+        }
     }
 
     /**
@@ -133,26 +467,146 @@ public class Board {
             return false;
         }
 
-        cell.setFlagged(!cell.isFlagged());
-        return true;
+        beginChange();
+        try {
+            cell.setFlagged(!cell.isFlagged());
+            int index = cellIndex(coord);
+            flaggedBits.flip(index);
+            moveCount++;
+            zobristHash ^= Zobrist.cellKey(index, Zobrist.FLAGGED);
+            markChanged(coord);
+            if (cell.isMine()) {
+                unflaggedMines += cell.isFlagged() ? -1 : 1;
+            }
+            updateWinState();
+            return true;
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Восстанавливает ход партии на текущем уровне: открытые ячейки, флаги и число ходов.
+     * Уровень должен быть уже инициализирован; биты отсутствующих ячеек игнорируются.
+     * Подписчики получают одно событие сброса.
+     * @param revealed Маска открытых ячеек (бит r * cols + q)
+     * @param flagged Маска флагов
+     * @param moves Число сделанных ходов
+     */
+    public void restoreProgress(CellBits revealed, CellBits flagged, int moves) {
+        if (revealed.wordCount() != mineBits.wordCount() || flagged.wordCount() != mineBits.wordCount()) {
+            throw new IllegalArgumentException("Размер масок не соответствует доске " + rows + "x" + cols);
+        }
+        beginChange();
+        try {
+            revealedBits.clear();
+            flaggedBits.clear();
+            zobristHash = levelKey;
+            gameOver = false;
+            gameWon = false;
+            buildSequenceTrackers();
+            axisLines = null;
+            storage.forEach((q, r, cell) -> {
+                int index = r * cols + q;
+                boolean isRevealed = revealed.get(index);
+                boolean isFlagged = !isRevealed && flagged.get(index);
+                cell.setRevealed(isRevealed);
+                cell.setFlagged(isFlagged);
+                cell.setRevealedValue(-1);
+                if (isRevealed) {
+                    revealedBits.set(index);
+                    zobristHash ^= Zobrist.cellKey(index, Zobrist.REVEALED);
+                    gameOver |= cell.isMine();
+                }
+                if (isFlagged) {
+                    flaggedBits.set(index);
+                    zobristHash ^= Zobrist.cellKey(index, Zobrist.FLAGGED);
+                }
+                if (isRevealed || isFlagged) {
+                    updateSequenceTrackers(index, cell);
+                }
+            });
+            calculateAllNeighborRules();
+            recountWinCounters();
+            updateWinState();
+            moveCount = moves;
+            pendingReset = true;
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Выполняет несколько изменений доски одним пакетом:
+     * подписчики получат одно объединённое событие после завершения действия.
+     * @param action Действие, изменяющее доску
+     */
+    public void runBatch(Runnable action) {
+        beginChange();
+        try {
+            action.run();
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Подписывает слушателя на изменения доски.
+     * @param listener Слушатель
+     */
+    public void addBoardListener(BoardListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Слушатель не может быть null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Отписывает слушателя от изменений доски.
+     * @param listener Слушатель
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
     }
 
     /**
      * Возвращает ячейку по координатам.
      * @param coord Координаты
-     * @return Ячейка или null, если координаты вне сетки
+     * @return Ячейка или null, если координаты вне сетки или ячейки нет в уровне
      */
     public Cell getCell(HexCoord coord) {
-        int q = coord.getQ();
-        int r = coord.getR();
-        if (q >= 0 && q < cols && r >= 0 && r < rows) {
-            return grid[r][q];
-        }
-        return null;
+        return storage.get(coord.getQ(), coord.getR());
     }
 
     /**
-     * Возвращает соседей ячейки в гексагональной сетке.
+     * Проверяет, существует ли ячейка в уровне.
+     * @param q Координата q
+     * @param r Координата r
+     * @return true, если ячейка есть (для прямоугольных уровней — если координаты в пределах сетки)
+     */
+    public boolean hasCell(int q, int r) {
+        return storage.contains(q, r);
+    }
+
+    /**
+     * Возвращает количество существующих ячеек уровня.
+     * @return Количество ячеек
+     */
+    public int getCellCount() {
+        return storage.size();
+    }
+
+    /**
+     * Обходит все существующие ячейки построчно.
+     * Для уровней произвольной формы пустые области пропускаются целыми блоками.
+     * @param visitor Обработчик ячеек
+     */
+    public void forEachCell(CellVisitor visitor) {
+        storage.forEach(visitor);
+    }
+
+    /**
+     * Возвращает существующих соседей ячейки в гексагональной сетке.
      * @param coord Координаты ячейки
      * @return Список координат соседей
      */
@@ -161,15 +615,10 @@ public class Board {
         int q = coord.getQ();
         int r = coord.getR();
 
-        // Смещения для соседей в гексагональной сетке (остроконечные гексагоны)
-        int[][] offsets = {
-                {+1, 0}, {-1, 0}, {0, +1}, {0, -1}, {+1, -1}, {-1, +1}
-        };
-
-        for (int[] offset : offsets) {
+        for (int[] offset : NEIGHBOR_OFFSETS) {
             int nq = q + offset[0];
             int nr = r + offset[1];
-            if (nq >= 0 && nq < cols && nr >= 0 && nr < rows) {
+            if (storage.contains(nq, nr)) {
                 neighbors.add(new HexCoord(nq, nr));
             }
         }
@@ -185,25 +634,115 @@ public class Board {
         return new ArrayList<>(activeRules);
     }
 
+    /**
+     * Возвращает скомпилированные правила уровня (в порядке getActiveRules()).
+     * @return CompiledRules
+     */
+    public CompiledRules getCompiledRules() {
+        return compiledRules;
+    }
+
+    /**
+     * Проверяет все правила уровня на текущей раскладке мин.
+     * @return true, если выполнены все правила
+     */
+    public boolean areRulesSatisfied() {
+        return compiledRules.allSatisfied(mineBits);
+    }
+
+    /**
+     * Возвращает хеш Зобриста текущего состояния (уровень, открытые ячейки, флаги).
+     * Поддерживается инкрементально при каждом открытии и смене флага.
+     * @return 64-битный хеш
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Пересчитывает хеш Зобриста обходом всей доски (для проверки инкрементального значения).
+     * @return 64-битный хеш
+     */
+    public long computeZobristHash() {
+        long[] hash = {levelKey};
+        storage.forEach((q, r, cell) -> {
+            if (cell.isRevealed()) {
+                hash[0] ^= Zobrist.cellKey(r * cols + q, Zobrist.REVEALED);
+            }
+            if (cell.isFlagged()) {
+                hash[0] ^= Zobrist.cellKey(r * cols + q, Zobrist.FLAGGED);
+            }
+        });
+        return hash[0];
+    }
+
+    /**
+     * Возвращает ключ Зобриста уровня: мины, правила и форма, без хода партии.
+     * @return 64-битный ключ
+     */
+    public long getLevelKey() {
+        return levelKey;
+    }
+
+    /**
+     * Возвращает копию маски открытых ячеек (бит r * cols + q).
+     * @return Маска открытых ячеек
+     */
+    public CellBits getRevealedBits() {
+        return revealedBits.copy();
+    }
+
+    /**
+     * Возвращает копию маски флагов (бит r * cols + q).
+     * @return Маска флагов
+     */
+    public CellBits getFlaggedBits() {
+        return flaggedBits.copy();
+    }
+
+    /**
+     * Возвращает число сделанных ходов: открытий ячеек и переключений флагов.
+     * @return Число ходов
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Возвращает копию битовой маски мин (бит r * cols + q).
+     * @return Маска мин
+     */
+    public CellBits getMineBits() {
+        return mineBits.copy();
+    }
+
+    /**
+     * Возвращает число мин среди соседей ячейки (посчитано при инициализации уровня).
+     * @param coord Координаты существующей ячейки
+     * @return Число соседних мин
+     */
+    public int getNeighborMineCount(HexCoord coord) {
+        return storage.getNeighborMines(coord.getQ(), coord.getR());
+    }
+
+    /**
+     * Возвращает плоский индекс ячейки (r * cols + q).
+     * @param coord Координаты ячейки в пределах сетки
+     * @return Индекс ячейки
+     */
+    public int cellIndex(HexCoord coord) {
+        return coord.getR() * cols + coord.getQ();
+    }
+
     /**
      * Рассчитывает revealedValue для всех ячеек.
      */
     private void calculateAllNeighborRules() {
-        for (int r = 0; r < rows; r++) {
-            for (int q = 0; q < cols; q++) {
-                Cell cell = grid[r][q];
-                if (cell.isRevealed() && !cell.isMine()) {
-                    int mineCount = 0;
-                    for (HexCoord neighborCoord : getNeighbors(new HexCoord(q, r))) {
-                        Cell neighbor = getCell(neighborCoord);
-                        if (neighbor != null && neighbor.isMine()) {
-                            mineCount++;
-                        }
-                    }
-                    cell.setRevealedValue(mineCount);
-                }
+        storage.forEach((q, r, cell) -> {
+            if (cell.isRevealed() && !cell.isMine()) {
+                cell.setRevealedValue(storage.getNeighborMines(q, r));
             }
-        }
+        });
     }
 
     /**
@@ -211,26 +750,105 @@ public class Board {
      */
     public boolean checkWinCondition() {
         // Победа: все мины помечены флагами, а все не-мины открыты
-        boolean allMinesFlagged = true;
-        boolean allNonMinesRevealed = true;
-
-        for (int r = 0; r < rows; r++) {
-            for (int q = 0; q < cols; q++) {
-                Cell cell = grid[r][q];
-                if (cell.isMine() && !cell.isFlagged()) {
-                    allMinesFlagged = false;
-                }
-                if (!cell.isMine() && !cell.isRevealed()) {
-                    allNonMinesRevealed = false;
-                }
+        recountWinCounters();
+        boolean allMinesFlagged = unflaggedMines == 0;
+        boolean allNonMinesRevealed = hiddenSafeCells == 0;
+
+        if (allMinesFlagged && allNonMinesRevealed && !gameWon) {
+            beginChange();
+            try {
+                gameWon = true;
+                gameOver = true;
+            } finally {
+                endChange();
             }
         }
+        return allMinesFlagged;
+    }
 
-        if (allMinesFlagged && allNonMinesRevealed) {
+    /**
+     * Пересчитывает счётчики условия победы полным обходом доски.
+     */
+    private void recountWinCounters() {
+        hiddenSafeCells = 0;
+        unflaggedMines = 0;
+        storage.forEach((q, r, cell) -> {
+            if (cell.isMine() && !cell.isFlagged()) {
+                unflaggedMines++;
+            }
+            if (!cell.isMine() && !cell.isRevealed()) {
+                hiddenSafeCells++;
+            }
+        });
+    }
+
+    /**
+     * Фиксирует победу, если все мины помечены, а все безопасные ячейки открыты.
+     */
+    private void updateWinState() {
+        if (hiddenSafeCells == 0 && unflaggedMines == 0) {
             gameWon = true;
             gameOver = true;
         }
-        return allMinesFlagged;
+    }
+
+    /**
+     * Открывает пакет изменений (пакеты могут быть вложенными).
+     */
+    private void beginChange() {
+        if (batchDepth++ == 0) {
+            batchWasGameOver = gameOver;
+            batchWasGameWon = gameWon;
+        }
+    }
+
+    /**
+     * Закрывает пакет изменений; при закрытии внешнего пакета рассылает одно событие.
+     */
+    private void endChange() {
+        if (--batchDepth > 0) {
+            return;
+        }
+        boolean stateChanged = batchWasGameOver != gameOver || batchWasGameWon != gameWon;
+        if (!pendingReset && pendingCount == 0 && !stateChanged) {
+            return;
+        }
+
+        List<HexCoord> changed = new ArrayList<>(pendingReset ? 0 : pendingCount);
+        Arrays.sort(pendingList, 0, pendingCount);
+        for (int i = 0; i < pendingCount; i++) {
+            int index = pendingList[i];
+            pendingCells.clear(index);
+            if (!pendingReset) {
+                changed.add(new HexCoord(index % cols, index / cols));
+            }
+        }
+        pendingCount = 0;
+        BoardChangeEvent event = new BoardChangeEvent(this, changed, pendingReset,
+                batchWasGameOver, batchWasGameWon, gameOver, gameWon);
+        pendingReset = false;
+
+        for (BoardListener listener : new ArrayList<>(listeners)) {
+            listener.boardChanged(event);
+        }
+    }
+
+    /**
+     * Отмечает ячейку как изменившуюся в текущем пакете.
+     */
+    private void markChanged(HexCoord coord) {
+        int index = cellIndex(coord);
+        if (!pendingCells.get(index)) {
+            pendingCells.set(index);
+            if (pendingCount == pendingList.length) {
+                pendingList = Arrays.copyOf(pendingList, pendingCount * 2);
+            }
+            pendingList[pendingCount++] = index;
+        }
+        updateSequenceTrackers(index, storage.get(coord.getQ(), coord.getR()));
+        if (axisLines != null) {
+            axisLines.update(index, getKnownState(index));
+        }
     }
 
     /**
@@ -271,7 +889,12 @@ public class Board {
      * @param gameOver Новое состояние
      */
     public void setGameOver(boolean gameOver) {
-        this.gameOver = gameOver;
+        beginChange();
+        try {
+            this.gameOver = gameOver;
+        } finally {
+            endChange();
+        }
     }
 
     /**
@@ -279,10 +902,22 @@ public class Board {
      * @param gameWon Новое состояние
      */
     public void setGameWon(boolean gameWon) {
-        this.gameWon = gameWon;
+        beginChange();
+        try {
+            this.gameWon = gameWon;
+        } finally {
+            endChange();
+        }
     }
 
+    /**
+     * Возвращает ячейки в виде массива rows × cols (null для отсутствующих ячеек).
+     * Массив создаётся при каждом вызове; для больших карт используйте {@link #forEachCell}.
+     * @return Массив ячеек
+     */
     public Cell[][] getGrid() {
+        Cell[][] grid = new Cell[rows][cols];
+        storage.forEach((q, r, cell) -> grid[r][q] = cell);
         return grid;
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package hexcells;
+
+import java.util.List;
+
+/**
+ * Событие изменения доски: набор изменившихся ячеек и переход состояния игры.
+ * Каждая ячейка входит в набор не более одного раза, сколько бы раз она ни менялась в пакете.
+ */
+public class BoardChangeEvent {
+    private final Board source;
+    private final List<HexCoord> changedCells;
+    private final boolean reset;
+    private final boolean wasGameOver;
+    private final boolean wasGameWon;
+    private final boolean gameOver;
+    private final boolean gameWon;
+
+    /**
+     * Конструктор.
+     * @param source Доска, на которой произошли изменения
+     * @param changedCells Изменившиеся ячейки (без повторов)
+     * @param reset true, если доска была полностью переинициализирована
+     * @param wasGameOver Состояние завершения игры до изменения
+     * @param wasGameWon Состояние победы до изменения
+     * @param gameOver Состояние завершения игры после изменения
+     * @param gameWon Состояние победы после изменения
+     */
+    public BoardChangeEvent(Board source, List<HexCoord> changedCells, boolean reset,
+                            boolean wasGameOver, boolean wasGameWon, boolean gameOver, boolean gameWon) {
+        this.source = source;
+        this.changedCells = List.copyOf(changedCells);
+        this.reset = reset;
+        this.wasGameOver = wasGameOver;
+        this.wasGameWon = wasGameWon;
+        this.gameOver = gameOver;
+        this.gameWon = gameWon;
+    }
+
+    public Board getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает изменившиеся ячейки. При {@link #isReset()} список пуст — изменилась вся доска.
+     */
+    public List<HexCoord> getChangedCells() {
+        return changedCells;
+    }
+
+    /**
+     * Проверяет, была ли доска переинициализирована целиком (новый уровень).
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Проверяет, изменилось ли состояние игры (завершение, победа).
+     */
+    public boolean isGameStateChanged() {
+        return wasGameOver != gameOver || wasGameWon != gameWon;
+    }
+
+    public boolean wasGameOver() {
+        return wasGameOver;
+    }
+
+    public boolean wasGameWon() {
+        return wasGameWon;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameWon() {
+        return gameWon;
+    }
+}
\ No newline at end of file
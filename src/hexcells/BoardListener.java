@@ -0,0 +1,14 @@
+package hexcells;
+
+/**
+ * Слушатель изменений игровой доски.
+ * Получает объединённые пакеты изменений: один вызов на одно действие игрока
+ * (или на пакет, открытый через {@link Board#runBatch(Runnable)}).
+ */
+public interface BoardListener {
+    /**
+     * Вызывается после завершения изменения доски.
+     * @param event Набор изменившихся ячеек и переходы состояния игры
+     */
+    void boardChanged(BoardChangeEvent event);
+}
\ No newline at end of file
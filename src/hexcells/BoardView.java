@@ -0,0 +1,101 @@
+package hexcells;
+
+/**
+ * Видимое игроку состояние доски для поиска подсказок: форма уровня, маски открытых
+ * ячеек, флагов и мин и скомпилированные правила. Объекты Cell не используются.
+ * Представление Board.view() разделяет маски с доской и действительно до её следующего
+ * изменения; снимок Board.knownSnapshot() копирует маски и читается из любого потока.
+ */
+final class BoardView {
+    private final int rows;
+    private final int cols;
+    private final CellMask shape;
+    private final CellBits mineBits;
+    private final CellBits revealedBits;
+    private final CellBits flaggedBits;
+    private final CompiledRules rules;
+    private final CompiledRule.CellStates states;
+
+    /**
+     * Конструктор.
+     * @param shape Форма уровня (присутствие ячеек не должно меняться)
+     * @param states Известное состояние ячеек или null, чтобы читать его из масок
+     */
+    BoardView(int rows, int cols, CellMask shape, CellBits mineBits, CellBits revealedBits, CellBits flaggedBits,
+              CompiledRules rules, CompiledRule.CellStates states) {
+        this.rows = rows;
+        this.cols = cols;
+        this.shape = shape;
+        this.mineBits = mineBits;
+        this.revealedBits = revealedBits;
+        this.flaggedBits = flaggedBits;
+        this.rules = rules;
+        this.states = states != null ? states : this::getKnownState;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getCols() {
+        return cols;
+    }
+
+    boolean hasCell(int q, int r) {
+        return shape.contains(q, r);
+    }
+
+    /**
+     * Маски мин, открытых ячеек и флагов (бит r * cols + q). Не копируются и не должны изменяться.
+     */
+    CellBits getMineBits() {
+        return mineBits;
+    }
+
+    CellBits getRevealedBits() {
+        return revealedBits;
+    }
+
+    CellBits getFlaggedBits() {
+        return flaggedBits;
+    }
+
+    CompiledRules getCompiledRules() {
+        return rules;
+    }
+
+    /**
+     * Известное состояние ячеек для распространителей правил.
+     */
+    CompiledRule.CellStates getKnownStates() {
+        return states;
+    }
+
+    /**
+     * Известное игроку состояние ячейки, как Board.getKnownState: флаг считается миной.
+     */
+    byte getKnownState(int index) {
+        if (flaggedBits.get(index)) {
+            return SequenceRunTracker.MINE;
+        }
+        if (!revealedBits.get(index)) {
+            return SequenceRunTracker.UNKNOWN;
+        }
+        return mineBits.get(index) ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE;
+    }
+
+    /**
+     * Считает мины среди существующих соседей ячейки по маске мин.
+     */
+    int getNeighborMineCount(int q, int r) {
+        int count = 0;
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            int nq = q + offset[0];
+            int nr = r + offset[1];
+            if (shape.contains(nq, nr) && mineBits.get(nr * cols + nq)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package hexcells;
+
+import java.util.Arrays;
+
+/**
+ * Битовое множество ячеек в плоской нумерации r * cols + q.
+ * Слова выделяются страницами по 1024 бита при первой установке бита в странице,
+ * поэтому память растёт с числом занятых участков уровня, а не с площадью
+ * прямоугольника: каталог страниц занимает одну ссылку на 1024 ячейки площади
+ * (ср. каталог блоков CellStorage.Chunked).
+ */
+public final class CellBits {
+    private static final int PAGE_SHIFT = 4; // Слов в странице: 1 << PAGE_SHIFT
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_WORDS - 1;
+
+    private final int wordCount;
+    private final long[][] pages;
+
+    /**
+     * Создаёт пустое множество для сетки rows × cols.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @throws IllegalArgumentException если плоские индексы сетки не помещаются в int
+     */
+    CellBits(int rows, int cols) {
+        this.wordCount = (int) ((area(rows, cols) + 63) >>> 6);
+        this.pages = new long[(wordCount + PAGE_MASK) >>> PAGE_SHIFT][];
+    }
+
+    private CellBits(CellBits other) {
+        this.wordCount = other.wordCount;
+        this.pages = new long[other.pages.length][];
+        for (int i = 0; i < pages.length; i++) {
+            if (other.pages[i] != null) {
+                pages[i] = other.pages[i].clone();
+            }
+        }
+    }
+
+    /**
+     * Возвращает площадь сетки rows × cols.
+     * @throws IllegalArgumentException если размеры отрицательны или плоский индекс
+     *         r * cols + q не помещается в int
+     */
+    static long area(int rows, int cols) {
+        long area = (long) rows * cols;
+        if (rows < 0 || cols < 0 || area > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Недопустимый размер сетки " + rows + "x" + cols);
+        }
+        return area;
+    }
+
+    /**
+     * Проверяет бит ячейки.
+     * @param index Плоский индекс r * cols + q
+     */
+    public boolean get(int index) {
+        long[] page = pages[index >>> (6 + PAGE_SHIFT)];
+        return page != null && (page[(index >>> 6) & PAGE_MASK] & (1L << index)) != 0;
+    }
+
+    /**
+     * Возвращает слово с битами ячеек 64 * wordIndex .. 64 * wordIndex + 63
+     * (0 для невыделенной страницы).
+     */
+    public long word(int wordIndex) {
+        long[] page = pages[wordIndex >>> PAGE_SHIFT];
+        return page == null ? 0 : page[wordIndex & PAGE_MASK];
+    }
+
+    /**
+     * Возвращает число слов, покрывающих всю сетку.
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+
+    void set(int index) {
+        page(index >>> 6)[(index >>> 6) & PAGE_MASK] |= 1L << index;
+    }
+
+    void set(int index, boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    void clear(int index) {
+        long[] page = pages[index >>> (6 + PAGE_SHIFT)];
+        if (page != null) {
+            page[(index >>> 6) & PAGE_MASK] &= ~(1L << index);
+        }
+    }
+
+    void flip(int index) {
+        page(index >>> 6)[(index >>> 6) & PAGE_MASK] ^= 1L << index;
+    }
+
+    /**
+     * Записывает слово целиком; нулевое слово не выделяет страницу.
+     */
+    void setWord(int wordIndex, long value) {
+        if (value != 0 || pages[wordIndex >>> PAGE_SHIFT] != null) {
+            page(wordIndex)[wordIndex & PAGE_MASK] = value;
+        }
+    }
+
+    /**
+     * Сбрасывает все биты и освобождает страницы.
+     */
+    void clear() {
+        Arrays.fill(pages, null);
+    }
+
+    /**
+     * Возвращает индекс следующего ненулевого слова начиная с from или -1.
+     * Невыделенные страницы пропускаются целиком.
+     */
+    public int nextNonZeroWord(int from) {
+        for (int wordIndex = from; wordIndex < wordCount; ) {
+            long[] page = pages[wordIndex >>> PAGE_SHIFT];
+            if (page == null) {
+                wordIndex = (wordIndex | PAGE_MASK) + 1;
+                continue;
+            }
+            if (page[wordIndex & PAGE_MASK] != 0) {
+                return wordIndex;
+            }
+            wordIndex++;
+        }
+        return -1;
+    }
+
+    /**
+     * Создаёт независимую копию.
+     */
+    CellBits copy() {
+        return new CellBits(this);
+    }
+
+    private long[] page(int wordIndex) {
+        long[] page = pages[wordIndex >>> PAGE_SHIFT];
+        if (page == null) {
+            page = new long[PAGE_WORDS];
+            pages[wordIndex >>> PAGE_SHIFT] = page;
+        }
+        return page;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package hexcells;
+
+/**
+ * Форма уровня: какие ячейки прямоугольника rows × cols существуют.
+ */
+@FunctionalInterface
+public interface CellMask {
+    /**
+     * Проверяет, существует ли ячейка.
+     * @param q Координата q
+     * @param r Координата r
+     * @return true, если ячейка есть в уровне (координаты вне прямоугольника дают false)
+     */
+    boolean contains(int q, int r);
+
+    /**
+     * Возвращает маску полного прямоугольника.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @return Маска, содержащая все ячейки в пределах сетки
+     */
+    static CellMask rectangle(int rows, int cols) {
+        return (q, r) -> q >= 0 && q < cols && r >= 0 && r < rows;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package hexcells;
+
+/**
+ * Хранилище ячеек доски вместе с заранее посчитанными числами соседних мин.
+ * Плотный вариант держит полный массив rows × cols, разреженный — квадратные
+ * блоки 16 × 16, создаваемые только там, где есть хотя бы одна ячейка уровня.
+ * Отсутствующие ячейки хранятся как null, так что маска присутствия не требует
+ * отдельной памяти.
+ */
+abstract class CellStorage implements CellMask {
+    protected final int rows;
+    protected final int cols;
+
+    protected CellStorage(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Создаёт хранилище под форму уровня: плотное для прямоугольных уровней,
+     * блочное для уровней произвольной формы.
+     * @param source Источник данных уровня
+     * @param rows Количество строк доски
+     * @param cols Количество столбцов доски
+     * @return Хранилище со свежими ячейками
+     */
+    static CellStorage create(LevelSource source, int rows, int cols) {
+        if (source.isRectangular()) {
+            return new Dense(rows, cols);
+        }
+        Chunked storage = new Chunked(rows, cols);
+        source.forEachCell(storage::add);
+        return storage;
+    }
+
+    /**
+     * Возвращает ячейку или null, если её нет в уровне или координаты вне сетки.
+     */
+    abstract Cell get(int q, int r);
+
+    abstract int getNeighborMines(int q, int r);
+
+    abstract void setNeighborMines(int q, int r, int count);
+
+    /**
+     * Обходит все существующие ячейки.
+     */
+    abstract void forEach(CellVisitor visitor);
+
+    /**
+     * Обходит существующие ячейки строки r в порядке возрастания q.
+     */
+    abstract void forEachInRow(int r, CellVisitor visitor);
+
+    /**
+     * Возвращает количество существующих ячеек.
+     */
+    abstract int size();
+
+    /**
+     * Проверяет, заполнен ли весь прямоугольник rows × cols.
+     */
+    abstract boolean isFull();
+
+    /**
+     * Создаёт независимую копию хранилища с копиями ячеек.
+     */
+    abstract CellStorage copy();
+
+    /**
+     * Копирует состояние ячейки.
+     */
+    static Cell copyCell(Cell cell) {
+        Cell copy = new Cell();
+        copy.setMine(cell.isMine());
+        copy.setRevealed(cell.isRevealed());
+        copy.setFlagged(cell.isFlagged());
+        copy.setRevealedValue(cell.getRevealedValue());
+        return copy;
+    }
+
+    @Override
+    public boolean contains(int q, int r) {
+        return get(q, r) != null;
+    }
+
+    /**
+     * Полный прямоугольный массив ячеек.
+     */
+    static final class Dense extends CellStorage {
+        private final Cell[][] grid;
+        private final byte[] neighborMines;
+
+        Dense(int rows, int cols) {
+            super(rows, cols);
+            this.grid = new Cell[rows][cols];
+            this.neighborMines = new byte[rows * cols];
+            for (int r = 0; r < rows; r++) {
+                for (int q = 0; q < cols; q++) {
+                    grid[r][q] = new Cell();
+                }
+            }
+        }
+
+        private Dense(Dense other) {
+            super(other.rows, other.cols);
+            this.grid = new Cell[rows][cols];
+            this.neighborMines = other.neighborMines.clone();
+            for (int r = 0; r < rows; r++) {
+                for (int q = 0; q < cols; q++) {
+                    grid[r][q] = copyCell(other.grid[r][q]);
+                }
+            }
+        }
+
+        @Override
+        CellStorage copy() {
+            return new Dense(this);
+        }
+
+        @Override
+        Cell get(int q, int r) {
+            if (q >= 0 && q < cols && r >= 0 && r < rows) {
+                return grid[r][q];
+            }
+            return null;
+        }
+
+        @Override
+        int getNeighborMines(int q, int r) {
+            return neighborMines[r * cols + q];
+        }
+
+        @Override
+        void setNeighborMines(int q, int r, int count) {
+            neighborMines[r * cols + q] = (byte) count;
+        }
+
+        @Override
+        void forEach(CellVisitor visitor) {
+            for (int r = 0; r < rows; r++) {
+                forEachInRow(r, visitor);
+            }
+        }
+
+        @Override
+        void forEachInRow(int r, CellVisitor visitor) {
+            Cell[] row = grid[r];
+            for (int q = 0; q < cols; q++) {
+                visitor.visit(q, r, row[q]);
+            }
+        }
+
+        @Override
+        int size() {
+            return rows * cols;
+        }
+
+        @Override
+        boolean isFull() {
+            return true;
+        }
+    }
+
+    /**
+     * Блоки 16 × 16, выделяемые по требованию. Каталог блоков занимает одну ссылку
+     * на 256 ячеек площади, память под ячейки — только в непустых блоках.
+     */
+    static final class Chunked extends CellStorage {
+        private static final int SHIFT = 4;
+        private static final int SIZE = 1 << SHIFT;
+        private static final int MASK = SIZE - 1;
+
+        private final int chunkCols;
+        private final Chunk[] chunks;
+        private int size;
+
+        Chunked(int rows, int cols) {
+            super(rows, cols);
+            this.chunkCols = (cols + MASK) >> SHIFT;
+            int chunkRows = (rows + MASK) >> SHIFT;
+            this.chunks = new Chunk[chunkRows * chunkCols];
+        }
+
+        private Chunked(Chunked other) {
+            super(other.rows, other.cols);
+            this.chunkCols = other.chunkCols;
+            this.chunks = new Chunk[other.chunks.length];
+            this.size = other.size;
+            for (int i = 0; i < chunks.length; i++) {
+                Chunk source = other.chunks[i];
+                if (source != null) {
+                    Chunk chunk = new Chunk();
+                    for (int slot = 0; slot < source.cells.length; slot++) {
+                        if (source.cells[slot] != null) {
+                            chunk.cells[slot] = copyCell(source.cells[slot]);
+                        }
+                    }
+                    System.arraycopy(source.neighborMines, 0, chunk.neighborMines, 0, source.neighborMines.length);
+                    chunks[i] = chunk;
+                }
+            }
+        }
+
+        @Override
+        CellStorage copy() {
+            return new Chunked(this);
+        }
+
+        /**
+         * Добавляет ячейку уровня; координаты вне сетки и повторы игнорируются.
+         */
+        void add(int q, int r) {
+            if (q < 0 || q >= cols || r < 0 || r >= rows) {
+                return;
+            }
+            int chunkIndex = (r >> SHIFT) * chunkCols + (q >> SHIFT);
+            Chunk chunk = chunks[chunkIndex];
+            if (chunk == null) {
+                chunk = new Chunk();
+                chunks[chunkIndex] = chunk;
+            }
+            int slot = (r & MASK) << SHIFT | (q & MASK);
+            if (chunk.cells[slot] == null) {
+                chunk.cells[slot] = new Cell();
+                size++;
+            }
+        }
+
+        @Override
+        Cell get(int q, int r) {
+            if (q < 0 || q >= cols || r < 0 || r >= rows) {
+                return null;
+            }
+            Chunk chunk = chunks[(r >> SHIFT) * chunkCols + (q >> SHIFT)];
+            return chunk == null ? null : chunk.cells[(r & MASK) << SHIFT | (q & MASK)];
+        }
+
+        @Override
+        int getNeighborMines(int q, int r) {
+            Chunk chunk = chunks[(r >> SHIFT) * chunkCols + (q >> SHIFT)];
+            return chunk == null ? 0 : chunk.neighborMines[(r & MASK) << SHIFT | (q & MASK)];
+        }
+
+        @Override
+        void setNeighborMines(int q, int r, int count) {
+            Chunk chunk = chunks[(r >> SHIFT) * chunkCols + (q >> SHIFT)];
+            if (chunk != null) {
+                chunk.neighborMines[(r & MASK) << SHIFT | (q & MASK)] = (byte) count;
+            }
+        }
+
+        @Override
+        void forEach(CellVisitor visitor) {
+            for (int r = 0; r < rows; r++) {
+                forEachInRow(r, visitor);
+            }
+        }
+
+        @Override
+        void forEachInRow(int r, CellVisitor visitor) {
+            int rowBase = (r & MASK) << SHIFT;
+            int chunkBase = (r >> SHIFT) * chunkCols;
+            for (int cq = 0; cq < chunkCols; cq++) {
+                Chunk chunk = chunks[chunkBase + cq];
+                if (chunk == null) {
+                    continue;
+                }
+                int q0 = cq << SHIFT;
+                for (int i = 0; i < SIZE; i++) {
+                    Cell cell = chunk.cells[rowBase + i];
+                    if (cell != null) {
+                        visitor.visit(q0 + i, r, cell);
+                    }
+                }
+            }
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        boolean isFull() {
+            return size == rows * cols;
+        }
+
+        private static final class Chunk {
+            final Cell[] cells = new Cell[SIZE * SIZE];
+            final byte[] neighborMines = new byte[SIZE * SIZE];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package hexcells;
+
+/**
+ * Обработчик ячеек при обходе доски; вызывается только для существующих ячеек.
+ */
+@FunctionalInterface
+public interface CellVisitor {
+    void visit(int q, int r, Cell cell);
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package hexcells;
+
+/**
+ * Скомпилированное правило-счётчик: ровно expected мин среди ячеек.
+ * Общая реализация для GroupRule и EdgeRule.
+ */
+final class CompiledCountRule implements CompiledRule {
+    private final int[] cells;
+    private final int expected;
+    private final HintTechnique technique;
+    private final byte evaluationType;
+
+    /**
+     * Конструктор.
+     * @param technique Приём подсказок правила
+     * @param evaluationType Тег проверки в CompiledRules (TYPE_GROUP, TYPE_EDGE или TYPE_CUSTOM)
+     */
+    CompiledCountRule(int[] cells, int expected, HintTechnique technique, byte evaluationType) {
+        this.cells = cells;
+        this.expected = expected;
+        this.technique = technique;
+        this.evaluationType = evaluationType;
+    }
+
+    @Override
+    public int[] getCellIndices() {
+        return cells;
+    }
+
+    @Override
+    public int getExpected() {
+        return expected;
+    }
+
+    @Override
+    public boolean isCount() {
+        return true;
+    }
+
+    @Override
+    public HintTechnique getTechnique() {
+        return technique;
+    }
+
+    @Override
+    public byte getEvaluationType() {
+        return evaluationType;
+    }
+
+    @Override
+    public boolean isSatisfied(CellBits mineBits) {
+        return CompiledRules.countMines(cells, mineBits) == expected;
+    }
+
+    /**
+     * Если все мины уже известны, остальные ячейки безопасны; если мины нужны во всех
+     * неизвестных ячейках, они все — мины.
+     */
+    @Override
+    public boolean propagate(CellStates states, DeductionSink sink) {
+        int remaining = expected;
+        int unknownCount = 0;
+        for (int index : cells) {
+            byte state = states.get(index);
+            if (state == SequenceRunTracker.MINE) {
+                remaining--;
+            } else if (state == SequenceRunTracker.UNKNOWN) {
+                unknownCount++;
+            }
+        }
+        if (unknownCount == 0 || (remaining != 0 && remaining != unknownCount)) {
+            return true;
+        }
+        for (int index : cells) {
+            if (states.get(index) == SequenceRunTracker.UNKNOWN && !sink.deduce(index, remaining != 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+package hexcells;
+
+/**
+ * Скомпилированное правило: ячейки в виде плоских индексов (r * cols + q), проверка по
+ * битовой маске мин и распространитель, выводящий ячейки по частично известной доске.
+ */
+public interface CompiledRule {
+    /**
+     * Известное состояние ячеек: SequenceRunTracker.UNKNOWN, MINE или SAFE.
+     */
+    @FunctionalInterface
+    interface CellStates {
+        byte get(int index);
+
+        /**
+         * Счётчики мин вдоль осей, согласованные с get(), или null, если их нет.
+         * Доска предоставляет их, чтобы правила-линии проверялись за O(log n).
+         */
+        default AxisLines getAxisLines() {
+            return null;
+        }
+    }
+
+    /**
+     * Получатель выводов распространителя.
+     */
+    @FunctionalInterface
+    interface DeductionSink {
+        /**
+         * @param index Плоский индекс выведенной ячейки
+         * @param mine true — мина, false — безопасна
+         * @return false, чтобы остановить распространение
+         */
+        boolean deduce(int index, boolean mine);
+    }
+
+    /**
+     * Ячейки, от которых зависит правило. Индекс CompiledRules.OFF_GRID допускается только
+     * в правилах, не являющихся счётчиками. Массив не копируется и не должен изменяться.
+     */
+    int[] getCellIndices();
+
+    /**
+     * Ожидаемое значение правила.
+     */
+    int getExpected();
+
+    /**
+     * Является ли правило счётчиком «ровно getExpected() мин среди ячеек».
+     * Счётчики участвуют в попарном сравнении и исключении Гаусса.
+     */
+    boolean isCount();
+
+    /**
+     * Приём, которым помечаются подсказки правила.
+     */
+    HintTechnique getTechnique();
+
+    /**
+     * Тег встроенной проверки в CompiledRules: TYPE_SEQUENCE, TYPE_GROUP или TYPE_EDGE
+     * объявляют только встроенные модули. TYPE_CUSTOM означает проверку через isSatisfied().
+     */
+    default byte getEvaluationType() {
+        return CompiledRules.TYPE_CUSTOM;
+    }
+
+    /**
+     * Параметры правила для ключа уровня (Zobrist.levelKey) сверх класса, ячеек и ожидаемого
+     * значения, например модификатор. Правила одного класса с одинаковыми ячейками и значением,
+     * но разной проверкой, должны возвращать разные значения. По умолчанию 0.
+     */
+    default long getKeyPayload() {
+        return 0;
+    }
+
+    /**
+     * Наибольшее допустимое ожидаемое значение: число ячеек правила в форме уровня.
+     * Проверяется валидатором уровня.
+     */
+    default int getCapacity() {
+        int capacity = 0;
+        for (int index : getCellIndices()) {
+            if (index != CompiledRules.OFF_GRID) {
+                capacity++;
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * Неопределённость правила для оценки сложности уровня: log2 числа раскладок его
+     * ячеек, совместимых с ним. По умолчанию C(n, k) для счётчиков и n для остальных правил.
+     */
+    default double getAmbiguity() {
+        int n = getCellIndices().length;
+        return isCount() ? CompiledRules.log2Binomial(n, getExpected()) : Math.log(Math.max(1, n)) / Math.log(2);
+    }
+
+    /**
+     * Проверяет правило на полной раскладке мин.
+     * @param mineBits Битовая маска мин (бит r * cols + q)
+     */
+    boolean isSatisfied(CellBits mineBits);
+
+    /**
+     * Выводит неизвестные ячейки правила. Распространитель не хранит состояния между
+     * вызовами; если правило противоречит известным ячейкам, выводов нет.
+     * @param states Известное состояние ячеек
+     * @param sink Получатель выводов
+     * @return false, если получатель остановил распространение
+     */
+    boolean propagate(CellStates states, DeductionSink sink);
+}
\ No newline at end of file
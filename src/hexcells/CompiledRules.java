@@ -0,0 +1,279 @@
+package hexcells;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Скомпилированное представление правил уровня.
+ * Каждое правило хранится как тег типа, массив плоских индексов ячеек (r * cols + q)
+ * и ожидаемое значение; проверка идёт по битовой маске мин без обращений к Cell и HexCoord.
+ * Компиляцию выполняет модуль правила из RuleRegistry; тег объявляет само скомпилированное
+ * правило (CompiledRule.getEvaluationType()): встроенные типы проверяются здесь напрямую,
+ * остальные (TYPE_CUSTOM) — их CompiledRule.
+ */
+public final class CompiledRules {
+    static final byte TYPE_SEQUENCE = 0;
+    static final byte TYPE_GROUP = 1;
+    static final byte TYPE_EDGE = 2;
+    static final byte TYPE_CUSTOM = 3;
+
+    /** Индекс-заглушка для ячейки вне сетки внутри последовательности (разрывает серию). */
+    static final int OFF_GRID = -1;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] types;
+    private final int[][] cells;
+    private final int[] expected;
+    private final CompiledRule[] compiled;
+
+    private CompiledRules(int rows, int cols, byte[] types, int[][] cells, int[] expected, CompiledRule[] compiled) {
+        this.rows = rows;
+        this.cols = cols;
+        this.types = types;
+        this.cells = cells;
+        this.expected = expected;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Компилирует правила для сетки заданного размера.
+     * @param rules Правила уровня
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @return Скомпилированные правила
+     * @throws IllegalArgumentException если тип правила не поддерживается
+     */
+    public static CompiledRules compile(List<Rule> rules, int rows, int cols) {
+        return compile(rules, rows, cols, CellMask.rectangle(rows, cols));
+    }
+
+    /**
+     * Компилирует правила для уровня произвольной формы.
+     * Отсутствующие ячейки трактуются так же, как ячейки вне сетки.
+     * @param rules Правила уровня
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param mask Форма уровня
+     * @return Скомпилированные правила
+     * @throws IllegalArgumentException если тип правила не поддерживается
+     */
+    public static CompiledRules compile(List<Rule> rules, int rows, int cols, CellMask mask) {
+        int n = rules.size();
+        byte[] types = new byte[n];
+        int[][] cells = new int[n][];
+        int[] expected = new int[n];
+        CompiledRule[] compiled = new CompiledRule[n];
+
+        for (int i = 0; i < n; i++) {
+            Rule rule = rules.get(i);
+            compiled[i] = RuleRegistry.providerOf(rule).compile(rule, cols, mask);
+            types[i] = compiled[i].getEvaluationType();
+            cells[i] = compiled[i].getCellIndices();
+            expected[i] = compiled[i].getExpected();
+        }
+        return new CompiledRules(rows, cols, types, cells, expected, compiled);
+    }
+
+    /**
+     * Переводит координаты в плоские индексы.
+     * @param keepOffGrid true — сохранять ячейки вне сетки как {@link #OFF_GRID}, false — отбрасывать
+     */
+    static int[] toIndices(List<HexCoord> coords, int cols, CellMask mask, boolean keepOffGrid) {
+        int[] result = new int[coords.size()];
+        int count = 0;
+        for (HexCoord coord : coords) {
+            int q = coord.getQ();
+            int r = coord.getR();
+            if (mask.contains(q, r)) {
+                result[count++] = r * cols + q;
+            } else if (keepOffGrid) {
+                result[count++] = OFF_GRID;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Возвращает плоские индексы существующих соседей ячейки.
+     */
+    static int[] neighborIndices(HexCoord coord, int cols, CellMask mask) {
+        int[] result = new int[Board.NEIGHBOR_OFFSETS.length];
+        int count = 0;
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            int nq = coord.getQ() + offset[0];
+            int nr = coord.getR() + offset[1];
+            if (mask.contains(nq, nr)) {
+                result[count++] = nr * cols + nq;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Проверяет все правила на заданной раскладке мин.
+     * @param mineBits Битовая маска мин (бит r * cols + q)
+     * @return true, если выполнены все правила
+     */
+    public boolean allSatisfied(CellBits mineBits) {
+        return firstViolated(mineBits) < 0;
+    }
+
+    /**
+     * Находит первое нарушенное правило.
+     * @param mineBits Битовая маска мин (бит r * cols + q)
+     * @return Индекс правила или -1, если все правила выполнены
+     */
+    public int firstViolated(CellBits mineBits) {
+        for (int i = 0; i < types.length; i++) {
+            if (!isSatisfied(i, mineBits)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Проверяет одно правило на заданной раскладке мин.
+     * @param ruleIndex Индекс правила (в порядке Board.getActiveRules())
+     * @param mineBits Битовая маска мин (бит r * cols + q)
+     * @return true, если правило выполнено
+     */
+    public boolean isSatisfied(int ruleIndex, CellBits mineBits) {
+        switch (types[ruleIndex]) {
+            case TYPE_SEQUENCE:
+                return longestRun(cells[ruleIndex], mineBits) == expected[ruleIndex];
+            case TYPE_GROUP:
+            case TYPE_EDGE:
+                return countMines(cells[ruleIndex], mineBits) == expected[ruleIndex];
+            default:
+                return compiled[ruleIndex].isSatisfied(mineBits);
+        }
+    }
+
+    /**
+     * Выводит неизвестные ячейки правила распространителем его модуля.
+     * @param ruleIndex Индекс правила
+     * @param states Известное состояние ячеек
+     * @param sink Получатель выводов
+     * @return false, если получатель остановил распространение
+     */
+    boolean propagate(int ruleIndex, CompiledRule.CellStates states, CompiledRule.DeductionSink sink) {
+        return compiled[ruleIndex].propagate(states, sink);
+    }
+
+    /**
+     * Является ли правило счётчиком (линейным ограничением на число мин).
+     */
+    boolean isCount(int ruleIndex) {
+        return compiled[ruleIndex].isCount();
+    }
+
+    /**
+     * Приём, которым помечаются подсказки правила.
+     */
+    HintTechnique getTechnique(int ruleIndex) {
+        return compiled[ruleIndex].getTechnique();
+    }
+
+    /**
+     * Вид и параметры правила для ключа уровня: имя класса скомпилированного правила, тег,
+     * приём и CompiledRule.getKeyPayload(). Не зависит от порядка модулей в RuleRegistry.
+     */
+    long getKeyPayload(int ruleIndex) {
+        CompiledRule rule = compiled[ruleIndex];
+        long kind = (long) rule.getClass().getName().hashCode() << 32
+                | (types[ruleIndex] & 0xFF) << 8 | rule.getTechnique().ordinal();
+        return Zobrist.mix(kind) ^ rule.getKeyPayload();
+    }
+
+    /**
+     * Неопределённость правила для оценки сложности уровня (CompiledRule.getAmbiguity).
+     */
+    double getAmbiguity(int ruleIndex) {
+        return compiled[ruleIndex].getAmbiguity();
+    }
+
+    /**
+     * log2 C(n, k); 0 вне допустимых k.
+     */
+    static double log2Binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        double result = 0;
+        for (int i = 1; i <= Math.min(k, n - k); i++) {
+            result += Math.log((double) (n - Math.min(k, n - k) + i) / i);
+        }
+        return result / Math.log(2);
+    }
+
+    /**
+     * Длина самой длинной серии подряд идущих мин; OFF_GRID разрывает серию.
+     */
+    static int longestRun(int[] ruleCells, CellBits mineBits) {
+        int longest = 0;
+        int current = 0;
+        for (int index : ruleCells) {
+            if (index != OFF_GRID && mineBits.get(index)) {
+                current++;
+                if (current > longest) {
+                    longest = current;
+                }
+            } else {
+                current = 0;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Количество мин в наборе ячеек.
+     */
+    static int countMines(int[] ruleCells, CellBits mineBits) {
+        int mineCount = 0;
+        for (int index : ruleCells) {
+            if (mineBits.get(index)) {
+                mineCount++;
+            }
+        }
+        return mineCount;
+    }
+
+    /**
+     * Возвращает количество правил.
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Возвращает тег типа правила.
+     */
+    byte getType(int ruleIndex) {
+        return types[ruleIndex];
+    }
+
+    /**
+     * Возвращает плоские индексы ячеек правила (для EdgeRule — индексы соседей).
+     * Массив не копируется и не должен изменяться.
+     */
+    int[] getCellIndices(int ruleIndex) {
+        return cells[ruleIndex];
+    }
+
+    /**
+     * Возвращает ожидаемое значение правила.
+     */
+    public int getExpected(int ruleIndex) {
+        return expected[ruleIndex];
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+package hexcells;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Потокобезопасная доска для кооперативной игры и параллельных решателей.
+ * Состояние ячеек хранится по 4 бита на ячейку в неизменяемом префиксном дереве слов
+ * (листья по 32 слова, внутренние узлы по 32 потомка); вместе с управляющим словом
+ * (статус и число «незавершённых» ячеек: неоткрытые безопасные + мины без флага) оно
+ * образует одно неизменяемое состояние доски. Ход копирует путь от корня до листа
+ * (O(log n) слов) и публикует новое состояние одним CAS, без блокировок, поэтому ходы,
+ * победа и поражение линеаризуемы, а снимок — это одно volatile-чтение.
+ * Ячейки вне формы уровня помечены MISSING и не участвуют в игре; поддеревья,
+ * целиком лежащие вне формы, не выделяются.
+ */
+public class ConcurrentBoard {
+    public static final int PLAYING = 0;
+    public static final int WON = 1;
+    public static final int LOST = 2;
+
+    static final int MINE = 1;
+    static final int REVEALED = 2;
+    static final int FLAGGED = 4;
+    static final int MISSING = 8;
+    private static final int BITS_PER_CELL = 4;
+    private static final int CELLS_PER_WORD = 64 / BITS_PER_CELL;
+    private static final int FANOUT_BITS = 5;
+    private static final int FANOUT = 1 << FANOUT_BITS; // Слов в листе и потомков во внутреннем узле
+    private static final int STATUS_SHIFT = 62;
+    private static final long COUNT_MASK = (1L << 32) - 1;
+    private static final long ALL_MISSING = 0x8888_8888_8888_8888L; // Слово из 16 ячеек MISSING
+
+    /**
+     * Неизменяемое состояние доски: корень дерева слов и управляющее слово.
+     */
+    private static final class State {
+        final Object root;   // long[] — лист, Object[] — внутренний узел, null — ячеек нет
+        final long control;  // статус << 62 | незавершённые ячейки
+
+        State(Object root, long control) {
+            this.root = root;
+            this.control = control;
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int depth; // Уровней внутренних узлов над листьями
+    private final AtomicReference<State> state;
+
+    /**
+     * Создаёт доску по данным уровня (правила не используются).
+     * @param source Источник данных уровня
+     */
+    public ConcurrentBoard(LevelSource source) {
+        this.rows = source.getRows();
+        this.cols = source.getCols();
+        long area = CellBits.area(rows, cols);
+        // Существующие ячейки (null — весь прямоугольник); мины вне формы игнорируются, как в Board
+        CellBits present = source.isRectangular() ? null : new CellBits(rows, cols);
+        int[] cellCount = {(int) area};
+        if (present != null) {
+            cellCount[0] = 0;
+            source.forEachCell((q, r) -> {
+                int index = r * cols + q;
+                if (inBounds(q, r) && !present.get(index)) {
+                    present.set(index);
+                    cellCount[0]++;
+                }
+            });
+        }
+        CellBits mines = new CellBits(rows, cols);
+        source.forEachMine((q, r) -> {
+            int index = r * cols + q;
+            if (inBounds(q, r) && (present == null || present.get(index))) {
+                mines.set(index);
+            }
+        });
+
+        int words = (int) ((area + CELLS_PER_WORD - 1) / CELLS_PER_WORD);
+        int levels = 0;
+        while ((long) words > (long) FANOUT << (levels * FANOUT_BITS)) {
+            levels++;
+        }
+        this.depth = levels;
+        Object root = build(depth, 0, (int) area, present, mines);
+        // Незавершённые: все безопасные ячейки скрыты, все мины без флага
+        this.state = new AtomicReference<>(new State(root, control(PLAYING, cellCount[0])));
+    }
+
+    /**
+     * Строит поддерево, покрывающее слова начиная с first; поддерево без существующих
+     * ячеек не создаётся (null).
+     */
+    private static Object build(int level, int first, int area, CellBits present, CellBits mines) {
+        long firstCell = (long) first * CELLS_PER_WORD;
+        if (firstCell >= area) {
+            return null;
+        }
+        if (level == 0) {
+            int end = (int) Math.min(area, firstCell + (long) FANOUT * CELLS_PER_WORD);
+            if (present != null && !hasAny(present, (int) firstCell, end)) {
+                return null;
+            }
+            long[] leaf = new long[FANOUT];
+            Arrays.fill(leaf, ALL_MISSING);
+            for (int index = (int) firstCell; index < end; index++) {
+                int cell = present == null || present.get(index) ? (mines.get(index) ? MINE : 0) : MISSING;
+                int word = (index - (int) firstCell) / CELLS_PER_WORD;
+                leaf[word] = leaf[word] & ~(0xFL << shift(index)) | ((long) cell << shift(index));
+            }
+            return leaf;
+        }
+        Object[] node = new Object[FANOUT];
+        boolean empty = true;
+        int span = 1 << (level * FANOUT_BITS);
+        for (int i = 0; i < FANOUT; i++) {
+            node[i] = build(level - 1, first + i * span, area, present, mines);
+            empty &= node[i] == null;
+        }
+        return empty ? null : node;
+    }
+
+    /**
+     * Проверяет, есть ли существующие ячейки в диапазоне [from, to); from кратно 64.
+     */
+    private static boolean hasAny(CellBits present, int from, int to) {
+        for (int word = from >>> 6; (long) word << 6 < to; word++) {
+            if (present.word(word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long read(Object root, int word) {
+        Object node = root;
+        for (int level = depth; level > 0 && node != null; level--) {
+            node = ((Object[]) node)[(word >>> (level * FANOUT_BITS)) & (FANOUT - 1)];
+        }
+        return node == null ? ALL_MISSING : ((long[]) node)[word & (FANOUT - 1)];
+    }
+
+    /**
+     * Возвращает копию пути к слову с новым значением; остальные узлы разделяются.
+     */
+    private static Object write(Object node, int level, int word, long value) {
+        if (level == 0) {
+            long[] leaf = ((long[]) node).clone();
+            leaf[word & (FANOUT - 1)] = value;
+            return leaf;
+        }
+        Object[] copy = ((Object[]) node).clone();
+        int slot = (word >>> (level * FANOUT_BITS)) & (FANOUT - 1);
+        copy[slot] = write(copy[slot], level - 1, word, value);
+        return copy;
+    }
+
+    private static int shift(int index) {
+        return (index % CELLS_PER_WORD) * BITS_PER_CELL;
+    }
+
+    /**
+     * Открывает ячейку.
+     * @param q Координата q
+     * @param r Координата r
+     * @return true, если ячейка открыта этим вызовом
+     */
+    public boolean revealCell(int q, int r) {
+        if (!inBounds(q, r)) {
+            return false;
+        }
+        int index = r * cols + q;
+        int word = index / CELLS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            State current = state.get();
+            if (status(current.control) != PLAYING) {
+                return false;
+            }
+            long bits = read(current.root, word);
+            int cell = (int) (bits >>> shift) & 0xF;
+            if ((cell & (REVEALED | FLAGGED | MISSING)) != 0) {
+                return false;
+            }
+            long control = (cell & MINE) != 0
+                    ? control(LOST, outstanding(current.control))
+                    : control(PLAYING, outstanding(current.control) - 1);
+            Object root = write(current.root, depth, word, bits | ((long) REVEALED << shift));
+            if (state.compareAndSet(current, new State(root, control))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Устанавливает или снимает флаг.
+     * @param q Координата q
+     * @param r Координата r
+     * @return true, если флаг изменён этим вызовом
+     */
+    public boolean toggleFlag(int q, int r) {
+        if (!inBounds(q, r)) {
+            return false;
+        }
+        int index = r * cols + q;
+        int word = index / CELLS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            State current = state.get();
+            if (status(current.control) != PLAYING) {
+                return false;
+            }
+            long bits = read(current.root, word);
+            int cell = (int) (bits >>> shift) & 0xF;
+            if ((cell & (REVEALED | MISSING)) != 0) {
+                return false;
+            }
+            long control = current.control;
+            if ((cell & MINE) != 0) {
+                control = control(PLAYING, outstanding(control) + ((cell & FLAGGED) != 0 ? 1 : -1));
+            }
+            Object root = write(current.root, depth, word, bits ^ ((long) FLAGGED << shift));
+            if (state.compareAndSet(current, new State(root, control))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Собирает управляющее слово; обнуление счётчика во время игры означает победу.
+     */
+    private static long control(int status, long outstanding) {
+        if (status == PLAYING && outstanding == 0) {
+            status = WON;
+        }
+        return ((long) status << STATUS_SHIFT) | outstanding;
+    }
+
+    private static int status(long controlWord) {
+        return (int) (controlWord >>> STATUS_SHIFT);
+    }
+
+    private static int outstanding(long controlWord) {
+        return (int) (controlWord & COUNT_MASK);
+    }
+
+    private boolean inBounds(int q, int r) {
+        return q >= 0 && q < cols && r >= 0 && r < rows;
+    }
+
+    /**
+     * Возвращает снимок доски: текущее неизменяемое состояние, без копирования
+     * и без ожидания писателей.
+     * @return Снимок
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(state.get());
+    }
+
+    /**
+     * Возвращает текущее состояние игры: PLAYING, WON или LOST.
+     */
+    public int getStatus() {
+        return status(state.get().control);
+    }
+
+    /**
+     * Возвращает число незавершённых ячеек (неоткрытые безопасные + мины без флага).
+     */
+    public int getOutstanding() {
+        return outstanding(state.get().control);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Неизменяемый снимок состояния ConcurrentBoard.
+     */
+    public class Snapshot {
+        private final State snapshotState;
+
+        private Snapshot(State snapshotState) {
+            this.snapshotState = snapshotState;
+        }
+
+        private int state(int q, int r) {
+            int index = r * cols + q;
+            return (int) (read(snapshotState.root, index / CELLS_PER_WORD) >>> shift(index)) & 0xF;
+        }
+
+        /**
+         * Проверяет, существует ли ячейка в уровне.
+         */
+        public boolean hasCell(int q, int r) {
+            return inBounds(q, r) && (state(q, r) & MISSING) == 0;
+        }
+
+        public boolean isMine(int q, int r) {
+            return (state(q, r) & MINE) != 0;
+        }
+
+        public boolean isRevealed(int q, int r) {
+            return (state(q, r) & REVEALED) != 0;
+        }
+
+        public boolean isFlagged(int q, int r) {
+            return (state(q, r) & FLAGGED) != 0;
+        }
+
+        /**
+         * Возвращает число соседних мин для открытой ячейки или -1 для скрытой.
+         */
+        public int getRevealedValue(int q, int r) {
+            if (!isRevealed(q, r)) {
+                return -1;
+            }
+            int count = 0;
+            for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                int nq = q + offset[0];
+                int nr = r + offset[1];
+                if (inBounds(nq, nr) && isMine(nq, nr)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Возвращает состояние игры в момент снимка: PLAYING, WON или LOST.
+         */
+        public int getStatus() {
+            return status(snapshotState.control);
+        }
+
+        /**
+         * Возвращает число незавершённых ячеек в момент снимка.
+         */
+        public int getOutstanding() {
+            return outstanding(snapshotState.control);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочный тест ConcurrentBoard: много потоков открывают и помечают ячейки одной доски,
+ * отдельный поток снимает снимки. На каждом снимке число незавершённых ячеек сверяется
+ * с пересчётом по маскам снимка.
+ * java hexcells.ConcurrentBoardBenchmark [rows] [cols] [secondsPerRun] [maxThreads]
+ */
+public class ConcurrentBoardBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors() * 2;
+        LevelConfig config = LevelGenerator.randomLevel(rows, cols, rows * cols / 6, 42);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(config, threads, seconds);
+        }
+    }
+
+    private static void run(LevelConfig config, int threadCount, double seconds) throws InterruptedException {
+        int rows = config.getRows();
+        int cols = config.getCols();
+        boolean[] mines = new boolean[rows * cols];
+        config.forEachMine((q, r) -> mines[r * cols + q] = true);
+
+        AtomicReference<ConcurrentBoard> board = new AtomicReference<>(new ConcurrentBoard(config));
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        LongAdder boardsFinished = new LongAdder();
+        LongAdder snapshots = new LongAdder();
+        LongAdder violations = new LongAdder();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long seed = t;
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long local = 0;
+                while (running.get()) {
+                    ConcurrentBoard current = board.get();
+                    if (current.getStatus() != ConcurrentBoard.PLAYING) {
+                        // Победа: начинаем заново на новой доске
+                        if (board.compareAndSet(current, new ConcurrentBoard(config))) {
+                            boardsFinished.increment();
+                        }
+                        continue;
+                    }
+                    int q = random.nextInt(cols);
+                    int r = random.nextInt(rows);
+                    if (mines[r * cols + q] || random.nextInt(8) == 0) {
+                        current.toggleFlag(q, r);
+                    } else {
+                        current.revealCell(q, r);
+                    }
+                    local++;
+                }
+                operations.add(local);
+            }, "writer-" + t));
+        }
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                ConcurrentBoard.Snapshot snapshot = board.get().snapshot();
+                snapshots.increment();
+                if (outstanding(snapshot, mines, rows, cols) != snapshot.getOutstanding()) {
+                    violations.increment();
+                }
+            }
+        }, "snapshot-reader");
+
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        reader.start();
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        reader.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("threads=%2d ops/s=%,12.0f boards=%d snapshots=%d violations=%d%n",
+                threadCount, operations.sum() / elapsed, boardsFinished.sum(),
+                snapshots.sum(), violations.sum());
+    }
+
+    /**
+     * Пересчитывает незавершённые ячейки по снимку.
+     */
+    private static int outstanding(ConcurrentBoard.Snapshot snapshot, boolean[] mines, int rows, int cols) {
+        int count = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int q = 0; q < cols; q++) {
+                boolean mine = mines[r * cols + q];
+                if (mine ? !snapshot.isFlagged(q, r) : !snapshot.isRevealed(q, r)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Система ограничений «сумма неизвестных = k», собранная из видимого игроку состояния доски:
+ * чисел открытых ячеек, GroupRule и EdgeRule. Мины считаются известными, если ячейка помечена
+ * флагом или открыта (взорвана); открытые ячейки безопасны. SequenceRule нелинейно и не входит.
+ */
+public class ConstraintSystem {
+    private final List<LinearConstraint> constraints;
+
+    private ConstraintSystem(List<LinearConstraint> constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Собирает ограничения по доске. Одинаковые ограничения объединяются.
+     * @param board Доска
+     * @return Система ограничений
+     */
+    public static ConstraintSystem fromBoard(Board board) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        Set<LinearConstraint> result = new LinkedHashSet<>();
+
+        // Числа открытых ячеек
+        int[] neighbors = new int[Board.NEIGHBOR_OFFSETS.length];
+        for (int r = 0; r < rows; r++) {
+            for (int q = 0; q < cols; q++) {
+                Cell cell = board.getCell(new HexCoord(q, r));
+                if (cell == null || !cell.isRevealed() || cell.isMine()) {
+                    continue;
+                }
+                int count = 0;
+                for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                    int nq = q + offset[0];
+                    int nr = r + offset[1];
+                    if (board.hasCell(nq, nr)) {
+                        neighbors[count++] = nr * cols + nq;
+                    }
+                }
+                addConstraint(board, neighbors, count, cell.getRevealedValue(), result);
+            }
+        }
+
+        // Правила-счётчики
+        CompiledRules rules = board.getCompiledRules();
+        for (int i = 0; i < rules.size(); i++) {
+            if (!rules.isCount(i)) {
+                continue;
+            }
+            int[] cells = rules.getCellIndices(i);
+            addConstraint(board, cells, cells.length, rules.getExpected(i), result);
+        }
+        return new ConstraintSystem(Collections.unmodifiableList(new ArrayList<>(result)));
+    }
+
+    /**
+     * Исключает известные ячейки и добавляет ограничение, если в нём остались неизвестные.
+     */
+    private static void addConstraint(Board board, int[] cells, int count, int expected, Set<LinearConstraint> result) {
+        int cols = board.getCols();
+        int[] unknown = new int[count];
+        int unknownCount = 0;
+        int knownMines = 0;
+        for (int i = 0; i < count; i++) {
+            int index = cells[i];
+            Cell cell = board.getCell(new HexCoord(index % cols, index / cols));
+            if (cell.isFlagged() || (cell.isRevealed() && cell.isMine())) {
+                knownMines++;
+            } else if (!cell.isRevealed()) {
+                unknown[unknownCount++] = index;
+            }
+        }
+        if (unknownCount > 0) {
+            result.add(new LinearConstraint(Arrays.copyOf(unknown, unknownCount), expected - knownMines));
+        }
+    }
+
+    /**
+     * Возвращает ограничения (только для чтения).
+     */
+    public List<LinearConstraint> getConstraints() {
+        return constraints;
+    }
+}
\ No newline at end of file
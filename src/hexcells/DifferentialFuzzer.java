@@ -0,0 +1,1017 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Дифференциальное тестирование игровых движков на случайных уровнях и ходах.
+ * Эталон — намеренно простая модель доски (массивы флагов, пересчёт соседей перебором)
+ * и правил (SequenceRule, GroupRule, EdgeRule и LineRule, выполненные на раскладке мин
+ * и проверяемые прямым пересчётом). С ним сравниваются проверка правил CompiledRules
+ * и Rule.isSatisfied (LineRule — по счётчикам AxisLines) на настоящей и случайных
+ * раскладках, а после каждого хода — Board (хранилище ячеек, битовые маски, счётчики
+ * победы, хеш Зобриста, трекеры серий последовательностей), его снимок и ConcurrentBoard.
+ * На ходах по подсказке проверяются подсказки HintBot (с кэшем и без, по снимку,
+ * правильность относительно настоящей раскладки), выводы AnytimeSolver и распространители
+ * правил: выводы одинаковы со счётчиками осей и без них и вынуждены во всех допустимых
+ * дополнениях ячеек правила. Отдельно SequenceRunTracker сравнивается с прямым пересчётом
+ * серий и полным перебором, а IncrementalSolver после случайных правок — с решателем,
+ * построенным заново.
+ * Каждый случай порождается из своего seed, поэтому найденное расхождение воспроизводится
+ * запуском с нулевой длительностью и этим seed.
+ * java hexcells.DifferentialFuzzer [seconds] [threads] [seed] [maxSize]
+ */
+public class DifferentialFuzzer {
+    private static final int MAX_SEQUENCE = 12; // Длина последовательности для полного перебора
+    private static final int MAX_GROUP = 7;     // Ячеек в случайной группе
+    private static final int MAX_FORCED = 12;   // Неизвестных ячеек правила для полного перебора
+
+    /**
+     * Намеренно простая эталонная доска без правил.
+     */
+    private static final class ReferenceBoard {
+        final int rows;
+        final int cols;
+        final boolean[] exists;
+        final boolean[] mine;
+        final boolean[] revealed;
+        final boolean[] flagged;
+        boolean gameOver;
+        boolean gameWon;
+        int moves;
+
+        ReferenceBoard(int rows, int cols, boolean[] exists, boolean[] mine) {
+            this.rows = rows;
+            this.cols = cols;
+            this.exists = exists;
+            this.mine = mine;
+            this.revealed = new boolean[rows * cols];
+            this.flagged = new boolean[rows * cols];
+            checkWin();
+        }
+
+        boolean has(int q, int r) {
+            return q >= 0 && q < cols && r >= 0 && r < rows && exists[r * cols + q];
+        }
+
+        int neighborMines(int q, int r) {
+            int count = 0;
+            for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                int nq = q + offset[0];
+                int nr = r + offset[1];
+                if (has(nq, nr) && mine[nr * cols + nq]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean reveal(int q, int r) {
+            int i = r * cols + q;
+            if (gameOver || !has(q, r) || revealed[i] || flagged[i]) {
+                return false;
+            }
+            revealed[i] = true;
+            moves++;
+            if (mine[i]) {
+                gameOver = true;
+            } else {
+                checkWin();
+            }
+            return true;
+        }
+
+        boolean toggleFlag(int q, int r) {
+            int i = r * cols + q;
+            if (gameOver || !has(q, r) || revealed[i]) {
+                return false;
+            }
+            flagged[i] = !flagged[i];
+            moves++;
+            checkWin();
+            return true;
+        }
+
+        /**
+         * Известное игроку состояние ячейки, как Board.getKnownState: флаг считается миной.
+         */
+        byte known(int i) {
+            if (flagged[i]) {
+                return SequenceRunTracker.MINE;
+            }
+            if (!revealed[i]) {
+                return SequenceRunTracker.UNKNOWN;
+            }
+            return mine[i] ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE;
+        }
+
+        /**
+         * Есть ли флаг на безопасной ячейке: подсказки считают флаги минами и при ошибке игрока
+         * могут быть неверны относительно настоящей раскладки.
+         */
+        boolean hasWrongFlags() {
+            for (int i = 0; i < flagged.length; i++) {
+                if (flagged[i] && !mine[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void checkWin() {
+            for (int i = 0; i < exists.length; i++) {
+                if (exists[i] && (mine[i] ? !flagged[i] : !revealed[i])) {
+                    return;
+                }
+            }
+            gameWon = true;
+            gameOver = true;
+        }
+
+        /**
+         * Первая подсказка «Сапёра» в том же порядке обхода, что и HintBot.
+         */
+        HintResult mineSweeperHint() {
+            for (int r = 0; r < rows; r++) {
+                for (int q = 0; q < cols; q++) {
+                    int i = r * cols + q;
+                    if (!has(q, r) || !revealed[i] || mine[i] || neighborMines(q, r) == 0) {
+                        continue;
+                    }
+                    int flags = 0;
+                    List<HexCoord> hidden = new ArrayList<>();
+                    for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                        int nq = q + offset[0];
+                        int nr = r + offset[1];
+                        if (!has(nq, nr)) {
+                            continue;
+                        }
+                        int n = nr * cols + nq;
+                        if (flagged[n]) {
+                            flags++;
+                        } else if (!revealed[n]) {
+                            hidden.add(new HexCoord(nq, nr));
+                        }
+                    }
+                    int value = neighborMines(q, r);
+                    if (!hidden.isEmpty() && value == flags) {
+                        return new HintResult(hidden.get(0), HintType.SAFE, HintTechnique.MINESWEEPER);
+                    }
+                    if (!hidden.isEmpty() && value == flags + hidden.size()) {
+                        return new HintResult(hidden.get(0), HintType.MINE, HintTechnique.MINESWEEPER);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Эталонное правило: ячейки и ожидаемое значение, проверка прямым пересчётом мин
+     * без CompiledRules, AxisLines и SequenceRunTracker.
+     */
+    private static final class ReferenceRule {
+        final HintTechnique kind;         // SEQUENCE, GROUP, EDGE или LINE
+        final int[] cells;                // По порядку правила; -1 — отсутствующая ячейка последовательности
+        final int expected;
+        final LineRule.Modifier modifier; // Только для LINE
+
+        ReferenceRule(HintTechnique kind, int[] cells, int expected, LineRule.Modifier modifier) {
+            this.kind = kind;
+            this.cells = cells;
+            this.expected = expected;
+            this.modifier = modifier;
+        }
+
+        boolean isSatisfied(IntPredicate mine) {
+            switch (kind) {
+                case SEQUENCE:
+                    return longestMineRun(cells, mine) == expected;
+                case LINE:
+                    if (mineCount(cells, mine) != expected) {
+                        return false;
+                    }
+                    int runs = mineRuns(cells, mine);
+                    return modifier == LineRule.Modifier.NONE
+                            || (modifier == LineRule.Modifier.CONTIGUOUS ? runs <= 1 : runs >= 2);
+                default:
+                    return mineCount(cells, mine) == expected;
+            }
+        }
+
+        /**
+         * Неизвестные ячейки правила без повторов.
+         */
+        int[] unknownCells(CompiledRule.CellStates states) {
+            return Arrays.stream(cells).filter(i -> i >= 0 && states.get(i) == SequenceRunTracker.UNKNOWN)
+                    .distinct().toArray();
+        }
+
+        /**
+         * Полный перебор дополнений неизвестных ячеек, при которых правило выполнено.
+         * @param unknown Неизвестные ячейки правила
+         * @param states Известное состояние остальных ячеек
+         * @return Для каждой неизвестной ячейки MINE или SAFE, если она принимает это значение
+         *         во всех дополнениях, иначе UNKNOWN; null, если дополнений нет
+         */
+        byte[] forced(int[] unknown, CompiledRule.CellStates states) {
+            long always = -1L;
+            long ever = 0;
+            boolean any = false;
+            for (long mask = 0; mask < 1L << unknown.length; mask++) {
+                long assignment = mask;
+                IntPredicate mine = index -> {
+                    for (int p = 0; p < unknown.length; p++) {
+                        if (unknown[p] == index) {
+                            return (assignment >>> p & 1) != 0;
+                        }
+                    }
+                    return states.get(index) == SequenceRunTracker.MINE;
+                };
+                if (isSatisfied(mine)) {
+                    any = true;
+                    always &= mask;
+                    ever |= mask;
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            byte[] result = new byte[unknown.length];
+            for (int p = 0; p < unknown.length; p++) {
+                result[p] = (always >>> p & 1) != 0 ? SequenceRunTracker.MINE
+                        : (ever >>> p & 1) == 0 ? SequenceRunTracker.SAFE : SequenceRunTracker.UNKNOWN;
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return kind + (modifier == null ? "" : " " + modifier) + " " + Arrays.toString(cells) + " = " + expected;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 10.0;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int maxSize = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        if (seconds == 0) {
+            // Воспроизведение одного случая
+            LongAdder checks = new LongAdder();
+            runCase(seed, maxSize, checks);
+            System.out.println("Случай " + seed + ": расхождений нет, проверок: " + checks.sum());
+            return;
+        }
+
+        System.out.println("Начальный seed: " + seed + ", потоков: " + threadCount);
+        LongAdder cases = new LongAdder();
+        LongAdder checks = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                for (long n = worker; running.get(); n += threadCount) {
+                    long caseSeed = Zobrist.mix(seed + n);
+                    try {
+                        runCase(caseSeed, maxSize, checks);
+                    } catch (RuntimeException | AssertionError e) {
+                        if (failure.compareAndSet(null, "seed " + caseSeed + ": " + e)) {
+                            e.printStackTrace();
+                        }
+                        running.set(false);
+                    }
+                    cases.increment();
+                }
+            }, "fuzzer-" + t));
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (seconds * 1e9);
+        workers.forEach(Thread::start);
+        while (running.get() && System.nanoTime() < deadline) {
+            Thread.sleep(Math.min(5000, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%6.1f с: случаев %d, проверок %d (%.0f проверок/с)%n",
+                    elapsed, cases.sum(), checks.sum(), checks.sum() / elapsed);
+        }
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        if (failure.get() != null) {
+            System.out.println("РАСХОЖДЕНИЕ, " + failure.get());
+            System.out.println("Повтор: java hexcells.DifferentialFuzzer 0 1 <seed> " + maxSize);
+            System.exit(1);
+        }
+        System.out.println("Расхождений нет");
+    }
+
+    /**
+     * Прогоняет один случай: уровень с правилами, проверка правил, серия ходов с проверками
+     * после каждого хода, проверки SequenceRunTracker и IncrementalSolver.
+     */
+    static void runCase(long seed, int maxSize, LongAdder checks) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int rows = 1 + random.nextInt(maxSize);
+        int cols = 1 + random.nextInt(maxSize);
+        boolean rectangular = random.nextBoolean();
+        boolean[] exists = new boolean[rows * cols];
+        boolean[] mine = new boolean[rows * cols];
+        double density = random.nextDouble() * 0.4;
+        for (int i = 0; i < exists.length; i++) {
+            exists[i] = rectangular || random.nextInt(4) != 0;
+            mine[i] = exists[i] && random.nextDouble() < density;
+        }
+        if (!hasAny(exists)) {
+            exists[0] = true;
+        }
+        ReferenceBoard reference = new ReferenceBoard(rows, cols, exists, mine);
+        List<ReferenceRule> referenceRules = new ArrayList<>();
+        List<RuleData> ruleData = new ArrayList<>();
+        int ruleCount = random.nextInt(2 + rows * cols / 4);
+        for (int i = 0; i < ruleCount; i++) {
+            ruleData.add(randomRule(random, reference, referenceRules));
+        }
+        LevelConfig config = levelConfig(rows, cols, rectangular, exists, mine, ruleData);
+
+        Board board = new Board(config);
+        ConcurrentBoard concurrent = new ConcurrentBoard(config);
+        TranspositionCache<HintResult> cache = new TranspositionCache<>(64);
+        compare(reference, board, concurrent, checks);
+        checkRuleEvaluation(random, reference, referenceRules, ruleData, rectangular, board, checks);
+
+        int steps = random.nextInt(4 * rows * cols + 1);
+        for (int step = 0; step < steps && !reference.gameOver; step++) {
+            int q = random.nextInt(cols + 2) - 1;
+            int r = random.nextInt(rows + 2) - 1;
+            int kind = random.nextInt(10);
+            if (kind < 2) {
+                // Ход по подсказке: проверяет её правильность и доигрывает дальше
+                HintResult hint = checkHints(reference, referenceRules, board, cache, checks);
+                if (hint != null) {
+                    q = hint.getCoord().getQ();
+                    r = hint.getCoord().getR();
+                    kind = hint.getType() == HintType.SAFE ? 9 : 0;
+                }
+            }
+            boolean flag = kind < 3 || (reference.has(q, r) && mine[r * cols + q] && kind < 8);
+            boolean expected = flag ? reference.toggleFlag(q, r) : reference.reveal(q, r);
+            boolean actual = flag ? board.toggleFlag(new HexCoord(q, r)) : board.revealCell(new HexCoord(q, r));
+            int moveQ = q;
+            int moveR = r;
+            Supplier<String> move = () -> (flag ? "флаг" : "открытие") + " (" + moveQ + ", " + moveR + ")";
+            check(checks, expected == actual, () -> "Board: результат хода " + move.get());
+            if (concurrent != null) {
+                boolean concurrentResult = flag ? concurrent.toggleFlag(q, r) : concurrent.revealCell(q, r);
+                check(checks, expected == concurrentResult, () -> "ConcurrentBoard: результат хода " + move.get());
+            }
+            compare(reference, board, concurrent, checks);
+            checkSequenceTrackers(reference, referenceRules, board, checks);
+            if (random.nextInt(8) == 0) {
+                Board snapshot = board.snapshot();
+                compare(reference, snapshot, null, checks);
+                checkSequenceTrackers(reference, referenceRules, snapshot, checks);
+            }
+        }
+        checkSequenceTracker(random, checks);
+        checkIncrementalSolver(random, rows, cols, checks);
+    }
+
+    /**
+     * Конфигурация уровня с заданной формой, минами и правилами.
+     */
+    private static LevelConfig levelConfig(int rows, int cols, boolean rectangular, boolean[] exists, boolean[] mine,
+                                           List<RuleData> rules) {
+        LevelConfig.Builder builder = LevelConfig.builder(rows, cols);
+        for (int i = 0; i < exists.length; i++) {
+            if (!exists[i]) {
+                continue;
+            }
+            if (!rectangular) {
+                builder.addCell(i % cols, i / cols);
+            }
+            if (mine[i]) {
+                builder.addMine(i % cols, i / cols);
+            }
+        }
+        rules.forEach(builder::addRule);
+        return builder.build();
+    }
+
+    /**
+     * Случайное правило, выполненное на раскладке эталона; его эталонная копия добавляется в rules.
+     * Последовательность — луч по прямоугольнику (отсутствующие ячейки разрывают серию), группа —
+     * случайные ячейки прямоугольника (отсутствующие не считаются), правило соседей — существующая
+     * ячейка, линия — существующие ячейки луча от точки подсказки до края, как LineRule.toEdge,
+     * с модификатором, допустимым для раскладки.
+     */
+    private static RuleData randomRule(SplittableRandom random, ReferenceBoard reference, List<ReferenceRule> rules) {
+        int rows = reference.rows;
+        int cols = reference.cols;
+        IntPredicate mine = i -> reference.mine[i];
+        int direction = random.nextInt(Board.NEIGHBOR_OFFSETS.length);
+        int[] step = Board.NEIGHBOR_OFFSETS[direction];
+        List<HexCoord> coords = new ArrayList<>();
+        List<Integer> cells = new ArrayList<>();
+        switch (random.nextInt(4)) {
+            case 0: {
+                int length = 1 + random.nextInt(MAX_SEQUENCE);
+                for (int q = random.nextInt(cols), r = random.nextInt(rows), k = 0;
+                     k < length && q >= 0 && q < cols && r >= 0 && r < rows; q += step[0], r += step[1], k++) {
+                    coords.add(new HexCoord(q, r));
+                    cells.add(reference.has(q, r) ? r * cols + q : -1);
+                }
+                int[] indices = toArray(cells);
+                int expected = longestMineRun(indices, mine);
+                rules.add(new ReferenceRule(HintTechnique.SEQUENCE, indices, expected, null));
+                return new SequenceRuleData(coords, expected);
+            }
+            case 1: {
+                int size = 1 + random.nextInt(Math.min(MAX_GROUP, rows * cols));
+                boolean[] used = new boolean[rows * cols];
+                while (coords.size() < size) {
+                    int i = random.nextInt(rows * cols);
+                    if (!used[i]) {
+                        used[i] = true;
+                        coords.add(new HexCoord(i % cols, i / cols));
+                        if (reference.exists[i]) {
+                            cells.add(i);
+                        }
+                    }
+                }
+                int[] indices = toArray(cells);
+                int expected = mineCount(indices, mine);
+                rules.add(new ReferenceRule(HintTechnique.GROUP, indices, expected, null));
+                return new GroupRuleData(coords, expected);
+            }
+            case 2: {
+                int center = random.nextInt(rows * cols);
+                while (!reference.exists[center]) {
+                    center = (center + 1) % (rows * cols);
+                }
+                int q = center % cols;
+                int r = center / cols;
+                for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                    if (reference.has(q + offset[0], r + offset[1])) {
+                        cells.add((r + offset[1]) * cols + q + offset[0]);
+                    }
+                }
+                int[] indices = toArray(cells);
+                int expected = mineCount(indices, mine);
+                rules.add(new ReferenceRule(HintTechnique.EDGE, indices, expected, null));
+                return new EdgeRuleData(new HexCoord(q, r), expected);
+            }
+            default: {
+                HexCoord origin = new HexCoord(random.nextInt(cols + 2) - 1, random.nextInt(rows + 2) - 1);
+                boolean entered = false;
+                for (int q = origin.getQ() + step[0], r = origin.getR() + step[1]; ; q += step[0], r += step[1]) {
+                    if (q < 0 || q >= cols || r < 0 || r >= rows) {
+                        if (entered || Math.abs(q - origin.getQ()) + Math.abs(r - origin.getR()) > rows + cols) {
+                            break;
+                        }
+                        continue;
+                    }
+                    entered = true;
+                    if (reference.has(q, r)) {
+                        coords.add(new HexCoord(q, r));
+                        cells.add(r * cols + q);
+                    }
+                }
+                int[] indices = toArray(cells);
+                int expected = mineCount(indices, mine);
+                int runs = mineRuns(indices, mine);
+                LineRule.Modifier modifier = random.nextBoolean() ? LineRule.Modifier.NONE
+                        : runs <= 1 ? LineRule.Modifier.CONTIGUOUS : LineRule.Modifier.NON_CONTIGUOUS;
+                rules.add(new ReferenceRule(HintTechnique.LINE, indices, expected, modifier));
+                return new LineRuleData(origin, direction, coords, expected, modifier);
+            }
+        }
+    }
+
+    /**
+     * Сверяет проверку правил с эталоном: CompiledRules — на настоящей раскладке мин, на ней же
+     * с одной изменённой ячейкой и на случайных раскладках; Rule.isSatisfied (LineRule — по
+     * счётчикам AxisLines) — на доске уровня и на доске того же уровня с другой раскладкой.
+     */
+    private static void checkRuleEvaluation(SplittableRandom random, ReferenceBoard reference,
+                                            List<ReferenceRule> referenceRules, List<RuleData> ruleData,
+                                            boolean rectangular, Board board, LongAdder checks) {
+        int rows = reference.rows;
+        int cols = reference.cols;
+        CompiledRules compiled = board.getCompiledRules();
+        List<Rule> rules = board.getActiveRules();
+        check(checks, compiled.size() == referenceRules.size() && rules.size() == referenceRules.size(),
+                () -> "Board: правил " + rules.size() + ", эталон " + referenceRules.size());
+        boolean[] layout = reference.mine;
+        for (int attempt = 0; attempt < 4; attempt++) {
+            if (attempt > 0) {
+                layout = attempt == 1 ? reference.mine.clone() : new boolean[rows * cols];
+                double density = random.nextDouble();
+                for (int i = 0; i < layout.length; i++) {
+                    if (attempt == 1 ? i == random.nextInt(layout.length) : random.nextDouble() < density) {
+                        layout[i] = reference.exists[i] && !layout[i];
+                    }
+                }
+            }
+            boolean[] mines = layout;
+            CellBits bits = new CellBits(rows, cols);
+            for (int i = 0; i < mines.length; i++) {
+                if (mines[i]) {
+                    bits.set(i);
+                }
+            }
+            int firstViolated = -1;
+            for (int i = 0; i < referenceRules.size(); i++) {
+                ReferenceRule rule = referenceRules.get(i);
+                boolean expected = rule.isSatisfied(index -> mines[index]);
+                if (!expected && firstViolated < 0) {
+                    firstViolated = i;
+                }
+                check(checks, compiled.isSatisfied(i, bits) == expected,
+                        () -> "CompiledRules: проверка " + rule + " даёт " + !expected);
+            }
+            int violated = firstViolated;
+            check(checks, compiled.firstViolated(bits) == violated,
+                    () -> "CompiledRules: первое нарушенное правило " + compiled.firstViolated(bits)
+                            + ", эталон " + violated);
+        }
+
+        boolean[] other = layout;
+        Board otherBoard = new Board(levelConfig(rows, cols, rectangular, reference.exists, other, ruleData));
+        List<Rule> otherRules = otherBoard.getActiveRules();
+        for (int i = 0; i < referenceRules.size(); i++) {
+            ReferenceRule rule = referenceRules.get(i);
+            boolean expected = rule.isSatisfied(index -> other[index]);
+            check(checks, rules.get(i).isSatisfied(board), () -> "Rule: нарушено на раскладке уровня " + rule);
+            check(checks, otherRules.get(i).isSatisfied(otherBoard) == expected,
+                    () -> "Rule: проверка " + rule + " на другой раскладке даёт " + !expected);
+        }
+    }
+
+    /**
+     * Сверяет трекеры серий последовательностей доски с прямым пересчётом по известным ячейкам.
+     */
+    private static void checkSequenceTrackers(ReferenceBoard reference, List<ReferenceRule> referenceRules,
+                                              Board board, LongAdder checks) {
+        for (int i = 0; i < referenceRules.size(); i++) {
+            ReferenceRule rule = referenceRules.get(i);
+            if (rule.kind != HintTechnique.SEQUENCE) {
+                continue;
+            }
+            SequenceRunTracker tracker = board.getSequenceTracker(i);
+            check(checks, tracker != null, () -> "Board: нет трекера для " + rule);
+            byte[] states = new byte[rule.cells.length];
+            for (int p = 0; p < states.length; p++) {
+                states[p] = rule.cells[p] < 0 ? SequenceRunTracker.SAFE : reference.known(rule.cells[p]);
+            }
+            int longestMine = longestRun(states, SequenceRunTracker.MINE, SequenceRunTracker.MINE);
+            int longestOpen = longestRun(states, SequenceRunTracker.MINE, SequenceRunTracker.UNKNOWN);
+            check(checks, tracker.getLongestMineRun() == longestMine,
+                    () -> "Board: серия мин в трекере " + tracker.getLongestMineRun() + " для " + rule);
+            check(checks, tracker.getLongestPossibleRun() == longestOpen,
+                    () -> "Board: возможная серия в трекере " + tracker.getLongestPossibleRun() + " для " + rule);
+        }
+    }
+
+    /**
+     * Сравнивает состояние всех ячеек и игры с эталоном.
+     */
+    private static void compare(ReferenceBoard reference, Board board, ConcurrentBoard concurrent, LongAdder checks) {
+        int rows = reference.rows;
+        int cols = reference.cols;
+        CellBits revealedBits = board.getRevealedBits();
+        CellBits flaggedBits = board.getFlaggedBits();
+        ConcurrentBoard.Snapshot snapshot = concurrent == null ? null : concurrent.snapshot();
+        int count = 0;
+        for (int i = 0; i < rows * cols; i++) {
+            int q = i % cols;
+            int r = i / cols;
+            Cell cell = board.getCell(new HexCoord(q, r));
+            check(checks, (cell != null) == reference.exists[i], () -> "Board: наличие ячейки (" + q + ", " + r + ")");
+            check(checks, revealedBits.get(i) == reference.revealed[i], () -> "Board: маска открытых");
+            check(checks, flaggedBits.get(i) == reference.flagged[i], () -> "Board: маска флагов");
+            if (cell != null) {
+                count++;
+                check(checks, cell.isMine() == reference.mine[i], () -> "Board: мина (" + q + ", " + r + ")");
+                check(checks, cell.isRevealed() == reference.revealed[i],
+                        () -> "Board: открыта (" + q + ", " + r + ")");
+                check(checks, cell.isFlagged() == reference.flagged[i], () -> "Board: флаг (" + q + ", " + r + ")");
+                int neighbors = reference.neighborMines(q, r);
+                check(checks, board.getNeighborMineCount(new HexCoord(q, r)) == neighbors,
+                        () -> "Board: число соседних мин");
+                if (cell.isRevealed() && !cell.isMine()) {
+                    check(checks, cell.getRevealedValue() == neighbors,
+                            () -> "Board: значение открытой ячейки (" + q + ", " + r + ")");
+                }
+            }
+            if (snapshot != null) {
+                check(checks, snapshot.hasCell(q, r) == reference.exists[i], () -> "ConcurrentBoard: наличие ячейки");
+                check(checks, snapshot.isMine(q, r) == reference.mine[i], () -> "ConcurrentBoard: мина");
+                check(checks, snapshot.isRevealed(q, r) == reference.revealed[i], () -> "ConcurrentBoard: открыта");
+                check(checks, snapshot.isFlagged(q, r) == reference.flagged[i], () -> "ConcurrentBoard: флаг");
+                if (reference.revealed[i]) {
+                    check(checks, snapshot.getRevealedValue(q, r) == reference.neighborMines(q, r),
+                            () -> "ConcurrentBoard: значение открытой ячейки");
+                }
+            }
+        }
+        check(checks, board.getCellCount() == count, () -> "Board: число ячеек");
+        check(checks, board.isGameOver() == reference.gameOver, () -> "Board: конец игры");
+        check(checks, board.isGameWon() == reference.gameWon, () -> "Board: победа");
+        check(checks, board.getMoveCount() == reference.moves, () -> "Board: число ходов");
+        check(checks, board.getZobristHash() == board.computeZobristHash(),
+                () -> "Board: инкрементальный хеш Зобриста");
+        if (snapshot != null) {
+            int status = reference.gameWon ? ConcurrentBoard.WON
+                    : reference.gameOver ? ConcurrentBoard.LOST : ConcurrentBoard.PLAYING;
+            check(checks, snapshot.getStatus() == status, () -> "ConcurrentBoard: состояние игры");
+        }
+    }
+
+    /**
+     * Проверяет подсказки: первая подсказка «Сапёра» совпадает с эталонной, полная подсказка
+     * не меняется от кэша и, если все флаги стоят на минах, верна для настоящей раскладки.
+     * @return Подсказка HintBot или null
+     */
+    private static HintResult checkHints(ReferenceBoard reference, List<ReferenceRule> referenceRules, Board board,
+                                         TranspositionCache<HintResult> cache, LongAdder checks) {
+        HintResult expected = reference.mineSweeperHint();
+        // Фоновый поиск идёт по снимку масок: он должен давать те же подсказки, что и доска
+        BoardView snapshot = board.knownSnapshot();
+        HintResult actual = HintBot.findMineSweeperHint(snapshot, Long.MAX_VALUE);
+        check(checks, sameHint(expected, actual),
+                () -> "HintBot: подсказка «Сапёра» " + describe(actual) + ", эталон " + describe(expected));
+        HintResult ruleHint = HintBot.findRuleHint(board.view(), Long.MAX_VALUE);
+        HintResult snapshotRuleHint = HintBot.findRuleHint(snapshot, Long.MAX_VALUE);
+        check(checks, sameHint(ruleHint, snapshotRuleHint),
+                () -> "HintBot: подсказка правил по снимку " + describe(snapshotRuleHint)
+                        + " вместо " + describe(ruleHint));
+        if (ruleHint != null) {
+            int q = ruleHint.getCoord().getQ();
+            int r = ruleHint.getCoord().getR();
+            int i = r * reference.cols + q;
+            check(checks, reference.has(q, r) && !reference.revealed[i],
+                    () -> "HintBot: подсказка правил на открытую ячейку " + describe(ruleHint));
+            check(checks, reference.hasWrongFlags() || reference.mine[i] == (ruleHint.getType() == HintType.MINE),
+                    () -> "HintBot: неверная подсказка правил " + describe(ruleHint));
+        }
+        checkPropagators(reference, referenceRules, board, checks);
+
+        HintResult hint = HintBot.findHint(board);
+        HintResult cached = HintBot.findHint(board, cache);
+        check(checks, sameHint(hint, cached),
+                () -> "HintBot: подсказка из кэша " + describe(cached) + " вместо " + describe(hint));
+        if (hint != null) {
+            int q = hint.getCoord().getQ();
+            int r = hint.getCoord().getR();
+            int i = r * reference.cols + q;
+            check(checks, reference.has(q, r) && !reference.revealed[i],
+                    () -> "HintBot: подсказка на открытую ячейку " + describe(hint));
+            check(checks, reference.hasWrongFlags() || reference.mine[i] == (hint.getType() == HintType.MINE),
+                    () -> "HintBot: неверная подсказка " + describe(hint));
+        }
+        // Выводы AnytimeSolver при верных флагах должны совпадать с настоящей раскладкой
+        if (!reference.hasWrongFlags()) {
+            for (HintResult deduction : AnytimeSolver.solve(board, Long.MAX_VALUE).getDeductions()) {
+                int i = deduction.getCoord().getR() * reference.cols + deduction.getCoord().getQ();
+                check(checks, !reference.revealed[i] && !reference.flagged[i],
+                        () -> "AnytimeSolver: вывод об известной ячейке");
+                check(checks, reference.mine[i] == (deduction.getType() == HintType.MINE),
+                        () -> "AnytimeSolver: неверный вывод " + describe(deduction)
+                                + " (" + deduction.getTechnique() + ")");
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * Проверяет распространители правил на текущем известном состоянии доски: выводы
+     * одинаковы со счётчиками осей и без них, относятся к неизвестным ячейкам правила и
+     * вынуждены во всех допустимых дополнениях (полный перебор до MAX_FORCED неизвестных;
+     * для больших правил — совпадают с настоящей раскладкой, если флаги верны).
+     */
+    private static void checkPropagators(ReferenceBoard reference, List<ReferenceRule> referenceRules, Board board,
+                                         LongAdder checks) {
+        CompiledRules rules = board.getCompiledRules();
+        CompiledRule.CellStates states = board.getKnownStates();
+        CompiledRule.CellStates withoutAxes = states::get;
+        for (int i = 0; i < rules.size(); i++) {
+            ReferenceRule rule = referenceRules.get(i);
+            int[] deductions = deductions(rules, i, states);
+            int[] plain = deductions(rules, i, withoutAxes);
+            check(checks, Arrays.equals(deductions, plain), () -> "Распространитель: выводы со счётчиками осей "
+                    + Arrays.toString(deductions) + ", без них " + Arrays.toString(plain) + " для " + rule);
+            if (deductions.length == 0) {
+                continue;
+            }
+            int[] unknown = rule.unknownCells(states);
+            byte[] forced = unknown.length <= MAX_FORCED ? rule.forced(unknown, states) : null;
+            for (int deduction : deductions) {
+                int index = deduction >> 1;
+                boolean mine = (deduction & 1) != 0;
+                int position = indexOf(unknown, index);
+                check(checks, position >= 0, () -> "Распространитель: вывод о ячейке " + index
+                        + " вне неизвестных ячеек " + rule);
+                if (forced != null) {
+                    check(checks, forced[position] == (mine ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE),
+                            () -> "Распространитель: вывод " + (mine ? "мина " : "безопасна ") + index
+                                    + " не вынужден для " + rule);
+                } else if (unknown.length > MAX_FORCED && !reference.hasWrongFlags()) {
+                    check(checks, reference.mine[index] == mine,
+                            () -> "Распространитель: неверный вывод о ячейке " + index + " для " + rule);
+                }
+            }
+        }
+    }
+
+    /**
+     * Выводы распространителя правила, упорядоченные как (индекс << 1 | мина).
+     */
+    private static int[] deductions(CompiledRules rules, int ruleIndex, CompiledRule.CellStates states) {
+        List<Integer> result = new ArrayList<>();
+        rules.propagate(ruleIndex, states, (index, mine) -> result.add(index << 1 | (mine ? 1 : 0)));
+        return result.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Сверяет IncrementalSolver после каждой случайной правки (мина, новое правило, удаление
+     * правила) с решателем, построенным заново по итоговым минам и правилам; ожидаемые значения
+     * правил — с прямым пересчётом, список изменившихся ячеек — с фактическими изменениями.
+     */
+    private static void checkIncrementalSolver(SplittableRandom random, int rows, int cols, LongAdder checks) {
+        int size = rows * cols;
+        IncrementalSolver solver = new IncrementalSolver(rows, cols);
+        boolean[] mines = new boolean[size];
+        boolean[] resolved = new boolean[size];
+        List<int[]> ruleCells = new ArrayList<>(); // По идентификатору; null — правило удалено
+        List<Boolean> ruleSequence = new ArrayList<>();
+        int live = 0;
+        int edits = 1 + random.nextInt(3 * size);
+        for (int edit = 0; edit < edits; edit++) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                int index = random.nextInt(size);
+                mines[index] = !mines[index];
+                solver.setMine(index, mines[index]);
+            } else if (action < 8 || live == 0) {
+                boolean sequence = random.nextBoolean();
+                int[] cells = sequence ? randomSequence(random, rows, cols) : randomGroup(random, size);
+                int id = solver.addRule(cells, sequence);
+                int expectedId = ruleCells.size();
+                check(checks, id == expectedId, () -> "IncrementalSolver: идентификатор правила " + id);
+                ruleCells.add(cells);
+                ruleSequence.add(sequence);
+                live++;
+            } else {
+                int id = random.nextInt(ruleCells.size());
+                while (ruleCells.get(id) == null) {
+                    id = (id + 1) % ruleCells.size();
+                }
+                solver.removeRule(id);
+                ruleCells.set(id, null);
+                live--;
+            }
+
+            boolean[] changed = new boolean[size];
+            for (int cell : solver.takeChangedCells()) {
+                changed[cell] = true;
+            }
+            IncrementalSolver rebuilt = new IncrementalSolver(rows, cols);
+            for (int i = 0; i < size; i++) {
+                if (mines[i]) {
+                    rebuilt.setMine(i, true);
+                }
+            }
+            for (int id = 0; id < ruleCells.size(); id++) {
+                int[] cells = ruleCells.get(id);
+                if (cells == null) {
+                    continue;
+                }
+                rebuilt.addRule(cells, ruleSequence.get(id));
+                IntPredicate mine = i -> mines[i];
+                int expected = ruleSequence.get(id) ? longestMineRun(cells, mine) : mineCount(cells, mine);
+                int ruleId = id;
+                check(checks, solver.getExpected(id) == expected,
+                        () -> "IncrementalSolver: ожидаемое значение правила " + ruleId + " "
+                                + solver.getExpected(ruleId) + ", эталон " + expected);
+            }
+            for (int i = 0; i < size; i++) {
+                boolean now = solver.isResolved(i);
+                int cell = i;
+                check(checks, solver.isMine(i) == mines[i], () -> "IncrementalSolver: мина " + cell);
+                check(checks, now == rebuilt.isResolved(i),
+                        () -> "IncrementalSolver: вывод ячейки " + cell + " " + now + ", заново " + !now);
+                check(checks, now == resolved[i] || changed[i],
+                        () -> "IncrementalSolver: изменение ячейки " + cell + " не сообщено");
+                resolved[i] = now;
+            }
+            check(checks, solver.getUnresolvedCount() == rebuilt.getUnresolvedCount()
+                            && solver.isSolvable() == rebuilt.isSolvable(),
+                    () -> "IncrementalSolver: невыведенных " + solver.getUnresolvedCount() + ", заново "
+                            + rebuilt.getUnresolvedCount());
+        }
+    }
+
+    /**
+     * Последовательность для IncrementalSolver: луч из точки рядом с полем; -1 — позиция вне поля.
+     */
+    private static int[] randomSequence(SplittableRandom random, int rows, int cols) {
+        int[] step = Board.NEIGHBOR_OFFSETS[random.nextInt(Board.NEIGHBOR_OFFSETS.length)];
+        int[] cells = new int[1 + random.nextInt(MAX_SEQUENCE)];
+        int q = random.nextInt(cols + 2) - 1;
+        int r = random.nextInt(rows + 2) - 1;
+        for (int k = 0; k < cells.length; k++, q += step[0], r += step[1]) {
+            cells[k] = q >= 0 && q < cols && r >= 0 && r < rows ? r * cols + q : -1;
+        }
+        return cells;
+    }
+
+    /**
+     * Группа для IncrementalSolver: различные случайные ячейки поля.
+     */
+    private static int[] randomGroup(SplittableRandom random, int size) {
+        return random.ints(0, size).distinct().limit(1 + random.nextInt(Math.min(MAX_GROUP, size))).toArray();
+    }
+
+    /**
+     * Сравнивает инкрементальный SequenceRunTracker с пересчётом серий на каждом шаге;
+     * вынужденные ячейки проверяются полным перебором дополнений.
+     */
+    private static void checkSequenceTracker(SplittableRandom random, LongAdder checks) {
+        int length = 1 + random.nextInt(MAX_SEQUENCE);
+        int expected = random.nextInt(length + 1);
+        SequenceRunTracker tracker = new SequenceRunTracker(length, expected);
+        byte[] states = new byte[length];
+        for (int step = 0; step < 3 * length; step++) {
+            int position = random.nextInt(length);
+            byte state = (byte) random.nextInt(3);
+            states[position] = state;
+            tracker.set(position, state);
+
+            int longestMine = longestRun(states, SequenceRunTracker.MINE, SequenceRunTracker.MINE);
+            int longestOpen = longestRun(states, SequenceRunTracker.MINE, SequenceRunTracker.UNKNOWN);
+            check(checks, tracker.getLongestMineRun() == longestMine,
+                    () -> "SequenceRunTracker: самая длинная серия мин");
+            check(checks, tracker.getLongestPossibleRun() == longestOpen,
+                    () -> "SequenceRunTracker: самая длинная возможная серия");
+
+            boolean complete = true;
+            for (byte s : states) {
+                complete &= s != SequenceRunTracker.UNKNOWN;
+            }
+            SequenceStatus status;
+            if (longestMine > expected || longestOpen < expected) {
+                status = SequenceStatus.IMPOSSIBLE;
+            } else if (complete) {
+                status = longestMine == expected ? SequenceStatus.SATISFIED : SequenceStatus.IMPOSSIBLE;
+            } else {
+                status = SequenceStatus.POSSIBLE;
+            }
+            check(checks, tracker.getStatus() == status, () -> "SequenceRunTracker: состояние " + tracker.getStatus());
+
+            // Вынужденная ячейка должна иметь одно значение во всех допустимых дополнениях
+            int forcedSafe = tracker.findForcedSafe();
+            int forcedMine = tracker.findForcedMine();
+            if (forcedSafe >= 0 || forcedMine >= 0) {
+                check(checks, forcedSafe < 0 || states[forcedSafe] == SequenceRunTracker.UNKNOWN,
+                        () -> "SequenceRunTracker: вынужденная безопасная ячейка уже известна");
+                check(checks, forcedMine < 0 || states[forcedMine] == SequenceRunTracker.UNKNOWN,
+                        () -> "SequenceRunTracker: вынужденная мина уже известна");
+                byte[] completion = states.clone();
+                checkCompletions(completion, 0, expected, forcedSafe, forcedMine, checks);
+            }
+        }
+    }
+
+    private static void checkCompletions(byte[] states, int from, int expected, int forcedSafe, int forcedMine,
+                                         LongAdder checks) {
+        int position = from;
+        while (position < states.length && states[position] != SequenceRunTracker.UNKNOWN) {
+            position++;
+        }
+        if (position == states.length) {
+            if (longestRun(states, SequenceRunTracker.MINE, SequenceRunTracker.MINE) == expected) {
+                check(checks, forcedSafe < 0 || states[forcedSafe] == SequenceRunTracker.SAFE,
+                        () -> "SequenceRunTracker: ячейка " + forcedSafe + " может быть миной");
+                check(checks, forcedMine < 0 || states[forcedMine] == SequenceRunTracker.MINE,
+                        () -> "SequenceRunTracker: ячейка " + forcedMine + " может быть безопасной");
+            }
+            return;
+        }
+        for (byte state = SequenceRunTracker.MINE; state <= SequenceRunTracker.SAFE; state++) {
+            states[position] = state;
+            checkCompletions(states, position + 1, expected, forcedSafe, forcedMine, checks);
+        }
+        states[position] = SequenceRunTracker.UNKNOWN;
+    }
+
+    /**
+     * Самая длинная серия ячеек в состояниях first или second.
+     */
+    private static int longestRun(byte[] states, byte first, byte second) {
+        int longest = 0;
+        int current = 0;
+        for (byte state : states) {
+            current = state == first || state == second ? current + 1 : 0;
+            longest = Math.max(longest, current);
+        }
+        return longest;
+    }
+
+    /**
+     * Число мин среди ячеек; -1 пропускается.
+     */
+    private static int mineCount(int[] cells, IntPredicate mine) {
+        int count = 0;
+        for (int cell : cells) {
+            if (cell >= 0 && mine.test(cell)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Самая длинная серия мин подряд; -1 разрывает серию.
+     */
+    private static int longestMineRun(int[] cells, IntPredicate mine) {
+        int longest = 0;
+        int current = 0;
+        for (int cell : cells) {
+            current = cell >= 0 && mine.test(cell) ? current + 1 : 0;
+            longest = Math.max(longest, current);
+        }
+        return longest;
+    }
+
+    /**
+     * Число серий мин подряд.
+     */
+    private static int mineRuns(int[] cells, IntPredicate mine) {
+        int runs = 0;
+        boolean previous = false;
+        for (int cell : cells) {
+            boolean current = cell >= 0 && mine.test(cell);
+            if (current && !previous) {
+                runs++;
+            }
+            previous = current;
+        }
+        return runs;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasAny(boolean[] values) {
+        for (boolean value : values) {
+            if (value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameHint(HintResult first, HintResult second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+        return first.getCoord().equals(second.getCoord()) && first.getType() == second.getType();
+    }
+
+    private static String describe(HintResult hint) {
+        return hint == null ? "нет" : hint.getType() + " " + hint.getCoord();
+    }
+
+    /**
+     * Одна проверка: увеличивает счётчик проверок; сообщение строится только при расхождении.
+     */
+    private static void check(LongAdder checks, boolean condition, Supplier<String> message) {
+        checks.increment();
+        if (!condition) {
+            throw new IllegalStateException("Расхождение: " + message.get());
+        }
+    }
+}
\ No newline at end of file
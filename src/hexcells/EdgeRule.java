@@ -11,7 +11,6 @@ import javax.swing.JPanel;
 public class EdgeRule implements Rule {
     private final HexCoord cellCoord;
     private final int expectedMines;
-    private HexCoord cell;
 
     /**
      * Конструктор.
@@ -64,7 +63,10 @@ public class EdgeRule implements Rule {
         g2d.drawString(String.valueOf(expectedMines), (int) center.x - 5, (int) center.y + 5);
     }
 
+    /**
+     * Возвращает координаты ячейки, для соседей которой задано правило.
+     */
     public HexCoord getCell() {
-        return cell;
+        return cellCoord;
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package hexcells;
+
+import java.util.List;
+
+/**
+ * Встроенный модуль EdgeRule: ровно N мин среди соседей ячейки.
+ */
+final class EdgeRuleProvider implements RuleProvider {
+    @Override
+    public Rule createRule(RuleData data) {
+        if (!(data instanceof EdgeRuleData)) {
+            return null;
+        }
+        EdgeRuleData edge = (EdgeRuleData) data;
+        return new EdgeRule(edge.getCellCoord(), edge.getExpectedNeighborMines());
+    }
+
+    @Override
+    public LevelCanonicalForm.RuleEncoding canonicalize(RuleData data) {
+        if (!(data instanceof EdgeRuleData)) {
+            return null;
+        }
+        EdgeRuleData edge = (EdgeRuleData) data;
+        return new LevelCanonicalForm.RuleEncoding(edge.getExpectedNeighborMines(), List.of(edge.getCellCoord()),
+                LevelCanonicalForm.CellOrder.SET);
+    }
+
+    @Override
+    public boolean accepts(Rule rule) {
+        return rule instanceof EdgeRule;
+    }
+
+    /**
+     * Соседи вычисляются один раз здесь, а не при каждой проверке.
+     */
+    @Override
+    public CompiledRule compile(Rule rule, int cols, CellMask mask) {
+        return new CompiledCountRule(CompiledRules.neighborIndices(((EdgeRule) rule).getCell(), cols, mask),
+                rule.getExpectedMines(), HintTechnique.EDGE, CompiledRules.TYPE_EDGE);
+    }
+
+    @Override
+    public Rule withExpected(Rule rule, int expected) {
+        return new EdgeRule(((EdgeRule) rule).getCell(), expected);
+    }
+}
\ No newline at end of file
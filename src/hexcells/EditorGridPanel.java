@@ -0,0 +1,250 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JPanel;
+
+/**
+ * Панель редактора уровней. Показывает мины и правила редактируемого уровня
+ * и подсвечивает ячейки, которые нельзя вывести без угадывания.
+ * Щелчок в зависимости от инструмента ставит мину, добавляет ячейку в выделение
+ * нового правила или сразу создаёт правило числа соседних мин.
+ * После правки перерисовываются только области изменившихся ячеек и правил, а отрисовка
+ * пропускает ячейки и правила вне области перерисовки.
+ */
+public class EditorGridPanel extends JPanel {
+    private static final int HEX_RADIUS = GridPanel.HEX_RADIUS; // Радиус гексагона
+    private static final Color UNRESOLVED_COLOR = new Color(255, 170, 60); // Ячейка не выводится
+    private static final Color SELECTION_COLOR = new Color(0, 90, 255); // Выделение нового правила
+
+    /**
+     * Инструмент редактора.
+     */
+    public enum Tool {
+        MINE,     // Поставить/убрать мину
+        GROUP,    // Выделить ячейки правила группы
+        SEQUENCE, // Выделить ячейки последовательности по порядку
+        EDGE      // Добавить правило числа мин среди соседей
+    }
+
+    private final EditorModel model;
+    private final List<HexCoord> selection = new ArrayList<>();
+    private final Map<Rule, Rectangle> ruleBounds = new IdentityHashMap<>(); // Области отрисовки правил
+    private Tool tool = Tool.MINE;
+
+    /**
+     * Конструктор, инициализирующий панель.
+     * @param model Редактируемый уровень
+     */
+    public EditorGridPanel(EditorModel model) {
+        this.model = model;
+        setBackground(Color.LIGHT_GRAY);
+        int width = (int) (model.getCols() * HexGeometry.columnWidth(HEX_RADIUS) + HEX_RADIUS);
+        int height = (int) (model.getRows() * HexGeometry.rowHeight(HEX_RADIUS) + HEX_RADIUS);
+        setPreferredSize(new Dimension(width, height));
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                HexCoord coord = pixelToHex(e.getPoint());
+                if (coord != null) {
+                    cellClicked(coord);
+                }
+            }
+        });
+        model.addChangeListener(this::onModelChanged);
+    }
+
+    /**
+     * Выбирает инструмент; незавершённое выделение сбрасывается.
+     */
+    public void setTool(Tool tool) {
+        this.tool = tool;
+        clearSelection();
+    }
+
+    /**
+     * Создаёт правило из выделенных ячеек.
+     * @throws IllegalArgumentException если выделение не образует правило
+     */
+    public void commitSelection() {
+        try {
+            if (tool == Tool.GROUP) {
+                model.addGroupRule(selection);
+            } else if (tool == Tool.SEQUENCE) {
+                model.addSequenceRule(selection);
+            } else {
+                throw new IllegalArgumentException("Инструмент " + tool + " не использует выделение");
+            }
+        } finally {
+            clearSelection();
+        }
+    }
+
+    /**
+     * Выделенные ячейки нового правила.
+     */
+    public List<HexCoord> getSelection() {
+        return Collections.unmodifiableList(selection);
+    }
+
+    private void cellClicked(HexCoord coord) {
+        switch (tool) {
+            case MINE:
+                model.toggleMine(coord.getQ(), coord.getR());
+                break;
+            case EDGE:
+                model.addEdgeRule(coord);
+                break;
+            case GROUP:
+                if (!selection.remove(coord)) {
+                    selection.add(coord);
+                }
+                repaint(getCellBounds(coord));
+                break;
+            case SEQUENCE:
+                // Повторный щелчок по последней ячейке отменяет её
+                if (!selection.isEmpty() && selection.get(selection.size() - 1).equals(coord)) {
+                    selection.remove(selection.size() - 1);
+                } else if (!selection.contains(coord)) {
+                    selection.add(coord);
+                }
+                repaint(getCellBounds(coord));
+                break;
+        }
+    }
+
+    private void clearSelection() {
+        for (HexCoord coord : selection) {
+            repaint(getCellBounds(coord));
+        }
+        selection.clear();
+    }
+
+    /**
+     * Перерисовывает области ячеек и правил, затронутых правкой.
+     */
+    private void onModelChanged() {
+        for (HexCoord coord : model.getChangedCells()) {
+            repaint(getCellBounds(coord));
+        }
+        for (Rule rule : model.getChangedRules()) {
+            repaint(getRuleBounds(rule));
+            ruleBounds.remove(rule); // Правило удалено или заменено новым вариантом
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        // Диапазоны q и r — по границам области перерисовки, как в GridPanel
+        double columnWidth = HexGeometry.columnWidth(HEX_RADIUS);
+        double rowHeight = HexGeometry.rowHeight(HEX_RADIUS);
+        int qMin = Math.max(0, (int) Math.floor((clip.x - 2 * HEX_RADIUS) / columnWidth));
+        int qMax = Math.min(model.getCols() - 1, (int) Math.ceil(clip.getMaxX() / columnWidth));
+        for (int q = qMin; q <= qMax; q++) {
+            int rMin = Math.max(0, (int) Math.floor((clip.y - 2 * HEX_RADIUS) / rowHeight - q / 2.0));
+            int rMax = Math.min(model.getRows() - 1, (int) Math.ceil(clip.getMaxY() / rowHeight - q / 2.0));
+            for (int r = rMin; r <= rMax; r++) {
+                Polygon hex = HexGeometry.createHexagon(hexToPixel(q, r), HEX_RADIUS);
+                if (model.isMine(q, r)) {
+                    g2d.setColor(Color.BLACK);
+                } else {
+                    g2d.setColor(model.isResolved(q, r) ? Color.WHITE : UNRESOLVED_COLOR);
+                }
+                g2d.fillPolygon(hex);
+                if (model.isMine(q, r) && !model.isResolved(q, r)) {
+                    g2d.setColor(UNRESOLVED_COLOR);
+                    g2d.setStroke(new BasicStroke(3));
+                } else {
+                    g2d.setColor(Color.GRAY);
+                    g2d.setStroke(new BasicStroke(1));
+                }
+                g2d.drawPolygon(hex);
+            }
+        }
+
+        for (Rule rule : model.getRules()) {
+            if (clip.intersects(getRuleBounds(rule))) {
+                rule.draw(g2d, this, null);
+            }
+        }
+
+        g2d.setColor(SELECTION_COLOR);
+        g2d.setStroke(new BasicStroke(3));
+        for (HexCoord coord : selection) {
+            if (!clip.intersects(getCellBounds(coord))) {
+                continue;
+            }
+            g2d.drawPolygon(HexGeometry.createHexagon(hexToPixel(coord.getQ(), coord.getR()), HEX_RADIUS - 3));
+        }
+    }
+
+    /**
+     * Возвращает прямоугольник, занимаемый гексагоном ячейки, с запасом на обводку.
+     */
+    private Rectangle getCellBounds(HexCoord coord) {
+        Point2D.Double center = hexToPixel(coord.getQ(), coord.getR());
+        return new Rectangle((int) center.x - HEX_RADIUS - 2, (int) center.y - HEX_RADIUS - 2,
+                2 * HEX_RADIUS + 5, 2 * HEX_RADIUS + 5);
+    }
+
+    /**
+     * Возвращает область, в которой рисуется правило: гексагоны его ячеек с запасом
+     * в один гексагон, где стоит число правила-соседей или начало линии. Запоминается до
+     * удаления или замены правила.
+     */
+    private Rectangle getRuleBounds(Rule rule) {
+        return ruleBounds.computeIfAbsent(rule, this::computeRuleBounds);
+    }
+
+    private Rectangle computeRuleBounds(Rule rule) {
+        Rectangle bounds = null;
+        for (HexCoord coord : rule.getCells()) {
+            Rectangle cell = getCellBounds(coord);
+            bounds = bounds == null ? cell : bounds.union(cell);
+        }
+        if (bounds == null) {
+            return new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        bounds.grow(2 * HEX_RADIUS, 2 * HEX_RADIUS);
+        return bounds;
+    }
+
+    /**
+     * Преобразует пиксельные координаты в координаты гексагона.
+     * @param pixelPoint Точка в пикселях
+     * @return Координаты HexCoord или null, если точка вне поля
+     */
+    public HexCoord pixelToHex(Point pixelPoint) {
+        HexCoord coord = HexGeometry.pixelToHex(pixelPoint.x - HEX_RADIUS, pixelPoint.y - HEX_RADIUS, HEX_RADIUS);
+        return model.hasCell(coord.getQ(), coord.getR()) ? coord : null;
+    }
+
+    /**
+     * Преобразует координаты гексагона в пиксельные координаты центра.
+     * @param q Координата q
+     * @param r Координата r
+     * @return Точка центра гексагона
+     */
+    public Point2D.Double hexToPixel(int q, int r) {
+        Point2D.Double center = HexGeometry.hexToPixel(q, r, HEX_RADIUS);
+        center.x += HEX_RADIUS;
+        center.y += HEX_RADIUS;
+        return center;
+    }
+}
\ No newline at end of file
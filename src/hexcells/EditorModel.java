@@ -0,0 +1,238 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Редактируемый уровень: расстановка мин и правила.
+ * Числа правил всегда вычисляются по текущей расстановке мин. После каждой правки
+ * решаемость пересчитывается инкрементально (см. IncrementalSolver), а время пересчёта
+ * доступно для строки состояния. Обработчики изменений получают ячейки и правила,
+ * затронутые последней правкой, чтобы перерисовывать только их.
+ * Методы вызываются в потоке Swing.
+ */
+public class EditorModel {
+    private final int rows;
+    private final int cols;
+    private final IncrementalSolver solver;
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<Integer> ruleIds = new ArrayList<>(); // Идентификаторы правил в IncrementalSolver
+    private final List<Runnable> changeListeners = new ArrayList<>();
+    private final List<HexCoord> changedCells = new ArrayList<>(); // Изменения последней правки
+    private final List<Rule> changedRules = new ArrayList<>();
+    private long lastSolveNanos;
+
+    /**
+     * Конструктор: пустое поле без мин и правил.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     */
+    public EditorModel(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.solver = new IncrementalSolver(rows, cols);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Проверяет, находится ли ячейка на поле.
+     */
+    public boolean hasCell(int q, int r) {
+        return solver.indexOf(q, r) >= 0;
+    }
+
+    public boolean isMine(int q, int r) {
+        int index = solver.indexOf(q, r);
+        return index >= 0 && solver.isMine(index);
+    }
+
+    /**
+     * Выводится ли ячейка при решении без угадывания.
+     */
+    public boolean isResolved(int q, int r) {
+        int index = solver.indexOf(q, r);
+        return index >= 0 && solver.isResolved(index);
+    }
+
+    /**
+     * Ставит или убирает мину и обновляет числа затронутых правил.
+     */
+    public void toggleMine(int q, int r) {
+        int index = requireIndex(q, r);
+        long start = System.nanoTime();
+        solver.setMine(index, !solver.isMine(index));
+        lastSolveNanos = System.nanoTime() - start;
+        changedCells.add(new HexCoord(q, r));
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            int expected = solver.getExpected(ruleIds.get(i));
+            if (rule.getExpectedMines() != expected) {
+                rules.set(i, withExpected(rule, expected));
+                changedRules.add(rule);
+            }
+        }
+        fireChanged();
+    }
+
+    /**
+     * Добавляет правило группы.
+     * @param cells Ячейки группы
+     */
+    public void addGroupRule(List<HexCoord> cells) {
+        if (cells.isEmpty()) {
+            throw new IllegalArgumentException("Группа не содержит ячеек");
+        }
+        int[] indices = new int[cells.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = requireIndex(cells.get(i).getQ(), cells.get(i).getR());
+        }
+        addRule(indices, false, expected -> new GroupRule(cells, expected));
+    }
+
+    /**
+     * Добавляет правило последовательности; ячейки могут выходить за поле.
+     * @param cells Ячейки последовательности по порядку
+     */
+    public void addSequenceRule(List<HexCoord> cells) {
+        if (cells.size() < 2) {
+            throw new IllegalArgumentException("Последовательность должна содержать не менее двух ячеек");
+        }
+        int[] indices = new int[cells.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = solver.indexOf(cells.get(i).getQ(), cells.get(i).getR());
+        }
+        addRule(indices, true, expected -> new SequenceRule(cells, expected));
+    }
+
+    /**
+     * Добавляет правило числа мин среди соседей ячейки.
+     * @param cell Ячейка правила
+     */
+    public void addEdgeRule(HexCoord cell) {
+        List<Integer> neighbors = new ArrayList<>();
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            int index = solver.indexOf(cell.getQ() + offset[0], cell.getR() + offset[1]);
+            if (index >= 0) {
+                neighbors.add(index);
+            }
+        }
+        if (neighbors.isEmpty()) {
+            throw new IllegalArgumentException("У ячейки " + cell + " нет соседей на поле");
+        }
+        int[] indices = neighbors.stream().mapToInt(Integer::intValue).toArray();
+        addRule(indices, false, expected -> new EdgeRule(cell, expected));
+    }
+
+    /**
+     * Удаляет последнее добавленное правило.
+     * @return false, если правил нет
+     */
+    public boolean removeLastRule() {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        int last = rules.size() - 1;
+        long start = System.nanoTime();
+        solver.removeRule(ruleIds.remove(last));
+        lastSolveNanos = System.nanoTime() - start;
+        changedRules.add(rules.remove(last));
+        fireChanged();
+        return true;
+    }
+
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Решаем ли уровень без угадывания.
+     */
+    public boolean isSolvable() {
+        return solver.isSolvable();
+    }
+
+    /**
+     * Количество ячеек, которые нельзя вывести.
+     */
+    public int getUnresolvedCount() {
+        return solver.getUnresolvedCount();
+    }
+
+    /**
+     * Время последнего пересчёта решаемости в наносекундах.
+     */
+    public long getLastSolveNanos() {
+        return lastSolveNanos;
+    }
+
+    /**
+     * Ячейки, которые последняя правка изменила: мина или выводимость. Ячейка может
+     * встречаться несколько раз. Список действителен во время вызова обработчиков изменений.
+     */
+    public List<HexCoord> getChangedCells() {
+        return Collections.unmodifiableList(changedCells);
+    }
+
+    /**
+     * Правила, которые последняя правка добавила или удалила, и прежние варианты правил,
+     * у которых изменилось число. Список действителен во время вызова обработчиков изменений.
+     */
+    public List<Rule> getChangedRules() {
+        return Collections.unmodifiableList(changedRules);
+    }
+
+    /**
+     * Регистрирует обработчик, вызываемый после каждой правки.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    private interface RuleFactory {
+        Rule create(int expected);
+    }
+
+    private void addRule(int[] indices, boolean sequence, RuleFactory factory) {
+        long start = System.nanoTime();
+        int id = solver.addRule(indices, sequence);
+        lastSolveNanos = System.nanoTime() - start;
+        ruleIds.add(id);
+        rules.add(factory.create(solver.getExpected(id)));
+        changedRules.add(rules.get(rules.size() - 1));
+        fireChanged();
+    }
+
+    private static Rule withExpected(Rule rule, int expected) {
+        return RuleRegistry.providerOf(rule).withExpected(rule, expected);
+    }
+
+    private int requireIndex(int q, int r) {
+        int index = solver.indexOf(q, r);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ячейка (" + q + ", " + r + ") вне поля " + rows + "x" + cols);
+        }
+        return index;
+    }
+
+    private void fireChanged() {
+        for (int index : solver.takeChangedCells()) {
+            changedCells.add(new HexCoord(index % cols, index / cols));
+        }
+        try {
+            for (Runnable listener : changeListeners) {
+                listener.run();
+            }
+        } finally {
+            changedCells.clear();
+            changedRules.clear();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package hexcells;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * Окно редактора уровней: панель инструментов, поле и строка состояния
+ * с результатом проверки решаемости после каждой правки.
+ */
+public class EditorWindow extends JFrame {
+    private final EditorModel model;
+    private final EditorGridPanel gridPanel;
+    private final JLabel statusLabel;
+
+    /**
+     * Конструктор, открывающий пустое поле.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     */
+    public EditorWindow(int rows, int cols) {
+        this.model = new EditorModel(rows, cols);
+        this.gridPanel = new EditorGridPanel(model);
+
+        setTitle("Hexcells - Редактор уровней");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        JPanel toolbar = new JPanel();
+        ButtonGroup tools = new ButtonGroup();
+        addTool(toolbar, tools, "Мины", EditorGridPanel.Tool.MINE, true);
+        addTool(toolbar, tools, "Группа", EditorGridPanel.Tool.GROUP, false);
+        addTool(toolbar, tools, "Последовательность", EditorGridPanel.Tool.SEQUENCE, false);
+        addTool(toolbar, tools, "Соседи", EditorGridPanel.Tool.EDGE, false);
+
+        JButton addRuleButton = new JButton("Добавить правило");
+        addRuleButton.addActionListener(e -> {
+            try {
+                gridPanel.commitSelection();
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        JButton removeRuleButton = new JButton("Удалить последнее правило");
+        removeRuleButton.addActionListener(e -> model.removeLastRule());
+        toolbar.add(addRuleButton);
+        toolbar.add(removeRuleButton);
+
+        add(toolbar, BorderLayout.NORTH);
+        add(new JScrollPane(gridPanel), BorderLayout.CENTER);
+        this.statusLabel = new JLabel("", SwingConstants.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        updateStatus();
+        model.addChangeListener(this::updateStatus);
+
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    private void addTool(JPanel toolbar, ButtonGroup group, String title, EditorGridPanel.Tool tool, boolean selected) {
+        JToggleButton button = new JToggleButton(title, selected);
+        button.addActionListener(e -> gridPanel.setTool(tool));
+        group.add(button);
+        toolbar.add(button);
+    }
+
+    /**
+     * Обновляет строку состояния.
+     */
+    private void updateStatus() {
+        String timing = String.format(" (проверка %.1f мс)", model.getLastSolveNanos() / 1_000_000.0);
+        if (model.isSolvable()) {
+            statusLabel.setText("Уровень решаем" + timing);
+        } else {
+            statusLabel.setText("Не выводится ячеек: " + model.getUnresolvedCount() + timing);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,415 @@
+package hexcells;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Бесконечная доска для режима "без границ".
+ * Плоскость разбита на блоки 32 × 32 ячейки. Мины блока вычисляются детерминированно
+ * из зерна игры и координат блока, поэтому блок можно в любой момент выбросить
+ * и создать заново. Хранится только состояние игрока (открытые ячейки и флаги):
+ * изменённые блоки при вытеснении записываются на диск, нетронутые просто отбрасываются.
+ * Число блоков в памяти ограничено, как бы далеко ни ушёл игрок.
+ * Доска не потокобезопасна и используется из потока Swing.
+ */
+public class EndlessBoard implements Closeable {
+    static final int CHUNK_SHIFT = 5;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int WORDS = CHUNK_SIZE * CHUNK_SIZE / 64;
+
+    private final long seed;
+    private final long mineThreshold; // Ячейка — мина, если хеш (без знака) меньше порога
+    private final int maxLoadedChunks;
+    private final Path spillDirectory;
+    private final boolean ownsSpillDirectory;
+    private final LinkedHashMap<Long, Chunk> chunks;
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    private boolean gameOver;
+    private long revealedCount;
+    private long flagCount;
+    private long chunksGenerated;
+    private long chunksSpilled;
+
+    /**
+     * Конструктор с временным каталогом для вытесненных блоков (удаляется в close()).
+     * @param seed Зерно генерации
+     * @param density Доля мин, от 0 до 1
+     * @param maxLoadedChunks Максимум блоков в памяти
+     * @throws IOException если не удалось создать временный каталог
+     */
+    public EndlessBoard(long seed, double density, int maxLoadedChunks) throws IOException {
+        this(seed, density, maxLoadedChunks, Files.createTempDirectory("hexcells-endless"), true);
+    }
+
+    /**
+     * Конструктор с заданным каталогом для вытесненных блоков.
+     * Состояние, сохранённое в каталоге ранее с тем же зерном, подхватывается при загрузке блоков.
+     * @param seed Зерно генерации
+     * @param density Доля мин, от 0 до 1
+     * @param maxLoadedChunks Максимум блоков в памяти
+     * @param spillDirectory Каталог для вытесненных блоков
+     */
+    public EndlessBoard(long seed, double density, int maxLoadedChunks, Path spillDirectory) {
+        this(seed, density, maxLoadedChunks, spillDirectory, false);
+    }
+
+    private EndlessBoard(long seed, double density, int maxLoadedChunks, Path spillDirectory, boolean ownsSpillDirectory) {
+        if (density < 0 || density >= 1) {
+            throw new IllegalArgumentException("Доля мин должна быть в диапазоне [0, 1): " + density);
+        }
+        if (maxLoadedChunks < 1) {
+            throw new IllegalArgumentException("Число блоков в памяти должно быть положительным: " + maxLoadedChunks);
+        }
+        if (spillDirectory == null) {
+            throw new IllegalArgumentException("Каталог для блоков не может быть null");
+        }
+        this.seed = seed;
+        this.mineThreshold = (long) (density * 0x1p63) << 1;
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.spillDirectory = spillDirectory;
+        this.ownsSpillDirectory = ownsSpillDirectory;
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Проверяет, есть ли мина в ячейке. Не загружает блоки: мины вычисляются из зерна.
+     * Ячейка (0, 0) и её соседи всегда безопасны, чтобы первый ход не проигрывал.
+     * @param q Координата q
+     * @param r Координата r
+     * @return true, если в ячейке мина
+     */
+    public boolean isMine(int q, int r) {
+        if (Math.abs(q) <= 1 && Math.abs(r) <= 1 && Math.abs(q + r) <= 1) {
+            return false;
+        }
+        long chunkSeed = chunkSeed(q >> CHUNK_SHIFT, r >> CHUNK_SHIFT);
+        long hash = Zobrist.mix(chunkSeed + localIndex(q, r) * 0x9E3779B97F4A7C15L);
+        return Long.compareUnsigned(hash, mineThreshold) < 0;
+    }
+
+    /**
+     * Возвращает число мин среди соседей ячейки.
+     */
+    public int getNeighborMineCount(int q, int r) {
+        int count = 0;
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            if (isMine(q + offset[0], r + offset[1])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isRevealed(int q, int r) {
+        Chunk chunk = chunkFor(q, r);
+        return chunk.isSet(chunk.revealed, localIndex(q, r));
+    }
+
+    public boolean isFlagged(int q, int r) {
+        Chunk chunk = chunkFor(q, r);
+        return chunk.isSet(chunk.flagged, localIndex(q, r));
+    }
+
+    /**
+     * Открывает ячейку.
+     * @return true, если ячейка открыта, false, если игра завершена или ячейка уже открыта/флагована
+     */
+    public boolean revealCell(int q, int r) {
+        if (gameOver) {
+            return false;
+        }
+        Chunk chunk = chunkFor(q, r);
+        int index = localIndex(q, r);
+        if (chunk.isSet(chunk.revealed, index) || chunk.isSet(chunk.flagged, index)) {
+            return false;
+        }
+        chunk.set(chunk.revealed, index, true);
+        revealedCount++;
+        if (isMine(q, r)) {
+            gameOver = true;
+        }
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Устанавливает или снимает флаг.
+     * @return true, если флаг изменён, false, если ячейка открыта или игра завершена
+     */
+    public boolean toggleFlag(int q, int r) {
+        if (gameOver) {
+            return false;
+        }
+        Chunk chunk = chunkFor(q, r);
+        int index = localIndex(q, r);
+        if (chunk.isSet(chunk.revealed, index)) {
+            return false;
+        }
+        boolean flagged = !chunk.isSet(chunk.flagged, index);
+        chunk.set(chunk.flagged, index, flagged);
+        flagCount += flagged ? 1 : -1;
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Загружает блоки области и вытесняет блоки, далёкие от неё.
+     * Вызывается при смене видимой области; блоки вне области с запасом margin
+     * вытесняются, даже если лимит памяти не достигнут. Если область больше лимита,
+     * загружаются только первые блоки, остальные остаются на диске.
+     * @param minQ Минимальная координата q области
+     * @param minR Минимальная координата r области
+     * @param maxQ Максимальная координата q области
+     * @param maxR Максимальная координата r области
+     * @param margin Запас в блоках вокруг области
+     */
+    public void loadRegion(int minQ, int minR, int maxQ, int maxR, int margin) {
+        int minCq = (minQ >> CHUNK_SHIFT) - margin;
+        int minCr = (minR >> CHUNK_SHIFT) - margin;
+        int maxCq = (maxQ >> CHUNK_SHIFT) + margin;
+        int maxCr = (maxR >> CHUNK_SHIFT) + margin;
+        Iterator<Chunk> it = chunks.values().iterator();
+        while (it.hasNext()) {
+            Chunk chunk = it.next();
+            if (chunk.cq < minCq || chunk.cq > maxCq || chunk.cr < minCr || chunk.cr > maxCr) {
+                spill(chunk);
+                it.remove();
+            }
+        }
+
+        int loaded = 0;
+        for (int cr = minR >> CHUNK_SHIFT; cr <= maxR >> CHUNK_SHIFT && loaded < maxLoadedChunks; cr++) {
+            for (int cq = minQ >> CHUNK_SHIFT; cq <= maxQ >> CHUNK_SHIFT && loaded < maxLoadedChunks; cq++) {
+                chunkFor(cq << CHUNK_SHIFT, cr << CHUNK_SHIFT);
+                loaded++;
+            }
+        }
+    }
+
+    /**
+     * Вызывает обработчик для открытых ячеек и флагов загруженных блоков, пересекающих область.
+     * Блоки не загружаются; перед отрисовкой область загружается через {@link #loadRegion}.
+     * @param minQ Минимальная координата q
+     * @param minR Минимальная координата r
+     * @param maxQ Максимальная координата q
+     * @param maxR Максимальная координата r
+     * @param visitor Обработчик (q, r, revealed, flagged)
+     */
+    public void forEachMarkedCell(int minQ, int minR, int maxQ, int maxR, MarkedCellVisitor visitor) {
+        for (Chunk chunk : new ArrayList<>(chunks.values())) {
+            int q0 = chunk.cq << CHUNK_SHIFT;
+            int r0 = chunk.cr << CHUNK_SHIFT;
+            if (q0 > maxQ || q0 + CHUNK_MASK < minQ || r0 > maxR || r0 + CHUNK_MASK < minR) {
+                continue;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long marked = chunk.revealed[w] | chunk.flagged[w];
+                while (marked != 0) {
+                    int index = (w << 6) + Long.numberOfTrailingZeros(marked);
+                    marked &= marked - 1;
+                    int q = q0 + (index & CHUNK_MASK);
+                    int r = r0 + (index >> CHUNK_SHIFT);
+                    if (q >= minQ && q <= maxQ && r >= minR && r <= maxR) {
+                        visitor.visit(q, r, chunk.isSet(chunk.revealed, index), chunk.isSet(chunk.flagged, index));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Обработчик отмеченных ячеек.
+     */
+    @FunctionalInterface
+    public interface MarkedCellVisitor {
+        void visit(int q, int r, boolean revealed, boolean flagged);
+    }
+
+    /**
+     * Подписывает слушателя на любые изменения доски.
+     */
+    public void addChangeListener(Runnable listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Слушатель не может быть null");
+        }
+        listeners.add(listener);
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public long getRevealedCount() {
+        return revealedCount;
+    }
+
+    public long getFlagCount() {
+        return flagCount;
+    }
+
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    public long getChunksGenerated() {
+        return chunksGenerated;
+    }
+
+    public long getChunksSpilled() {
+        return chunksSpilled;
+    }
+
+    /**
+     * Удаляет файлы вытесненных блоков, если каталог создан доской.
+     * Иначе записывает на диск все изменённые загруженные блоки.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!ownsSpillDirectory) {
+            for (Chunk chunk : chunks.values()) {
+                spill(chunk);
+            }
+            chunks.clear();
+            return;
+        }
+        chunks.clear();
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(spillDirectory);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : new ArrayList<>(listeners)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Возвращает блок ячейки, загружая его с диска или создавая заново.
+     * При превышении лимита вытесняется давно не использованный блок.
+     */
+    private Chunk chunkFor(int q, int r) {
+        int cq = q >> CHUNK_SHIFT;
+        int cr = r >> CHUNK_SHIFT;
+        Long key = chunkKey(cq, cr);
+        Chunk chunk = chunks.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        chunk = load(cq, cr);
+        chunks.put(key, chunk);
+        if (chunks.size() > maxLoadedChunks) {
+            Iterator<Chunk> it = chunks.values().iterator();
+            Chunk eldest = it.next();
+            spill(eldest);
+            it.remove();
+        }
+        return chunk;
+    }
+
+    private Chunk load(int cq, int cr) {
+        Chunk chunk = new Chunk(cq, cr);
+        Path file = chunkFile(cq, cr);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file);
+                 DataInputStream data = new DataInputStream(in)) {
+                for (int w = 0; w < WORDS; w++) {
+                    chunk.revealed[w] = data.readLong();
+                }
+                for (int w = 0; w < WORDS; w++) {
+                    chunk.flagged[w] = data.readLong();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать блок " + cq + "," + cr, e);
+            }
+        } else {
+            chunksGenerated++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Записывает изменённый блок на диск; нетронутый блок просто отбрасывается.
+     */
+    private void spill(Chunk chunk) {
+        if (!chunk.dirty) {
+            return;
+        }
+        try (OutputStream out = Files.newOutputStream(chunkFile(chunk.cq, chunk.cr));
+             DataOutputStream data = new DataOutputStream(out)) {
+            for (long word : chunk.revealed) {
+                data.writeLong(word);
+            }
+            for (long word : chunk.flagged) {
+                data.writeLong(word);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать блок " + chunk.cq + "," + chunk.cr, e);
+        }
+        chunk.dirty = false;
+        chunksSpilled++;
+    }
+
+    private Path chunkFile(int cq, int cr) {
+        return spillDirectory.resolve("chunk_" + cq + "_" + cr + ".bin");
+    }
+
+    private long chunkSeed(int cq, int cr) {
+        return Zobrist.mix(seed ^ Zobrist.mix(chunkKey(cq, cr)));
+    }
+
+    private static long chunkKey(int cq, int cr) {
+        return (long) cq << 32 | (cr & 0xFFFFFFFFL);
+    }
+
+    private static int localIndex(int q, int r) {
+        return (r & CHUNK_MASK) << CHUNK_SHIFT | (q & CHUNK_MASK);
+    }
+
+    /**
+     * Состояние игрока в блоке: битовые маски открытых ячеек и флагов.
+     */
+    private static final class Chunk {
+        final int cq;
+        final int cr;
+        final long[] revealed = new long[WORDS];
+        final long[] flagged = new long[WORDS];
+        boolean dirty;
+
+        Chunk(int cq, int cr) {
+            this.cq = cq;
+            this.cr = cr;
+        }
+
+        boolean isSet(long[] bits, int index) {
+            return (bits[index >>> 6] & (1L << index)) != 0;
+        }
+
+        void set(long[] bits, int index, boolean value) {
+            if (value) {
+                bits[index >>> 6] |= 1L << index;
+            } else {
+                bits[index >>> 6] &= ~(1L << index);
+            }
+            dirty = true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Панель бесконечного режима. Показывает окно в бесконечную плоскость,
+ * которое перетаскивается мышью; перед отрисовкой загружаются только блоки
+ * видимой области, далёкие блоки вытесняются.
+ */
+public class EndlessGridPanel extends JPanel {
+    private static final int HEX_RADIUS = 30; // Радиус гексагона
+    private static final int DRAG_THRESHOLD = 4; // Сдвиг мыши в пикселях, после которого нажатие считается перетаскиванием
+    private static final int CHUNK_MARGIN = 1; // Запас блоков вокруг видимой области
+
+    private final EndlessBoard board;
+    private double viewX; // Мировые координаты левого верхнего угла панели
+    private double viewY;
+
+    /**
+     * Конструктор, инициализирующий панель. Ячейка (0, 0) оказывается в центре.
+     * @param board Бесконечная доска
+     */
+    public EndlessGridPanel(EndlessBoard board) {
+        this.board = board;
+        setBackground(Color.LIGHT_GRAY);
+        setPreferredSize(new Dimension(900, 700));
+        this.viewX = -450;
+        this.viewY = -350;
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point pressPoint;
+            private Point lastPoint;
+            private boolean dragging;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressPoint = e.getPoint();
+                lastPoint = e.getPoint();
+                dragging = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (pressPoint == null) {
+                    return;
+                }
+                if (!dragging && pressPoint.distance(e.getPoint()) < DRAG_THRESHOLD) {
+                    return;
+                }
+                dragging = true;
+                viewX -= e.getX() - lastPoint.x;
+                viewY -= e.getY() - lastPoint.y;
+                lastPoint = e.getPoint();
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (pressPoint != null && !dragging) {
+                    HexCoord coord = pixelToHex(e.getPoint());
+                    if (SwingUtilities.isLeftMouseButton(e)) {
+                        board.revealCell(coord.getQ(), coord.getR());
+                    } else if (SwingUtilities.isRightMouseButton(e)) {
+                        board.toggleFlag(coord.getQ(), coord.getR());
+                    }
+                }
+                pressPoint = null;
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+
+        board.addChangeListener(this::repaint);
+    }
+
+    /**
+     * Отрисовывает видимую часть плоскости: сначала все ячейки как скрытые,
+     * затем открытые ячейки и флаги из загруженных блоков.
+     * @param g Графический контекст
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        // Видимые диапазоны координат (строки сдвигаются вместе со столбцом)
+        double columnWidth = HexGeometry.columnWidth(HEX_RADIUS);
+        double rowHeight = HexGeometry.rowHeight(HEX_RADIUS);
+        double left = viewX + clip.x;
+        double top = viewY + clip.y;
+        double right = viewX + clip.getMaxX();
+        double bottom = viewY + clip.getMaxY();
+        int minQ = (int) Math.floor((left - HEX_RADIUS) / columnWidth);
+        int maxQ = (int) Math.ceil((right + HEX_RADIUS) / columnWidth);
+        int minR = (int) Math.floor((top - HEX_RADIUS) / rowHeight - maxQ / 2.0);
+        int maxR = (int) Math.ceil((bottom + HEX_RADIUS) / rowHeight - minQ / 2.0);
+        board.loadRegion(minQ, minR, maxQ, maxR, CHUNK_MARGIN);
+
+        for (int q = minQ; q <= maxQ; q++) {
+            int rFrom = (int) Math.floor((top - HEX_RADIUS) / rowHeight - q / 2.0);
+            int rTo = (int) Math.ceil((bottom + HEX_RADIUS) / rowHeight - q / 2.0);
+            for (int r = rFrom; r <= rTo; r++) {
+                Polygon hex = HexGeometry.createHexagon(hexToPixel(q, r), HEX_RADIUS);
+                g2d.setColor(Color.GRAY);
+                g2d.fillPolygon(hex);
+                g2d.setColor(Color.BLACK);
+                g2d.drawPolygon(hex);
+            }
+        }
+
+        board.forEachMarkedCell(minQ, minR, maxQ, maxR, (q, r, revealed, flagged) -> {
+            Point2D.Double center = hexToPixel(q, r);
+            Polygon hex = HexGeometry.createHexagon(center, HEX_RADIUS);
+            if (revealed) {
+                boolean mine = board.isMine(q, r);
+                g2d.setColor(mine ? Color.BLACK : Color.WHITE);
+                g2d.fillPolygon(hex);
+                int value = mine ? 0 : board.getNeighborMineCount(q, r);
+                if (value > 0) {
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawString(String.valueOf(value), (int) center.x - 5, (int) center.y + 5);
+                }
+            } else if (flagged) {
+                g2d.setColor(Color.RED);
+                g2d.fillOval((int) (center.x - HEX_RADIUS / 2), (int) (center.y - HEX_RADIUS / 2),
+                        HEX_RADIUS, HEX_RADIUS);
+            }
+            g2d.setColor(Color.BLACK);
+            g2d.drawPolygon(hex);
+        });
+    }
+
+    /**
+     * Преобразует координаты гексагона в пиксельные координаты центра на панели.
+     * @param q Координата q
+     * @param r Координата r
+     * @return Точка центра гексагона
+     */
+    public Point2D.Double hexToPixel(int q, int r) {
+        Point2D.Double center = HexGeometry.hexToPixel(q, r, HEX_RADIUS);
+        center.x -= viewX;
+        center.y -= viewY;
+        return center;
+    }
+
+    /**
+     * Преобразует пиксельные координаты панели в координаты гексагона.
+     * @param pixelPoint Точка в пикселях
+     * @return Координаты HexCoord (плоскость бесконечна, поэтому всегда не null)
+     */
+    public HexCoord pixelToHex(Point pixelPoint) {
+        return HexGeometry.pixelToHex(pixelPoint.x + viewX, pixelPoint.y + viewY, HEX_RADIUS);
+    }
+}
\ No newline at end of file
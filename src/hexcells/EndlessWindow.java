@@ -0,0 +1,59 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import javax.swing.*;
+
+/**
+ * Окно бесконечного режима: панель плоскости и строка состояния.
+ */
+public class EndlessWindow extends JFrame {
+    private static final double MINE_DENSITY = 0.18; // Доля мин
+    private static final int MAX_LOADED_CHUNKS = 256; // Блоков 32 x 32 в памяти
+
+    private final EndlessBoard board;
+    private final JLabel statusLabel;
+
+    /**
+     * Конструктор, открывающий новую бесконечную игру.
+     * @param seed Зерно генерации
+     * @throws IOException если не удалось создать каталог для вытесненных блоков
+     */
+    public EndlessWindow(long seed) throws IOException {
+        this.board = new EndlessBoard(seed, MINE_DENSITY, MAX_LOADED_CHUNKS);
+
+        setTitle("Hexcells - Бесконечный режим");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        add(new EndlessGridPanel(board), BorderLayout.CENTER);
+        this.statusLabel = new JLabel("", SwingConstants.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        updateStatus();
+
+        board.addChangeListener(this::updateStatus);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                try {
+                    board.close();
+                } catch (IOException ex) {
+                    System.err.println("Не удалось удалить файлы блоков: " + ex.getMessage());
+                }
+            }
+        });
+
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Обновляет строку состояния.
+     */
+    private void updateStatus() {
+        String progress = "Открыто: " + board.getRevealedCount() + ", флагов: " + board.getFlagCount();
+        statusLabel.setText(board.isGameOver() ? "Поражение! " + progress : progress);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package hexcells;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Тестовый клиент протокола GameServer.
+ * Запуск без аргументов поднимает сервер в том же процессе и прогоняет нагрузку:
+ * java hexcells.GameClient [connections] [movesPerConnection] [port]
+ */
+public class GameClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    /**
+     * Подключается к серверу на loopback-интерфейсе.
+     * @param port Порт сервера
+     * @throws IOException если подключиться не удалось
+     */
+    public GameClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Отправляет команду и ждёт ответа.
+     * @param command Строка команды
+     * @return Строка ответа
+     * @throws IOException при ошибке соединения
+     */
+    public String send(String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String response = in.readLine();
+        if (response == null) {
+            throw new IOException("Сервер закрыл соединение");
+        }
+        return response;
+    }
+
+    /**
+     * Отправляет пакет команд без ожидания ответов и затем читает ответы по порядку.
+     * @param commands Команды
+     * @return Ответы в порядке команд
+     * @throws IOException при ошибке соединения
+     */
+    public List<String> sendAll(List<String> commands) throws IOException {
+        for (String command : commands) {
+            out.write(command);
+            out.write('\n');
+        }
+        out.flush();
+        List<String> responses = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Сервер закрыл соединение");
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write("QUIT\n");
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Нагрузочный прогон: каждое соединение создаёт сессию и делает случайные ходы пакетами.
+     * @param args [connections] [movesPerConnection] [port]
+     */
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        GameServer embedded = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            embedded = new GameServer(0, new SessionManager());
+            port = embedded.getPort();
+        }
+
+        LongAdder done = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int seed = c;
+            threads.add(Thread.ofVirtual().start(() -> {
+                try (GameClient client = new GameClient(port)) {
+                    String id = client.send("NEW 30 30 150 " + seed).substring(3);
+                    SplittableRandom random = new SplittableRandom(seed);
+                    List<String> batch = new ArrayList<>();
+                    for (int m = 0; m < moves; m++) {
+                        String verb = random.nextInt(4) == 0 ? "FLAG " : "REVEAL ";
+                        batch.add(verb + id + " " + random.nextInt(30) + " " + random.nextInt(30));
+                        if (batch.size() == 100 || m == moves - 1) {
+                            for (String response : client.sendAll(batch)) {
+                                if (!response.startsWith("OK")) {
+                                    errors.increment();
+                                }
+                            }
+                            done.add(batch.size());
+                            batch.clear();
+                        }
+                    }
+                    client.send("CLOSE " + id);
+                } catch (IOException e) {
+                    errors.increment();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Ходов: %d, ошибок: %d, время: %.2f с, %.0f ходов/с%n",
+                done.sum(), errors.sum(), seconds, done.sum() / seconds);
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package hexcells;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * События JDK Flight Recorder для горячих путей игры.
+ * Создаются только при включённых метриках (см. {@link GameMetrics#ENABLED}).
+ */
+final class GameEvents {
+    private GameEvents() {
+    }
+
+    @Name("hexcells.Reveal")
+    @Label("Reveal Cell")
+    @Category("Hexcells")
+    @Description("Открытие ячейки на доске")
+    static class RevealEvent extends Event {
+        @Label("q")
+        int q;
+        @Label("r")
+        int r;
+        @Label("Revealed")
+        boolean revealed;
+        @Label("Mine")
+        boolean mine;
+    }
+
+    @Name("hexcells.Hint")
+    @Label("Find Hint")
+    @Category("Hexcells")
+    @Description("Поиск подсказки HintBot")
+    static class HintEvent extends Event {
+        @Label("Found")
+        boolean found;
+        @Label("Technique")
+        String technique;
+        @Label("Cells")
+        int cells;
+    }
+
+    @Name("hexcells.LevelInit")
+    @Label("Initialize Level")
+    @Category("Hexcells")
+    @Description("Инициализация уровня на доске")
+    static class LevelInitEvent extends Event {
+        @Label("Rows")
+        int rows;
+        @Label("Columns")
+        int cols;
+        @Label("Rules")
+        int rules;
+    }
+
+    @Name("hexcells.Paint")
+    @Label("Paint Grid")
+    @Category("Hexcells")
+    @Description("Отрисовка GridPanel")
+    static class PaintEvent extends Event {
+        @Label("Clip Width")
+        int clipWidth;
+        @Label("Clip Height")
+        int clipHeight;
+    }
+}
\ No newline at end of file
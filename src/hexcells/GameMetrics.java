@@ -0,0 +1,138 @@
+package hexcells;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики горячих путей: гистограммы задержек и счётчики.
+ * Включаются свойством -Dhexcells.metrics=true; флаг статический и финальный,
+ * поэтому при выключенных метриках JIT удаляет проверки вместе с замерами.
+ * Со свойством -Dhexcells.metrics.dumpOnExit=true снимок печатается при завершении JVM.
+ */
+public final class GameMetrics {
+    /** Включены ли метрики и события JFR. */
+    public static final boolean ENABLED = Boolean.getBoolean("hexcells.metrics");
+
+    public static final LatencyHistogram REVEAL = new LatencyHistogram("reveal");
+    public static final LatencyHistogram HINT = new LatencyHistogram("hint");
+    public static final LatencyHistogram LEVEL_INIT = new LatencyHistogram("levelInit");
+    public static final LatencyHistogram PAINT = new LatencyHistogram("paint");
+    public static final LatencyHistogram FRAME = new LatencyHistogram("frame");
+
+    private static final LongAdder CELLS_REVEALED = new LongAdder();
+    private static final LongAdder HINTS_COMPUTED = new LongAdder();
+    private static final LongAdder FRAMES_RENDERED = new LongAdder();
+    private static final LongAdder[] DEDUCTIONS = new LongAdder[HintTechnique.values().length];
+
+    static {
+        for (int i = 0; i < DEDUCTIONS.length; i++) {
+            DEDUCTIONS[i] = new LongAdder();
+        }
+        if (ENABLED && Boolean.getBoolean("hexcells.metrics.dumpOnExit")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(System.err), "hexcells-metrics-dump"));
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Возвращает момент начала замера или 0, если метрики выключены.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Учитывает открытую ячейку.
+     */
+    public static void cellRevealed() {
+        CELLS_REVEALED.increment();
+    }
+
+    /**
+     * Учитывает вычисленную подсказку и приём, которым она найдена.
+     * @param technique Приём или null, если подсказка не найдена
+     */
+    public static void hintComputed(HintTechnique technique) {
+        HINTS_COMPUTED.increment();
+        if (technique != null) {
+            DEDUCTIONS[technique.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Учитывает кадр активной отрисовки и время его построения.
+     * @param startNanos Момент начала кадра (System.nanoTime())
+     */
+    public static void frameRendered(long startNanos) {
+        FRAMES_RENDERED.increment();
+        FRAME.recordSince(startNanos);
+    }
+
+    public static long getCellsRevealed() {
+        return CELLS_REVEALED.sum();
+    }
+
+    public static long getHintsComputed() {
+        return HINTS_COMPUTED.sum();
+    }
+
+    public static long getFramesRendered() {
+        return FRAMES_RENDERED.sum();
+    }
+
+    /**
+     * Возвращает число выводов, сделанных приёмом.
+     * @param technique Приём
+     */
+    public static long getDeductions(HintTechnique technique) {
+        return DEDUCTIONS[technique.ordinal()].sum();
+    }
+
+    /**
+     * Возвращает текстовый снимок всех метрик.
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        String nl = System.lineSeparator();
+        sb.append("hexcells metrics (enabled=").append(ENABLED).append(')').append(nl);
+        for (LatencyHistogram histogram : new LatencyHistogram[] {REVEAL, HINT, LEVEL_INIT, PAINT, FRAME}) {
+            sb.append("  ").append(histogram).append(nl);
+        }
+        sb.append("  cellsRevealed=").append(getCellsRevealed())
+                .append(" hintsComputed=").append(getHintsComputed())
+                .append(" framesRendered=").append(getFramesRendered()).append(nl);
+        for (HintTechnique technique : HintTechnique.values()) {
+            sb.append("  deductions.").append(technique.name().toLowerCase())
+                    .append('=').append(getDeductions(technique)).append(nl);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Печатает снимок метрик.
+     * @param out Поток вывода
+     */
+    public static void dump(PrintStream out) {
+        out.print(snapshot());
+        out.flush();
+    }
+
+    /**
+     * Сбрасывает все метрики.
+     */
+    public static void reset() {
+        REVEAL.reset();
+        HINT.reset();
+        LEVEL_INIT.reset();
+        PAINT.reset();
+        FRAME.reset();
+        CELLS_REVEALED.reset();
+        HINTS_COMPUTED.reset();
+        FRAMES_RENDERED.reset();
+        for (LongAdder adder : DEDUCTIONS) {
+            adder.reset();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package hexcells;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Итог одной партии для статистики: уровень, время, ходы, ошибки и подсказки.
+ * Записывается в журнал статистики записью фиксированного размера RECORD_BYTES.
+ */
+public final class GameResult {
+    /** Размер записи в байтах. */
+    public static final int RECORD_BYTES = 40;
+
+    private static final int FLAG_WON = 1;
+    private static final int FLAG_BOT = 2;
+
+    private final long levelKey;
+    private final long timestampMillis;
+    private final long durationMillis;
+    private final int moves;
+    private final int mistakes;
+    private final int hints;
+    private final boolean won;
+    private final boolean bot;
+
+    /**
+     * Конструктор.
+     * @param levelKey Ключ уровня (Board.getLevelKey())
+     * @param timestampMillis Время окончания партии
+     * @param durationMillis Длительность партии
+     * @param moves Число ходов
+     * @param mistakes Число ошибок
+     * @param hints Число использованных подсказок
+     * @param won true, если партия выиграна
+     * @param bot true, если играл бот
+     */
+    public GameResult(long levelKey, long timestampMillis, long durationMillis, int moves, int mistakes,
+                      int hints, boolean won, boolean bot) {
+        if (durationMillis < 0 || moves < 0 || mistakes < 0 || hints < 0) {
+            throw new IllegalArgumentException("Показатели партии не могут быть отрицательными");
+        }
+        this.levelKey = levelKey;
+        this.timestampMillis = timestampMillis;
+        this.durationMillis = durationMillis;
+        this.moves = moves;
+        this.mistakes = mistakes;
+        this.hints = hints;
+        this.won = won;
+        this.bot = bot;
+    }
+
+    public long getLevelKey() {
+        return levelKey;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getMistakes() {
+        return mistakes;
+    }
+
+    public int getHints() {
+        return hints;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public boolean isBot() {
+        return bot;
+    }
+
+    /**
+     * Записывает запись в буфер (RECORD_BYTES байт).
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(levelKey)
+                .putLong(timestampMillis)
+                .putLong(durationMillis)
+                .putInt(moves)
+                .putInt(mistakes)
+                .putInt(hints)
+                .putInt((won ? FLAG_WON : 0) | (bot ? FLAG_BOT : 0));
+    }
+
+    /**
+     * Читает запись из буфера (RECORD_BYTES байт).
+     */
+    static GameResult readFrom(ByteBuffer buffer) {
+        long levelKey = buffer.getLong();
+        long timestamp = buffer.getLong();
+        long duration = buffer.getLong();
+        int moves = buffer.getInt();
+        int mistakes = buffer.getInt();
+        int hints = buffer.getInt();
+        int flags = buffer.getInt();
+        return new GameResult(levelKey, timestamp, duration, moves, mistakes, hints,
+                (flags & FLAG_WON) != 0, (flags & FLAG_BOT) != 0);
+    }
+}
\ No newline at end of file
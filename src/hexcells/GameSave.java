@@ -0,0 +1,209 @@
+package hexcells;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Сохранённая партия: снимок масок открытых ячеек и флагов, числа ходов и ключа уровня.
+ * Снимок снимается копированием масок доски, поэтому его можно делать в потоке Swing,
+ * а запись выполнять в фоне.
+ * <p>
+ * Формат (big-endian): магическое число, версия, rows, cols, ключ уровня, число ходов,
+ * число слов масок, маска открытых ячеек, маска флагов, CRC32 всех предыдущих байт.
+ * Маска хранится разреженно: число ненулевых слов и пары (номер слова, слово)
+ * по возрастанию номера, поэтому размер файла растёт с числом открытых ячеек и флагов,
+ * а не с площадью уровня.
+ * Файл записывается во временный рядом с целевым и атомарно переименовывается,
+ * поэтому прерванная запись не портит предыдущее сохранение.
+ */
+public final class GameSave {
+    private static final int MAGIC = 0x48585356; // "HXSV"
+    private static final int VERSION = 2;
+    private static final int ENTRY_BYTES = Integer.BYTES + Long.BYTES; // Номер и значение слова
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 4 + 4;
+
+    private final int rows;
+    private final int cols;
+    private final long levelKey;
+    private final int moveCount;
+    private final CellBits revealed;
+    private final CellBits flagged;
+
+    private GameSave(int rows, int cols, long levelKey, int moveCount, CellBits revealed, CellBits flagged) {
+        this.rows = rows;
+        this.cols = cols;
+        this.levelKey = levelKey;
+        this.moveCount = moveCount;
+        this.revealed = revealed;
+        this.flagged = flagged;
+    }
+
+    /**
+     * Снимает состояние партии (копирование масок, без обхода ячеек).
+     * @param board Доска
+     * @return Снимок
+     */
+    public static GameSave capture(Board board) {
+        return new GameSave(board.getRows(), board.getCols(), board.getLevelKey(), board.getMoveCount(),
+                board.getRevealedBits(), board.getFlaggedBits());
+    }
+
+    /**
+     * Восстанавливает партию на доске с тем же уровнем.
+     * @param board Доска, инициализированная уровнем сохранения
+     * @throws IllegalArgumentException если сохранение относится к другому уровню
+     */
+    public void applyTo(Board board) {
+        if (board.getRows() != rows || board.getCols() != cols || board.getLevelKey() != levelKey) {
+            throw new IllegalArgumentException("Сохранение относится к другому уровню");
+        }
+        board.restoreProgress(revealed, flagged, moveCount);
+    }
+
+    public long getLevelKey() {
+        return levelKey;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Записывает сохранение во временный файл и атомарно заменяет им целевой.
+     * @param file Целевой файл
+     * @throws IOException при ошибке записи
+     */
+    public void write(Path file) throws IOException {
+        int words = revealed.wordCount();
+        int revealedWords = countNonZeroWords(revealed);
+        int flaggedWords = countNonZeroWords(flagged);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * Integer.BYTES
+                + (revealedWords + flaggedWords) * ENTRY_BYTES + Long.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols)
+                .putLong(levelKey).putInt(moveCount).putInt(words);
+        putSparse(buffer, revealed, revealedWords);
+        putSparse(buffer, flagged, flaggedWords);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Читает сохранение из файла.
+     * @param file Файл сохранения
+     * @return Сохранение
+     * @throws IOException при ошибке чтения или повреждённом файле
+     */
+    public static GameSave read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + Long.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Неверный размер файла сохранения: " + size);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Файл сохранения обрезан: " + file);
+                }
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Файл не является сохранением Hexcells: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия сохранения: " + version);
+        }
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        long levelKey = buffer.getLong();
+        int moveCount = buffer.getInt();
+        int words = buffer.getInt();
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE
+                || words != (int) (((long) rows * cols + 63) >>> 6)) {
+            throw new IOException("Повреждённый заголовок сохранения: " + file);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.capacity() - Long.BYTES);
+        if (buffer.getLong(buffer.capacity() - Long.BYTES) != crc.getValue()) {
+            throw new IOException("Контрольная сумма сохранения не совпадает: " + file);
+        }
+        buffer.limit(buffer.capacity() - Long.BYTES);
+        CellBits revealed = new CellBits(rows, cols);
+        CellBits flagged = new CellBits(rows, cols);
+        getSparse(buffer, revealed, file);
+        getSparse(buffer, flagged, file);
+        if (buffer.hasRemaining()) {
+            throw new IOException("Лишние данные в сохранении: " + file);
+        }
+        return new GameSave(rows, cols, levelKey, moveCount, revealed, flagged);
+    }
+
+    private static int countNonZeroWords(CellBits bits) {
+        int count = 0;
+        for (int word = bits.nextNonZeroWord(0); word >= 0; word = bits.nextNonZeroWord(word + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Записывает маску: число ненулевых слов и пары (номер слова, слово).
+     */
+    private static void putSparse(ByteBuffer buffer, CellBits bits, int count) {
+        buffer.putInt(count);
+        for (int word = bits.nextNonZeroWord(0); word >= 0; word = bits.nextNonZeroWord(word + 1)) {
+            buffer.putInt(word).putLong(bits.word(word));
+        }
+    }
+
+    /**
+     * Читает маску версии 2; номера слов должны строго возрастать и лежать в пределах сетки.
+     */
+    private static void getSparse(ByteBuffer buffer, CellBits bits, Path file) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            throw new IOException("Файл сохранения обрезан: " + file);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || count > bits.wordCount() || (long) count * ENTRY_BYTES > buffer.remaining()) {
+            throw new IOException("Повреждённая маска сохранения: " + file);
+        }
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            int word = buffer.getInt();
+            if (word <= previous || word >= bits.wordCount()) {
+                throw new IOException("Повреждённая маска сохранения: " + file);
+            }
+            bits.setWord(word, buffer.getLong());
+            previous = word;
+        }
+    }
+}
\ No newline at end of file
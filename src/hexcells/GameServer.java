@@ -0,0 +1,250 @@
+package hexcells;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный игровой сервер с построчным текстовым протоколом на loopback-сокете.
+ * Каждое соединение обслуживается своим виртуальным потоком; ответы приходят в порядке запросов.
+ *
+ * Команды (ответ — строка "OK ..." или "ERR сообщение"):
+ * <pre>
+ * NEW rows cols mines seed  -> OK id
+ * REVEAL id q r             -> OK changed state value
+ * FLAG id q r               -> OK changed state
+ * STATE id                  -> OK state rows cols cells  (# скрыта, F флаг, * мина, 0-6 число)
+ * CLOSE id                  -> OK
+ * QUIT                      -> соединение закрывается
+ * </pre>
+ * state — PLAYING, WON или LOST. Размер доски в NEW ограничен MAX_SIDE и MAX_CELLS.
+ */
+public class GameServer implements AutoCloseable {
+    /** Наибольшее число строк или столбцов доски, создаваемой командой NEW */
+    public static final int MAX_SIDE = 1000;
+    /** Наибольшее число ячеек доски, создаваемой командой NEW */
+    public static final long MAX_CELLS = 250_000;
+
+    private final SessionManager sessions;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    /**
+     * Запускает сервер на loopback-интерфейсе.
+     * @param port Порт (0 — любой свободный)
+     * @param sessions Менеджер сессий
+     * @throws IOException если порт недоступен
+     */
+    public GameServer(int port, SessionManager sessions) throws IOException {
+        this.sessions = sessions;
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("hexcells-accept").start(this::acceptLoop);
+    }
+
+    /**
+     * Возвращает порт, на котором слушает сервер.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                if (!running) {
+                    // close() мог пройти по соединениям до добавления этого
+                    connections.remove(socket);
+                    socket.close();
+                    break;
+                }
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Ошибка приёма соединения: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Обслуживает одно соединение: читает команды и пишет ответы.
+     * Ответ сбрасывается в сокет, только когда больше нет прочитанных команд.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                out.write(handle(line));
+                out.write('\n');
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // Клиент закрыл соединение
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Ошибка соединения: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Выполняет одну команду протокола.
+     * @param line Строка команды
+     * @return Строка ответа
+     */
+    String handle(String line) {
+        String[] parts = line.trim().split("\\s+");
+        try {
+            switch (parts[0].toUpperCase()) {
+                case "NEW": {
+                    requireArgs(parts, 5);
+                    int rows = Integer.parseInt(parts[1]);
+                    int cols = Integer.parseInt(parts[2]);
+                    if (rows < 1 || cols < 1 || rows > MAX_SIDE || cols > MAX_SIDE || (long) rows * cols > MAX_CELLS) {
+                        return "ERR Недопустимый размер доски " + rows + "x" + cols + " (не более " + MAX_SIDE
+                                + " по стороне и " + MAX_CELLS + " ячеек)";
+                    }
+                    LevelConfig config = LevelGenerator.randomLevel(rows, cols, Integer.parseInt(parts[3]),
+                            Long.parseLong(parts[4]));
+                    return "OK " + sessions.createSession(config).getId();
+                }
+                case "REVEAL": {
+                    requireArgs(parts, 4);
+                    HexCoord coord = new HexCoord(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                    return session(parts[1]).submit(board -> {
+                        boolean changed = board.revealCell(coord);
+                        Cell cell = board.getCell(coord);
+                        int value = cell != null && cell.isRevealed() ? cell.getRevealedValue() : -1;
+                        return "OK " + changed + " " + state(board) + " " + value;
+                    }).join();
+                }
+                case "FLAG": {
+                    requireArgs(parts, 4);
+                    HexCoord coord = new HexCoord(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                    return session(parts[1]).submit(board ->
+                            "OK " + board.toggleFlag(coord) + " " + state(board)).join();
+                }
+                case "STATE": {
+                    requireArgs(parts, 2);
+                    return session(parts[1]).submit(board -> "OK " + state(board) + " " + board.getRows() + " "
+                            + board.getCols() + " " + encodeCells(board)).join();
+                }
+                case "CLOSE": {
+                    requireArgs(parts, 2);
+                    if (!sessions.closeSession(Long.parseLong(parts[1]))) {
+                        return "ERR Нет сессии " + parts[1];
+                    }
+                    return "OK";
+                }
+                default:
+                    return "ERR Неизвестная команда: " + parts[0];
+            }
+        } catch (NumberFormatException e) {
+            return "ERR Некорректное число: " + e.getMessage();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            return "ERR " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private GameSession session(String id) {
+        GameSession session = sessions.getSession(Long.parseLong(id));
+        if (session == null) {
+            throw new IllegalArgumentException("Нет сессии " + id);
+        }
+        return session;
+    }
+
+    private static void requireArgs(String[] parts, int count) {
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Команда " + parts[0] + " ожидает " + (count - 1) + " аргумента(ов)");
+        }
+    }
+
+    private static String state(Board board) {
+        if (board.isGameWon()) {
+            return "WON";
+        }
+        return board.isGameOver() ? "LOST" : "PLAYING";
+    }
+
+    /**
+     * Кодирует видимое игроку состояние доски построчно, по символу на ячейку (пробел — ячейки нет в уровне).
+     */
+    private static String encodeCells(Board board) {
+        StringBuilder sb = new StringBuilder(board.getRows() * board.getCols());
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int q = 0; q < board.getCols(); q++) {
+                Cell cell = board.getCell(new HexCoord(q, r));
+                if (cell == null) {
+                    sb.append(' ');
+                } else if (cell.isRevealed()) {
+                    sb.append(cell.isMine() ? '*' : (char) ('0' + cell.getRevealedValue()));
+                } else {
+                    sb.append(cell.isFlagged() ? 'F' : '#');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Останавливает сервер: перестаёт принимать соединения, закрывает открытые соединения
+     * и менеджер сессий (уже поставленные команды сессий дорабатывают).
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            serverSocket.close();
+        } finally {
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Соединение уже разорвано
+                }
+            }
+            sessions.close();
+        }
+    }
+
+    /**
+     * Запускает сервер: java hexcells.GameServer [port].
+     * @param args Аргументы командной строки
+     * @throws IOException если порт недоступен
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        GameServer server = new GameServer(port, new SessionManager());
+        System.out.println("Сервер Hexcells слушает 127.0.0.1:" + server.getPort());
+        Thread.currentThread().join();
+    }
+}
\ No newline at end of file
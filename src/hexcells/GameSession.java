@@ -0,0 +1,85 @@
+package hexcells;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Игровая сессия сервера: собственная доска и очередь команд.
+ * Команды одной сессии выполняются строго по очереди (в порядке подачи),
+ * команды разных сессий — параллельно на общем исполнителе.
+ */
+public class GameSession {
+    private final long id;
+    private final Board board;
+    private final Executor executor;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Конструктор.
+     * @param id Идентификатор сессии
+     * @param board Доска сессии (доступна только из очереди команд)
+     * @param executor Исполнитель, на котором разбирается очередь
+     */
+    GameSession(long id, Board board, Executor executor) {
+        this.id = id;
+        this.board = board;
+        this.executor = executor;
+    }
+
+    /**
+     * Ставит команду в очередь сессии.
+     * @param command Команда над доской
+     * @param <T> Тип результата
+     * @return Результат команды
+     */
+    public <T> CompletableFuture<T> submit(Function<Board, T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Сессия " + id + " закрыта"));
+            return result;
+        }
+        commands.add(() -> {
+            try {
+                result.complete(command.apply(board));
+            } catch (Throwable e) {
+                // Error тоже завершает результат: иначе ожидающий join() и очередь сессии зависнут
+                result.completeExceptionally(e);
+            }
+        });
+        // Разборщик запускается только первой командой в пустой очереди
+        if (pending.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет команды, пока очередь не опустеет. В каждый момент работает не более одного разборщика.
+     */
+    private void drain() {
+        do {
+            commands.poll().run();
+        } while (pending.decrementAndGet() > 0);
+    }
+
+    /**
+     * Закрывает сессию: новые команды отклоняются, уже поставленные выполняются.
+     */
+    void close() {
+        closed = true;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
\ No newline at end of file
@@ -2,6 +2,8 @@ package hexcells;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
 /**
@@ -13,23 +15,44 @@ public class GameWindow extends JFrame {
     private final Board gameBoard; // Игровая доска
     private final JLabel statusLabel; // Метка для сообщений игроку
     private final JButton hintButton; // Кнопка для получения подсказки
+    private final HintService hintService; // Поиск подсказок вне потока Swing
+    private final AutosaveService autosave; // Фоновое автосохранение партии
+    private final CompletableFuture<StatisticsStore> statistics; // Статистика партий; null внутри, если её нет
+    private final long startMillis; // Время начала партии
+    private int hintsUsed; // Показанные подсказки
+    private int mistakes; // Флаги на безопасных ячейках и открытая мина
     private boolean isGameOver; // Флаг, указывающий, закончена ли игра
+    private static final long HINT_BUDGET_MILLIS = 200; // Время на поиск одной подсказки
 
     /**
      * Конструктор, инициализирующий окно игры.
      *  board Игровая доска
      */
     public GameWindow(Board board) {
+        this(board, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Конструктор, инициализирующий окно игры.
+     * @param board Игровая доска
+     * @param statistics Хранилище статистики, в которое записывается итог партии; может ещё
+     *                   открываться или завершиться значением null
+     */
+    public GameWindow(Board board, CompletableFuture<StatisticsStore> statistics) {
         this.gameBoard = board;
+        this.statistics = statistics;
+        this.startMillis = System.currentTimeMillis();
         this.isGameOver = false;
+        this.hintService = new HintService(HINT_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+        this.autosave = new AutosaveService(AutosaveService.defaultFile(board));
 
         // Настраиваем окно
         setTitle("Hexcells Game");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        // Инициализируем панель сетки
-        this.gridPanel = new GridPanel(gameBoard);
+        // Инициализируем панель сетки (активная отрисовка: -Dhexcells.activeRendering=true)
+        this.gridPanel = new GridPanel(gameBoard, Boolean.getBoolean("hexcells.activeRendering"));
         add(gridPanel, BorderLayout.CENTER);
 
         // Инициализируем метку статуса
@@ -53,31 +76,84 @@ public class GameWindow extends JFrame {
                 Point point = e.getPoint();
                 HexCoord coord = gridPanel.pixelToHex(point);
 
-                // Проверяем, валидны ли координаты (в пределах доски)
+                // Проверяем, валидны ли координаты (в пределах доски).
+                // Перерисовку и проверку состояния выполняют подписчики событий доски.
                 if (isValidCoord(coord)) {
-                    Cell cell = gameBoard.getCell(coord);
-                    if (cell != null) {
-                        if (SwingUtilities.isLeftMouseButton(e)) {
-                            // Левая кнопка: открываем ячейку
-                            gameBoard.revealCell(coord);
-                        } else if (SwingUtilities.isRightMouseButton(e)) {
-                            // Правая кнопка: ставим/снимаем флажок
-                            gameBoard.toggleFlag(coord);
+                    if (SwingUtilities.isLeftMouseButton(e)) {
+                        // Левая кнопка: открываем ячейку
+                        gameBoard.revealCell(coord);
+                    } else if (SwingUtilities.isRightMouseButton(e)) {
+                        // Правая кнопка: ставим/снимаем флажок
+                        if (gameBoard.toggleFlag(coord)) {
+                            Cell cell = gameBoard.getCell(coord);
+                            if (cell.isFlagged() && !cell.isMine()) {
+                                mistakes++;
+                            }
                         }
-                        gridPanel.repaint(); // Перерисовываем сетку
-                        checkGameStatus(); // Проверяем состояние игры
                     }
                 }
             }
         });
 
-        // Добавляем обработчик для кнопки подсказки
+        // Любое изменение доски делает подсказку устаревшей; статус обновляем при смене состояния игры.
+        // Партия сохраняется после каждого хода и удаляется после её окончания
+        gameBoard.addBoardListener(event -> {
+            gridPanel.setHintHighlight(null, null);
+            if (event.isGameStateChanged()) {
+                checkGameStatus();
+            }
+            if (gameBoard.isGameOver()) {
+                autosave.discard();
+            } else {
+                autosave.save(gameBoard);
+            }
+        });
+
+        // Добавляем обработчик для кнопки подсказки: поиск идёт в фоне, результат подсвечивается
         hintButton.addActionListener(e -> {
             if (!isGameOver) {
-                // Предполагается, что Board или HintBot имеет метод getHint()
-                String hint = String.valueOf(gameBoard.getCols()); // Заменить на реальный метод
-                statusLabel.setText(hint);
-                gridPanel.repaint();
+                statusLabel.setText("Поиск подсказки...");
+                hintService.requestHint(gameBoard, new HintService.HintListener() {
+                    private int found; // Подсказок этого запроса
+                    private String firstText; // Текст первой подсказки
+
+                    @Override
+                    public void hintFound(HintResult hint) {
+                        // Подсвечивается первая, самая простая подсказка; следующие только считаются
+                        if (++found > 1) {
+                            statusLabel.setText(firstText + " (выводов: " + found + ")");
+                            return;
+                        }
+                        hintsUsed++;
+                        gridPanel.setHintHighlight(hint.getCoord(), hint.getType());
+                        HexCoord coord = hint.getCoord();
+                        String where = "(" + coord.getQ() + ", " + coord.getR() + ")";
+                        firstText = hint.getType() == HintType.MINE
+                                ? "Подсказка: мина в " + where
+                                : "Подсказка: ячейка " + where + " безопасна";
+                        statusLabel.setText(firstText);
+                    }
+
+                    @Override
+                    public void searchFinished(boolean found, boolean timedOut) {
+                        if (!found) {
+                            statusLabel.setText(timedOut ? "Подсказка не найдена за отведённое время"
+                                    : "Подсказка не найдена");
+                        }
+                    }
+                });
+            }
+        });
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                autosave.close(); // До выхода из приложения: дописываем последний снимок
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                hintService.close();
             }
         });
 
@@ -91,25 +167,46 @@ public class GameWindow extends JFrame {
      *  coord Координаты ячейки
      */
     private boolean isValidCoord(HexCoord coord) {
-        if (coord == null || gameBoard == null || gameBoard.getGrid() == null) {
+        if (coord == null || gameBoard == null) {
             return false;
         }
-        int q = coord.getQ();
-        int r = coord.getR();
-        Cell[][] grid = gameBoard.getGrid();
-        return q >= 0 && q < grid.length && r >= 0 && r < grid[q].length;
+        return gameBoard.getCell(coord) != null;
     }
 
     /**
      * Проверяет состояние игры (победа или поражение).
      */
     private void checkGameStatus() {
-        if (gameBoard.checkWinCondition()) {
+        if (isGameOver) {
+            return;
+        }
+        if (gameBoard.isGameWon()) {
             statusLabel.setText("Победа!");
             isGameOver = true;
-        } else if (gameBoard.isGameWon()) { // Предполагаемый метод в Board
+            recordResult();
+        } else if (gameBoard.isGameOver()) {
             statusLabel.setText("Поражение!");
             isGameOver = true;
+            mistakes++; // Открыта мина
+            recordResult();
         }
     }
+
+    /**
+     * Записывает итог партии в статистику. Итог собирается в потоке Swing, запись и сброс
+     * на диск выполняются фоновым потоком хранилища, когда оно откроется.
+     */
+    private void recordResult() {
+        long now = System.currentTimeMillis();
+        GameResult result = new GameResult(gameBoard.getLevelKey(), now, Math.max(0, now - startMillis),
+                gameBoard.getMoveCount(), mistakes, hintsUsed, gameBoard.isGameWon(), false);
+        statistics.thenCompose(store -> store == null ? CompletableFuture.<Void>completedFuture(null)
+                        : store.recordAsync(result))
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        System.err.println("Не удалось записать статистику: " + cause.getMessage());
+                    }
+                });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,363 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Вывод мин и безопасных ячеек линейной алгеброй над ограничениями «сумма неизвестных = k».
+ * Все ограничения доски сводятся в разреженную матрицу и приводятся целочисленным
+ * (без дробей) исключением Гаусса к ступенчатому виду; затем для каждой строки
+ * проверяются границы: переменные принимают значения 0 или 1, поэтому строка
+ * с коэффициентами разного знака часто фиксирует отдельные переменные.
+ * Находит выводы, недоступные проверке правил по одному.
+ */
+public class GaussianDeduction {
+    /** Порог коэффициента, после которого строка отбрасывается во избежание переполнения. */
+    private static final long COEFFICIENT_LIMIT = 1L << 40;
+
+    private GaussianDeduction() {
+    }
+
+    /**
+     * Разреженная строка: отсортированные номера переменных, коэффициенты и правая часть.
+     */
+    private static final class Row {
+        final int[] vars;
+        final long[] coefs;
+        final long rhs;
+
+        Row(int[] vars, long[] coefs, long rhs) {
+            this.vars = vars;
+            this.coefs = coefs;
+            this.rhs = rhs;
+        }
+
+        long coefficientOf(int var) {
+            int position = Arrays.binarySearch(vars, var);
+            return position >= 0 ? coefs[position] : 0;
+        }
+
+        boolean isEmpty() {
+            return vars.length == 0;
+        }
+    }
+
+    /**
+     * Находит все ячейки, состояние которых следует из ограничений доски.
+     * @param board Доска
+     * @return Выводы (ячейка и тип); пустой список, если выводов нет
+     */
+    public static List<HintResult> deduce(Board board) {
+        return deduce(board.getCols(), ConstraintSystem.fromBoard(board).getConstraints(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Находит ячейки, состояние которых следует из ограничений, с ограничением по времени.
+     * По истечении срока возвращаются выводы по уже приведённым строкам.
+     * @param cols Количество столбцов доски (для перевода индексов в координаты)
+     * @param constraints Ограничения
+     * @param deadlineNanos Срок по System.nanoTime()
+     * @return Выводы в порядке возрастания индекса ячейки
+     */
+    static List<HintResult> deduce(int cols, List<LinearConstraint> constraints, long deadlineNanos) {
+        // Нумерация переменных: неизвестные ячейки, встречающиеся в ограничениях, в порядке
+        // первого появления. Вхождения (ячейка << 32 | номер вхождения) сортируются, чтобы
+        // сгруппировать ячейки без массива на всю площадь доски
+        int occurrenceCount = 0;
+        for (LinearConstraint constraint : constraints) {
+            occurrenceCount += constraint.cells().length;
+        }
+        long[] occurrences = new long[occurrenceCount];
+        int occurrence = 0;
+        for (LinearConstraint constraint : constraints) {
+            for (int cell : constraint.cells()) {
+                occurrences[occurrence] = (long) cell << 32 | occurrence;
+                occurrence++;
+            }
+        }
+        Arrays.sort(occurrences);
+        // Группа — одна ячейка; первое вхождение группы идёт в ней первым
+        int[] groupOf = new int[occurrenceCount];
+        int[] groupCell = new int[occurrenceCount];
+        long[] groupOrder = new long[occurrenceCount]; // (первое вхождение << 32 | группа)
+        int groupCount = 0;
+        for (int i = 0; i < occurrenceCount; i++) {
+            if (i == 0 || occurrences[i] >>> 32 != occurrences[i - 1] >>> 32) {
+                groupCell[groupCount] = (int) (occurrences[i] >>> 32);
+                groupOrder[groupCount] = (occurrences[i] & 0xFFFFFFFFL) << 32 | groupCount;
+                groupCount++;
+            }
+            groupOf[(int) occurrences[i]] = groupCount - 1;
+        }
+        Arrays.sort(groupOrder, 0, groupCount);
+        int varCount = groupCount;
+        int[] varOfGroup = new int[groupCount]; // Группы идут в порядке возрастания ячейки
+        int[] cellOfVar = new int[varCount];
+        for (int v = 0; v < varCount; v++) {
+            varOfGroup[(int) groupOrder[v]] = v;
+            cellOfVar[v] = groupCell[(int) groupOrder[v]];
+        }
+        List<Row> original = new ArrayList<>(constraints.size());
+        occurrence = 0;
+        for (LinearConstraint constraint : constraints) {
+            int[] vars = new int[constraint.cells().length];
+            for (int i = 0; i < vars.length; i++) {
+                vars[i] = varOfGroup[groupOf[occurrence++]];
+            }
+            original.add(unitRow(vars, constraint.getSum()));
+        }
+
+        byte[] forced = new byte[varCount]; // 0 — неизвестно, 1 — мина, 2 — безопасна
+        for (Row row : original) {
+            applyBounds(row, forced);
+        }
+
+        // Независимые компоненты (переменные, связанные общими строками) приводятся отдельно:
+        // фронт обычно распадается на много небольших областей
+        int[] parent = new int[varCount];
+        for (int v = 0; v < varCount; v++) {
+            parent[v] = v;
+        }
+        for (Row row : original) {
+            for (int k = 1; k < row.vars.length; k++) {
+                union(parent, row.vars[0], row.vars[k]);
+            }
+        }
+        int[] componentOf = new int[varCount];
+        List<List<Row>> components = new ArrayList<>();
+        Arrays.fill(componentOf, -1);
+        for (Row row : original) {
+            int root = find(parent, row.vars[0]);
+            if (componentOf[root] < 0) {
+                componentOf[root] = components.size();
+                components.add(new ArrayList<>());
+            }
+            components.get(componentOf[root]).add(row);
+        }
+
+        int[] pivotRow = new int[varCount];
+        Arrays.fill(pivotRow, -1);
+        for (List<Row> component : components) {
+            if (component.size() < 2) {
+                continue; // Одна строка уже проверена по границам
+            }
+            if (System.nanoTime() > deadlineNanos) {
+                break;
+            }
+            for (Row row : eliminate(component, pivotRow, deadlineNanos)) {
+                applyBounds(row, forced);
+            }
+        }
+
+        List<HintResult> result = new ArrayList<>();
+        for (int var : varOfGroup) {
+            int cell = cellOfVar[var];
+            if (forced[var] != 0) {
+                result.add(new HintResult(new HexCoord(cell % cols, cell / cols),
+                        forced[var] == 1 ? HintType.MINE : HintType.SAFE, HintTechnique.LINEAR));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Приводит строки компоненты к ступенчатому виду, затем выполняет обратную подстановку.
+     * Ведущая переменная строки — её наименьшая переменная, поэтому прямой проход добавляет
+     * в строку только большие переменные, а обратный проход в порядке убывания ведущих
+     * переменных исключает их, обращаясь лишь к строкам, которые реально их содержат.
+     * @param rows Строки компоненты
+     * @param pivotRow Номер строки базиса по ведущей переменной (общий для всех компонент)
+     * @param deadlineNanos Срок по System.nanoTime()
+     * @return Строки базиса
+     */
+    private static List<Row> eliminate(List<Row> rows, int[] pivotRow, long deadlineNanos) {
+        // Срок проверяется перед каждой строкой: приведение длинной строки стоит много дороже
+        // вызова nanoTime, а проверка раз в несколько десятков строк запаздывала на десятки мс
+        List<Row> basis = new ArrayList<>();
+        for (Row row : rows) {
+            if (System.nanoTime() > deadlineNanos) {
+                return basis;
+            }
+            Row reduced = reduce(row, basis, pivotRow, -1);
+            if (reduced == null || reduced.isEmpty()) {
+                continue;
+            }
+            pivotRow[reduced.vars[0]] = basis.size();
+            basis.add(reduced);
+        }
+
+        Integer[] order = new Integer[basis.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(basis.get(y).vars[0], basis.get(x).vars[0]));
+        for (int i : order) {
+            if (System.nanoTime() > deadlineNanos) {
+                break;
+            }
+            Row reduced = reduce(basis.get(i), basis, pivotRow, i);
+            if (reduced != null) {
+                basis.set(i, reduced);
+            }
+        }
+        return basis;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[ra] = rb;
+        }
+    }
+
+    /**
+     * Исключает из строки ведущие переменные строк базиса (кроме строки self).
+     * Строка базиса содержит только переменные не меньше своей ведущей,
+     * поэтому исключение добавляет лишь большие переменные и хватает одного прохода.
+     * @return Приведённая строка или null при переполнении
+     */
+    private static Row reduce(Row row, List<Row> basis, int[] pivotRow, int self) {
+        Row current = row;
+        int position = 0;
+        while (current != null && position < current.vars.length) {
+            int var = current.vars[position];
+            int index = pivotRow[var];
+            if (index < 0 || index == self) {
+                position++;
+                continue;
+            }
+            Row pivot = basis.get(index);
+            long pivotCoef = pivot.coefficientOf(var);
+            current = combine(current, pivotCoef, pivot, -current.coefs[position]);
+            // var исключена, меньшие переменные не изменились: продолжаем с её места
+            if (current != null) {
+                position = -Arrays.binarySearch(current.vars, var) - 1;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Вычисляет fa * a + fb * b и делит результат на НОД коэффициентов.
+     * @return Новая строка или null, если коэффициенты слишком велики
+     */
+    private static Row combine(Row a, long fa, Row b, long fb) {
+        int[] vars = new int[a.vars.length + b.vars.length];
+        long[] coefs = new long[vars.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.vars.length || j < b.vars.length) {
+            long coef;
+            int var;
+            if (j >= b.vars.length || (i < a.vars.length && a.vars[i] < b.vars[j])) {
+                var = a.vars[i];
+                coef = fa * a.coefs[i++];
+            } else if (i >= a.vars.length || b.vars[j] < a.vars[i]) {
+                var = b.vars[j];
+                coef = fb * b.coefs[j++];
+            } else {
+                var = a.vars[i];
+                coef = fa * a.coefs[i++] + fb * b.coefs[j++];
+            }
+            if (coef != 0) {
+                if (Math.abs(coef) > COEFFICIENT_LIMIT) {
+                    return null;
+                }
+                vars[n] = var;
+                coefs[n++] = coef;
+            }
+        }
+        long rhs = fa * a.rhs + fb * b.rhs;
+        return normalize(Arrays.copyOf(vars, n), Arrays.copyOf(coefs, n), rhs);
+    }
+
+    /**
+     * Делит строку на НОД и делает ведущий коэффициент положительным.
+     */
+    private static Row normalize(int[] vars, long[] coefs, long rhs) {
+        long gcd = Math.abs(rhs);
+        for (long coef : coefs) {
+            gcd = gcd(gcd, Math.abs(coef));
+        }
+        if (coefs.length > 0 && coefs[0] < 0) {
+            gcd = -gcd;
+        }
+        if (gcd != 0 && gcd != 1) {
+            for (int k = 0; k < coefs.length; k++) {
+                coefs[k] /= gcd;
+            }
+            rhs /= gcd;
+        }
+        return new Row(vars, coefs, rhs);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Строит строку с единичными коэффициентами.
+     */
+    private static Row unitRow(int[] vars, long rhs) {
+        Arrays.sort(vars);
+        long[] coefs = new long[vars.length];
+        Arrays.fill(coefs, 1);
+        return new Row(vars, coefs, rhs);
+    }
+
+    /**
+     * Рассуждение по границам: переменные 0/1, поэтому сумма строки лежит между суммой
+     * отрицательных и суммой положительных коэффициентов. Если без переменной (или с ней)
+     * правая часть недостижима, значение переменной определено.
+     */
+    private static void applyBounds(Row row, byte[] forced) {
+        long min = 0;
+        long max = 0;
+        for (long coef : row.coefs) {
+            if (coef > 0) {
+                max += coef;
+            } else {
+                min += coef;
+            }
+        }
+        if (row.rhs < min || row.rhs > max) {
+            return; // Противоречие (например, ошибочный флаг): выводы из строки ненадёжны
+        }
+        for (int k = 0; k < row.vars.length; k++) {
+            long c = row.coefs[k];
+            int var = row.vars[k];
+            if (forced[var] != 0) {
+                continue;
+            }
+            if (c > 0) {
+                if (row.rhs > max - c) {
+                    forced[var] = 1;
+                } else if (row.rhs < min + c) {
+                    forced[var] = 2;
+                }
+            } else {
+                if (row.rhs < min - c) {
+                    forced[var] = 1;
+                } else if (row.rhs > max + c) {
+                    forced[var] = 2;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
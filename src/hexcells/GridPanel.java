@@ -1,46 +1,185 @@
 package hexcells;
 
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
 /**
  * Панель для отображения игровой сетки Hexcells.
+ * По умолчанию рисует пассивно через repaint(); в активном режиме кадры собирает
+ * {@link ActiveGridRenderer} в отдельном потоке с фиксированной частотой.
  */
 public class GridPanel extends JPanel {
+    static final int HEX_RADIUS = 30; // Радиус гексагона
+    static final Color HINT_SAFE_COLOR = new Color(0, 170, 0); // Подсказка: безопасная ячейка
+    static final Color HINT_MINE_COLOR = new Color(200, 0, 0); // Подсказка: мина
+    private static final int FRAMES_PER_SECOND = 60;
+
     private final Board board;
-    private static final int HEX_RADIUS = 30; // Радиус гексагона
+    private final ActiveGridRenderer renderer; // null в пассивном режиме
+    private HexCoord hint; // Подсвеченная подсказка или null
+    private HintType hintType;
 
     /**
-     * Конструктор, инициализирующий панель.
+     * Конструктор, инициализирующий панель в пассивном режиме.
      * @param board Игровая доска
      */
     public GridPanel(Board board) {
+        this(board, false);
+    }
+
+    /**
+     * Конструктор, инициализирующий панель.
+     * @param board Игровая доска
+     * @param activeRendering true — активная отрисовка отдельным потоком
+     */
+    public GridPanel(Board board, boolean activeRendering) {
         this.board = board;
         setBackground(Color.LIGHT_GRAY);
 
         // Установка предпочтительного размера
-        int width = (int) (board.getCols() * HEX_RADIUS * 1.5 + HEX_RADIUS);
-        int height = (int) (board.getRows() * HEX_RADIUS * Math.sqrt(3) + HEX_RADIUS);
+        int width = (int) (board.getCols() * HexGeometry.columnWidth(HEX_RADIUS) + HEX_RADIUS);
+        int height = (int) (board.getRows() * HexGeometry.rowHeight(HEX_RADIUS) + HEX_RADIUS);
         setPreferredSize(new Dimension(width, height));
 
-        // Добавление обработчика мыши
-        addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                HexCoord coord = pixelToHex(e.getPoint());
-                if (coord != null) {
-                    if (e.getButton() == MouseEvent.BUTTON1) { // Левая кнопка
-                        board.revealCell(coord);
-                    } else if (e.getButton() == MouseEvent.BUTTON3) { // Правая кнопка
-                        board.toggleFlag(coord);
-                    }
-                    repaint();
+        // Клики обрабатывает GameWindow; панель только перерисовывает изменившиеся ячейки
+        board.addBoardListener(this::onBoardChanged);
+
+        if (activeRendering) {
+            renderer = new ActiveGridRenderer(this, FRAMES_PER_SECOND);
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    rebuildStaticLayers();
+                }
+            });
+            addMouseMotionListener(new MouseAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    renderer.setHover(pixelToHex(e.getPoint()));
                 }
+            });
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    renderer.setHover(null);
+                }
+            });
+        } else {
+            renderer = null;
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (renderer != null) {
+            rebuildStaticLayers();
+            renderer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (renderer != null) {
+            renderer.stop();
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * Подсвечивает ячейку подсказки.
+     * @param coord Координаты ячейки или null, чтобы снять подсветку
+     * @param type Тип подсказки (определяет цвет)
+     */
+    public void setHintHighlight(HexCoord coord, HintType type) {
+        HexCoord previous = hint;
+        hint = coord;
+        hintType = type;
+        if (renderer != null) {
+            renderer.setHint(coord, type);
+            return;
+        }
+        if (previous != null) {
+            repaint(getCellBounds(previous));
+        }
+        if (coord != null) {
+            repaint(getCellBounds(coord));
+        }
+    }
+
+    /**
+     * Перерисовывает только области изменившихся ячеек.
+     * Сброс доски и завершение игры (показ всех мин) требуют полной перерисовки.
+     * В активном режиме изменения передаются потоку отрисовки снимками ячеек.
+     * @param event Событие изменения доски
+     */
+    private void onBoardChanged(BoardChangeEvent event) {
+        if (event.isReset() || event.isGameStateChanged()) {
+            if (renderer != null) {
+                rebuildStaticLayers();
+            } else {
+                repaint();
             }
-        });
+            return;
+        }
+        for (HexCoord coord : event.getChangedCells()) {
+            if (renderer != null) {
+                renderer.cellChanged(new ActiveGridRenderer.CellSprite(coord.getQ(), coord.getR(), board.getCell(coord)));
+            } else {
+                repaint(getCellBounds(coord));
+            }
+        }
+    }
+
+    /**
+     * Строит статические слои активного режима по текущему состоянию доски:
+     * ячейки (непрозрачный слой) и правила (прозрачный слой), размером с панель.
+     */
+    private void rebuildStaticLayers() {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+
+        BufferedImage cells = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = cells.createGraphics();
+        try {
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, width, height);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            paintCells(g2d, bounds);
+        } finally {
+            g2d.dispose();
+        }
+
+        BufferedImage rules = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        g2d = rules.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            paintRules(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        renderer.setStaticLayers(cells, rules);
+    }
+
+    /**
+     * Возвращает прямоугольник, занимаемый гексагоном ячейки.
+     * @param coord Координаты ячейки
+     * @return Границы гексагона с запасом на обводку
+     */
+    private Rectangle getCellBounds(HexCoord coord) {
+        Point2D.Double center = hexToPixel(coord.getQ(), coord.getR());
+        return new Rectangle((int) center.x - HEX_RADIUS - 1, (int) center.y - HEX_RADIUS - 1,
+                2 * HEX_RADIUS + 3, 2 * HEX_RADIUS + 3);
     }
 
     /**
@@ -49,68 +188,137 @@ public class GridPanel extends JPanel {
      */
     @Override
     protected void paintComponent(Graphics g) {
+        if (renderer != null) {
+            super.paintComponent(g);
+            if (renderer.paintStatic(g)) {
+                return;
+            }
+        }
+        if (!GameMetrics.ENABLED) {
+            paintGrid(g);
+            return;
+        }
+        GameEvents.PaintEvent event = new GameEvents.PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        paintGrid(g);
+        GameMetrics.PAINT.recordSince(start);
+        if (event.shouldCommit()) {
+            Rectangle clip = g.getClipBounds();
+            event.clipWidth = clip == null ? getWidth() : clip.width;
+            event.clipHeight = clip == null ? getHeight() : clip.height;
+            event.commit();
+        }
+    }
+
+    /**
+     * Отрисовывает сетку, ячейки и правила.
+     * @param g Графический контекст
+     */
+    private void paintGrid(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g2d.getClipBounds();
+        paintCells(g2d, clip);
+        paintRules(g2d);
 
-        // Отрисовка гексагонов
-        for (int r = 0; r < board.getRows(); r++) {
-            for (int q = 0; q < board.getCols(); q++) {
-                HexCoord coord = new HexCoord(q, r);
-                Point2D.Double center = hexToPixel(q, r);
-                Polygon hex = createHexagon(center, HEX_RADIUS);
+        // Подсветка подсказки
+        if (hint != null) {
+            g2d.setStroke(new BasicStroke(4));
+            g2d.setColor(hintType == HintType.MINE ? HINT_MINE_COLOR : HINT_SAFE_COLOR);
+            g2d.drawPolygon(HexGeometry.createHexagon(hexToPixel(hint.getQ(), hint.getR()), HEX_RADIUS));
+        }
+    }
 
-                Cell cell = board.getCell(coord);
-                if (cell == null) {
-                    continue;
-                }
+    /**
+     * Отрисовывает правила.
+     */
+    private void paintRules(Graphics2D g2d) {
+        for (Rule rule : board.getActiveRules()) {
+            rule.draw(g2d, this, board);
+        }
+    }
+
+    /**
+     * Отрисовывает ячейки, попадающие в область, и мины после проигрыша.
+     */
+    private void paintCells(Graphics2D g2d, Rectangle clip) {
+        // Отрисовка гексагонов (только существующих ячеек, попадающих в область перерисовки)
+        forEachVisibleCell(clip, (q, r, cell) -> paintCell(g2d, q, r, cell.isRevealed(), cell.isMine(),
+                cell.isFlagged(), cell.getRevealedValue()));
 
-                // Отрисовка ячейки
-                if (cell.isRevealed()) {
-                    if (cell.isMine()) {
-                        g2d.setColor(Color.BLACK);
-                        g2d.fillPolygon(hex);
-                    } else {
-                        g2d.setColor(Color.WHITE);
-                        g2d.fillPolygon(hex);
-                        if (cell.getRevealedValue() > 0) {
-                            g2d.setColor(Color.BLACK);
-                            g2d.drawString(String.valueOf(cell.getRevealedValue()),
-                                    (int) center.x - 5, (int) center.y + 5);
-                        }
-                    }
-                } else {
-                    g2d.setColor(Color.GRAY);
-                    g2d.fillPolygon(hex);
-                    if (cell.isFlagged()) {
-                        g2d.setColor(Color.RED);
-                        g2d.fillOval((int) (center.x - HEX_RADIUS / 2), (int) (center.y - HEX_RADIUS / 2),
-                                HEX_RADIUS, HEX_RADIUS);
-                    }
+        // Если игра завершена и проиграна, показать все мины
+        if (board.isGameOver() && !board.isGameWon()) {
+            forEachVisibleCell(clip, (q, r, cell) -> {
+                if (cell.isMine() && !cell.isRevealed()) {
+                    Point2D.Double center = hexToPixel(q, r);
+                    g2d.setColor(Color.BLACK);
+                    g2d.fillOval((int) (center.x - HEX_RADIUS / 2), (int) (center.y - HEX_RADIUS / 2),
+                            HEX_RADIUS, HEX_RADIUS);
                 }
+            });
+        }
+    }
 
+    /**
+     * Отрисовывает одну ячейку по её видимому состоянию; доску не читает,
+     * поэтому вызывается и из потока активной отрисовки.
+     */
+    void paintCell(Graphics2D g2d, int q, int r, boolean revealed, boolean mine, boolean flagged, int value) {
+        Point2D.Double center = hexToPixel(q, r);
+        Polygon hex = HexGeometry.createHexagon(center, HEX_RADIUS);
+
+        if (revealed) {
+            if (mine) {
                 g2d.setColor(Color.BLACK);
-                g2d.drawPolygon(hex);
+                g2d.fillPolygon(hex);
+            } else {
+                g2d.setColor(Color.WHITE);
+                g2d.fillPolygon(hex);
+                if (value > 0) {
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawString(String.valueOf(value), (int) center.x - 5, (int) center.y + 5);
+                }
+            }
+        } else {
+            g2d.setColor(Color.GRAY);
+            g2d.fillPolygon(hex);
+            if (flagged) {
+                g2d.setColor(Color.RED);
+                g2d.fillOval((int) (center.x - HEX_RADIUS / 2), (int) (center.y - HEX_RADIUS / 2),
+                        HEX_RADIUS, HEX_RADIUS);
             }
         }
 
-        // Отрисовка правил
-        for (Rule rule : board.getActiveRules()) {
-            rule.draw(g2d, this, board);
-        }
+        g2d.setColor(Color.BLACK);
+        g2d.drawPolygon(hex);
+    }
 
-        // Если игра завершена и проиграна, показать все мины
-        if (board.isGameOver() && !board.isGameWon()) {
-            for (int r = 0; r < board.getRows(); r++) {
-                for (int q = 0; q < board.getCols(); q++) {
-                    HexCoord coord = new HexCoord(q, r);
-                    Cell cell = board.getCell(coord);
-                    if (cell != null && cell.isMine() && !cell.isRevealed()) {
-                        Point2D.Double center = hexToPixel(q, r);
-                        g2d.setColor(Color.BLACK);
-                        g2d.fillOval((int) (center.x - HEX_RADIUS / 2), (int) (center.y - HEX_RADIUS / 2),
-                                HEX_RADIUS, HEX_RADIUS);
-                    }
+    /**
+     * Обходит существующие ячейки, гексагоны которых пересекают область перерисовки.
+     * Диапазоны q и r вычисляются из границ области, поэтому пустые и невидимые
+     * части больших карт не перебираются.
+     * @param clip Область перерисовки или null для всей доски
+     * @param visitor Обработчик ячеек
+     */
+    private void forEachVisibleCell(Rectangle clip, CellVisitor visitor) {
+        if (clip == null) {
+            board.forEachCell(visitor);
+            return;
+        }
+        double columnWidth = HexGeometry.columnWidth(HEX_RADIUS);
+        double rowHeight = HexGeometry.rowHeight(HEX_RADIUS);
+        int qMin = Math.max(0, (int) Math.floor((clip.x - 2 * HEX_RADIUS) / columnWidth));
+        int qMax = Math.min(board.getCols() - 1, (int) Math.ceil(clip.getMaxX() / columnWidth));
+        for (int q = qMin; q <= qMax; q++) {
+            int rMin = Math.max(0, (int) Math.floor((clip.y - 2 * HEX_RADIUS) / rowHeight - q / 2.0));
+            int rMax = Math.min(board.getRows() - 1, (int) Math.ceil(clip.getMaxY() / rowHeight - q / 2.0));
+            for (int r = rMin; r <= rMax; r++) {
+                HexCoord coord = new HexCoord(q, r);
+                Cell cell = board.getCell(coord);
+                if (cell != null && clip.intersects(getCellBounds(coord))) {
+                    visitor.visit(q, r, cell);
                 }
             }
         }
@@ -119,35 +327,14 @@ public class GridPanel extends JPanel {
     /**
      * Преобразует пиксельные координаты в координаты гексагона.
      * @param pixelPoint Точка в пикселях
-     * @return Координаты HexCoord или null, если точка вне сетки
+     * @return Координаты HexCoord или null, если точка вне сетки или ячейки нет в уровне
      */
     public HexCoord pixelToHex(Point pixelPoint) {
-        double x = pixelPoint.x;
-        double y = pixelPoint.y;
-
-        // Преобразование в кубические координаты
-        double q = (2.0 / 3 * x) / HEX_RADIUS;
-        double r = (-x / 3 + Math.sqrt(3) / 3 * y) / HEX_RADIUS;
-
-        // Округление кубических координат
-        double z = -q - r;
-        int rq = (int) Math.round(q);
-        int rr = (int) Math.round(r);
-        int rz = (int) Math.round(z);
-
-        double qDiff = Math.abs(rq - q);
-        double rDiff = Math.abs(rr - r);
-        double zDiff = Math.abs(rz - z);
+        HexCoord coord = HexGeometry.pixelToHex(pixelPoint.x - HEX_RADIUS, pixelPoint.y - HEX_RADIUS, HEX_RADIUS);
 
-        if (qDiff > rDiff && qDiff > zDiff) {
-            rq = -rr - rz;
-        } else if (rDiff > zDiff) {
-            rr = -rq - rz;
-        }
-
-        // Проверка, находится ли координата в пределах сетки
-        if (rq >= 0 && rq < board.getCols() && rr >= 0 && rr < board.getRows()) {
-            return new HexCoord(rq, rr);
+        // Проверка, существует ли ячейка
+        if (board.hasCell(coord.getQ(), coord.getR())) {
+            return coord;
         }
         return null;
     }
@@ -159,25 +346,9 @@ public class GridPanel extends JPanel {
      * @return Точка центра гексагона
      */
     public Point2D.Double hexToPixel(int q, int r) { // Изменено на public
-        double x = HEX_RADIUS * (3.0 / 2 * q);
-        double y = HEX_RADIUS * (Math.sqrt(3) * (r + q / 2.0));
-        return new Point2D.Double(x + HEX_RADIUS, y + HEX_RADIUS);
-    }
-
-    /**
-     * Создает полигон гексагона.
-     * @param center Центр гексагона
-     * @param radius Радиус гексагона
-     * @return Полигон гексагона
-     */
-    private Polygon createHexagon(Point2D.Double center, int radius) {
-        Polygon hex = new Polygon();
-        for (int i = 0; i < 6; i++) {
-            double angle = Math.toRadians(60 * i);
-            int x = (int) (center.x + radius * Math.cos(angle));
-            int y = (int) (center.y + radius * Math.sin(angle));
-            hex.addPoint(x, y);
-        }
-        return hex;
+        Point2D.Double center = HexGeometry.hexToPixel(q, r, HEX_RADIUS);
+        center.x += HEX_RADIUS;
+        center.y += HEX_RADIUS;
+        return center;
     }
 }
\ No newline at end of file
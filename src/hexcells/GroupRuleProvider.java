@@ -0,0 +1,44 @@
+package hexcells;
+
+/**
+ * Встроенный модуль GroupRule: ровно N мин в наборе ячеек.
+ */
+final class GroupRuleProvider implements RuleProvider {
+    @Override
+    public Rule createRule(RuleData data) {
+        if (!(data instanceof GroupRuleData)) {
+            return null;
+        }
+        GroupRuleData group = (GroupRuleData) data;
+        return new GroupRule(group.getCellsInGroup(), group.getExpectedGroupedMines());
+    }
+
+    @Override
+    public LevelCanonicalForm.RuleEncoding canonicalize(RuleData data) {
+        if (!(data instanceof GroupRuleData)) {
+            return null;
+        }
+        GroupRuleData group = (GroupRuleData) data;
+        return new LevelCanonicalForm.RuleEncoding(group.getExpectedGroupedMines(), group.getCellsInGroup(),
+                LevelCanonicalForm.CellOrder.SET);
+    }
+
+    @Override
+    public boolean accepts(Rule rule) {
+        return rule instanceof GroupRule;
+    }
+
+    /**
+     * Ячейки вне формы уровня отбрасываются: мин в них нет.
+     */
+    @Override
+    public CompiledRule compile(Rule rule, int cols, CellMask mask) {
+        return new CompiledCountRule(CompiledRules.toIndices(rule.getCells(), cols, mask, false),
+                rule.getExpectedMines(), HintTechnique.GROUP, CompiledRules.TYPE_GROUP);
+    }
+
+    @Override
+    public Rule withExpected(Rule rule, int expected) {
+        return new GroupRule(rule.getCells(), expected);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package hexcells;
+
+import java.awt.Polygon;
+import java.awt.geom.Point2D;
+
+/**
+ * Геометрия гексагональной сетки в пикселях, общая для панелей отрисовки.
+ * Координаты отсчитываются от центра ячейки (0, 0); панели добавляют свой сдвиг.
+ */
+public final class HexGeometry {
+    private static final double SQRT3 = Math.sqrt(3);
+
+    private HexGeometry() {
+    }
+
+    /**
+     * Преобразует координаты гексагона в пиксельные координаты центра.
+     * @param q Координата q
+     * @param r Координата r
+     * @param radius Радиус гексагона
+     * @return Точка центра относительно центра ячейки (0, 0)
+     */
+    public static Point2D.Double hexToPixel(int q, int r, double radius) {
+        double x = radius * (3.0 / 2 * q);
+        double y = radius * (SQRT3 * (r + q / 2.0));
+        return new Point2D.Double(x, y);
+    }
+
+    /**
+     * Преобразует пиксельные координаты в координаты ближайшего гексагона.
+     * @param x Координата x относительно центра ячейки (0, 0)
+     * @param y Координата y относительно центра ячейки (0, 0)
+     * @param radius Радиус гексагона
+     * @return Координаты гексагона (без проверки границ)
+     */
+    public static HexCoord pixelToHex(double x, double y, double radius) {
+        // Преобразование в кубические координаты
+        double q = (2.0 / 3 * x) / radius;
+        double r = (-x / 3 + SQRT3 / 3 * y) / radius;
+
+        // Округление кубических координат
+        double z = -q - r;
+        int rq = (int) Math.round(q);
+        int rr = (int) Math.round(r);
+        int rz = (int) Math.round(z);
+
+        double qDiff = Math.abs(rq - q);
+        double rDiff = Math.abs(rr - r);
+        double zDiff = Math.abs(rz - z);
+
+        if (qDiff > rDiff && qDiff > zDiff) {
+            rq = -rr - rz;
+        } else if (rDiff > zDiff) {
+            rr = -rq - rz;
+        }
+        return new HexCoord(rq, rr);
+    }
+
+    /**
+     * Создает полигон гексагона.
+     * @param center Центр гексагона
+     * @param radius Радиус гексагона
+     * @return Полигон гексагона
+     */
+    public static Polygon createHexagon(Point2D.Double center, int radius) {
+        Polygon hex = new Polygon();
+        for (int i = 0; i < 6; i++) {
+            double angle = Math.toRadians(60 * i);
+            int x = (int) (center.x + radius * Math.cos(angle));
+            int y = (int) (center.y + radius * Math.sin(angle));
+            hex.addPoint(x, y);
+        }
+        return hex;
+    }
+
+    /**
+     * Ширина столбца сетки (шаг по x между соседними q).
+     */
+    public static double columnWidth(double radius) {
+        return radius * 1.5;
+    }
+
+    /**
+     * Высота строки сетки (шаг по y между соседними r).
+     */
+    public static double rowHeight(double radius) {
+        return radius * SQRT3;
+    }
+}
\ No newline at end of file
@@ -3,224 +3,164 @@ package hexcells;
 import java.util.List;
 
 /**
- * Перечисление для типа подсказки.
- */
-enum HintType {
-    MINE, // Ячейка содержит мину
-    SAFE  // Ячейка безопасна
-}
-
-/**
- * Класс для хранения результата подсказки.
+ * Класс для анализа состояния Board и предоставления подсказок.
  */
-class HintResult {
-    private final HexCoord coord;
-    private final HintType type;
-
-    public HintResult(HexCoord coord, HintType type) {
-        this.coord = coord;
-        this.type = type;
-    }
-
-    public HexCoord getCoord() {
-        return coord;
-    }
+public class HintBot {
+    /** Метка «подсказки нет» в кэше (кэш не хранит null). */
+    private static final HintResult NO_HINT = new HintResult(null, null, null);
 
-    public HintType getType() {
-        return type;
+    /**
+     * Находит подсказку, используя кэш по хешу Зобриста состояния доски.
+     * Повторяющиеся позиции (частые в прогонах ботов) не пересчитываются.
+     * @param board Текущая доска
+     * @param cache Кэш подсказок (может разделяться между потоками)
+     * @return HintResult с координатами и типом подсказки, или null, если подсказка не найдена
+     */
+    public static HintResult findHint(Board board, TranspositionCache<HintResult> cache) {
+        if (board == null) {
+            return null;
+        }
+        long key = board.getZobristHash();
+        HintResult cached = cache.get(key);
+        if (cached == null) {
+            HintResult hint = findHint(board);
+            cached = hint == null ? NO_HINT : hint;
+            cache.put(key, cached);
+        }
+        return cached == NO_HINT ? null : cached;
     }
-}
 
-/**
- * Класс для анализа состояния Board и предоставления подсказок.
- */
-public class HintBot {
     /**
      * Находит подсказку на основе текущего состояния доски.
      * @param board Текущая доска
      * @return HintResult с координатами и типом подсказки, или null, если подсказка не найдена
      */
     public static HintResult findHint(Board board) {
+        if (!GameMetrics.ENABLED) {
+            return doFindHint(board);
+        }
+        GameEvents.HintEvent event = new GameEvents.HintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        HintResult hint = doFindHint(board);
+        GameMetrics.HINT.recordSince(start);
+        GameMetrics.hintComputed(hint == null ? null : hint.getTechnique());
+        if (event.shouldCommit()) {
+            event.found = hint != null;
+            event.technique = hint == null ? null : hint.getTechnique().name();
+            event.cells = board == null ? 0 : board.getRows() * board.getCols();
+            event.commit();
+        }
+        return hint;
+    }
+
+    private static HintResult doFindHint(Board board) {
         if (board == null) {
             return null;
         }
 
         // Этап 1: Простая логика "Сапёра"
-        HintResult mineSweeperHint = findMineSweeperHint(board);
+        BoardView view = board.view();
+        HintResult mineSweeperHint = findMineSweeperHint(view, Long.MAX_VALUE);
         if (mineSweeperHint != null) {
             return mineSweeperHint;
         }
 
         // Этап 2: Анализ правил
-        HintResult ruleHint = findRuleHint(board);
-        return ruleHint;
+        HintResult ruleHint = findRuleHint(view, Long.MAX_VALUE);
+        if (ruleHint != null) {
+            return ruleHint;
+        }
+
+        // Этап 3: Совместный анализ всех ограничений-счётчиков
+        List<HintResult> linearHints = GaussianDeduction.deduce(board);
+        return linearHints.isEmpty() ? null : linearHints.get(0);
     }
 
     /**
      * Проверяет открытые ячейки для простой логики "Сапёра".
+     * Открытые ячейки перебираются по маске, пустые слова пропускаются; срок проверяется
+     * каждые 64 слова маски, по его истечении возвращается null.
+     * @param deadlineNanos Срок по System.nanoTime()
      */
-    private static HintResult findMineSweeperHint(Board board) {
-        for (int r = 0; r < board.getRows(); r++) {
-            for (int q = 0; q < board.getCols(); q++) {
-                Cell cell = board.getCell(new HexCoord(q, r));
-                if (cell != null && cell.isRevealed() && !cell.isMine() && cell.getRevealedValue() > 0) {
-                    List<HexCoord> neighbors = board.getNeighbors(new HexCoord(q, r));
-                    int countFlagged = 0;
-                    int countHiddenUnflagged = 0;
-                    List<HexCoord> hiddenUnflaggedNeighbors = new java.util.ArrayList<>();
-
-                    // Подсчет флагов и скрытых не-флагованных соседей
-                    for (HexCoord neighborCoord : neighbors) {
-                        Cell neighbor = board.getCell(neighborCoord);
-                        if (neighbor != null) {
-                            if (neighbor.isFlagged()) {
-                                countFlagged++;
-                            } else if (!neighbor.isRevealed()) {
-                                countHiddenUnflagged++;
-                                hiddenUnflaggedNeighbors.add(neighborCoord);
-                            }
-                        }
-                    }
+    static HintResult findMineSweeperHint(BoardView board, long deadlineNanos) {
+        int cols = board.getCols();
+        CellBits revealed = board.getRevealedBits();
+        CellBits flagged = board.getFlaggedBits();
+        CellBits mines = board.getMineBits();
+        int[] hidden = new int[Board.NEIGHBOR_OFFSETS.length];
+        for (int word = 0; word < revealed.wordCount(); word++) {
+            if ((word & 63) == 0 && System.nanoTime() > deadlineNanos) {
+                return null;
+            }
+            for (long bits = revealed.word(word) & ~mines.word(word); bits != 0; bits &= bits - 1) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int q = index % cols;
+                int r = index / cols;
+                int revealedValue = board.getNeighborMineCount(q, r);
+                if (revealedValue == 0) {
+                    continue;
+                }
 
-                    int revealedValue = cell.getRevealedValue();
-                    // Случай 1: Все оставшиеся соседи безопасны
-                    if (revealedValue == countFlagged && !hiddenUnflaggedNeighbors.isEmpty()) {
-                        return new HintResult(hiddenUnflaggedNeighbors.get(0), HintType.SAFE);
+                // Подсчет флагов и скрытых не-флагованных соседей
+                int countFlagged = 0;
+                int countHiddenUnflagged = 0;
+                for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+                    int nq = q + offset[0];
+                    int nr = r + offset[1];
+                    if (!board.hasCell(nq, nr)) {
+                        continue;
                     }
-                    // Случай 2: Все оставшиеся соседи — мины
-                    if (revealedValue == countFlagged + countHiddenUnflagged && !hiddenUnflaggedNeighbors.isEmpty()) {
-                        return new HintResult(hiddenUnflaggedNeighbors.get(0), HintType.MINE);
+                    int neighbor = nr * cols + nq;
+                    if (flagged.get(neighbor)) {
+                        countFlagged++;
+                    } else if (!revealed.get(neighbor)) {
+                        hidden[countHiddenUnflagged++] = neighbor;
                     }
                 }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Анализирует активные правила для поиска подсказки.
-     */
-    private static HintResult findRuleHint(Board board) {
-        for (Rule rule : board.getActiveRules()) {
-            if (rule instanceof SequenceRule) {
-                HintResult sequenceHint = analyzeSequenceRule((SequenceRule) rule, board);
-                if (sequenceHint != null) {
-                    return sequenceHint;
-                }
-            } else if (rule instanceof GroupRule) {
-                HintResult groupHint = analyzeGroupRule((GroupRule) rule, board);
-                if (groupHint != null) {
-                    return groupHint;
+                if (countHiddenUnflagged == 0) {
+                    continue;
                 }
-            } else if (rule instanceof EdgeRule) {
-                HintResult edgeHint = analyzeEdgeRule((EdgeRule) rule, board);
-                if (edgeHint != null) {
-                    return edgeHint;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Анализирует SequenceRule для подсказки.
-     */
-    private static HintResult analyzeSequenceRule(SequenceRule rule, Board board) {
-        List<HexCoord> cells = rule.getCells();
-        int expectedMines = rule.getExpectedMines();
-        int countMinesOrFlagged = 0;
-        int countHiddenUnflagged = 0;
-        List<HexCoord> hiddenUnflaggedCells = new java.util.ArrayList<>();
 
-        // Подсчет мин/флагов и скрытых ячеек
-        for (HexCoord coord : cells) {
-            Cell cell = board.getCell(coord);
-            if (cell != null) {
-                if (cell.isMine() || cell.isFlagged()) {
-                    countMinesOrFlagged++;
-                } else if (!cell.isRevealed()) {
-                    countHiddenUnflagged++;
-                    hiddenUnflaggedCells.add(coord);
+                HexCoord first = new HexCoord(hidden[0] % cols, hidden[0] / cols);
+                // Случай 1: Все оставшиеся соседи безопасны
+                if (revealedValue == countFlagged) {
+                    return new HintResult(first, HintType.SAFE, HintTechnique.MINESWEEPER);
                 }
-            }
-        }
-
-        // Случай 1: Все требуемые мины найдены, остальные безопасны
-        if (countMinesOrFlagged == expectedMines && !hiddenUnflaggedCells.isEmpty()) {
-            return new HintResult(hiddenUnflaggedCells.get(0), HintType.SAFE);
-        }
-        // Случай 2: Все скрытые ячейки — мины
-        if (countMinesOrFlagged + countHiddenUnflagged == expectedMines && !hiddenUnflaggedCells.isEmpty()) {
-            return new HintResult(hiddenUnflaggedCells.get(0), HintType.MINE);
-        }
-        return null;
-    }
-
-    /**
-     * Анализирует GroupRule для подсказки.
-     */
-    private static HintResult analyzeGroupRule(GroupRule rule, Board board) {
-        List<HexCoord> cells = rule.getCells();
-        int expectedMines = rule.getExpectedMines();
-        int countMinesOrFlagged = 0;
-        int countHiddenUnflagged = 0;
-        List<HexCoord> hiddenUnflaggedCells = new java.util.ArrayList<>();
-
-        // Подсчет мин/флагов и скрытых ячеек
-        for (HexCoord coord : cells) {
-            Cell cell = board.getCell(coord);
-            if (cell != null) {
-                if (cell.isMine() || cell.isFlagged()) {
-                    countMinesOrFlagged++;
-                } else if (!cell.isRevealed()) {
-                    countHiddenUnflagged++;
-                    hiddenUnflaggedCells.add(coord);
+                // Случай 2: Все оставшиеся соседи — мины
+                if (revealedValue == countFlagged + countHiddenUnflagged) {
+                    return new HintResult(first, HintType.MINE, HintTechnique.MINESWEEPER);
                 }
             }
         }
-
-        // Случай 1: Все требуемые мины найдены, остальные безопасны
-        if (countMinesOrFlagged == expectedMines && !hiddenUnflaggedCells.isEmpty()) {
-            return new HintResult(hiddenUnflaggedCells.get(0), HintType.SAFE);
-        }
-        // Случай 2: Все скрытые ячейки — мины
-        if (countMinesOrFlagged + countHiddenUnflagged == expectedMines && !hiddenUnflaggedCells.isEmpty()) {
-            return new HintResult(hiddenUnflaggedCells.get(0), HintType.MINE);
-        }
         return null;
     }
 
     /**
-     * Анализирует EdgeRule для подсказки.
+     * Анализирует активные правила для поиска подсказки: первый вывод распространителя
+     * первого правила, у которого он есть. Распространители видят только известное игроку
+     * состояние (открытые ячейки и флаги). Срок и прерывание потока проверяются перед
+     * каждым правилом; по истечении срока возвращается null.
+     * @param deadlineNanos Срок по System.nanoTime()
      */
-    private static HintResult analyzeEdgeRule(EdgeRule rule, Board board) {
-        HexCoord cellCoord = rule.getCell();
-        int expectedMines = rule.getExpectedMines();
-        List<HexCoord> neighbors = board.getNeighbors(cellCoord);
-        int countMinesOrFlagged = 0;
-        int countHiddenUnflagged = 0;
-        List<HexCoord> hiddenUnflaggedNeighbors = new java.util.ArrayList<>();
-
-        // Подсчет мин/флагов и скрытых соседей
-        for (HexCoord neighborCoord : neighbors) {
-            Cell neighbor = board.getCell(neighborCoord);
-            if (neighbor != null) {
-                if (neighbor.isMine() || neighbor.isFlagged()) {
-                    countMinesOrFlagged++;
-                } else if (!neighbor.isRevealed()) {
-                    countHiddenUnflagged++;
-                    hiddenUnflaggedNeighbors.add(neighborCoord);
-                }
+    static HintResult findRuleHint(BoardView board, long deadlineNanos) {
+        CompiledRules rules = board.getCompiledRules();
+        CompiledRule.CellStates states = board.getKnownStates();
+        int[] found = {-1, 0}; // Индекс ячейки и признак мины
+        for (int i = 0; i < rules.size(); i++) {
+            if (System.nanoTime() > deadlineNanos || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            rules.propagate(i, states, (index, mine) -> {
+                found[0] = index;
+                found[1] = mine ? 1 : 0;
+                return false;
+            });
+            if (found[0] >= 0) {
+                int cols = board.getCols();
+                return new HintResult(new HexCoord(found[0] % cols, found[0] / cols),
+                        found[1] != 0 ? HintType.MINE : HintType.SAFE, rules.getTechnique(i));
             }
-        }
-
-        // Случай 1: Все требуемые мины найдены, остальные безопасны
-        if (countMinesOrFlagged == expectedMines && !hiddenUnflaggedNeighbors.isEmpty()) {
-            return new HintResult(hiddenUnflaggedNeighbors.get(0), HintType.SAFE);
-        }
-        // Случай 2: Все скрытые соседи — мины
-        if (countMinesOrFlagged + countHiddenUnflagged == expectedMines && !hiddenUnflaggedNeighbors.isEmpty()) {
-            return new HintResult(hiddenUnflaggedNeighbors.get(0), HintType.MINE);
         }
         return null;
     }
@@ -0,0 +1,31 @@
+package hexcells;
+
+/**
+ * Класс для хранения результата подсказки.
+ */
+class HintResult {
+    private final HexCoord coord;
+    private final HintType type;
+    private final HintTechnique technique;
+
+    public HintResult(HexCoord coord, HintType type, HintTechnique technique) {
+        this.coord = coord;
+        this.type = type;
+        this.technique = technique;
+    }
+
+    public HexCoord getCoord() {
+        return coord;
+    }
+
+    public HintType getType() {
+        return type;
+    }
+
+    /**
+     * Возвращает приём, которым найдена подсказка.
+     */
+    public HintTechnique getTechnique() {
+        return technique;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package hexcells;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Асинхронный поиск подсказок вне потока Swing.
+ * Запрос снимает в потоке Swing лёгкий снимок видимого состояния (маски открытых ячеек,
+ * флагов и мин и скомпилированные правила, без копирования ячеек) и выполняет этапы HintBot
+ * в фоновом потоке с ограничением по времени; последним этапом работает AnytimeSolver.
+ * Результаты передаются по этапам: первая подсказка — сразу после нахождения, затем каждый
+ * следующий этап, доказавший новую ячейку, передаёт одну подсказку, пока не истечёт срок.
+ * Изменение доски отменяет текущий запрос: его результаты не доставляются, а поток
+ * прерывается при ближайшей проверке срока.
+ * Методы вызываются в потоке Swing; слушатель также вызывается в потоке Swing.
+ */
+public class HintService implements AutoCloseable {
+    /**
+     * Получатель результатов поиска.
+     */
+    public interface HintListener {
+        /**
+         * Найдена подсказка. За один запрос может вызываться несколько раз: первой приходит
+         * подсказка самого дешёвого этапа, далее — выводы о других ячейках более дорогих этапов.
+         * @param hint Подсказка
+         */
+        void hintFound(HintResult hint);
+
+        /**
+         * Поиск завершён.
+         * @param found true, если подсказка была найдена
+         * @param timedOut true, если поиск остановлен по истечении времени
+         */
+        void searchFinished(boolean found, boolean timedOut);
+    }
+
+    private final ExecutorService executor;
+    private final long budgetNanos;
+
+    private long generation; // Номер текущего запроса; результаты старых запросов отбрасываются
+    private Future<?> current;
+    private Board watchedBoard;
+    private final BoardListener cancelOnChange = event -> cancel();
+
+    /**
+     * Конструктор.
+     * @param budget Время на один запрос
+     * @param unit Единица измерения времени
+     */
+    public HintService(long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Время на подсказку должно быть положительным: " + budget);
+        }
+        this.budgetNanos = unit.toNanos(budget);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "hexcells-hint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запускает поиск подсказки; предыдущий запрос отменяется.
+     * @param board Доска (снимок масок снимается сразу, поиск идёт по нему)
+     * @param listener Получатель результатов
+     */
+    public void requestHint(Board board, HintListener listener) {
+        cancel();
+        long requestId = generation;
+        BoardView snapshot = board.knownSnapshot();
+        watchedBoard = board;
+        board.addBoardListener(cancelOnChange);
+        long deadline = System.nanoTime() + budgetNanos;
+        current = executor.submit(() -> search(snapshot, deadline, requestId, listener));
+    }
+
+    /**
+     * Отменяет текущий запрос, если он есть.
+     */
+    public void cancel() {
+        generation++;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+        if (watchedBoard != null) {
+            watchedBoard.removeBoardListener(cancelOnChange);
+            watchedBoard = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Выполняет этапы HintBot по снимку до исчерпания выводов или истечения срока,
+     * передавая слушателю по одной новой подсказке от каждого этапа.
+     */
+    private void search(BoardView board, long deadline, long requestId, HintListener listener) {
+        Stream stream = new Stream(requestId, listener);
+        stream.publish(HintBot.findMineSweeperHint(board, deadline), 0);
+        if (!stopped(deadline)) {
+            stream.publish(HintBot.findRuleHint(board, deadline), 1);
+        }
+        boolean complete = false;
+        if (!stopped(deadline)) {
+            // Парные и глобальные рассуждения до срока; первый новый вывод уровня передаётся сразу
+            complete = AnytimeSolver.solve(board, deadline,
+                    (deduction, tier) -> stream.publish(deduction, 2 + tier.ordinal())).isComplete();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        if (GameMetrics.ENABLED && stream.first == null) {
+            GameMetrics.HINT.recordSince(stream.start);
+            GameMetrics.hintComputed(null);
+        }
+
+        boolean found = stream.first != null;
+        boolean timedOut = !complete && System.nanoTime() > deadline;
+        SwingUtilities.invokeLater(() -> {
+            if (requestId != generation) {
+                return;
+            }
+            listener.searchFinished(found, timedOut);
+            if (watchedBoard != null) {
+                watchedBoard.removeBoardListener(cancelOnChange);
+                watchedBoard = null;
+            }
+            current = null;
+        });
+    }
+
+    /**
+     * Передача подсказок одного запроса: от этапа — не больше одной, только о ячейках,
+     * ещё не показанных слушателю. Используется только фоновым потоком запроса.
+     */
+    private final class Stream {
+        private final long requestId;
+        private final HintListener listener;
+        private final long start = GameMetrics.start();
+        private final Set<HexCoord> delivered = new HashSet<>();
+        private int lastStage = -1;
+        private HintResult first;
+
+        Stream(long requestId, HintListener listener) {
+            this.requestId = requestId;
+            this.listener = listener;
+        }
+
+        /**
+         * @param hint Подсказка или null
+         * @param stage Номер этапа: 0 — «Сапёр», 1 — правила, далее уровни AnytimeSolver
+         */
+        void publish(HintResult hint, int stage) {
+            if (hint == null || stage <= lastStage || !delivered.add(hint.getCoord())) {
+                return;
+            }
+            lastStage = stage;
+            if (first == null) {
+                first = hint;
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.HINT.recordSince(start); // Задержка до первой подсказки
+                    GameMetrics.hintComputed(hint.getTechnique());
+                }
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (requestId == generation) {
+                    listener.hintFound(hint);
+                }
+            });
+        }
+    }
+
+    private static boolean stopped(long deadline) {
+        return Thread.currentThread().isInterrupted() || System.nanoTime() > deadline;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package hexcells;
+
+/**
+ * Приём, которым найдена подсказка.
+ */
+public enum HintTechnique {
+    MINESWEEPER, // Число открытой ячейки
+    SEQUENCE,    // SequenceRule
+    GROUP,       // GroupRule
+    EDGE,        // EdgeRule
+    LINE,        // LineRule
+    PAIRWISE,    // Два пересекающихся ограничения (AnytimeSolver)
+    LINEAR       // Исключение Гаусса по всем ограничениям-счётчикам
+}
\ No newline at end of file
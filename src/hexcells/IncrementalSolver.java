@@ -0,0 +1,535 @@
+package hexcells;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Инкрементальная проверка решаемости уровня в редакторе.
+ * Моделирует игрока, который открывает только доказуемо безопасные ячейки: каждая
+ * открытая ячейка добавляет ограничение по числу мин среди соседей, правила задают
+ * свои ограничения. Каждый вывод запоминает ограничение-основание и порядковый номер,
+ * поэтому правка отзывает только выводы, опиравшиеся на изменённые ограничения
+ * (и выводы, сделанные после них из тех же ограничений), а распространение
+ * возобновляется с границы отозванной области, а не со всего уровня.
+ * Ограничение ячейки не хранится: его ячейки — соседи, число — мины среди них, а действует
+ * оно, пока ячейка выведена безопасной. Состояние ячеек хранится страницами по 1024 ячейки,
+ * выделяемыми при первом выводе или правиле в странице (ср. CellBits), поэтому память
+ * растёт с областью, которой коснулись правки, а не с площадью поля.
+ * Не потокобезопасен.
+ */
+final class IncrementalSolver {
+    private static final byte UNKNOWN = SequenceRunTracker.UNKNOWN;
+    private static final byte MINE = SequenceRunTracker.MINE;
+    private static final byte SAFE = SequenceRunTracker.SAFE;
+    private static final int PAGE_SHIFT = 10; // Ячеек в странице: 1 << PAGE_SHIFT
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int NO_SUPPORT = Integer.MIN_VALUE;
+    // Ограничения адресуются ссылкой: индекс ячейки (>= 0) — её число, ~id — правило id
+
+    /**
+     * Правило: число мин в наборе ячеек либо длина самой длинной серии мин.
+     */
+    private static final class Constraint {
+        final int[] cells; // Индексы ячеек; -1 — позиция последовательности вне поля
+        final boolean sequence;
+        int expected;
+        boolean queued;
+        int[] supported = new int[4]; // Ячейки, выведенные из правила (возможны устаревшие записи)
+        int supportedCount;
+
+        Constraint(int[] cells, boolean sequence) {
+            this.cells = cells;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Состояние 1024 ячеек: вывод, его основание и номер, правила ячеек.
+     */
+    private static final class Page {
+        final byte[] states = new byte[1 << PAGE_SHIFT];
+        final int[] support = new int[1 << PAGE_SHIFT]; // Ссылка на ограничение-основание или NO_SUPPORT
+        final int[] stamps = new int[1 << PAGE_SHIFT];  // Порядковый номер вывода
+        int[][] cellRules; // Правила ячейки (null, пока в странице нет правил)
+        int[] cellRuleCount;
+
+        Page() {
+            Arrays.fill(support, NO_SUPPORT);
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final CellBits mines;
+    private final Page[] pages;
+    private Constraint[] rules = new Constraint[16];
+    private int ruleCount;
+    private int nextStamp = 1;
+    private int resolved;
+
+    private final ArrayDeque<Integer> queue = new ArrayDeque<>();
+    private final CellBits queued; // Ограничения ячеек в очереди
+    private final ArrayDeque<Integer> retractStack = new ArrayDeque<>();
+    private final int[] neighborBuffer = new int[Board.NEIGHBOR_OFFSETS.length];
+    private int[] changed = new int[16]; // Ячейки, вывод которых изменился (возможны повторы)
+    private int changedCount;
+
+    /**
+     * Конструктор: поле без мин и правил.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     */
+    IncrementalSolver(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Размер поля должен быть положительным: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = (int) CellBits.area(rows, cols);
+        this.mines = new CellBits(rows, cols);
+        this.queued = new CellBits(rows, cols);
+        this.pages = new Page[(int) (((long) size + PAGE_MASK) >>> PAGE_SHIFT)];
+        // Без мин и правил ни одна ячейка не выводится: распространять нечего
+    }
+
+    /**
+     * Индекс ячейки или -1, если координаты вне поля.
+     */
+    int indexOf(int q, int r) {
+        return q >= 0 && q < cols && r >= 0 && r < rows ? r * cols + q : -1;
+    }
+
+    /**
+     * Ставит или убирает мину и пересчитывает затронутую область.
+     * @param index Индекс ячейки
+     * @param mine true — мина
+     */
+    void setMine(int index, boolean mine) {
+        if (mines.get(index) == mine) {
+            return;
+        }
+        mines.set(index, mine);
+        retract(index);
+        // Числа соседей изменились
+        int count = neighbors(index, neighborBuffer);
+        int[] around = Arrays.copyOf(neighborBuffer, count);
+        for (int neighbor : around) {
+            invalidate(neighbor);
+        }
+        Page page = pages[index >>> PAGE_SHIFT];
+        int ruleTotal = page == null || page.cellRules == null ? 0 : page.cellRuleCount[index & PAGE_MASK];
+        for (int i = 0; i < ruleTotal; i++) {
+            int id = page.cellRules[index & PAGE_MASK][i];
+            rules[id].expected = expectedFor(rules[id]);
+            invalidate(~id);
+        }
+        drainRetractions();
+        propagate();
+    }
+
+    /**
+     * Добавляет правило; ожидаемое значение вычисляется по текущим минам.
+     * @param cells Индексы ячеек правила (для последовательности -1 — позиция вне поля)
+     * @param sequence true — правило последовательности, иначе — число мин в наборе
+     * @return Идентификатор правила
+     */
+    int addRule(int[] cells, boolean sequence) {
+        Constraint constraint = new Constraint(cells.clone(), sequence);
+        constraint.expected = expectedFor(constraint);
+        if (ruleCount == rules.length) {
+            rules = Arrays.copyOf(rules, ruleCount * 2);
+        }
+        int id = ruleCount++;
+        rules[id] = constraint;
+        for (int cell : constraint.cells) {
+            if (cell >= 0) {
+                addCellRule(cell, id);
+            }
+        }
+        enqueue(~id);
+        propagate();
+        return id;
+    }
+
+    /**
+     * Удаляет правило и отзывает выводы, сделанные с его помощью.
+     * @param id Идентификатор правила
+     */
+    void removeRule(int id) {
+        if (id < 0 || id >= ruleCount || rules[id] == null) {
+            throw new IllegalArgumentException("Нет правила с идентификатором " + id);
+        }
+        invalidate(~id);
+        Constraint constraint = rules[id];
+        for (int cell : constraint.cells) {
+            if (cell >= 0) {
+                removeCellRule(cell, id);
+            }
+        }
+        rules[id] = null;
+        drainRetractions();
+        propagate();
+    }
+
+    /**
+     * Текущее ожидаемое значение правила.
+     */
+    int getExpected(int id) {
+        return rules[id].expected;
+    }
+
+    boolean isMine(int index) {
+        return mines.get(index);
+    }
+
+    /**
+     * Выведена ли ячейка игроком.
+     */
+    boolean isResolved(int index) {
+        return state(index) != UNKNOWN;
+    }
+
+    /**
+     * Количество ячеек, которые игрок не может вывести.
+     */
+    int getUnresolvedCount() {
+        return size - resolved;
+    }
+
+    /**
+     * Уровень решаем, если выводятся все ячейки.
+     */
+    boolean isSolvable() {
+        return resolved == size;
+    }
+
+    /**
+     * Возвращает ячейки, вывод которых изменился после предыдущего вызова, и очищает список.
+     * Ячейка может встречаться несколько раз.
+     */
+    int[] takeChangedCells() {
+        int[] result = Arrays.copyOf(changed, changedCount);
+        changedCount = 0;
+        return result;
+    }
+
+    private int expectedFor(Constraint constraint) {
+        if (!constraint.sequence) {
+            int count = 0;
+            for (int cell : constraint.cells) {
+                if (cell >= 0 && mines.get(cell)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        int longest = 0;
+        int run = 0;
+        for (int cell : constraint.cells) {
+            run = cell >= 0 && mines.get(cell) ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /**
+     * Записывает в buffer соседей ячейки на поле.
+     * @return Количество соседей
+     */
+    private int neighbors(int cell, int[] buffer) {
+        int q = cell % cols;
+        int r = cell / cols;
+        int count = 0;
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            int index = indexOf(q + offset[0], r + offset[1]);
+            if (index >= 0) {
+                buffer[count++] = index;
+            }
+        }
+        return count;
+    }
+
+    private byte state(int cell) {
+        Page page = pages[cell >>> PAGE_SHIFT];
+        return page == null ? UNKNOWN : page.states[cell & PAGE_MASK];
+    }
+
+    private int support(int cell) {
+        Page page = pages[cell >>> PAGE_SHIFT];
+        return page == null ? NO_SUPPORT : page.support[cell & PAGE_MASK];
+    }
+
+    private Page page(int cell) {
+        Page page = pages[cell >>> PAGE_SHIFT];
+        if (page == null) {
+            page = new Page();
+            pages[cell >>> PAGE_SHIFT] = page;
+        }
+        return page;
+    }
+
+    /**
+     * Отзывает все выводы ограничения (его ожидаемое значение или существование изменилось).
+     * Выводы ограничения ячейки — её соседи, опирающиеся на него.
+     */
+    private void invalidate(int ref) {
+        if (ref >= 0) {
+            int count = neighbors(ref, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                if (support(neighborBuffer[i]) == ref) {
+                    retractStack.push(neighborBuffer[i]);
+                }
+            }
+        } else {
+            Constraint constraint = rules[~ref];
+            for (int i = 0; i < constraint.supportedCount; i++) {
+                int cell = constraint.supported[i];
+                if (support(cell) == ref) {
+                    retractStack.push(cell);
+                }
+            }
+            constraint.supportedCount = 0;
+        }
+        enqueue(ref);
+    }
+
+    private void retract(int index) {
+        retractStack.push(index);
+    }
+
+    /**
+     * Отзывает накопленные выводы и всё, что было выведено из них позже.
+     * Вывод, сделанный ограничением до того, как стала известна отзываемая ячейка,
+     * на неё не опирался и сохраняется.
+     */
+    private void drainRetractions() {
+        int[] around = new int[Board.NEIGHBOR_OFFSETS.length];
+        while (!retractStack.isEmpty()) {
+            int cell = retractStack.pop();
+            byte state = state(cell);
+            if (state == UNKNOWN) {
+                continue;
+            }
+            Page page = pages[cell >>> PAGE_SHIFT];
+            int stamp = page.stamps[cell & PAGE_MASK];
+            page.states[cell & PAGE_MASK] = UNKNOWN;
+            page.support[cell & PAGE_MASK] = NO_SUPPORT;
+            resolved--;
+            markChanged(cell);
+
+            if (state == SAFE) {
+                // Число открытой ячейки больше не известно
+                invalidate(cell);
+            }
+            int count = neighbors(cell, around);
+            for (int i = 0; i < count; i++) {
+                retractLater(around[i], stamp);
+            }
+            int ruleTotal = page.cellRules == null ? 0 : page.cellRuleCount[cell & PAGE_MASK];
+            for (int i = 0; i < ruleTotal; i++) {
+                retractLater(~page.cellRules[cell & PAGE_MASK][i], stamp);
+            }
+        }
+    }
+
+    /**
+     * Отзывает выводы ограничения, сделанные после указанного номера.
+     */
+    private void retractLater(int ref, int stamp) {
+        if (ref >= 0) {
+            int count = neighbors(ref, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int cell = neighborBuffer[i];
+                if (support(cell) == ref && pages[cell >>> PAGE_SHIFT].stamps[cell & PAGE_MASK] > stamp) {
+                    retractStack.push(cell);
+                }
+            }
+        } else {
+            Constraint constraint = rules[~ref];
+            int kept = 0;
+            for (int i = 0; i < constraint.supportedCount; i++) {
+                int cell = constraint.supported[i];
+                if (support(cell) != ref) {
+                    continue; // Устаревшая запись
+                }
+                if (pages[cell >>> PAGE_SHIFT].stamps[cell & PAGE_MASK] > stamp) {
+                    retractStack.push(cell);
+                } else {
+                    constraint.supported[kept++] = cell;
+                }
+            }
+            constraint.supportedCount = kept;
+        }
+        enqueue(ref);
+    }
+
+    private void propagate() {
+        int[] around = new int[Board.NEIGHBOR_OFFSETS.length];
+        while (!queue.isEmpty()) {
+            int ref = queue.poll();
+            if (ref >= 0) {
+                queued.clear(ref);
+                // Ограничение действует, пока ячейка выведена безопасной
+                if (state(ref) == SAFE) {
+                    int count = neighbors(ref, around);
+                    int expected = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (mines.get(around[i])) {
+                            expected++;
+                        }
+                    }
+                    propagateCount(ref, around, count, expected);
+                }
+                continue;
+            }
+            Constraint constraint = rules[~ref];
+            if (constraint == null) {
+                continue;
+            }
+            constraint.queued = false;
+            if (constraint.sequence) {
+                propagateSequence(ref, constraint);
+            } else {
+                propagateCount(ref, constraint.cells, constraint.cells.length, constraint.expected);
+            }
+        }
+    }
+
+    private void propagateCount(int ref, int[] cells, int length, int expected) {
+        int knownMines = 0;
+        int unknown = 0;
+        for (int i = 0; i < length; i++) {
+            int cell = cells[i];
+            if (cell < 0) {
+                continue;
+            }
+            byte state = state(cell);
+            if (state == MINE) {
+                knownMines++;
+            } else if (state == UNKNOWN) {
+                unknown++;
+            }
+        }
+        if (unknown == 0) {
+            return;
+        }
+        byte deduced;
+        if (knownMines == expected) {
+            deduced = SAFE;
+        } else if (knownMines + unknown == expected) {
+            deduced = MINE;
+        } else {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            int cell = cells[i];
+            if (cell >= 0 && state(cell) == UNKNOWN) {
+                assign(cell, deduced, ref);
+            }
+        }
+    }
+
+    private void propagateSequence(int ref, Constraint constraint) {
+        int[] cells = constraint.cells;
+        SequenceRunTracker tracker = new SequenceRunTracker(cells.length, constraint.expected);
+        for (int i = 0; i < cells.length; i++) {
+            tracker.set(i, cells[i] < 0 ? SAFE : state(cells[i]));
+        }
+        while (true) {
+            int position = tracker.findForcedSafe();
+            byte deduced = SAFE;
+            if (position < 0) {
+                position = tracker.findForcedMine();
+                deduced = MINE;
+            }
+            if (position < 0) {
+                return;
+            }
+            tracker.set(position, deduced);
+            assign(cells[position], deduced, ref);
+        }
+    }
+
+    private void assign(int cell, byte state, int ref) {
+        Page page = page(cell);
+        page.states[cell & PAGE_MASK] = state;
+        page.support[cell & PAGE_MASK] = ref;
+        page.stamps[cell & PAGE_MASK] = nextStamp++;
+        resolved++;
+        markChanged(cell);
+        if (ref < 0) {
+            Constraint constraint = rules[~ref];
+            if (constraint.supportedCount == constraint.supported.length) {
+                constraint.supported = Arrays.copyOf(constraint.supported, constraint.supportedCount * 2);
+            }
+            constraint.supported[constraint.supportedCount++] = cell;
+        }
+
+        if (state == SAFE) {
+            enqueue(cell);
+        }
+        int q = cell % cols;
+        int r = cell / cols;
+        for (int[] offset : Board.NEIGHBOR_OFFSETS) {
+            int neighbor = indexOf(q + offset[0], r + offset[1]);
+            if (neighbor >= 0) {
+                enqueue(neighbor);
+            }
+        }
+        int ruleTotal = page.cellRules == null ? 0 : page.cellRuleCount[cell & PAGE_MASK];
+        for (int i = 0; i < ruleTotal; i++) {
+            enqueue(~page.cellRules[cell & PAGE_MASK][i]);
+        }
+    }
+
+    private void enqueue(int ref) {
+        if (ref >= 0) {
+            if (!queued.get(ref)) {
+                queued.set(ref);
+                queue.add(ref);
+            }
+        } else if (rules[~ref] != null && !rules[~ref].queued) {
+            rules[~ref].queued = true;
+            queue.add(ref);
+        }
+    }
+
+    private void markChanged(int cell) {
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        }
+        changed[changedCount++] = cell;
+    }
+
+    private void addCellRule(int cell, int id) {
+        Page page = page(cell);
+        if (page.cellRules == null) {
+            page.cellRules = new int[1 << PAGE_SHIFT][];
+            page.cellRuleCount = new int[1 << PAGE_SHIFT];
+        }
+        int offset = cell & PAGE_MASK;
+        int[] list = page.cellRules[offset];
+        if (list == null) {
+            list = new int[2];
+        } else if (page.cellRuleCount[offset] == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+        }
+        list[page.cellRuleCount[offset]++] = id;
+        page.cellRules[offset] = list;
+    }
+
+    private void removeCellRule(int cell, int id) {
+        Page page = pages[cell >>> PAGE_SHIFT];
+        int offset = cell & PAGE_MASK;
+        int[] list = page.cellRules[offset];
+        int count = page.cellRuleCount[offset];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == id) {
+                list[i] = list[--count];
+                break;
+            }
+        }
+        page.cellRuleCount[offset] = count;
+    }
+}
\ No newline at end of file
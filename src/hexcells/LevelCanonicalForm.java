@@ -0,0 +1,361 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Каноническая форма уровня относительно симметрий гексагональной сетки.
+ * Уровни, совпадающие с точностью до поворота на кратный 60° угол, отражения и сдвига,
+ * получают одинаковую форму и одинаковый 128-битный хеш.
+ * <p>
+ * Группа симметрий — D6 из 12 элементов: повороты (q, r) → (-r, q + r) и их композиции
+ * с отражением (q, r) → (r, q). Для каждого преобразования ячейки, мины и правила
+ * сдвигаются так, чтобы минимальные q и r ячеек уровня были нулевыми, кодируются
+ * в упорядоченный массив int (ячейки и мины — по возрастанию, ячейки правила — в порядке,
+ * заданном его модулем через RuleProvider.canonicalize, правила — по возрастанию кодов).
+ * Канонической считается лексикографически наименьшая кодировка.
+ */
+public final class LevelCanonicalForm {
+    private static final int TRANSFORMS = 12;
+
+    /**
+     * Как упорядочиваются ячейки правила после преобразования.
+     */
+    public enum CellOrder {
+        SET,          // Множество: по возрастанию
+        REVERSIBLE,   // Последовательность без направления: меньший код из двух направлений
+        ANCHORED_SET, // Первая ячейка (точка подсказки) на месте, остальные — множество
+        LIST          // Порядок значим и сохраняется как есть
+    }
+
+    /**
+     * Правило для канонической формы: значение и ячейки с порядком их сравнения.
+     * Строится модулем правила (RuleProvider.canonicalize); тип правила — номер модуля
+     * в RuleRegistry.getProviders().
+     */
+    public static final class RuleEncoding {
+        private final int value;
+        private final List<HexCoord> cells;
+        private final CellOrder order;
+
+        /**
+         * Конструктор.
+         * @param value Значение правила вместе с модификаторами, если они есть
+         * @param cells Ячейки правила (для ANCHORED_SET первая — точка подсказки)
+         * @param order Порядок ячеек
+         */
+        public RuleEncoding(int value, List<HexCoord> cells, CellOrder order) {
+            this.value = value;
+            this.cells = cells;
+            this.order = order;
+        }
+    }
+
+    private final int[] encoding;
+    private final long hashHigh;
+    private final long hashLow;
+
+    private LevelCanonicalForm(int[] encoding) {
+        this.encoding = encoding;
+        long[] hash = hash128(encoding);
+        this.hashHigh = hash[0];
+        this.hashLow = hash[1];
+    }
+
+    /**
+     * Строит каноническую форму уровня. Каждый раздел источника читается один раз.
+     * @param source Уровень (LevelConfig или читатель уровня)
+     * @return Каноническая форма
+     * @throws IllegalArgumentException если тип правила не распознан ни одним модулем
+     */
+    public static LevelCanonicalForm of(LevelSource source) {
+        IntList cells = new IntList();
+        source.forEachCell((q, r) -> cells.add(q, r));
+        IntList mines = new IntList();
+        source.forEachMine((q, r) -> mines.add(q, r));
+        List<int[]> rules = new ArrayList<>();
+        source.forEachRule(ruleData -> rules.add(toRule(ruleData)));
+
+        int[] best = null;
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            int[] candidate = encode(transform, cells, mines, rules);
+            if (best == null || Arrays.compare(candidate, best) < 0) {
+                best = candidate;
+            }
+        }
+        return new LevelCanonicalForm(best);
+    }
+
+    /**
+     * Старшие 64 бита хеша канонической формы.
+     */
+    public long getHashHigh() {
+        return hashHigh;
+    }
+
+    /**
+     * Младшие 64 бита хеша канонической формы.
+     */
+    public long getHashLow() {
+        return hashLow;
+    }
+
+    /**
+     * Копия канонической кодировки.
+     */
+    public int[] getEncoding() {
+        return encoding.clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LevelCanonicalForm)) {
+            return false;
+        }
+        LevelCanonicalForm other = (LevelCanonicalForm) obj;
+        return hashHigh == other.hashHigh && hashLow == other.hashLow && Arrays.equals(encoding, other.encoding);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hashHigh ^ (hashHigh >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", hashHigh, hashLow);
+    }
+
+    /**
+     * Применяет элемент группы D6 к координатам.
+     * @param transform 0..5 — поворот на transform * 60°, 6..11 — отражение, затем поворот
+     * @return {q, r} после преобразования
+     */
+    static int[] apply(int transform, int q, int r) {
+        if (transform >= 6) {
+            int swap = q;
+            q = r;
+            r = swap;
+        }
+        for (int i = transform % 6; i > 0; i--) {
+            int rotated = -r;
+            r = q + r;
+            q = rotated;
+        }
+        return new int[] {q, r};
+    }
+
+    /**
+     * Правило в виде {тип, значение, порядок, q0, r0, q1, r1, ...}; кодировку строит
+     * первый модуль, распознавший данные.
+     */
+    private static int[] toRule(RuleData ruleData) {
+        List<RuleProvider> providers = RuleRegistry.getProviders();
+        for (int type = 0; type < providers.size(); type++) {
+            RuleEncoding encoding = providers.get(type).canonicalize(ruleData);
+            if (encoding == null) {
+                continue;
+            }
+            int[] rule = new int[3 + 2 * encoding.cells.size()];
+            rule[0] = type;
+            rule[1] = encoding.value;
+            rule[2] = encoding.order.ordinal();
+            for (int i = 0; i < encoding.cells.size(); i++) {
+                rule[3 + 2 * i] = encoding.cells.get(i).getQ();
+                rule[4 + 2 * i] = encoding.cells.get(i).getR();
+            }
+            return rule;
+        }
+        throw new IllegalArgumentException("Неизвестный тип правила: "
+                + (ruleData == null ? "null" : ruleData.getClass().getSimpleName()));
+    }
+
+    /**
+     * Кодирует уровень после преобразования: [число ячеек, ячейки..., число мин, мины...,
+     * число правил, для каждого правила: тип, значение, число ячеек, ячейки...].
+     */
+    private static int[] encode(int transform, IntList cells, IntList mines, List<int[]> rules) {
+        long[] shape = transformAll(transform, cells.data, cells.size);
+        int minQ = Integer.MAX_VALUE;
+        int minR = Integer.MAX_VALUE;
+        for (long packed : shape) {
+            minQ = Math.min(minQ, unpackQ(packed));
+            minR = Math.min(minR, unpackR(packed));
+        }
+        if (shape.length == 0) {
+            minQ = 0;
+            minR = 0;
+        }
+
+        IntList out = new IntList();
+        appendSet(out, shape, -minQ, -minR);
+        appendSet(out, transformAll(transform, mines.data, mines.size), -minQ, -minR);
+
+        int[][] encodedRules = new int[rules.size()][];
+        for (int i = 0; i < encodedRules.length; i++) {
+            int[] rule = rules.get(i);
+            long[] coords = transformAll(transform, Arrays.copyOfRange(rule, 3, rule.length), rule.length - 3);
+            for (int j = 0; j < coords.length; j++) {
+                coords[j] = translate(coords[j], -minQ, -minR);
+            }
+            switch (CellOrder.values()[rule[2]]) {
+                case REVERSIBLE:
+                    // Например, длина серии не зависит от направления: выбираем меньший код
+                    long[] reversed = new long[coords.length];
+                    for (int j = 0; j < coords.length; j++) {
+                        reversed[j] = coords[coords.length - 1 - j];
+                    }
+                    if (Arrays.compare(reversed, coords) < 0) {
+                        coords = reversed;
+                    }
+                    break;
+                case ANCHORED_SET:
+                    Arrays.sort(coords, Math.min(1, coords.length), coords.length);
+                    break;
+                case SET:
+                    Arrays.sort(coords);
+                    break;
+                default:
+                    break;
+            }
+            int[] encoded = new int[3 + 2 * coords.length];
+            encoded[0] = rule[0];
+            encoded[1] = rule[1];
+            encoded[2] = coords.length;
+            for (int j = 0; j < coords.length; j++) {
+                encoded[3 + 2 * j] = unpackQ(coords[j]);
+                encoded[4 + 2 * j] = unpackR(coords[j]);
+            }
+            encodedRules[i] = encoded;
+        }
+        Arrays.sort(encodedRules, Arrays::compare);
+        out.add(encodedRules.length);
+        for (int[] rule : encodedRules) {
+            out.addAll(rule);
+        }
+        return Arrays.copyOf(out.data, out.size);
+    }
+
+    private static long[] transformAll(int transform, int[] coords, int size) {
+        long[] result = new long[size / 2];
+        for (int i = 0; i < result.length; i++) {
+            int[] point = apply(transform, coords[2 * i], coords[2 * i + 1]);
+            result[i] = pack(point[0], point[1]);
+        }
+        return result;
+    }
+
+    private static void appendSet(IntList out, long[] packed, int dq, int dr) {
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = translate(packed[i], dq, dr);
+        }
+        Arrays.sort(packed);
+        out.add(packed.length);
+        for (long point : packed) {
+            out.add(unpackQ(point), unpackR(point));
+        }
+    }
+
+    /**
+     * Упаковывает (q, r) в long так, что порядок long совпадает с порядком пар (q, r).
+     */
+    private static long pack(int q, int r) {
+        return ((long) q << 32) | ((r ^ 0x80000000) & 0xFFFFFFFFL);
+    }
+
+    private static int unpackQ(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int unpackR(long packed) {
+        return (int) packed ^ 0x80000000;
+    }
+
+    private static long translate(long packed, int dq, int dr) {
+        return pack(unpackQ(packed) + dq, unpackR(packed) + dr);
+    }
+
+    /**
+     * 128-битный хеш массива int по схеме MurmurHash3 x64_128 (блоки по два long).
+     */
+    static long[] hash128(int[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0x9E3779B97F4A7C15L;
+        long h2 = 0x9E3779B97F4A7C15L;
+        int longs = (data.length + 1) / 2;
+        int i = 0;
+        for (; i + 1 < longs; i += 2) {
+            long k1 = longAt(data, i) * c1;
+            k1 = Long.rotateLeft(k1, 31) * c2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            long k2 = longAt(data, i + 1) * c2;
+            k2 = Long.rotateLeft(k2, 33) * c1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        if (i < longs) {
+            long k1 = longAt(data, i) * c1;
+            k1 = Long.rotateLeft(k1, 31) * c2;
+            h1 ^= k1;
+        }
+        h1 ^= data.length * 4L;
+        h2 ^= data.length * 4L;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    private static long longAt(int[] data, int index) {
+        long low = data[2 * index] & 0xFFFFFFFFL;
+        long high = 2 * index + 1 < data.length ? (long) data[2 * index + 1] << 32 : 0;
+        return high | low;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Растущий массив int без упаковки.
+     */
+    private static final class IntList {
+        int[] data = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void add(int first, int second) {
+            add(first);
+            add(second);
+        }
+
+        void addAll(int[] values) {
+            for (int value : values) {
+                add(value);
+            }
+        }
+    }
+}
\ No newline at end of file
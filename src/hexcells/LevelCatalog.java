@@ -0,0 +1,227 @@
+package hexcells;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Каталог уровней: индекс файлов уровней с их параметрами (размер, мины, виды правил,
+ * сложность, ключ уровня). Индекс сохраняется в файл и при следующем запуске читается
+ * целиком без разбора уровней; при обновлении разбираются только новые и изменившиеся файлы.
+ * Загрузка и обновление выполняются в фоновом потоке, запросы — по копии списка в памяти.
+ */
+public class LevelCatalog {
+    private static final int INDEX_MAGIC = 0x48584c43; // "HXLC"
+    private static final int INDEX_VERSION = 2; // Меняется с форматом LevelInfo, HintTechnique или ключа уровня
+    private static final int MAX_DEPTH = 4; // Глубина поиска файлов уровней
+    private static final String LEVEL_SUFFIX = ".txt";
+    private static final String INDEX_FILE = "levels.idx";
+
+    /**
+     * Порядок сортировки каталога.
+     */
+    public enum Sort {
+        NAME(Comparator.comparing(LevelInfo::getPath)),
+        SIZE(Comparator.comparingInt(LevelInfo::getCellCount)),
+        MINES(Comparator.comparingInt(LevelInfo::getMineCount)),
+        DIFFICULTY(Comparator.comparingDouble(LevelInfo::getDifficulty));
+
+        private final Comparator<LevelInfo> comparator;
+
+        Sort(Comparator<LevelInfo> comparator) {
+            this.comparator = comparator.thenComparing(LevelInfo::getPath);
+        }
+
+        public Comparator<LevelInfo> comparator() {
+            return comparator;
+        }
+    }
+
+    private final Path root;
+    private final Path indexFile;
+    private volatile List<LevelInfo> levels = Collections.emptyList();
+
+    /**
+     * Конструктор.
+     * @param root Каталог с файлами уровней
+     * @param indexFile Файл индекса
+     */
+    public LevelCatalog(Path root, Path indexFile) {
+        this.root = root;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Каталог по умолчанию: уровни из каталога hexcells.levels (текущего, если свойство не задано),
+     * индекс хранится там же.
+     */
+    public static LevelCatalog openDefault() {
+        Path root = Paths.get(System.getProperty("hexcells.levels", "."));
+        return new LevelCatalog(root, root.resolve(INDEX_FILE));
+    }
+
+    /**
+     * Абсолютный путь к файлу уровня из записи каталога.
+     */
+    public Path resolve(LevelInfo info) {
+        return root.resolve(info.getPath());
+    }
+
+    /**
+     * Все записи каталога, включая файлы, которые не удалось разобрать.
+     */
+    public List<LevelInfo> getLevels() {
+        return levels;
+    }
+
+    /**
+     * Выбирает корректные уровни по условию и сортирует их.
+     * @param filter Условие отбора
+     * @param order Порядок сортировки
+     * @return Новый список
+     */
+    public List<LevelInfo> query(Predicate<LevelInfo> filter, Comparator<LevelInfo> order) {
+        List<LevelInfo> result = new ArrayList<>();
+        for (LevelInfo info : levels) {
+            if (info.isValid() && filter.test(info)) {
+                result.add(info);
+            }
+        }
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Читает сохранённый индекс.
+     * @return false, если индекса нет
+     * @throws IOException при ошибке чтения или повреждённом индексе
+     */
+    public boolean loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("Неподдерживаемый формат индекса уровней: " + indexFile);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Повреждённый индекс уровней: " + indexFile);
+            }
+            List<LevelInfo> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                loaded.add(LevelInfo.readFrom(in));
+            }
+            levels = Collections.unmodifiableList(loaded);
+            return true;
+        }
+    }
+
+    /**
+     * Сверяет индекс с файлами: разбирает новые и изменившиеся уровни, убирает удалённые
+     * и сохраняет индекс, если что-то изменилось.
+     * @return Количество разобранных файлов
+     * @throws IOException при ошибке обхода каталога или записи индекса
+     */
+    public int refresh() throws IOException {
+        Map<String, LevelInfo> known = new HashMap<>();
+        for (LevelInfo info : levels) {
+            known.put(info.getPath(), info);
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root, MAX_DEPTH)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(LEVEL_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        List<LevelInfo> updated = new ArrayList<>(files.size());
+        int analyzed = 0;
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                continue;
+            }
+            String relative = root.relativize(file).toString();
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            LevelInfo info = known.get(relative);
+            if (info == null || info.getFileSize() != size || info.getLastModified() != modified) {
+                info = analyze(file, relative, size, modified);
+                analyzed++;
+            }
+            updated.add(info);
+        }
+        updated.sort(Sort.NAME.comparator());
+
+        boolean changed = analyzed > 0 || updated.size() != levels.size();
+        levels = Collections.unmodifiableList(updated);
+        if (changed) {
+            saveIndex();
+        }
+        return analyzed;
+    }
+
+    /**
+     * Разбирает уровень и считает его параметры.
+     * Сложность — средняя неопределённость правила (CompiledRule.getAmbiguity: log2 числа
+     * расстановок, совместимых с ним) плюс десятикратная плотность мин. Правила считаются
+     * по приёму подсказки, который сообщает их модуль.
+     */
+    static LevelInfo analyze(Path file, String relative, long size, long modified) {
+        LevelConfig config;
+        try {
+            config = LevelFile.loadLevelFromFile(file.toString());
+            LevelValidator.requireValid(config);
+        } catch (IOException | IllegalArgumentException e) {
+            return LevelInfo.invalid(relative, size, modified);
+        }
+        Board board = new Board(config);
+        CompiledRules rules = board.getCompiledRules();
+        int[] byTechnique = new int[HintTechnique.values().length];
+        double ambiguity = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            byTechnique[rules.getTechnique(i).ordinal()]++;
+            ambiguity += rules.getAmbiguity(i);
+        }
+        int cells = board.getCellCount();
+        double density = cells == 0 ? 0 : (double) config.getMineCount() / cells;
+        double difficulty = (rules.size() == 0 ? 0 : ambiguity / rules.size()) + 10 * density;
+        return new LevelInfo(relative, size, modified, true, config.getRows(), config.getCols(), cells,
+                config.getMineCount(), rules.size(), byTechnique, difficulty, board.getLevelKey());
+    }
+
+    private void saveIndex() throws IOException {
+        List<LevelInfo> snapshot = levels;
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(snapshot.size());
+            for (LevelInfo info : snapshot) {
+                info.writeTo(out);
+            }
+        }
+        try {
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
\ No newline at end of file
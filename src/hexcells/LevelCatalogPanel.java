@@ -0,0 +1,262 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Панель каталога уровней: поиск по имени, фильтр по видам правил, сортировка и список.
+ * Список виртуализирован: у строк фиксированные размеры, поэтому JList не измеряет все
+ * элементы, а единственный компонент отрисовщика переиспользуется для видимых строк.
+ * Индекс читается и обновляется в фоновом потоке, панель появляется сразу.
+ * Миниатюры уровней строятся в фоне (LevelThumbnails); отрисовщик строки берёт только
+ * готовое изображение из памяти, а для остальных ставит запрос и показывает пустое место.
+ */
+public class LevelCatalogPanel extends JPanel {
+    private static final int THUMBNAIL_SIZE = 48; // Сторона миниатюры уровня
+    private static final int THUMBNAIL_CACHE = 512; // Миниатюр в памяти
+    private static final int ROW_HEIGHT = THUMBNAIL_SIZE + 4; // Высота строки списка
+    private static final int ROW_WIDTH = 560; // Ширина строки списка
+
+    private static final String[] RULE_FILTERS = {
+            "Любые правила", "С последовательностями", "С группами", "С правилами соседей", "С линиями", "Без правил"
+    };
+    private static final String[] SORT_TITLES = {"По имени", "По размеру", "По числу мин", "По сложности"};
+    private static final LevelCatalog.Sort[] SORTS = {
+            LevelCatalog.Sort.NAME, LevelCatalog.Sort.SIZE, LevelCatalog.Sort.MINES, LevelCatalog.Sort.DIFFICULTY
+    };
+
+    /**
+     * Модель списка поверх готового отфильтрованного списка.
+     */
+    private static final class LevelListModel extends AbstractListModel<LevelInfo> {
+        private List<LevelInfo> levels = Collections.emptyList();
+
+        void setLevels(List<LevelInfo> levels) {
+            int oldSize = this.levels.size();
+            this.levels = levels;
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!levels.isEmpty()) {
+                fireIntervalAdded(this, 0, levels.size() - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return levels.size();
+        }
+
+        @Override
+        public LevelInfo getElementAt(int index) {
+            return levels.get(index);
+        }
+    }
+
+    private final LevelCatalog catalog;
+    private final Consumer<LevelInfo> onPlay;
+    private final LevelThumbnails thumbnails =
+            new LevelThumbnails(THUMBNAIL_SIZE, THUMBNAIL_CACHE, LevelThumbnails.defaultDirectory(THUMBNAIL_SIZE));
+    private final Icon placeholder =
+            new ImageIcon(new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_ARGB));
+    private final LevelListModel model = new LevelListModel();
+    private final JList<LevelInfo> list = new JList<>(model);
+    private final JTextField searchField = new JTextField(16);
+    private final JComboBox<String> ruleFilter = new JComboBox<>(RULE_FILTERS);
+    private final JComboBox<String> sortBox = new JComboBox<>(SORT_TITLES);
+    private final JLabel statusLabel = new JLabel("Загрузка каталога...");
+
+    /**
+     * Конструктор.
+     * @param catalog Каталог уровней
+     * @param onPlay Вызывается в потоке Swing при выборе уровня для игры
+     */
+    public LevelCatalogPanel(LevelCatalog catalog, Consumer<LevelInfo> onPlay) {
+        this.catalog = catalog;
+        this.onPlay = onPlay;
+        setLayout(new BorderLayout(5, 5));
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(new JLabel("Поиск:"));
+        filters.add(searchField);
+        filters.add(ruleFilter);
+        filters.add(sortBox);
+        add(filters, BorderLayout.NORTH);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setFixedCellWidth(ROW_WIDTH);
+        list.setVisibleRowCount(8);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> jList, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(jList, value, index, isSelected, cellHasFocus);
+                setIcon(thumbnailFor((LevelInfo) value));
+                return this;
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    playSelected();
+                }
+            }
+        });
+        list.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    playSelected();
+                }
+            }
+        });
+        add(new JScrollPane(list), BorderLayout.CENTER);
+
+        JButton playButton = new JButton("Играть");
+        playButton.addActionListener(e -> playSelected());
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(statusLabel, BorderLayout.CENTER);
+        bottom.add(playButton, BorderLayout.EAST);
+        add(bottom, BorderLayout.SOUTH);
+
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+        ruleFilter.addActionListener(e -> applyFilter());
+        sortBox.addActionListener(e -> applyFilter());
+    }
+
+    /**
+     * Читает сохранённый индекс и сверяет его с файлами в фоновом потоке;
+     * список обновляется после каждого этапа.
+     */
+    public void loadInBackground() {
+        Thread loader = new Thread(() -> {
+            try {
+                if (catalog.loadIndex()) {
+                    SwingUtilities.invokeLater(this::applyFilter);
+                }
+            } catch (IOException e) {
+                System.err.println("Индекс уровней будет построен заново: " + e.getMessage());
+            }
+            try {
+                catalog.refresh();
+                SwingUtilities.invokeLater(this::applyFilter);
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> statusLabel.setText("Ошибка индексации: " + e.getMessage()));
+                return;
+            }
+            // Миниатюры всех уровней заранее сохраняются на диск, чтобы прокрутка не ждала разбора файлов
+            Map<Long, LevelThumbnails.LevelLoader> levels = new LinkedHashMap<>();
+            for (LevelInfo info : catalog.getLevels()) {
+                if (info.isValid()) {
+                    levels.put(info.getLevelKey(), loaderFor(info));
+                }
+            }
+            thumbnails.generateAll(levels);
+        }, "hexcells-catalog");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Применяет поиск, фильтр и сортировку к каталогу.
+     */
+    private void applyFilter() {
+        String text = searchField.getText().trim().toLowerCase(Locale.ROOT);
+        Predicate<LevelInfo> filter = info -> text.isEmpty() || info.getPath().toLowerCase(Locale.ROOT).contains(text);
+        switch (ruleFilter.getSelectedIndex()) {
+            case 1:
+                filter = filter.and(info -> info.getSequenceRules() > 0);
+                break;
+            case 2:
+                filter = filter.and(info -> info.getGroupRules() > 0);
+                break;
+            case 3:
+                filter = filter.and(info -> info.getEdgeRules() > 0);
+                break;
+            case 4:
+                filter = filter.and(info -> info.getLineRules() > 0);
+                break;
+            case 5:
+                filter = filter.and(info -> info.getRuleCount() == 0);
+                break;
+            default:
+                break;
+        }
+        LevelInfo selected = list.getSelectedValue();
+        List<LevelInfo> levels = catalog.query(filter, SORTS[sortBox.getSelectedIndex()].comparator());
+        model.setLevels(levels);
+        if (selected != null) {
+            int index = levels.indexOf(selected);
+            if (index >= 0) {
+                list.setSelectedIndex(index);
+            }
+        }
+        statusLabel.setText("Уровней: " + levels.size() + " из " + catalog.getLevels().size());
+    }
+
+    /**
+     * Миниатюра уровня из памяти; если её нет, запрашивает построение и перерисовывает
+     * список, когда миниатюра будет готова.
+     */
+    private Icon thumbnailFor(LevelInfo info) {
+        BufferedImage image = thumbnails.getCached(info.getLevelKey());
+        if (image != null) {
+            return new ImageIcon(image);
+        }
+        thumbnails.request(info.getLevelKey(), loaderFor(info), ready -> list.repaint());
+        return placeholder;
+    }
+
+    private LevelThumbnails.LevelLoader loaderFor(LevelInfo info) {
+        return () -> LevelFile.loadLevelFromFile(catalog.resolve(info).toString());
+    }
+
+    /**
+     * Окно панели освобождается: пул миниатюр останавливается, предварительная генерация
+     * прерывается. После этого панель не используется повторно.
+     */
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        thumbnails.close();
+    }
+
+    private void playSelected() {
+        LevelInfo selected = list.getSelectedValue();
+        if (selected != null) {
+            onPlay.accept(selected);
+        }
+    }
+}
\ No newline at end of file
@@ -1,16 +1,28 @@
 package hexcells;
 
-import java.util.List;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
 
 /**
  * Класс для хранения конфигурации игрового уровня в Hexcells.
  * Содержит размеры сетки, расположение мин и данные для создания правил.
+ * Мины хранятся в примитивных массивах; геттеры возвращают представления только для чтения, а не копии.
+ * Уровень произвольной формы дополнительно хранит список существующих ячеек (см. {@link Builder#addCell}).
  */
-public class LevelConfig {
+public class LevelConfig implements LevelSource {
     private int rows; // Количество строк сетки
     private int cols; // Количество столбцов сетки
-    private List<HexCoord> mineCoordinates; // Координаты мин
+    private int[] mineQ; // Координаты q мин
+    private int[] mineR; // Координаты r мин
+    private int mineCount; // Количество мин
+    private int[] cellQ; // Координаты q существующих ячеек (null — весь прямоугольник)
+    private int[] cellR; // Координаты r существующих ячеек
+    private int cellCount; // Количество ячеек уровня произвольной формы
     private List<RuleData> ruleDataList; // Данные для создания правил
 
     /**
@@ -33,10 +45,51 @@ public class LevelConfig {
         }
         this.rows = rows;
         this.cols = cols;
-        this.mineCoordinates = new ArrayList<>(mineCoordinates); // Копия для защиты
+        copyMines(mineCoordinates);
         this.ruleDataList = new ArrayList<>(ruleDataList); // Копия для защиты
     }
 
+    /**
+     * Конструктор для Builder: принимает массивы во владение без копирования.
+     */
+    private LevelConfig(Builder builder) {
+        this.rows = builder.rows;
+        this.cols = builder.cols;
+        this.mineQ = builder.mineQ;
+        this.mineR = builder.mineR;
+        this.mineCount = builder.mineCount;
+        this.cellQ = builder.cellQ;
+        this.cellR = builder.cellR;
+        this.cellCount = builder.cellCount;
+        this.ruleDataList = builder.ruleDataList;
+    }
+
+    /**
+     * Создаёт построитель для потокового заполнения больших уровней.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @return Построитель
+     */
+    public static Builder builder(int rows, int cols) {
+        return new Builder(rows, cols);
+    }
+
+    /**
+     * Копирует координаты мин в примитивные массивы.
+     */
+    private void copyMines(List<HexCoord> mineCoordinates) {
+        int count = mineCoordinates.size();
+        this.mineQ = new int[count];
+        this.mineR = new int[count];
+        int i = 0;
+        for (HexCoord coord : mineCoordinates) {
+            mineQ[i] = coord.getQ();
+            mineR[i] = coord.getR();
+            i++;
+        }
+        this.mineCount = count;
+    }
+
     // Геттеры
     /**
      * Возвращает количество строк.
@@ -53,17 +106,61 @@ public class LevelConfig {
     }
 
     /**
-     * Возвращает список координат мин.
+     * Возвращает список координат мин (представление только для чтения).
      */
     public List<HexCoord> getMines() {
-        return new ArrayList<>(mineCoordinates); // Копия для защиты
+        return new MineList();
+    }
+
+    /**
+     * Возвращает количество мин.
+     */
+    public int getMineCount() {
+        return mineCount;
     }
 
     /**
-     * Возвращает список данных для правил.
+     * Возвращает список данных для правил (представление только для чтения).
      */
     public List<RuleData> getRuleDataList() {
-        return new ArrayList<>(ruleDataList); // Копия для защиты
+        return Collections.unmodifiableList(ruleDataList);
+    }
+
+    /**
+     * Возвращает количество существующих ячеек уровня.
+     */
+    public int getCellCount() {
+        return cellQ == null ? rows * cols : cellCount;
+    }
+
+    @Override
+    public boolean isRectangular() {
+        return cellQ == null;
+    }
+
+    @Override
+    public void forEachCell(CellConsumer consumer) {
+        if (cellQ == null) {
+            LevelSource.super.forEachCell(consumer);
+            return;
+        }
+        for (int i = 0; i < cellCount; i++) {
+            consumer.accept(cellQ[i], cellR[i]);
+        }
+    }
+
+    @Override
+    public void forEachMine(MineConsumer consumer) {
+        for (int i = 0; i < mineCount; i++) {
+            consumer.accept(mineQ[i], mineR[i]);
+        }
+    }
+
+    @Override
+    public void forEachRule(Consumer<RuleData> consumer) {
+        for (RuleData ruleData : ruleDataList) {
+            consumer.accept(ruleData);
+        }
     }
 
     // Сеттеры
@@ -100,7 +197,7 @@ public class LevelConfig {
         if (mineCoordinates == null) {
             throw new IllegalArgumentException("Список координат мин не может быть null");
         }
-        this.mineCoordinates = new ArrayList<>(mineCoordinates);
+        copyMines(mineCoordinates);
     }
 
     /**
@@ -114,5 +211,128 @@ public class LevelConfig {
         }
         this.ruleDataList = new ArrayList<>(ruleDataList);
     }
-}
 
+    /**
+     * Представление мин в виде списка HexCoord; объекты создаются только при чтении.
+     */
+    private class MineList extends AbstractList<HexCoord> implements RandomAccess {
+        @Override
+        public HexCoord get(int index) {
+            if (index < 0 || index >= mineCount) {
+                throw new IndexOutOfBoundsException("Индекс мины вне диапазона: " + index);
+            }
+            return new HexCoord(mineQ[index], mineR[index]);
+        }
+
+        @Override
+        public int size() {
+            return mineCount;
+        }
+    }
+
+    /**
+     * Построитель конфигурации, заполняемый потоком без промежуточных списков HexCoord.
+     * После build() построитель использовать нельзя: массивы передаются конфигурации без копирования.
+     */
+    public static class Builder {
+        private final int rows;
+        private final int cols;
+        private int[] mineQ = new int[16];
+        private int[] mineR = new int[16];
+        private int mineCount;
+        private int[] cellQ;
+        private int[] cellR;
+        private int cellCount;
+        private List<RuleData> ruleDataList = new ArrayList<>();
+
+        private Builder(int rows, int cols) {
+            if (rows <= 0 || cols <= 0) {
+                throw new IllegalArgumentException("Размеры сетки должны быть положительными: rows=" + rows + ", cols=" + cols);
+            }
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        /**
+         * Добавляет мину.
+         * @param q Координата q
+         * @param r Координата r
+         * @return this
+         */
+        public Builder addMine(int q, int r) {
+            checkNotBuilt();
+            if (mineCount == mineQ.length) {
+                int capacity = mineQ.length + (mineQ.length >> 1);
+                mineQ = Arrays.copyOf(mineQ, capacity);
+                mineR = Arrays.copyOf(mineR, capacity);
+            }
+            mineQ[mineCount] = q;
+            mineR[mineCount] = r;
+            mineCount++;
+            return this;
+        }
+
+        /**
+         * Добавляет существующую ячейку уровня произвольной формы.
+         * Если ни одна ячейка не добавлена, уровень занимает весь прямоугольник rows × cols.
+         * @param q Координата q
+         * @param r Координата r
+         * @return this
+         * @throws IllegalArgumentException если ячейка вне сетки
+         */
+        public Builder addCell(int q, int r) {
+            checkNotBuilt();
+            if (q < 0 || q >= cols || r < 0 || r >= rows) {
+                throw new IllegalArgumentException("Ячейка вне сетки " + rows + "x" + cols + ": (" + q + ", " + r + ")");
+            }
+            if (cellQ == null) {
+                cellQ = new int[16];
+                cellR = new int[16];
+            } else if (cellCount == cellQ.length) {
+                int capacity = cellQ.length + (cellQ.length >> 1);
+                cellQ = Arrays.copyOf(cellQ, capacity);
+                cellR = Arrays.copyOf(cellR, capacity);
+            }
+            cellQ[cellCount] = q;
+            cellR[cellCount] = r;
+            cellCount++;
+            return this;
+        }
+
+        /**
+         * Добавляет данные правила.
+         * @param ruleData Данные правила
+         * @return this
+         * @throws IllegalArgumentException если ruleData null
+         */
+        public Builder addRule(RuleData ruleData) {
+            checkNotBuilt();
+            if (ruleData == null) {
+                throw new IllegalArgumentException("Данные правила не могут быть null");
+            }
+            ruleDataList.add(ruleData);
+            return this;
+        }
+
+        /**
+         * Создаёт конфигурацию, передавая ей накопленные данные без копирования.
+         * @return Конфигурация уровня
+         */
+        public LevelConfig build() {
+            checkNotBuilt();
+            LevelConfig config = new LevelConfig(this);
+            mineQ = null;
+            mineR = null;
+            cellQ = null;
+            cellR = null;
+            ruleDataList = null;
+            return config;
+        }
+
+        private void checkNotBuilt() {
+            if (ruleDataList == null) {
+                throw new IllegalStateException("Конфигурация уже построена");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package hexcells;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Удаление дубликатов из набора уровней: уровни, совпадающие с точностью до поворота,
+ * отражения и сдвига (см. LevelCanonicalForm), считаются одинаковыми.
+ * Файлы читаются потоком по одному, в памяти хранятся только 128-битные хеши в таблице
+ * вне кучи, отображённой во временный файл, поэтому память ограничена и для десятков
+ * миллионов уровней. Ожидаемое число задаёт только начальный размер таблицы: при
+ * заполнении она удваивается. Пути уникальных уровней выводятся в stdout, итоги — в stderr.
+ * java hexcells.LevelDedupTool &lt;каталог | файл со списком путей&gt; [ожидаемое число уровней]
+ */
+public class LevelDedupTool {
+    private static final String LEVEL_SUFFIX = ".txt";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Использование: java hexcells.LevelDedupTool <каталог | список путей> [ожидаемое число]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        long expected = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+
+        Path table = Files.createTempFile("hexcells-dedup", ".bin");
+        long total = 0;
+        long duplicates = 0;
+        long errors = 0;
+        long start = System.nanoTime();
+        try (OffHeapHashSet seen = OffHeapHashSet.mapped(expected, table);
+             Stream<Path> paths = levelPaths(input);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            Iterator<Path> iterator = paths.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                total++;
+                LevelCanonicalForm form;
+                try {
+                    form = LevelCanonicalForm.of(LevelFile.loadLevelFromFile(path.toString()));
+                } catch (IOException | IllegalArgumentException e) {
+                    errors++;
+                    System.err.println("Пропущен " + path + ": " + e.getMessage());
+                    continue;
+                }
+                if (seen.add(form.getHashHigh(), form.getHashLow())) {
+                    out.write(path.toString());
+                    out.newLine();
+                } else {
+                    duplicates++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(table);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Уровней: %d, уникальных: %d, дубликатов: %d, ошибок: %d, %.1f с (%.0f уровней/с)%n",
+                total, total - duplicates - errors, duplicates, errors, seconds, total / Math.max(seconds, 1e-9));
+    }
+
+    /**
+     * Ленивый поток путей: обход каталога или строки файла со списком.
+     */
+    private static Stream<Path> levelPaths(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            return Files.walk(input)
+                    .filter(path -> path.getFileName().toString().endsWith(LEVEL_SUFFIX))
+                    .filter(Files::isRegularFile);
+        }
+        return Files.lines(input, StandardCharsets.UTF_8)
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .map(Paths::get);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package hexcells;
+
+/**
+ * Диагностическое сообщение проверки уровня.
+ */
+public class LevelDiagnostic {
+    /**
+     * Серьёзность проблемы.
+     */
+    public enum Severity {
+        ERROR,   // Уровень нельзя загружать
+        WARNING  // Уровень загрузится, но содержит подозрительные данные
+    }
+
+    /**
+     * Код проблемы для автоматической обработки в конвейере контента.
+     */
+    public enum Code {
+        MINE_OUT_OF_BOUNDS,      // Мина вне сетки
+        DUPLICATE_MINE,          // Мина указана повторно
+        UNKNOWN_RULE_TYPE,       // Неизвестный тип данных правила
+        RULE_CELL_OUT_OF_BOUNDS, // Правило ссылается на ячейку вне сетки
+        RULE_DUPLICATE_CELL,     // Ячейка указана в правиле повторно
+        RULE_COUNT_OUT_OF_RANGE, // Ожидаемое число мин невозможно для размера правила
+        RULE_VIOLATED,           // Правило не выполняется на раскладке мин
+        CONTRADICTORY_RULES,     // Правила с одним набором ячеек требуют разного числа мин
+        CELL_OUT_OF_BOUNDS       // Ячейка формы уровня вне сетки
+    }
+
+    private final Severity severity;
+    private final Code code;
+    private final String message;
+    private final HexCoord coord;
+    private final int ruleIndex;
+
+    /**
+     * Конструктор.
+     * @param severity Серьёзность
+     * @param code Код проблемы
+     * @param message Описание для человека
+     * @param coord Координаты ячейки или null
+     * @param ruleIndex Индекс правила в списке данных правил или -1
+     */
+    public LevelDiagnostic(Severity severity, Code code, String message, HexCoord coord, int ruleIndex) {
+        this.severity = severity;
+        this.code = code;
+        this.message = message;
+        this.coord = coord;
+        this.ruleIndex = ruleIndex;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Возвращает координаты ячейки, к которой относится проблема, или null.
+     */
+    public HexCoord getCoord() {
+        return coord;
+    }
+
+    /**
+     * Возвращает индекс правила, к которому относится проблема, или -1.
+     */
+    public int getRuleIndex() {
+        return ruleIndex;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(severity).append(' ').append(code).append(": ").append(message);
+        if (ruleIndex >= 0) {
+            sb.append(" [правило ").append(ruleIndex).append(']');
+        }
+        if (coord != null) {
+            sb.append(" [").append(coord).append(']');
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package hexcells;
+
+import java.util.SplittableRandom;
+
+/**
+ * Генератор случайных уровней для серверных сессий, ботов и тестовых прогонов.
+ */
+public class LevelGenerator {
+    private LevelGenerator() {
+    }
+
+    /**
+     * Создаёт уровень без правил с заданным числом мин, расставленных случайно.
+     * Одинаковый seed даёт одинаковую раскладку.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param mines Количество мин
+     * @param seed Начальное значение генератора
+     * @return Конфигурация уровня
+     * @throws IllegalArgumentException если мин больше, чем ячеек
+     */
+    public static LevelConfig randomLevel(int rows, int cols, int mines, long seed) {
+        int cellCount = rows * cols;
+        if (mines < 0 || mines > cellCount) {
+            throw new IllegalArgumentException("Недопустимое количество мин: " + mines + " при " + cellCount + " ячейках");
+        }
+
+        // Частичная перетасовка Фишера-Йетса: первые mines индексов — мины
+        int[] cells = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            cells[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        LevelConfig.Builder builder = LevelConfig.builder(rows, cols);
+        for (int i = 0; i < mines; i++) {
+            int j = i + random.nextInt(cellCount - i);
+            int tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+            builder.addMine(cells[i] % cols, cells[i] / cols);
+        }
+        return builder.build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package hexcells;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Запись каталога уровней: параметры уровня, посчитанные один раз при индексации.
+ * Размер и время изменения файла позволяют не разбирать неизменившиеся уровни повторно.
+ */
+public final class LevelInfo {
+    private final String path;       // Путь к файлу уровня относительно корня каталога
+    private final long fileSize;
+    private final long lastModified;
+    private final boolean valid;     // false — файл не удалось разобрать
+    private final int rows;
+    private final int cols;
+    private final int cellCount;
+    private final int mineCount;
+    private final int ruleCount;
+    private final int[] rulesByTechnique; // Число правил по HintTechnique.ordinal()
+    private final double difficulty;
+    private final long levelKey;
+
+    LevelInfo(String path, long fileSize, long lastModified, boolean valid, int rows, int cols, int cellCount,
+              int mineCount, int ruleCount, int[] rulesByTechnique, double difficulty, long levelKey) {
+        this.path = path;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.valid = valid;
+        this.rows = rows;
+        this.cols = cols;
+        this.cellCount = cellCount;
+        this.mineCount = mineCount;
+        this.ruleCount = ruleCount;
+        this.rulesByTechnique = rulesByTechnique;
+        this.difficulty = difficulty;
+        this.levelKey = levelKey;
+    }
+
+    /**
+     * Запись для файла, который не является корректным уровнем.
+     */
+    static LevelInfo invalid(String path, long fileSize, long lastModified) {
+        return new LevelInfo(path, fileSize, lastModified, false, 0, 0, 0, 0, 0,
+                new int[HintTechnique.values().length], 0, 0);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Имя файла без каталогов.
+     */
+    public String getName() {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(slash + 1);
+    }
+
+    long getFileSize() {
+        return fileSize;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    /**
+     * Общее число правил уровня, включая правила сторонних модулей.
+     */
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * Число правил, подсказки которых помечаются приёмом technique (CompiledRule.getTechnique()).
+     */
+    public int getRules(HintTechnique technique) {
+        return rulesByTechnique[technique.ordinal()];
+    }
+
+    public int getGroupRules() {
+        return getRules(HintTechnique.GROUP);
+    }
+
+    public int getSequenceRules() {
+        return getRules(HintTechnique.SEQUENCE);
+    }
+
+    public int getEdgeRules() {
+        return getRules(HintTechnique.EDGE);
+    }
+
+    public int getLineRules() {
+        return getRules(HintTechnique.LINE);
+    }
+
+    /**
+     * Оценка сложности (см. LevelCatalog.analyze).
+     */
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Ключ уровня (Board.getLevelKey()), связывает каталог со статистикой и сохранениями.
+     */
+    public long getLevelKey() {
+        return levelKey;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeLong(fileSize);
+        out.writeLong(lastModified);
+        out.writeBoolean(valid);
+        out.writeInt(rows);
+        out.writeInt(cols);
+        out.writeInt(cellCount);
+        out.writeInt(mineCount);
+        out.writeInt(ruleCount);
+        for (int count : rulesByTechnique) {
+            out.writeInt(count);
+        }
+        out.writeDouble(difficulty);
+        out.writeLong(levelKey);
+    }
+
+    static LevelInfo readFrom(DataInput in) throws IOException {
+        String path = in.readUTF();
+        long fileSize = in.readLong();
+        long lastModified = in.readLong();
+        boolean valid = in.readBoolean();
+        int rows = in.readInt();
+        int cols = in.readInt();
+        int cellCount = in.readInt();
+        int mineCount = in.readInt();
+        int ruleCount = in.readInt();
+        int[] rulesByTechnique = new int[HintTechnique.values().length];
+        for (int i = 0; i < rulesByTechnique.length; i++) {
+            rulesByTechnique[i] = in.readInt();
+        }
+        return new LevelInfo(path, fileSize, lastModified, valid, rows, cols, cellCount, mineCount, ruleCount,
+                rulesByTechnique, in.readDouble(), in.readLong());
+    }
+
+    @Override
+    public String toString() {
+        if (!valid) {
+            return getName() + " (ошибка разбора)";
+        }
+        return String.format("%s — %dx%d, мин: %d, правил: %d/%d/%d/%d, сложность %.1f", getName(), rows, cols,
+                mineCount, getGroupRules(), getSequenceRules(), getEdgeRules(), getLineRules(), difficulty);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package hexcells;
+
+import java.util.function.Consumer;
+
+/**
+ * Источник данных уровня, читаемый потоком.
+ * Позволяет инициализировать Board прямо из читателя уровня, не создавая
+ * промежуточных списков координат. Реализация может поддерживать только
+ * однократное чтение каждого раздела; LevelConfig читается многократно.
+ */
+public interface LevelSource {
+    /**
+     * Получатель координат мины без создания HexCoord.
+     */
+    @FunctionalInterface
+    interface MineConsumer {
+        void accept(int q, int r);
+    }
+
+    /**
+     * Получатель координат существующей ячейки уровня.
+     */
+    @FunctionalInterface
+    interface CellConsumer {
+        void accept(int q, int r);
+    }
+
+    /**
+     * Возвращает количество строк сетки.
+     */
+    int getRows();
+
+    /**
+     * Возвращает количество столбцов сетки.
+     */
+    int getCols();
+
+    /**
+     * Проверяет, занимает ли уровень весь прямоугольник rows × cols.
+     * Уровни произвольной формы перечисляют свои ячейки в {@link #forEachCell}.
+     * @return true для прямоугольного уровня
+     */
+    default boolean isRectangular() {
+        return true;
+    }
+
+    /**
+     * Передаёт координаты всех существующих ячеек уровня.
+     * По умолчанию перечисляет весь прямоугольник.
+     * @param consumer Получатель координат
+     */
+    default void forEachCell(CellConsumer consumer) {
+        for (int r = 0; r < getRows(); r++) {
+            for (int q = 0; q < getCols(); q++) {
+                consumer.accept(q, r);
+            }
+        }
+    }
+
+    /**
+     * Передаёт координаты всех мин уровня.
+     * @param consumer Получатель координат
+     */
+    void forEachMine(MineConsumer consumer);
+
+    /**
+     * Передаёт данные всех правил уровня в порядке объявления.
+     * @param consumer Получатель данных правил
+     */
+    void forEachRule(Consumer<RuleData> consumer);
+}
\ No newline at end of file
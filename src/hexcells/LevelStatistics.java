@@ -0,0 +1,68 @@
+package hexcells;
+
+/**
+ * Сводная статистика уровня на момент запроса.
+ */
+public final class LevelStatistics {
+    private final long levelKey;
+    private final long plays;
+    private final long wins;
+    private final long botPlays;
+    private final long totalMillis;
+    private final long bestWinMillis;
+    private final long totalMistakes;
+    private final long totalHints;
+
+    LevelStatistics(long levelKey, long plays, long wins, long botPlays, long totalMillis,
+                    long bestWinMillis, long totalMistakes, long totalHints) {
+        this.levelKey = levelKey;
+        this.plays = plays;
+        this.wins = wins;
+        this.botPlays = botPlays;
+        this.totalMillis = totalMillis;
+        this.bestWinMillis = bestWinMillis;
+        this.totalMistakes = totalMistakes;
+        this.totalHints = totalHints;
+    }
+
+    public long getLevelKey() {
+        return levelKey;
+    }
+
+    /**
+     * Количество партий (люди и боты).
+     */
+    public long getPlays() {
+        return plays;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Количество партий, сыгранных ботами.
+     */
+    public long getBotPlays() {
+        return botPlays;
+    }
+
+    /**
+     * Лучшее время победы в миллисекундах или -1, если побед нет.
+     */
+    public long getBestWinMillis() {
+        return bestWinMillis == Long.MAX_VALUE ? -1 : bestWinMillis;
+    }
+
+    public double getAverageMillis() {
+        return plays == 0 ? 0 : (double) totalMillis / plays;
+    }
+
+    public double getAverageMistakes() {
+        return plays == 0 ? 0 : (double) totalMistakes / plays;
+    }
+
+    public double getAverageHints() {
+        return plays == 0 ? 0 : (double) totalHints / plays;
+    }
+}
\ No newline at end of file
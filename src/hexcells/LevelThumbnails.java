@@ -0,0 +1,400 @@
+package hexcells;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Миниатюры уровней без живой доски: уровень рисуется в небольшой BufferedImage
+ * с той же геометрией сетки, что и GridPanel (HexGeometry).
+ * Кеш двухуровневый: в памяти — LRU по ключу уровня (Board.getLevelKey()), на диске —
+ * PNG-файлы, переживающие перезапуск. Отрисовка и чтение с диска выполняются в пуле
+ * фоновых потоков; поток Swing только смотрит в кеш памяти и ставит запрос в очередь.
+ * Очередь ограничена: при быстрой прокрутке старые запросы вытесняются новыми,
+ * так что работа идёт над строками, которые видны сейчас. Предварительная генерация
+ * (generateAll) идёт в том же пуле и держит в нём не больше задач, чем потоков.
+ */
+public class LevelThumbnails implements AutoCloseable {
+    private static final int QUEUE_LIMIT = 256; // Запросов в очереди, старые вытесняются
+    private static final int RENDER_VERSION = 2; // Меняется вместе с видом миниатюр, чтобы не брать старые PNG
+    private static final Color BACKGROUND = Color.LIGHT_GRAY;
+    private static final Color CELL_COLOR = Color.GRAY;
+    private static final Color MINE_COLOR = Color.BLACK;
+    private static final Color CLUE_COLOR = Color.BLUE;
+    private static final Color OUTLINE_COLOR = Color.BLACK;
+
+    /**
+     * Загрузчик уровня для отрисовки; вызывается в фоновом потоке.
+     */
+    @FunctionalInterface
+    public interface LevelLoader {
+        LevelSource load() throws IOException;
+    }
+
+    /**
+     * Задача отрисовки; ключ нужен, чтобы снять вытесненную задачу с учёта.
+     */
+    private final class RenderTask implements Runnable {
+        final long key;
+        final LevelLoader loader;
+
+        RenderTask(long key, LevelLoader loader) {
+            this.key = key;
+            this.loader = loader;
+        }
+
+        @Override
+        public void run() {
+            BufferedImage image = null;
+            try {
+                image = loadOrRender(key, loader);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Не удалось построить миниатюру " + String.format("%016x", key) + ": "
+                        + e.getMessage());
+            }
+            Consumer<BufferedImage> callback = pending.remove(key);
+            if (image != null && callback != null) {
+                BufferedImage ready = image;
+                SwingUtilities.invokeLater(() -> callback.accept(ready));
+            }
+        }
+    }
+
+    /**
+     * Задача предварительной генерации: рисует миниатюру на диск, не трогая кеш памяти.
+     * Освобождает место в generateAll и после выполнения, и при вытеснении из очереди.
+     */
+    private final class GenerateTask implements Runnable {
+        final long key;
+        final LevelLoader loader;
+        final Semaphore slots;
+        final AtomicInteger rendered;
+
+        GenerateTask(long key, LevelLoader loader, Semaphore slots, AtomicInteger rendered) {
+            this.key = key;
+            this.loader = loader;
+            this.slots = slots;
+            this.rendered = rendered;
+        }
+
+        @Override
+        public void run() {
+            try {
+                store(fileFor(key), render(loader.load(), size));
+                rendered.incrementAndGet();
+            } catch (IOException | IllegalArgumentException e) {
+                // Уровень с ошибкой пропускается; при показе будет повторная попытка
+            } finally {
+                slots.release();
+            }
+        }
+    }
+
+    private final int size;
+    private final Path directory; // null — без кеша на диске
+    private final Map<Long, BufferedImage> memory;
+    private final Map<Long, Consumer<BufferedImage>> pending = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Конструктор.
+     * @param size Сторона миниатюры в пикселях
+     * @param memoryEntries Сколько миниатюр держать в памяти
+     * @param directory Каталог кеша на диске или null
+     */
+    public LevelThumbnails(int size, int memoryEntries, Path directory) {
+        if (size < 8) {
+            throw new IllegalArgumentException("Размер миниатюры слишком мал: " + size);
+        }
+        if (memoryEntries <= 0) {
+            throw new IllegalArgumentException("Размер кеша должен быть положительным: " + memoryEntries);
+        }
+        this.size = size;
+        this.directory = directory;
+        this.memory = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(QUEUE_LIMIT), task -> {
+                    Thread thread = new Thread(task, "hexcells-thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        return;
+                    }
+                    Runnable dropped = pool.getQueue().poll();
+                    if (dropped instanceof RenderTask) {
+                        pending.remove(((RenderTask) dropped).key);
+                    } else if (dropped instanceof GenerateTask) {
+                        ((GenerateTask) dropped).slots.release(); // Построится при показе
+                    }
+                    pool.execute(task);
+                });
+    }
+
+    /**
+     * Кеш по умолчанию в каталоге пользователя.
+     * @param size Сторона миниатюры в пикселях
+     */
+    public static Path defaultDirectory(int size) {
+        return Paths.get(System.getProperty("user.home"), ".hexcells", "thumbnails", "v" + RENDER_VERSION,
+                Integer.toString(size));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Миниатюра из кеша памяти; не обращается к диску и безопасна для потока Swing.
+     * @param key Ключ уровня
+     * @return Изображение или null
+     */
+    public BufferedImage getCached(long key) {
+        synchronized (memory) {
+            return memory.get(key);
+        }
+    }
+
+    /**
+     * Ставит в очередь построение миниатюры, если её нет в памяти и она ещё не запрошена.
+     * @param key Ключ уровня
+     * @param loader Загрузчик уровня (вызывается, только если миниатюры нет и на диске)
+     * @param onReady Вызывается в потоке Swing с готовой миниатюрой
+     */
+    public void request(long key, LevelLoader loader, Consumer<BufferedImage> onReady) {
+        if (getCached(key) != null) {
+            return;
+        }
+        if (pending.putIfAbsent(key, onReady) == null) {
+            executor.execute(new RenderTask(key, loader));
+        }
+    }
+
+    /**
+     * Строит миниатюры всех уровней, которых нет на диске, в пуле миниатюр. В пуле
+     * одновременно не больше задач генерации, чем потоков, поэтому запросы видимых строк
+     * ждут не дольше одной отрисовки на поток. В кеш памяти результаты не попадают.
+     * Вызывается из фонового потока и блокирует его до конца генерации или до close().
+     * @param levels Ключи уровней и их загрузчики
+     * @return Количество построенных миниатюр
+     */
+    public int generateAll(Map<Long, LevelLoader> levels) {
+        if (directory == null) {
+            return 0;
+        }
+        int limit = executor.getMaximumPoolSize();
+        Semaphore slots = new Semaphore(limit);
+        AtomicInteger rendered = new AtomicInteger();
+        try {
+            for (Map.Entry<Long, LevelLoader> entry : levels.entrySet()) {
+                if (Files.exists(fileFor(entry.getKey()))) {
+                    continue;
+                }
+                if (!acquire(slots, 1)) {
+                    return rendered.get();
+                }
+                executor.execute(new GenerateTask(entry.getKey(), entry.getValue(), slots, rendered));
+            }
+            acquire(slots, limit); // Ожидание последних задач
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return rendered.get();
+    }
+
+    /**
+     * Ждёт места для задач генерации.
+     * @return false, если пул остановлен
+     */
+    private boolean acquire(Semaphore slots, int permits) throws InterruptedException {
+        while (!slots.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+            if (executor.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Останавливает пул; идущая generateAll завершается в течение 100 мс.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pending.clear();
+    }
+
+    /**
+     * Рисует уровень: безопасные ячейки формы закрашиваются как закрытые ячейки доски,
+     * мины — как открытые мины, а ячейки, на которые ссылаются правила (подсказки),
+     * отмечаются точкой цвета подсказок. Правила разбираются через RuleRegistry, поэтому
+     * подключённые модули правил отображаются так же, как встроенные.
+     * Масштаб подбирается так, чтобы уровень целиком поместился в квадрат.
+     * @param level Уровень
+     * @param size Сторона изображения в пикселях
+     * @return Новое изображение
+     */
+    public static BufferedImage render(LevelSource level, int size) {
+        int[] count = new int[1];
+        double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        double halfHeight = HexGeometry.rowHeight(1) / 2;
+        level.forEachCell((q, r) -> {
+            Point2D.Double center = HexGeometry.hexToPixel(q, r, 1);
+            bounds[0] = Math.min(bounds[0], center.x - 1);
+            bounds[1] = Math.min(bounds[1], center.y - halfHeight);
+            bounds[2] = Math.max(bounds[2], center.x + 1);
+            bounds[3] = Math.max(bounds[3], center.y + halfHeight);
+            count[0]++;
+        });
+        int rows = level.getRows();
+        int cols = level.getCols();
+        CellBits mines = new CellBits(rows, cols);
+        CellBits clues = new CellBits(rows, cols);
+        level.forEachMine((q, r) -> {
+            if (q >= 0 && q < cols && r >= 0 && r < rows) {
+                mines.set(r * cols + q);
+            }
+        });
+        level.forEachRule(data -> {
+            Rule rule = RuleRegistry.createRule(data);
+            if (rule == null) {
+                return;
+            }
+            for (HexCoord coord : rule.getCells()) {
+                int q = coord.getQ();
+                int r = coord.getR();
+                if (q >= 0 && q < cols && r >= 0 && r < rows) {
+                    clues.set(r * cols + q);
+                }
+            }
+        });
+
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setColor(BACKGROUND);
+            g2d.fillRect(0, 0, size, size);
+            if (count[0] == 0) {
+                return image;
+            }
+            double width = bounds[2] - bounds[0];
+            double height = bounds[3] - bounds[1];
+            double radius = (size - 2) / Math.max(width, height);
+            double offsetX = (size - width * radius) / 2 - bounds[0] * radius;
+            double offsetY = (size - height * radius) / 2 - bounds[1] * radius;
+            boolean outline = radius >= 3; // Контур мельче трёх пикселей сливается в сплошную заливку
+            double dot = Math.max(1, radius / 2); // Поперечник отметки подсказки
+
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setStroke(new BasicStroke(outline ? 1f : 0f));
+            Path2D.Double hex = new Path2D.Double();
+            Ellipse2D.Double marker = new Ellipse2D.Double();
+            level.forEachCell((q, r) -> {
+                Point2D.Double center = HexGeometry.hexToPixel(q, r, radius);
+                hex.reset();
+                for (int i = 0; i < 6; i++) {
+                    double angle = Math.toRadians(60 * i);
+                    double x = offsetX + center.x + radius * Math.cos(angle);
+                    double y = offsetY + center.y + radius * Math.sin(angle);
+                    if (i == 0) {
+                        hex.moveTo(x, y);
+                    } else {
+                        hex.lineTo(x, y);
+                    }
+                }
+                hex.closePath();
+                int index = r * cols + q;
+                g2d.setColor(mines.get(index) ? MINE_COLOR : CELL_COLOR);
+                g2d.fill(hex);
+                if (outline) {
+                    g2d.setColor(OUTLINE_COLOR);
+                    g2d.draw(hex);
+                }
+                if (clues.get(index)) {
+                    g2d.setColor(CLUE_COLOR);
+                    marker.setFrame(offsetX + center.x - dot / 2, offsetY + center.y - dot / 2, dot, dot);
+                    g2d.fill(marker);
+                }
+            });
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Берёт миниатюру с диска или рисует её и сохраняет; результат кладётся в кеш памяти.
+     */
+    private BufferedImage loadOrRender(long key, LevelLoader loader) throws IOException {
+        BufferedImage image = null;
+        Path file = directory == null ? null : fileFor(key);
+        if (file != null && Files.exists(file)) {
+            image = ImageIO.read(file.toFile());
+        }
+        if (image == null) {
+            image = render(loader.load(), size);
+            if (file != null) {
+                store(file, image);
+            }
+        }
+        synchronized (memory) {
+            memory.put(key, image);
+        }
+        return image;
+    }
+
+    private Path fileFor(long key) {
+        return directory.resolve(String.format("%016x.png", key));
+    }
+
+    /**
+     * Записывает PNG во временный файл и переименовывает его, чтобы читатель не увидел
+     * недописанный файл.
+     */
+    private static void store(Path file, BufferedImage image) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            if (!ImageIO.write(image, "png", temp.toFile())) {
+                throw new IOException("Нет записи PNG для миниатюры: " + file);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
\ No newline at end of file
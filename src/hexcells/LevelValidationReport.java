@@ -0,0 +1,52 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Результат проверки уровня: список диагностических сообщений.
+ */
+public class LevelValidationReport {
+    private final List<LevelDiagnostic> diagnostics = new ArrayList<>();
+    private int errorCount;
+
+    /**
+     * Добавляет сообщение в отчёт.
+     * @param diagnostic Сообщение
+     */
+    void add(LevelDiagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+        if (diagnostic.getSeverity() == LevelDiagnostic.Severity.ERROR) {
+            errorCount++;
+        }
+    }
+
+    /**
+     * Возвращает все сообщения в порядке обнаружения.
+     */
+    public List<LevelDiagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * Проверяет, есть ли в отчёте ошибки.
+     * @return true, если уровень нельзя загружать
+     */
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (LevelDiagnostic diagnostic : diagnostics) {
+            sb.append(diagnostic).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверка конфигурации уровня при загрузке.
+ * Мины проходятся один раз с заполнением битовой маски (границы и повторы),
+ * затем правила компилируются и проверяются по этой маске.
+ * Источник читается потоком, каждый раздел — ровно один раз.
+ * Для уровней произвольной формы отсутствующие ячейки считаются лежащими вне сетки.
+ * Маски выделяются страницами (CellBits), повторы ячеек в правиле ищутся сортировкой,
+ * поэтому память растёт с числом ячеек и правил уровня, а не с площадью сетки.
+ */
+public class LevelValidator {
+    /** Максимальное число сообщений одного кода, после которого они не добавляются. */
+    private static final int MAX_DIAGNOSTICS_PER_CODE = 100;
+
+    private final int rows;
+    private final int cols;
+    private final LevelValidationReport report = new LevelValidationReport();
+    private final int[] perCode = new int[LevelDiagnostic.Code.values().length];
+    private final CellBits mineBits;
+    private CellBits cellBits; // Маска существующих ячеек (null — весь прямоугольник)
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<Integer> dataIndices = new ArrayList<>();
+    private int nextRuleIndex;
+
+    private LevelValidator(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mineBits = new CellBits(rows, cols);
+    }
+
+    /**
+     * Проверяет уровень и возвращает отчёт.
+     * @param source Источник данных уровня
+     * @return Отчёт с найденными проблемами
+     */
+    public static LevelValidationReport validate(LevelSource source) {
+        LevelValidator validator = new LevelValidator(source.getRows(), source.getCols());
+        if (!source.isRectangular()) {
+            validator.cellBits = new CellBits(validator.rows, validator.cols);
+            source.forEachCell(validator::acceptCell);
+        }
+        source.forEachMine(validator::acceptMine);
+        source.forEachRule(validator::acceptRule);
+        validator.checkRulesAgainstMines();
+        return validator.report;
+    }
+
+    /**
+     * Проверяет уровень и отклоняет его при наличии ошибок.
+     * @param source Источник данных уровня
+     * @return Отчёт (может содержать предупреждения)
+     * @throws IllegalArgumentException если найдены ошибки
+     */
+    public static LevelValidationReport requireValid(LevelSource source) {
+        LevelValidationReport report = validate(source);
+        if (report.hasErrors()) {
+            throw new IllegalArgumentException("Уровень содержит ошибки (" + report.getErrorCount() + "):"
+                    + System.lineSeparator() + report);
+        }
+        return report;
+    }
+
+    /**
+     * Ячейки формы уровня: границы.
+     */
+    private void acceptCell(int q, int r) {
+        if (q < 0 || q >= cols || r < 0 || r >= rows) {
+            report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.CELL_OUT_OF_BOUNDS,
+                    "Ячейка вне сетки " + rows + "x" + cols, new HexCoord(q, r), -1);
+            return;
+        }
+        cellBits.set(r * cols + q);
+    }
+
+    /**
+     * Проверяет, существует ли ячейка в уровне.
+     */
+    private boolean hasCell(int q, int r) {
+        if (q < 0 || q >= cols || r < 0 || r >= rows) {
+            return false;
+        }
+        return cellBits == null || cellBits.get(r * cols + q);
+    }
+
+    /**
+     * Мины: границы и повторы за один проход.
+     */
+    private void acceptMine(int q, int r) {
+        if (!hasCell(q, r)) {
+            report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.MINE_OUT_OF_BOUNDS,
+                    cellBits == null ? "Мина вне сетки " + rows + "x" + cols : "Мина вне ячеек уровня",
+                    new HexCoord(q, r), -1);
+            return;
+        }
+        int index = r * cols + q;
+        if (mineBits.get(index)) {
+            report(LevelDiagnostic.Severity.WARNING, LevelDiagnostic.Code.DUPLICATE_MINE,
+                    "Мина указана повторно", new HexCoord(q, r), -1);
+        }
+        mineBits.set(index);
+    }
+
+    /**
+     * Правила: тип и структура; корректные правила откладываются для проверки по минам.
+     */
+    private void acceptRule(RuleData ruleData) {
+        int dataIndex = nextRuleIndex++;
+        Rule rule = Board.createRule(ruleData);
+        if (rule == null) {
+            report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.UNKNOWN_RULE_TYPE,
+                    "Неизвестный тип правила: " + describe(ruleData), null, dataIndex);
+            return;
+        }
+        if (checkRuleStructure(rule, dataIndex)) {
+            rules.add(rule);
+            dataIndices.add(dataIndex);
+        }
+    }
+
+    /**
+     * Компилирует правила и проверяет их по раскладке мин, а также ищет противоречия.
+     */
+    private void checkRulesAgainstMines() {
+        CompiledRules compiled = CompiledRules.compile(rules, rows, cols, this::hasCell);
+        Map<String, Integer> countBySignature = new HashMap<>();
+        for (int i = 0; i < compiled.size(); i++) {
+            int dataIndex = dataIndices.get(i);
+            if (!compiled.isSatisfied(i, mineBits)) {
+                report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.RULE_VIOLATED,
+                        "Правило не выполняется на раскладке мин (ожидается " + compiled.getExpected(i) + ")",
+                        rules.get(i).getCells().get(0), dataIndex);
+            }
+
+            // Одинаковый набор ячеек с разным числом мин — противоречие
+            String signature = signature(compiled, i);
+            Integer previous = countBySignature.putIfAbsent(signature, i);
+            if (previous != null && compiled.getExpected(previous) != compiled.getExpected(i)) {
+                report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.CONTRADICTORY_RULES,
+                        "Противоречит правилу " + dataIndices.get(previous) + ": "
+                                + compiled.getExpected(previous) + " и " + compiled.getExpected(i) + " мин в одних ячейках",
+                        rules.get(i).getCells().get(0), dataIndex);
+            }
+        }
+    }
+
+    /**
+     * Проверяет границы ячеек, повторы и допустимость ожидаемого числа мин.
+     * @return true, если правило можно компилировать и проверять дальше
+     */
+    private boolean checkRuleStructure(Rule rule, int dataIndex) {
+        List<HexCoord> cells = rule.getCells();
+        if (cells.isEmpty()) {
+            report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.RULE_COUNT_OUT_OF_RANGE,
+                    "Правило не содержит ячеек", null, dataIndex);
+            return false;
+        }
+
+        boolean valid = true;
+        int[] indices = new int[cells.size()];
+        int count = 0;
+        for (HexCoord coord : cells) {
+            int q = coord.getQ();
+            int r = coord.getR();
+            if (!hasCell(q, r)) {
+                report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.RULE_CELL_OUT_OF_BOUNDS,
+                        "Ячейка правила вне сетки " + rows + "x" + cols, coord, dataIndex);
+                valid = false;
+                continue;
+            }
+            indices[count++] = r * cols + q;
+        }
+        // Повторы — соседние равные индексы после сортировки
+        Arrays.sort(indices, 0, count);
+        for (int i = 1; i < count; i++) {
+            if (indices[i] == indices[i - 1]) {
+                report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.RULE_DUPLICATE_CELL,
+                        "Ячейка указана в правиле повторно", new HexCoord(indices[i] % cols, indices[i] / cols),
+                        dataIndex);
+                valid = false;
+            }
+        }
+        if (!valid) {
+            return false;
+        }
+
+        // Максимум мин задаёт скомпилированное правило (для EdgeRule — число существующих соседей)
+        int capacity = RuleRegistry.providerOf(rule).compile(rule, cols, this::hasCell).getCapacity();
+        int expected = rule.getExpectedMines();
+        if (expected < 0 || expected > capacity) {
+            report(LevelDiagnostic.Severity.ERROR, LevelDiagnostic.Code.RULE_COUNT_OUT_OF_RANGE,
+                    "Ожидается " + expected + " мин при " + capacity + " возможных", cells.get(0), dataIndex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Строит ключ набора ячеек правила. Для правил-счётчиков порядок ячеек не важен,
+     * для остальных (последовательностей) важен, поэтому они получают отдельный префикс.
+     */
+    private static String signature(CompiledRules compiled, int ruleIndex) {
+        int[] indices = compiled.getCellIndices(ruleIndex);
+        if (!compiled.isCount(ruleIndex)) {
+            return "S" + Arrays.toString(indices);
+        }
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        return "C" + Arrays.toString(sorted);
+    }
+
+    private static String describe(RuleData ruleData) {
+        return ruleData == null ? "null" : ruleData.getClass().getSimpleName();
+    }
+
+    private void report(LevelDiagnostic.Severity severity, LevelDiagnostic.Code code, String message,
+                        HexCoord coord, int ruleIndex) {
+        if (perCode[code.ordinal()]++ < MAX_DIAGNOSTICS_PER_CODE) {
+            report.add(new LevelDiagnostic(severity, code, message, coord, ruleIndex));
+        }
+    }
+}
\ No newline at end of file
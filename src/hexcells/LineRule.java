@@ -0,0 +1,223 @@
+package hexcells;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JPanel;
+
+/**
+ * Правило для линии: количество мин в ячейках вдоль оси сетки от точки подсказки.
+ * Подсказка стоит в ячейке origin (обычно за краем поля), линия идёт в направлении
+ * direction; отсутствующие ячейки уровня пропускаются. Модификатор дополнительно требует,
+ * чтобы мины линии шли одной серией ({n}) или не шли одной серией (-n-).
+ */
+public class LineRule implements Rule {
+    /**
+     * Модификатор линии.
+     */
+    public enum Modifier {
+        NONE,           // Только число мин
+        CONTIGUOUS,     // Мины образуют одну серию подряд
+        NON_CONTIGUOUS  // Мины не образуют одну серию подряд
+    }
+
+    private final HexCoord origin;
+    private final int direction;
+    private final List<HexCoord> cells;
+    private final int expectedMines;
+    private final Modifier modifier;
+
+    /**
+     * Конструктор.
+     * @param origin Ячейка подсказки
+     * @param direction Направление линии (индекс в Board.NEIGHBOR_OFFSETS)
+     * @param cells Ячейки линии по порядку удаления от origin
+     * @param expectedMines Ожидаемое количество мин
+     * @param modifier Модификатор
+     * @throws IllegalArgumentException если ячейки не лежат на луче из origin
+     */
+    public LineRule(HexCoord origin, int direction, List<HexCoord> cells, int expectedMines, Modifier modifier) {
+        if (direction < 0 || direction >= Board.NEIGHBOR_OFFSETS.length) {
+            throw new IllegalArgumentException("Неверное направление линии: " + direction);
+        }
+        int[] step = Board.NEIGHBOR_OFFSETS[direction];
+        int previous = 0;
+        for (HexCoord cell : cells) {
+            int dq = cell.getQ() - origin.getQ();
+            int dr = cell.getR() - origin.getR();
+            int distance = step[0] != 0 ? dq / step[0] : dr / step[1];
+            if (distance <= previous || dq != distance * step[0] || dr != distance * step[1]) {
+                throw new IllegalArgumentException("Ячейка " + cell + " не лежит на линии из " + origin
+                        + " после предыдущей");
+            }
+            previous = distance;
+        }
+        this.origin = origin;
+        this.direction = direction;
+        this.cells = List.copyOf(cells);
+        this.expectedMines = expectedMines;
+        this.modifier = modifier;
+    }
+
+    /**
+     * Создаёт линию от origin до края прямоугольника уровня.
+     * @param origin Ячейка подсказки (может лежать вне поля)
+     * @param direction Направление линии
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param mask Форма уровня: отсутствующие ячейки в линию не входят
+     * @param expectedMines Ожидаемое количество мин
+     * @param modifier Модификатор
+     * @return Правило
+     */
+    public static LineRule toEdge(HexCoord origin, int direction, int rows, int cols, CellMask mask,
+                                  int expectedMines, Modifier modifier) {
+        if (direction < 0 || direction >= Board.NEIGHBOR_OFFSETS.length) {
+            throw new IllegalArgumentException("Неверное направление линии: " + direction);
+        }
+        int[] step = Board.NEIGHBOR_OFFSETS[direction];
+        int maxSteps = rows + cols + Math.abs(origin.getQ()) + Math.abs(origin.getR());
+        List<HexCoord> cells = new ArrayList<>();
+        boolean entered = false;
+        for (int k = 1; k <= maxSteps; k++) {
+            int q = origin.getQ() + k * step[0];
+            int r = origin.getR() + k * step[1];
+            if (q >= 0 && q < cols && r >= 0 && r < rows) {
+                entered = true;
+                if (mask.contains(q, r)) {
+                    cells.add(new HexCoord(q, r));
+                }
+            } else if (entered) {
+                break;
+            }
+        }
+        return new LineRule(origin, direction, cells, expectedMines, modifier);
+    }
+
+    /**
+     * Проверяет число мин и число серий по модификатору.
+     * @param mines Количество мин в линии
+     * @param runs Количество серий подряд идущих мин
+     * @param expected Ожидаемое количество мин
+     * @param modifier Модификатор
+     */
+    static boolean matches(int mines, int runs, int expected, Modifier modifier) {
+        if (mines != expected) {
+            return false;
+        }
+        switch (modifier) {
+            case CONTIGUOUS:
+                return runs <= 1;
+            case NON_CONTIGUOUS:
+                return runs >= 2;
+            default:
+                return true;
+        }
+    }
+
+    public HexCoord getOrigin() {
+        return origin;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public Modifier getModifier() {
+        return modifier;
+    }
+
+    @Override
+    public List<HexCoord> getCells() {
+        return cells;
+    }
+
+    @Override
+    public int getExpectedMines() {
+        return expectedMines;
+    }
+
+    /**
+     * Проверяет правило по минам доски: за O(log n) по счётчикам осей, если ячейки линии
+     * лежат на доске и образуют сплошной отрезок оси, иначе перебором.
+     */
+    @Override
+    public boolean isSatisfied(Board board) {
+        AxisLines lines = board.getAxisLines();
+        int cols = board.getCols();
+        int[] indices = new int[cells.size()];
+        boolean onBoard = true;
+        for (int i = 0; i < indices.length; i++) {
+            HexCoord coord = cells.get(i);
+            onBoard &= board.hasCell(coord.getQ(), coord.getR());
+            indices[i] = coord.getR() * cols + coord.getQ();
+        }
+        int start = onBoard ? lines.segmentStart(direction, indices) : -1;
+        if (start >= 0) {
+            return matches(lines.countMines(direction, start, indices.length),
+                    lines.countMineRuns(direction, start, indices.length), expectedMines, modifier);
+        }
+
+        int mines = 0;
+        int runs = 0;
+        boolean previous = false;
+        for (HexCoord coord : cells) {
+            Cell cell = board.getCell(coord);
+            boolean mine = cell != null && cell.isMine();
+            if (mine) {
+                mines++;
+                if (!previous) {
+                    runs++;
+                }
+            }
+            previous = mine;
+        }
+        return matches(mines, runs, expectedMines, modifier);
+    }
+
+    /**
+     * Текст подсказки: n, {n} или -n-.
+     */
+    public String getLabel() {
+        switch (modifier) {
+            case CONTIGUOUS:
+                return "{" + expectedMines + "}";
+            case NON_CONTIGUOUS:
+                return "-" + expectedMines + "-";
+            default:
+                return String.valueOf(expectedMines);
+        }
+    }
+
+    @Override
+    public void draw(Graphics2D g2d, JPanel panel, Board board) {
+        int[] step = Board.NEIGHBOR_OFFSETS[direction];
+        Point2D.Double center;
+        Point2D.Double next;
+        if (panel instanceof GridPanel) {
+            GridPanel gridPanel = (GridPanel) panel;
+            center = gridPanel.hexToPixel(origin.getQ(), origin.getR());
+            next = gridPanel.hexToPixel(origin.getQ() + step[0], origin.getR() + step[1]);
+        } else if (panel instanceof EditorGridPanel) {
+            EditorGridPanel editorGridPanel = (EditorGridPanel) panel;
+            center = editorGridPanel.hexToPixel(origin.getQ(), origin.getR());
+            next = editorGridPanel.hexToPixel(origin.getQ() + step[0], origin.getR() + step[1]);
+        } else {
+            return;
+        }
+
+        // Короткий штрих от числа в сторону линии
+        g2d.setColor(Color.BLUE);
+        g2d.setStroke(new BasicStroke(2));
+        double dx = next.x - center.x;
+        double dy = next.y - center.y;
+        g2d.drawLine((int) (center.x + 0.35 * dx), (int) (center.y + 0.35 * dy),
+                (int) (center.x + 0.5 * dx), (int) (center.y + 0.5 * dy));
+
+        g2d.setFont(new Font("Arial", Font.BOLD, 14));
+        String label = getLabel();
+        int width = g2d.getFontMetrics().stringWidth(label);
+        g2d.drawString(label, (int) center.x - width / 2, (int) center.y + 5);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package hexcells;
+
+import java.util.List;
+
+/**
+ * Данные правила-линии из конфигурации уровня (см. LineRule).
+ */
+public class LineRuleData extends RuleData {
+    private final HexCoord origin;
+    private final int direction;
+    private final List<HexCoord> cellsInLine;
+    private final int expectedLineMines;
+    private final LineRule.Modifier modifier;
+
+    /**
+     * Конструктор.
+     * @param origin Ячейка подсказки
+     * @param direction Направление линии (индекс в Board.NEIGHBOR_OFFSETS)
+     * @param cellsInLine Ячейки линии по порядку удаления от origin
+     * @param expectedLineMines Ожидаемое количество мин
+     * @param modifier Модификатор
+     */
+    public LineRuleData(HexCoord origin, int direction, List<HexCoord> cellsInLine, int expectedLineMines,
+                        LineRule.Modifier modifier) {
+        this.origin = origin;
+        this.direction = direction;
+        this.cellsInLine = List.copyOf(cellsInLine);
+        this.expectedLineMines = expectedLineMines;
+        this.modifier = modifier;
+    }
+
+    public HexCoord getOrigin() {
+        return origin;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public List<HexCoord> getCellsInLine() {
+        return cellsInLine;
+    }
+
+    public int getExpectedLineMines() {
+        return expectedLineMines;
+    }
+
+    public LineRule.Modifier getModifier() {
+        return modifier;
+    }
+}
\ No newline at end of file
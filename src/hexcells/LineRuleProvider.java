@@ -0,0 +1,259 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Встроенный модуль LineRule: число мин вдоль оси сетки, возможно с модификатором серии.
+ */
+final class LineRuleProvider implements RuleProvider {
+    @Override
+    public Rule createRule(RuleData data) {
+        if (!(data instanceof LineRuleData)) {
+            return null;
+        }
+        LineRuleData line = (LineRuleData) data;
+        return new LineRule(line.getOrigin(), line.getDirection(), line.getCellsInLine(),
+                line.getExpectedLineMines(), line.getModifier());
+    }
+
+    /**
+     * Точка подсказки идёт первой, остальные ячейки — множество; модификатор кодируется
+     * вместе с числом мин.
+     */
+    @Override
+    public LevelCanonicalForm.RuleEncoding canonicalize(RuleData data) {
+        if (!(data instanceof LineRuleData)) {
+            return null;
+        }
+        LineRuleData line = (LineRuleData) data;
+        List<HexCoord> cells = new ArrayList<>(line.getCellsInLine().size() + 1);
+        cells.add(line.getOrigin());
+        cells.addAll(line.getCellsInLine());
+        return new LevelCanonicalForm.RuleEncoding(
+                line.getExpectedLineMines() * LineRule.Modifier.values().length + line.getModifier().ordinal(),
+                cells, LevelCanonicalForm.CellOrder.ANCHORED_SET);
+    }
+
+    @Override
+    public boolean accepts(Rule rule) {
+        return rule instanceof LineRule;
+    }
+
+    /**
+     * Ячейки вне формы уровня отбрасываются, как в GroupRule.
+     */
+    @Override
+    public CompiledRule compile(Rule rule, int cols, CellMask mask) {
+        LineRule line = (LineRule) rule;
+        return new Compiled(CompiledRules.toIndices(line.getCells(), cols, mask, false), line.getExpectedMines(),
+                line.getDirection(), line.getModifier());
+    }
+
+    @Override
+    public Rule withExpected(Rule rule, int expected) {
+        LineRule line = (LineRule) rule;
+        return new LineRule(line.getOrigin(), line.getDirection(), line.getCells(), expected, line.getModifier());
+    }
+
+    private static final class Compiled implements CompiledRule {
+        private final int[] cells;
+        private final int expected;
+        private final int direction;
+        private final LineRule.Modifier modifier;
+
+        Compiled(int[] cells, int expected, int direction, LineRule.Modifier modifier) {
+            this.cells = cells;
+            this.expected = expected;
+            this.direction = direction;
+            this.modifier = modifier;
+        }
+
+        @Override
+        public int[] getCellIndices() {
+            return cells;
+        }
+
+        @Override
+        public int getExpected() {
+            return expected;
+        }
+
+        /**
+         * Линия без модификатора — обычный счётчик и участвует в линейных рассуждениях.
+         */
+        @Override
+        public boolean isCount() {
+            return modifier == LineRule.Modifier.NONE;
+        }
+
+        @Override
+        public HintTechnique getTechnique() {
+            return HintTechnique.LINE;
+        }
+
+        @Override
+        public long getKeyPayload() {
+            return (long) modifier.ordinal() << 32 | direction;
+        }
+
+        @Override
+        public boolean isSatisfied(CellBits mineBits) {
+            int mines = 0;
+            int runs = 0;
+            boolean previous = false;
+            for (int index : cells) {
+                boolean mine = mineBits.get(index);
+                if (mine) {
+                    mines++;
+                    if (!previous) {
+                        runs++;
+                    }
+                }
+                previous = mine;
+            }
+            return LineRule.matches(mines, runs, expected, modifier);
+        }
+
+        /**
+         * Если доска ведёт счётчики осей, линия без неизвестных ячеек или без вывода по
+         * числу мин отбрасывается за O(log n). Иначе: без модификатора — вывод по числу мин,
+         * с модификатором — точный перебор допустимых раскладок динамическим программированием.
+         */
+        @Override
+        public boolean propagate(CellStates states, DeductionSink sink) {
+            AxisLines lines = states.getAxisLines();
+            int start = lines == null ? -1 : lines.segmentStart(direction, cells);
+            if (start >= 0) {
+                int unknownCount = lines.countUnknown(direction, start, cells.length);
+                int remaining = expected - lines.countKnownMines(direction, start, cells.length);
+                if (unknownCount == 0 || remaining < 0 || remaining > unknownCount) {
+                    return true;
+                }
+                if (modifier == LineRule.Modifier.NONE && remaining != 0 && remaining != unknownCount) {
+                    return true;
+                }
+            }
+            if (modifier == LineRule.Modifier.NONE) {
+                return propagateCount(states, sink);
+            }
+            return propagateRuns(states, sink);
+        }
+
+        private boolean propagateCount(CellStates states, DeductionSink sink) {
+            int remaining = expected;
+            int unknownCount = 0;
+            for (int index : cells) {
+                byte state = states.get(index);
+                if (state == SequenceRunTracker.MINE) {
+                    remaining--;
+                } else if (state == SequenceRunTracker.UNKNOWN) {
+                    unknownCount++;
+                }
+            }
+            if (unknownCount == 0 || (remaining != 0 && remaining != unknownCount)) {
+                return true;
+            }
+            for (int index : cells) {
+                if (states.get(index) == SequenceRunTracker.UNKNOWN && !sink.deduce(index, remaining != 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Состояние прохода по линии: (мин, серий с насыщением на 2, последняя ячейка — мина).
+         * Вперёд считается, какие состояния достижимы перед позицией, назад — из каких можно
+         * закончить допустимой раскладкой; ячейка может быть миной (безопасной), если
+         * переход хотя бы из одного достижимого состояния ведёт в завершимое.
+         */
+        private boolean propagateRuns(CellStates states, DeductionSink sink) {
+            int n = cells.length;
+            if (expected < 0 || expected > n) {
+                return true;
+            }
+            int stateCount = (expected + 1) * 6;
+            byte[] known = new byte[n];
+            for (int i = 0; i < n; i++) {
+                known[i] = states.get(cells[i]);
+            }
+
+            boolean[] forward = new boolean[(n + 1) * stateCount];
+            forward[0] = true;
+            for (int i = 0; i < n; i++) {
+                for (int state = 0; state < stateCount; state++) {
+                    if (!forward[i * stateCount + state]) {
+                        continue;
+                    }
+                    if (known[i] != SequenceRunTracker.MINE) {
+                        forward[(i + 1) * stateCount + next(state, false)] = true;
+                    }
+                    int mine = known[i] != SequenceRunTracker.SAFE ? next(state, true) : -1;
+                    if (mine >= 0) {
+                        forward[(i + 1) * stateCount + mine] = true;
+                    }
+                }
+            }
+
+            boolean[] backward = new boolean[(n + 1) * stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                backward[n * stateCount + state] = state / 6 == expected
+                        && LineRule.matches(expected, (state >> 1) % 3, expected, modifier);
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                for (int state = 0; state < stateCount; state++) {
+                    boolean ok = false;
+                    if (known[i] != SequenceRunTracker.MINE) {
+                        ok = backward[(i + 1) * stateCount + next(state, false)];
+                    }
+                    if (!ok && known[i] != SequenceRunTracker.SAFE) {
+                        int mine = next(state, true);
+                        ok = mine >= 0 && backward[(i + 1) * stateCount + mine];
+                    }
+                    backward[i * stateCount + state] = ok;
+                }
+            }
+            if (!backward[0]) {
+                return true; // Противоречие с известными ячейками
+            }
+
+            for (int i = 0; i < n; i++) {
+                if (known[i] != SequenceRunTracker.UNKNOWN) {
+                    continue;
+                }
+                boolean canSafe = false;
+                boolean canMine = false;
+                for (int state = 0; state < stateCount && !(canSafe && canMine); state++) {
+                    if (!forward[i * stateCount + state]) {
+                        continue;
+                    }
+                    canSafe |= backward[(i + 1) * stateCount + next(state, false)];
+                    int mine = next(state, true);
+                    canMine |= mine >= 0 && backward[(i + 1) * stateCount + mine];
+                }
+                if (canSafe != canMine && !sink.deduce(cells[i], canMine)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Переход состояния state = (мин * 3 + серий) * 2 + последняя-мина по очередной ячейке.
+         * @return Новое состояние или -1, если мин стало больше ожидаемого
+         */
+        private int next(int state, boolean mine) {
+            int mines = state / 6;
+            int runs = (state >> 1) % 3;
+            if (!mine) {
+                return (mines * 3 + runs) * 2;
+            }
+            if (mines == expected) {
+                return -1;
+            }
+            boolean previous = (state & 1) != 0;
+            return ((mines + 1) * 3 + (previous ? runs : Math.min(runs + 1, 2))) * 2 + 1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package hexcells;
+
+import java.util.Arrays;
+
+/**
+ * Линейное ограничение над неизвестными ячейками: сумма переменных (0 или 1) равна sum.
+ * Переменные — плоские индексы неизвестных ячеек в порядке возрастания.
+ */
+public final class LinearConstraint {
+    private final int[] cells;
+    private final int sum;
+
+    /**
+     * Конструктор.
+     * @param cells Плоские индексы неизвестных ячеек (без повторов)
+     * @param sum Число мин среди них
+     */
+    public LinearConstraint(int[] cells, int sum) {
+        this.cells = cells.clone();
+        Arrays.sort(this.cells);
+        this.sum = sum;
+    }
+
+    /**
+     * Возвращает индексы ячеек (массив не копируется и не должен изменяться).
+     */
+    int[] cells() {
+        return cells;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public int getSum() {
+        return sum;
+    }
+
+    /**
+     * Проверяет, входит ли ячейка в ограничение.
+     * @param cellIndex Плоский индекс
+     */
+    public boolean contains(int cellIndex) {
+        return Arrays.binarySearch(cells, cellIndex) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        LinearConstraint other = (LinearConstraint) obj;
+        return sum == other.sum && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(cells) + sum;
+    }
+
+    @Override
+    public String toString() {
+        return "LinearConstraint{cells=" + Arrays.toString(cells) + ", sum=" + sum + "}";
+    }
+}
\ No newline at end of file
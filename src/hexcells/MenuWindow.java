@@ -4,50 +4,79 @@ import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Стартовое окно приложения Hexcells, отображающее главное меню.
  */
 public class MenuWindow extends JFrame {
-    private JButton playLevel1Button;
-    private JButton playLevel2Button;
-    private JButton playLevel3Button;
+    private JButton endlessButton;
+    private JButton editorButton;
+    private JButton statisticsButton;
     private JButton exitButton;
+    private final CompletableFuture<StatisticsStore> statistics; // Открывается в фоне; null, если не удалось
+    private final LevelCatalog catalog; // Каталог уровней
 
     /**
      * Конструктор, создающий главное меню.
      */
     public MenuWindow() {
+        this.statistics = openStatistics();
+        this.catalog = LevelCatalog.openDefault();
+
         // Настройка окна
         setTitle("Hexcells - Главное Меню");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLayout(new GridLayout(6, 1, 10, 10)); // 6 строк, 1 столбец, отступы 10 пикселей
+        setLayout(new BorderLayout(10, 10));
+
+        // Каталог уровней: индекс читается в фоне, окно открывается сразу
+        LevelCatalogPanel catalogPanel = new LevelCatalogPanel(catalog,
+                info -> startLevel(catalog.resolve(info).toString()));
+        catalogPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 0));
 
         // Создание панели для кнопок
         JPanel panel = new JPanel();
-        panel.setLayout(new GridLayout(6, 1, 10, 10));
-        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20)); // Отступы
+        panel.setLayout(new GridLayout(4, 1, 10, 10)); // 4 строки, 1 столбец, отступы 10 пикселей
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 0, 20, 20)); // Отступы
 
         // Создание кнопок
-        playLevel1Button = new JButton("Уровень 1");
-        playLevel2Button = new JButton("Уровень 2");
-        playLevel3Button = new JButton("Уровень 3");
+        endlessButton = new JButton("Бесконечный режим");
+        editorButton = new JButton("Редактор уровней");
+        statisticsButton = new JButton("Статистика");
         exitButton = new JButton("Выход");
 
         // Добавление кнопок на панель
-        panel.add(playLevel1Button);
-        panel.add(playLevel2Button);
-        panel.add(playLevel3Button);
+        panel.add(endlessButton);
+        panel.add(editorButton);
+        panel.add(statisticsButton);
         panel.add(exitButton);
 
         // Добавление ActionListener для кнопок
-        playLevel1Button.addActionListener(e -> startLevel("level1.txt"));
-        playLevel2Button.addActionListener(e -> startLevel("level2.txt"));
-        playLevel3Button.addActionListener(e -> startLevel("level3.txt"));
-        exitButton.addActionListener(e -> System.exit(0));
+        endlessButton.addActionListener(e -> startEndless());
+        editorButton.addActionListener(e -> startEditor());
+        statisticsButton.addActionListener(e -> showStatistics());
+        exitButton.addActionListener(e -> {
+            closeStatistics();
+            System.exit(0);
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeStatistics();
+            }
+        });
 
-        // Добавление панели в окно
-        add(panel);
+        // Добавление панелей в окно
+        add(catalogPanel, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new BorderLayout());
+        buttons.add(panel, BorderLayout.NORTH);
+        add(buttons, BorderLayout.EAST);
+        catalogPanel.loadInBackground();
 
         // Упаковка и отображение
         pack();
@@ -64,13 +93,14 @@ public class MenuWindow extends JFrame {
         try {
             // Загрузка конфигурации уровня
             LevelConfig config = LevelFile.loadLevelFromFile(filePath);
+            LevelValidator.requireValid(config);
 
-            // Создание доски
-            Board board = new Board(config.getRows(), config.getCols());
-            board.initializeLevel(config);
+            // Создание доски и продолжение сохранённой партии
+            Board board = new Board(config);
+            offerRestore(board);
 
             // Создание игрового окна
-            GameWindow gameWindow = new GameWindow(board);
+            GameWindow gameWindow = new GameWindow(board, statistics);
             gameWindow.setVisible(true);
 
             // Скрытие меню
@@ -80,4 +110,126 @@ public class MenuWindow extends JFrame {
                     "Ошибка", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Предлагает продолжить партию из автосохранения уровня, если оно есть.
+     * Повреждённое сохранение пропускается: уровень начинается заново.
+     */
+    private void offerRestore(Board board) {
+        Path file = AutosaveService.defaultFile(board);
+        if (!Files.exists(file)) {
+            return;
+        }
+        int answer = JOptionPane.showConfirmDialog(this, "Найдена незавершённая партия. Продолжить?",
+                "Продолжение игры", JOptionPane.YES_NO_OPTION);
+        if (answer != JOptionPane.YES_OPTION) {
+            return;
+        }
+        try {
+            GameSave.read(file).applyTo(board);
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Не удалось загрузить сохранение: " + e.getMessage(),
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Открывает хранилище статистики в фоне, не задерживая окно; без него игра продолжается,
+     * но итоги не записываются.
+     */
+    private static CompletableFuture<StatisticsStore> openStatistics() {
+        return StatisticsStore.openAsync(StatisticsStore.defaultDirectory()).exceptionally(e -> {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Не удалось открыть статистику: " + cause.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Закрывает хранилище, если оно успело открыться; иначе записывать ещё нечего.
+     */
+    private void closeStatistics() {
+        StatisticsStore store = statistics.getNow(null);
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Не удалось закрыть статистику: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Показывает сводную статистику по уровням из индекса в памяти.
+     * Уровни из каталога подписываются путями файлов, остальные — ключом уровня.
+     */
+    private void showStatistics() {
+        StatisticsStore store = statistics.getNow(null);
+        if (store == null) {
+            String message = statistics.isDone() ? "Статистика недоступна" : "Статистика ещё загружается";
+            JOptionPane.showMessageDialog(this, message, "Статистика", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Map<Long, String> names = new HashMap<>();
+        for (LevelInfo info : catalog.getLevels()) {
+            if (info.isValid()) {
+                names.put(info.getLevelKey(), info.getPath());
+            }
+        }
+
+        String[] columns = {"Уровень", "Партии", "Победы", "Боты", "Лучшее время, с", "Ошибки", "Подсказки"};
+        List<LevelStatistics> all = store.getAllStatistics();
+        Object[][] rows = new Object[all.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            LevelStatistics level = all.get(i);
+            long best = level.getBestWinMillis();
+            rows[i] = new Object[] {
+                    names.getOrDefault(level.getLevelKey(), String.format("%016x", level.getLevelKey())),
+                    level.getPlays(), level.getWins(), level.getBotPlays(),
+                    best < 0 ? "-" : String.format("%.1f", best / 1000.0),
+                    String.format("%.2f", level.getAverageMistakes()),
+                    String.format("%.2f", level.getAverageHints())
+            };
+        }
+        JTable table = new JTable(rows, columns);
+        table.setEnabled(false);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(640, 240));
+        JOptionPane.showMessageDialog(this, scrollPane, "Статистика", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    /**
+     * Запускает бесконечный режим со случайным зерном.
+     */
+    private void startEndless() {
+        try {
+            EndlessWindow window = new EndlessWindow(System.nanoTime());
+            window.setVisible(true);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Ошибка запуска бесконечного режима: " + e.getMessage(),
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Открывает редактор уровней с запрошенным размером поля.
+     */
+    private void startEditor() {
+        String size = JOptionPane.showInputDialog(this, "Размер поля (строки x столбцы):", "10x10");
+        if (size == null) {
+            return;
+        }
+        try {
+            String[] parts = size.toLowerCase().split("[xх]");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидается размер вида 10x10: " + size);
+            }
+            EditorWindow window = new EditorWindow(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            window.setVisible(true);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Ошибка запуска редактора: " + e.getMessage(),
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package hexcells;
+
+import java.util.Arrays;
+
+/**
+ * Подсчёт мин среди шести соседей сразу для всей доски.
+ * Мины раскладываются в битовые маски строк (бит q строки r), шесть соседних плоскостей
+ * получаются сдвигами масок текущей и соседних строк, а счётчики хранятся побитово
+ * в трёх словах (биты 1, 2 и 4 суммы): за одну операцию обрабатываются 64 ячейки.
+ * Циклы по словам простые и без ветвлений, поэтому JIT может их векторизовать.
+ */
+public final class NeighborCounter {
+    private NeighborCounter() {
+    }
+
+    /**
+     * Получатель счётчиков строки: число соседних мин ячейки q равно countAt(bit0, bit1, bit2, q).
+     * Массивы переиспользуются между строками и действительны только внутри вызова.
+     */
+    @FunctionalInterface
+    interface RowCounts {
+        void accept(int r, long[] bit0, long[] bit1, long[] bit2);
+    }
+
+    /**
+     * Считает соседние мины для всех ячеек.
+     * @param mineBits Битовая маска мин в плоской нумерации (бит r * cols + q)
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @return Массив чисел соседних мин в плоской нумерации
+     */
+    public static byte[] countAll(CellBits mineBits, int rows, int cols) {
+        byte[] counts = new byte[rows * cols];
+        countRows(mineBits, rows, cols, (r, bit0, bit1, bit2) -> {
+            int base = r * cols;
+            for (int q = 0; q < cols; q++) {
+                counts[base + q] = (byte) countAt(bit0, bit1, bit2, q);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Считает соседние мины построчно, не выделяя массив на всю доску.
+     * @param mineBits Битовая маска мин в плоской нумерации (бит r * cols + q)
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param sink Получатель побитовых счётчиков каждой строки
+     */
+    static void countRows(CellBits mineBits, int rows, int cols, RowCounts sink) {
+        int words = (cols + 63) >>> 6;
+        long[] previous = new long[words];
+        long[] current = new long[words];
+        long[] next = new long[words];
+        long[] bit0 = new long[words];
+        long[] bit1 = new long[words];
+        long[] bit2 = new long[words];
+
+        extractRow(mineBits, cols, 0, current);
+        for (int r = 0; r < rows; r++) {
+            if (r + 1 < rows) {
+                extractRow(mineBits, cols, r + 1, next);
+            } else {
+                Arrays.fill(next, 0L);
+            }
+            Arrays.fill(bit0, 0L);
+            Arrays.fill(bit1, 0L);
+            Arrays.fill(bit2, 0L);
+
+            for (int w = 0; w < words; w++) {
+                // Соседи (q+1, r), (q-1, r), (q, r+1), (q, r-1), (q+1, r-1), (q-1, r+1)
+                add(bit0, bit1, bit2, w, shiftDown(current, w));
+                add(bit0, bit1, bit2, w, shiftUp(current, w));
+                add(bit0, bit1, bit2, w, next[w]);
+                add(bit0, bit1, bit2, w, previous[w]);
+                add(bit0, bit1, bit2, w, shiftDown(previous, w));
+                add(bit0, bit1, bit2, w, shiftUp(next, w));
+            }
+            sink.accept(r, bit0, bit1, bit2);
+
+            long[] recycled = previous;
+            previous = current;
+            current = next;
+            next = recycled;
+        }
+    }
+
+    /**
+     * Собирает число соседних мин ячейки q из побитовых счётчиков строки.
+     */
+    static int countAt(long[] bit0, long[] bit1, long[] bit2, int q) {
+        int w = q >>> 6;
+        int shift = q & 63;
+        return (int) (((bit0[w] >>> shift) & 1)
+                | (((bit1[w] >>> shift) & 1) << 1)
+                | (((bit2[w] >>> shift) & 1) << 2));
+    }
+
+    /**
+     * Прибавляет однобитовую плоскость к побитовому трёхразрядному счётчику (сумма не больше 6).
+     */
+    private static void add(long[] bit0, long[] bit1, long[] bit2, int w, long plane) {
+        long carry0 = bit0[w] & plane;
+        bit0[w] ^= plane;
+        long carry1 = bit1[w] & carry0;
+        bit1[w] ^= carry0;
+        bit2[w] |= carry1;
+    }
+
+    /**
+     * Слово, в котором бит q содержит бит q+1 исходной строки.
+     */
+    private static long shiftDown(long[] row, int w) {
+        long high = w + 1 < row.length ? row[w + 1] << 63 : 0L;
+        return (row[w] >>> 1) | high;
+    }
+
+    /**
+     * Слово, в котором бит q содержит бит q-1 исходной строки.
+     */
+    private static long shiftUp(long[] row, int w) {
+        long low = w > 0 ? row[w - 1] >>> 63 : 0L;
+        return (row[w] << 1) | low;
+    }
+
+    /**
+     * Копирует биты строки r из плоской маски в выровненные слова строки.
+     * Биты за пределами cols обнуляются.
+     */
+    static void extractRow(CellBits flat, int cols, int r, long[] dst) {
+        long start = (long) r * cols;
+        int wordCount = flat.wordCount();
+        for (int w = 0; w < dst.length; w++) {
+            long bit = start + ((long) w << 6);
+            int word = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+            long value = word < wordCount ? flat.word(word) >>> offset : 0L;
+            if (offset != 0 && word + 1 < wordCount) {
+                value |= flat.word(word + 1) << (64 - offset);
+            }
+            int remaining = cols - (w << 6);
+            if (remaining < 64) {
+                value &= (1L << remaining) - 1;
+            }
+            dst[w] = value;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package hexcells;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Множество 128-битных хешей вне кучи Java: открытая адресация с линейным пробированием
+ * в таблице из 16-байтовых слотов. Таблица хранится в прямых буферах или в отображённом
+ * в память файле, поэтому десятки миллионов записей не нагружают сборщик мусора, а при
+ * отображении файла объём ограничен диском, а не размером кучи.
+ * При заполнении таблица удваивается с перехешированием всех записей; отображённая
+ * таблица переносится в соседний файл с суффиксом номера поколения. Не потокобезопасно.
+ */
+public final class OffHeapHashSet implements Closeable {
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_SHIFT = 22; // 4M слотов (64 МБ) в одном буфере
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final double MAX_LOAD = 0.7;
+
+    private final Path backingFile; // null для прямых буферов
+    private ByteBuffer[] chunks;
+    private long mask;
+    private long maxSize;
+    private Path file; // Файл текущей таблицы
+    private FileChannel channel; // null для прямых буферов
+    private int generation; // Число удвоений таблицы
+    private long size;
+
+    private OffHeapHashSet(long expectedEntries, Path backingFile) throws IOException {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("Ожидаемое число записей должно быть положительным: " + expectedEntries);
+        }
+        long capacity = Long.highestOneBit(Math.max(16, (long) Math.ceil(expectedEntries / MAX_LOAD)) - 1) << 1;
+        this.backingFile = backingFile;
+        this.file = backingFile;
+        this.channel = backingFile == null ? null : open(backingFile);
+        try {
+            this.chunks = allocate(capacity, channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.mask = capacity - 1;
+        this.maxSize = (long) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Множество в прямых буферах.
+     * @param expectedEntries Ожидаемое число записей (начальный размер таблицы)
+     */
+    public static OffHeapHashSet inMemory(long expectedEntries) {
+        try {
+            return new OffHeapHashSet(expectedEntries, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Множество в отображённом в память файле; файл перезаписывается. Файлы таблицы
+     * принадлежат множеству и удаляются при росте и при закрытии.
+     * @param expectedEntries Ожидаемое число записей (начальный размер таблицы)
+     * @param backingFile Файл таблицы
+     * @throws IOException при ошибке создания файла
+     */
+    public static OffHeapHashSet mapped(long expectedEntries, Path backingFile) throws IOException {
+        return new OffHeapHashSet(expectedEntries, backingFile);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Обнулённые буферы таблицы: прямые или отображённые из файла подряд.
+     */
+    private static ByteBuffer[] allocate(long capacity, FileChannel channel) throws IOException {
+        int chunkSlots = (int) Math.min(capacity, CHUNK_SLOTS);
+        ByteBuffer[] result = new ByteBuffer[(int) (capacity / chunkSlots)];
+        long chunkBytes = (long) chunkSlots * SLOT_BYTES;
+        for (int i = 0; i < result.length; i++) {
+            result[i] = channel == null ? ByteBuffer.allocateDirect((int) chunkBytes)
+                    : channel.map(FileChannel.MapMode.READ_WRITE, i * chunkBytes, chunkBytes);
+        }
+        return result;
+    }
+
+    /**
+     * Добавляет хеш. Если таблица заполнена, она удваивается.
+     * @param high Старшие 64 бита
+     * @param low Младшие 64 бита
+     * @return true, если такого хеша ещё не было
+     * @throws UncheckedIOException если не удалось создать файл увеличенной таблицы
+     */
+    public boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1; // Нулевой слот означает пустой; вероятность коллизии пренебрежимо мала
+        }
+        long slot = find(high, low);
+        if (!isEmpty(slot)) {
+            return false;
+        }
+        if (size >= maxSize) {
+            grow();
+            slot = find(high, low);
+        }
+        write(slot, high, low);
+        size++;
+        return true;
+    }
+
+    /**
+     * Слот с этим хешем или первый пустой слот на его пути пробирования.
+     */
+    private long find(long high, long low) {
+        long slot = Zobrist.mix(high ^ low) & mask;
+        while (true) {
+            ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+            int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+            long storedHigh = chunk.getLong(offset);
+            long storedLow = chunk.getLong(offset + 8);
+            if ((storedHigh == 0 && storedLow == 0) || (storedHigh == high && storedLow == low)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean isEmpty(long slot) {
+        ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+        return chunk.getLong(offset) == 0 && chunk.getLong(offset + 8) == 0;
+    }
+
+    private void write(long slot, long high, long low) {
+        ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+        chunk.putLong(offset, high);
+        chunk.putLong(offset + 8, low);
+    }
+
+    /**
+     * Удваивает таблицу: новые буферы (для файла — в новом файле), перенос всех записей
+     * за один проход по старой таблице, затем старый файл закрывается и удаляется.
+     * Амортизированно O(1) на добавление.
+     */
+    private void grow() {
+        long oldCapacity = mask + 1;
+        long capacity = oldCapacity << 1;
+        ByteBuffer[] oldChunks = chunks;
+        Path oldFile = file;
+        FileChannel oldChannel = channel;
+        Path nextFile = null;
+        FileChannel nextChannel = null;
+        try {
+            if (backingFile != null) {
+                nextFile = backingFile.resolveSibling(backingFile.getFileName() + "." + (generation + 1));
+                nextChannel = open(nextFile);
+            }
+            chunks = allocate(capacity, nextChannel);
+        } catch (IOException e) {
+            closeQuietly(nextChannel, nextFile);
+            throw new UncheckedIOException("Не удалось увеличить таблицу хешей до " + capacity + " слотов", e);
+        }
+        mask = capacity - 1;
+        maxSize = (long) (capacity * MAX_LOAD);
+        file = nextFile;
+        channel = nextChannel;
+        generation++;
+
+        int oldChunkSlots = (int) Math.min(oldCapacity, CHUNK_SLOTS);
+        for (ByteBuffer chunk : oldChunks) {
+            for (int i = 0; i < oldChunkSlots; i++) {
+                long high = chunk.getLong(i * SLOT_BYTES);
+                long low = chunk.getLong(i * SLOT_BYTES + 8);
+                if (high != 0 || low != 0) {
+                    write(find(high, low), high, low);
+                }
+            }
+        }
+        closeQuietly(oldChannel, oldFile);
+    }
+
+    /**
+     * Закрывает канал и удаляет файл; ошибки только сообщаются, таблица в памяти уже перенесена.
+     */
+    private static void closeQuietly(FileChannel channel, Path path) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Не удалось удалить файл таблицы хешей " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Количество записей.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Наибольшее число записей до следующего удвоения таблицы.
+     */
+    public long capacity() {
+        return maxSize;
+    }
+
+    /**
+     * Закрывает таблицу; файл текущего поколения удаляется.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            Files.deleteIfExists(file);
+            channel = null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package hexcells;
+
+/**
+ * Модуль типа правил: создание правила из данных уровня и компиляция его в проверку
+ * и распространитель ограничений для решателей.
+ * Встроенные правила (последовательность, группа, соседи) регистрируются в RuleRegistry
+ * напрямую; сторонние модули подключаются через ServiceLoader — в jar-файле модуля
+ * указывается файл META-INF/services/hexcells.RuleProvider с именем публичного класса,
+ * имеющего конструктор без аргументов.
+ */
+public interface RuleProvider {
+    /**
+     * Создаёт правило по данным из конфигурации уровня.
+     * @param data Данные правила
+     * @return Правило или null, если данные относятся к другому типу
+     */
+    Rule createRule(RuleData data);
+
+    /**
+     * Проверяет, относится ли правило к этому модулю.
+     * @param rule Правило
+     * @return true, если правило создано этим модулем
+     */
+    boolean accepts(Rule rule);
+
+    /**
+     * Компилирует правило для сетки уровня.
+     * @param rule Правило, для которого accepts() вернул true
+     * @param cols Количество столбцов (плоский индекс ячейки — r * cols + q)
+     * @param mask Форма уровня
+     * @return Скомпилированное правило
+     */
+    CompiledRule compile(Rule rule, int cols, CellMask mask);
+
+    /**
+     * Создаёт копию правила с другим ожидаемым значением; редактор пересчитывает значения
+     * правил по раскладке мин.
+     * @param rule Правило, для которого accepts() вернул true
+     * @param expected Новое ожидаемое значение
+     * @return Новое правило
+     * @throws UnsupportedOperationException если модуль не поддерживает изменение значения
+     */
+    default Rule withExpected(Rule rule, int expected) {
+        throw new UnsupportedOperationException("Модуль правил не поддерживает изменение значения: "
+                + rule.getClass().getName());
+    }
+
+    /**
+     * Кодирует данные правила для канонической формы уровня (LevelCanonicalForm).
+     * По умолчанию кодируется созданное правило: ожидаемое значение и ячейки в исходном
+     * порядке. Модулю, у правил которого порядок ячеек не важен, стоит переопределить метод,
+     * иначе совпадающие уровни с разным порядком ячеек не будут считаться одинаковыми.
+     * @param data Данные правила
+     * @return Кодировка или null, если данные относятся к другому типу
+     */
+    default LevelCanonicalForm.RuleEncoding canonicalize(RuleData data) {
+        Rule rule = createRule(data);
+        return rule == null ? null : new LevelCanonicalForm.RuleEncoding(rule.getExpectedMines(), rule.getCells(),
+                LevelCanonicalForm.CellOrder.LIST);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package hexcells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Реестр модулей правил. Встроенные модули (SequenceRule, GroupRule, EdgeRule, LineRule)
+ * идут первыми; за ними — модули, найденные ServiceLoader при первом обращении к реестру.
+ * Порядок определяет только очерёдность распознавания данных уровня: тег проверки
+ * в CompiledRules объявляет само скомпилированное правило.
+ */
+public final class RuleRegistry {
+    private static final List<RuleProvider> PROVIDERS = load();
+
+    private RuleRegistry() {
+    }
+
+    /**
+     * Возвращает зарегистрированные модули в порядке опроса.
+     */
+    public static List<RuleProvider> getProviders() {
+        return PROVIDERS;
+    }
+
+    /**
+     * Создаёт правило по данным уровня первым модулем, который их распознал.
+     * @param data Данные правила
+     * @return Правило или null, если тип данных не поддерживается
+     */
+    public static Rule createRule(RuleData data) {
+        for (RuleProvider provider : PROVIDERS) {
+            Rule rule = provider.createRule(data);
+            if (rule != null) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает модуль правила.
+     * @throws IllegalArgumentException если ни один модуль не принимает правило
+     */
+    static RuleProvider providerOf(Rule rule) {
+        return PROVIDERS.get(indexOf(rule));
+    }
+
+    /**
+     * Возвращает номер модуля правила в getProviders().
+     * @throws IllegalArgumentException если ни один модуль не принимает правило
+     */
+    static int indexOf(Rule rule) {
+        for (int i = 0; i < PROVIDERS.size(); i++) {
+            if (PROVIDERS.get(i).accepts(rule)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Неподдерживаемый тип правила: " + rule.getClass().getName());
+    }
+
+    private static List<RuleProvider> load() {
+        List<RuleProvider> providers = new ArrayList<>();
+        providers.add(new SequenceRuleProvider());
+        providers.add(new GroupRuleProvider());
+        providers.add(new EdgeRuleProvider());
+        providers.add(new LineRuleProvider());
+        Iterator<RuleProvider> iterator = ServiceLoader.load(RuleProvider.class).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                providers.add(iterator.next());
+            } catch (ServiceConfigurationError e) {
+                // Сломанный модуль не должен лишать игру встроенных правил
+                System.err.println("Не удалось загрузить модуль правил: " + e.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(providers);
+    }
+}
\ No newline at end of file
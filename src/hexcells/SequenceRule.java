@@ -10,7 +10,7 @@ import javax.swing.JPanel;
  */
 public class SequenceRule implements Rule {
     private final List<HexCoord> cellsInSequence;
-    private int expectedConsecutiveMines;
+    private final int expectedConsecutiveMines;
 
     /**
      * Конструктор.
@@ -32,6 +32,10 @@ public class SequenceRule implements Rule {
         return expectedConsecutiveMines;
     }
 
+    /**
+     * Проверяет, что самая длинная серия подряд идущих мин равна ожидаемой.
+     * Для частично известной доски см. {@link Board#getSequenceTracker(int)}.
+     */
     @Override
     public boolean isSatisfied(Board board) {
         int maxConsecutiveMines = 0;
@@ -41,13 +45,13 @@ public class SequenceRule implements Rule {
             Cell cell = board.getCell(coord);
             if (cell != null && cell.isMine()) {
                 currentConsecutive++;
-                expectedConsecutiveMines = Math.max(expectedConsecutiveMines, currentConsecutive);
+                maxConsecutiveMines = Math.max(maxConsecutiveMines, currentConsecutive);
             } else {
                 currentConsecutive = 0;
             }
         }
 
-        return expectedConsecutiveMines == expectedConsecutiveMines;
+        return maxConsecutiveMines == expectedConsecutiveMines;
     }
 
     @Override
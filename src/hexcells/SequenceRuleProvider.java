@@ -0,0 +1,119 @@
+package hexcells;
+
+/**
+ * Встроенный модуль SequenceRule: самая длинная серия мин подряд имеет длину N.
+ */
+final class SequenceRuleProvider implements RuleProvider {
+    @Override
+    public Rule createRule(RuleData data) {
+        if (!(data instanceof SequenceRuleData)) {
+            return null;
+        }
+        SequenceRuleData sequence = (SequenceRuleData) data;
+        return new SequenceRule(sequence.getCellsInSequence(), sequence.getExpectedConsecutiveMines());
+    }
+
+    /**
+     * Длина серии не зависит от направления обхода, поэтому последовательность обратима.
+     */
+    @Override
+    public LevelCanonicalForm.RuleEncoding canonicalize(RuleData data) {
+        if (!(data instanceof SequenceRuleData)) {
+            return null;
+        }
+        SequenceRuleData sequence = (SequenceRuleData) data;
+        return new LevelCanonicalForm.RuleEncoding(sequence.getExpectedConsecutiveMines(),
+                sequence.getCellsInSequence(), LevelCanonicalForm.CellOrder.REVERSIBLE);
+    }
+
+    @Override
+    public boolean accepts(Rule rule) {
+        return rule instanceof SequenceRule;
+    }
+
+    /**
+     * Ячейки вне формы уровня сохраняются как CompiledRules.OFF_GRID: они разрывают серию.
+     */
+    @Override
+    public CompiledRule compile(Rule rule, int cols, CellMask mask) {
+        return new Compiled(CompiledRules.toIndices(rule.getCells(), cols, mask, true), rule.getExpectedMines());
+    }
+
+    @Override
+    public Rule withExpected(Rule rule, int expected) {
+        return new SequenceRule(rule.getCells(), expected);
+    }
+
+    private static final class Compiled implements CompiledRule {
+        private final int[] cells;
+        private final int expected;
+
+        Compiled(int[] cells, int expected) {
+            this.cells = cells;
+            this.expected = expected;
+        }
+
+        @Override
+        public int[] getCellIndices() {
+            return cells;
+        }
+
+        @Override
+        public int getExpected() {
+            return expected;
+        }
+
+        @Override
+        public boolean isCount() {
+            return false;
+        }
+
+        @Override
+        public HintTechnique getTechnique() {
+            return HintTechnique.SEQUENCE;
+        }
+
+        @Override
+        public byte getEvaluationType() {
+            return CompiledRules.TYPE_SEQUENCE;
+        }
+
+        @Override
+        public boolean isSatisfied(CellBits mineBits) {
+            return CompiledRules.longestRun(cells, mineBits) == expected;
+        }
+
+        /**
+         * Трекер серий строится по известным ячейкам один раз; каждый вывод вносится в него
+         * инкрементально, поэтому следующий ищется без пересчёта всей последовательности.
+         * Порядок — сначала безопасные ячейки, затем мины (как в подсказках HintBot).
+         */
+        @Override
+        public boolean propagate(CellStates states, DeductionSink sink) {
+            SequenceRunTracker tracker = new SequenceRunTracker(cells.length, expected);
+            for (int position = 0; position < cells.length; position++) {
+                int index = cells[position];
+                byte state = index == CompiledRules.OFF_GRID ? SequenceRunTracker.SAFE : states.get(index);
+                if (state != SequenceRunTracker.UNKNOWN) {
+                    tracker.set(position, state);
+                }
+            }
+            while (tracker.getStatus() == SequenceStatus.POSSIBLE) {
+                boolean mine = false;
+                int position = tracker.findForcedSafe();
+                if (position < 0) {
+                    mine = true;
+                    position = tracker.findForcedMine();
+                }
+                if (position < 0) {
+                    break;
+                }
+                if (!sink.deduce(cells[position], mine)) {
+                    return false;
+                }
+                tracker.set(position, mine ? SequenceRunTracker.MINE : SequenceRunTracker.SAFE);
+            }
+            return true;
+        }
+    }
+}
\ No newline at end of file
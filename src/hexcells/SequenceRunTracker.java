@@ -0,0 +1,226 @@
+package hexcells;
+
+import java.util.BitSet;
+
+/**
+ * Инкрементальный учёт серий мин вдоль последовательности ячеек.
+ * Хранит гистограммы длин максимальных серий известных мин и серий «возможных» мин
+ * (мина или неизвестно), поэтому изменение одной ячейки обрабатывается без пересчёта
+ * всей последовательности.
+ */
+public class SequenceRunTracker {
+    public static final byte UNKNOWN = 0; // Состояние ячейки неизвестно
+    public static final byte MINE = 1;    // Ячейка — мина
+    public static final byte SAFE = 2;    // Ячейка безопасна
+
+    private final int expected;
+    private final byte[] states;
+    private final BitSet notMine; // Разрывы серий мин (SAFE или UNKNOWN)
+    private final BitSet safe;    // Разрывы возможных серий (SAFE)
+    private final int[] mineRuns; // mineRuns[len] — число серий мин длины len
+    private final int[] openRuns; // openRuns[len] — число возможных серий длины len
+    private int longestMineRun;
+    private int longestOpenRun;
+    private int unknownCount;
+
+    /**
+     * Конструктор: все ячейки последовательности изначально неизвестны.
+     * @param length Длина последовательности
+     * @param expected Ожидаемая длина самой длинной серии мин
+     */
+    public SequenceRunTracker(int length, int expected) {
+        this.expected = expected;
+        this.states = new byte[length];
+        this.notMine = new BitSet(length);
+        this.safe = new BitSet(length);
+        this.mineRuns = new int[length + 1];
+        this.openRuns = new int[length + 1];
+        this.notMine.set(0, length);
+        this.unknownCount = length;
+        if (length > 0) {
+            openRuns[length] = 1;
+            longestOpenRun = length;
+        }
+    }
+
+    /**
+     * Изменяет состояние ячейки в позиции последовательности.
+     * @param position Позиция в последовательности
+     * @param state UNKNOWN, MINE или SAFE
+     */
+    public void set(int position, byte state) {
+        byte old = states[position];
+        if (old == state) {
+            return;
+        }
+        states[position] = state;
+        if (old == UNKNOWN) {
+            unknownCount--;
+        } else if (state == UNKNOWN) {
+            unknownCount++;
+        }
+
+        boolean wasMine = old == MINE;
+        boolean isMine = state == MINE;
+        if (wasMine != isMine) {
+            notMine.set(position, !isMine);
+            updateRuns(notMine, mineRuns, position, isMine);
+            longestMineRun = adjustLongest(mineRuns, longestMineRun);
+        }
+
+        boolean wasOpen = old != SAFE;
+        boolean isOpen = state != SAFE;
+        if (wasOpen != isOpen) {
+            safe.set(position, !isOpen);
+            updateRuns(safe, openRuns, position, isOpen);
+            longestOpenRun = adjustLongest(openRuns, longestOpenRun);
+        }
+    }
+
+    /**
+     * Обновляет гистограмму серий при входе ячейки в серию или выходе из неё.
+     * Границы соседних серий находятся по ближайшим разрывам в битовой маске.
+     */
+    private void updateRuns(BitSet breaks, int[] runs, int position, boolean joined) {
+        int start = breaks.previousSetBit(position - 1) + 1;
+        int next = breaks.nextSetBit(position + 1);
+        int end = next < 0 ? states.length - 1 : next - 1;
+        int left = position - start;
+        int right = end - position;
+
+        int delta = joined ? 1 : -1;
+        runs[left + right + 1] += delta;
+        runs[left] -= delta;
+        runs[right] -= delta;
+        // Серии нулевой длины не учитываются
+        runs[0] = 0;
+    }
+
+    /**
+     * Возвращает новую максимальную длину серии по гистограмме.
+     */
+    private static int adjustLongest(int[] runs, int longest) {
+        for (int len = runs.length - 1; len > longest; len--) {
+            if (runs[len] > 0) {
+                return len;
+            }
+        }
+        while (longest > 0 && runs[longest] == 0) {
+            longest--;
+        }
+        return longest;
+    }
+
+    /**
+     * Возвращает состояние правила при текущих известных ячейках.
+     */
+    public SequenceStatus getStatus() {
+        if (longestMineRun > expected || longestOpenRun < expected) {
+            return SequenceStatus.IMPOSSIBLE;
+        }
+        if (unknownCount == 0) {
+            return longestMineRun == expected ? SequenceStatus.SATISFIED : SequenceStatus.IMPOSSIBLE;
+        }
+        return SequenceStatus.POSSIBLE;
+    }
+
+    /**
+     * Находит неизвестную ячейку, которая обязана быть безопасной.
+     * Клетка рядом с серией мин ожидаемой длины продлила бы её сверх нормы.
+     * @return Позиция в последовательности или -1
+     */
+    public int findForcedSafe() {
+        if (unknownCount == 0 || getStatus() == SequenceStatus.IMPOSSIBLE) {
+            return -1;
+        }
+        if (expected == 0 || longestMineRun == expected) {
+            for (int i = 0; i < states.length; i++) {
+                if (states[i] != UNKNOWN) {
+                    continue;
+                }
+                if (expected == 0) {
+                    return i;
+                }
+                if (i > 0 && states[i - 1] == MINE && runLengthEndingAt(i - 1) == expected) {
+                    return i;
+                }
+                if (i + 1 < states.length && states[i + 1] == MINE && runLengthStartingAt(i + 1) == expected) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Находит неизвестную ячейку, которая обязана быть миной.
+     * Если ожидаемая серия помещается только в одну возможную серию длины L &lt; 2 * expected,
+     * то центральные её клетки заняты миной при любом расположении.
+     * @return Позиция в последовательности или -1
+     */
+    public int findForcedMine() {
+        if (unknownCount == 0 || expected <= 0 || getStatus() == SequenceStatus.IMPOSSIBLE) {
+            return -1;
+        }
+        int candidates = 0;
+        for (int len = expected; len <= longestOpenRun && candidates < 2; len++) {
+            candidates += openRuns[len];
+        }
+        if (candidates != 1 || longestOpenRun >= 2 * expected) {
+            return -1;
+        }
+
+        // Находим единственную подходящую серию
+        int start = 0;
+        while (start < states.length) {
+            int next = safe.nextSetBit(start);
+            int end = next < 0 ? states.length : next;
+            int length = end - start;
+            if (length >= expected) {
+                for (int i = start + length - expected; i < start + expected; i++) {
+                    if (states[i] == UNKNOWN) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            start = end + 1;
+        }
+        return -1;
+    }
+
+    private int runLengthEndingAt(int position) {
+        return position - notMine.previousSetBit(position);
+    }
+
+    private int runLengthStartingAt(int position) {
+        int next = notMine.nextSetBit(position);
+        return (next < 0 ? states.length : next) - position;
+    }
+
+    /**
+     * Возвращает длину самой длинной серии известных мин.
+     */
+    public int getLongestMineRun() {
+        return longestMineRun;
+    }
+
+    /**
+     * Возвращает длину самой длинной серии, которая ещё может состоять из мин.
+     */
+    public int getLongestPossibleRun() {
+        return longestOpenRun;
+    }
+
+    public byte getState(int position) {
+        return states[position];
+    }
+
+    public int getLength() {
+        return states.length;
+    }
+
+    public int getExpected() {
+        return expected;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package hexcells;
+
+/**
+ * Состояние правила последовательности при частично известной раскладке.
+ */
+public enum SequenceStatus {
+    SATISFIED,  // Все ячейки известны, самая длинная серия мин равна ожидаемой
+    POSSIBLE,   // Правило ещё может быть выполнено
+    IMPOSSIBLE  // Правило уже не может быть выполнено при известных ячейках
+}
\ No newline at end of file
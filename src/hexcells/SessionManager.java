@@ -0,0 +1,68 @@
+package hexcells;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Менеджер игровых сессий: владеет множеством независимых досок.
+ * Очереди сессий разбираются на виртуальных потоках, поэтому тысячи сессий
+ * не требуют тысяч платформенных потоков.
+ */
+public class SessionManager implements AutoCloseable {
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Создаёт сессию с новой доской для уровня.
+     * @param config Конфигурация уровня
+     * @return Сессия
+     */
+    public GameSession createSession(LevelSource config) {
+        Board board = new Board(config);
+        GameSession session = new GameSession(nextId.getAndIncrement(), board, executor);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Возвращает сессию по идентификатору.
+     * @param id Идентификатор
+     * @return Сессия или null, если её нет
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Закрывает и удаляет сессию.
+     * @param id Идентификатор
+     * @return true, если сессия существовала
+     */
+    public boolean closeSession(long id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.close();
+        return true;
+    }
+
+    /**
+     * Возвращает количество открытых сессий.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        for (Long id : sessions.keySet()) {
+            closeSession(id);
+        }
+        executor.close();
+    }
+}
\ No newline at end of file
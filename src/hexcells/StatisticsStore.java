@@ -0,0 +1,519 @@
+package hexcells;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Локальное хранилище статистики партий людей и ботов.
+ * <p>
+ * Итоги партий (GameResult) дописываются записями фиксированного размера в сегменты журнала.
+ * Запись разнесена по полосам: поток пишет в полосу, выбранную по его идентичности, у каждой
+ * полосы свой замок, буфер и активный сегмент, поэтому параллельные боты не ждут друг друга.
+ * Заполненные сегменты закрываются, а фоновое уплотнение сворачивает их в файл агрегатов
+ * (по одной записи на уровень) и удаляет. Файл агрегатов перечисляет свёрнутые сегменты,
+ * поэтому сбой между его заменой и удалением сегментов не приводит к двойному учёту.
+ * <p>
+ * В памяти для каждого уровня поддерживаются агрегаты на счётчиках LongAdder:
+ * запрос getStatistics не читает диск и не блокирует пишущие потоки.
+ */
+public class StatisticsStore implements Closeable {
+    private static final int STRIPES = 8; // Полос записи (степень двойки)
+    private static final int BUFFER_RECORDS = 1024; // Записей в буфере полосы
+    private static final long SEGMENT_BYTES = 4L << 20; // Размер, после которого сегмент закрывается
+    private static final long FLUSH_INTERVAL_MILLIS = 1000; // Период сброса буферов
+    private static final long COMPACT_INTERVAL_MILLIS = 30_000; // Период проверки уплотнения
+    private static final int COMPACT_MIN_SEGMENTS = 4; // Минимум закрытых сегментов для уплотнения
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String AGGREGATES_FILE = "aggregates.bin";
+    private static final int AGGREGATES_MAGIC = 0x48585354; // "HXST"
+    private static final int AGGREGATES_VERSION = 1;
+
+    // Поля агрегата уровня
+    private static final int PLAYS = 0;
+    private static final int WINS = 1;
+    private static final int BOT_PLAYS = 2;
+    private static final int TOTAL_MILLIS = 3;
+    private static final int BEST_WIN_MILLIS = 4;
+    private static final int MISTAKES = 5;
+    private static final int HINTS = 6;
+    private static final int FIELDS = 7;
+
+    /**
+     * Агрегат уровня, обновляемый без блокировок.
+     */
+    private static final class Aggregate {
+        final LongAdder plays = new LongAdder();
+        final LongAdder wins = new LongAdder();
+        final LongAdder botPlays = new LongAdder();
+        final LongAdder totalMillis = new LongAdder();
+        final LongAccumulator bestWinMillis = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        final LongAdder mistakes = new LongAdder();
+        final LongAdder hints = new LongAdder();
+
+        void add(GameResult result) {
+            plays.increment();
+            if (result.isWon()) {
+                wins.increment();
+                bestWinMillis.accumulate(result.getDurationMillis());
+            }
+            if (result.isBot()) {
+                botPlays.increment();
+            }
+            totalMillis.add(result.getDurationMillis());
+            mistakes.add(result.getMistakes());
+            hints.add(result.getHints());
+        }
+
+        void add(long[] values) {
+            plays.add(values[PLAYS]);
+            wins.add(values[WINS]);
+            botPlays.add(values[BOT_PLAYS]);
+            totalMillis.add(values[TOTAL_MILLIS]);
+            bestWinMillis.accumulate(values[BEST_WIN_MILLIS]);
+            mistakes.add(values[MISTAKES]);
+            hints.add(values[HINTS]);
+        }
+
+        LevelStatistics snapshot(long levelKey) {
+            return new LevelStatistics(levelKey, plays.sum(), wins.sum(), botPlays.sum(), totalMillis.sum(),
+                    bestWinMillis.get(), mistakes.sum(), hints.sum());
+        }
+    }
+
+    /**
+     * Полоса записи: свой замок, буфер и активный сегмент.
+     */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * GameResult.RECORD_BYTES);
+        FileChannel channel; // Активный сегмент или null
+        Path segment;
+        long segmentBytes;
+    }
+
+    private final Path directory;
+    private final Stripe[] stripes;
+    private final ConcurrentHashMap<Long, Aggregate> index = new ConcurrentHashMap<>();
+    private final AtomicLong nextSegmentId;
+    private final ConcurrentLinkedQueue<Path> sealed = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService background;
+    private Map<Long, long[]> compacted; // Содержимое файла агрегатов; только поток уплотнения
+    private volatile boolean closed;
+
+    /**
+     * Открывает хранилище: читает файл агрегатов и дочитывает несвёрнутые сегменты.
+     * @param directory Каталог хранилища (создаётся при необходимости)
+     * @throws IOException при ошибке чтения или повреждённом файле агрегатов
+     */
+    public StatisticsStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        Set<Long> folded = new HashSet<>();
+        this.compacted = readAggregates(directory.resolve(AGGREGATES_FILE), folded);
+        compacted.forEach((key, values) -> aggregate(key).add(values));
+
+        long maxId = folded.stream().mapToLong(Long::longValue).max().orElse(0);
+        List<Path> segments = listSegments(directory);
+        for (Path segment : segments) {
+            long id = segmentId(segment);
+            maxId = Math.max(maxId, id);
+            if (folded.contains(id)) {
+                Files.deleteIfExists(segment); // Свёрнут, но не удалён до сбоя
+            } else {
+                readSegment(segment, result -> aggregate(result.getLevelKey()).add(result));
+                sealed.add(segment);
+            }
+        }
+        this.nextSegmentId = new AtomicLong(maxId + 1);
+
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.background = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "hexcells-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::flushQuietly,
+                FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(this::compactQuietly,
+                COMPACT_INTERVAL_MILLIS, COMPACT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Открывает хранилище в отдельном фоновом потоке: чтение агрегатов и сегментов
+     * не должно выполняться в потоке Swing.
+     * @param directory Каталог хранилища
+     * @return Хранилище; завершается исключением, если конструктор не смог его открыть
+     */
+    public static CompletableFuture<StatisticsStore> openAsync(Path directory) {
+        CompletableFuture<StatisticsStore> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(new StatisticsStore(directory));
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, "hexcells-statistics-open");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Каталог хранилища по умолчанию в каталоге пользователя.
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".hexcells", "statistics");
+    }
+
+    /**
+     * Добавляет итог партии. Потокобезопасен; потоки разных полос не конкурируют.
+     * Запись попадает на диск при заполнении буфера полосы, по таймеру или при flush().
+     * @param result Итог партии
+     * @throws IOException при ошибке записи сегмента
+     */
+    public void record(GameResult result) throws IOException {
+        Stripe stripe = stripes[System.identityHashCode(Thread.currentThread()) & (STRIPES - 1)];
+        stripe.lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Хранилище статистики закрыто");
+            }
+            if (stripe.buffer.remaining() < GameResult.RECORD_BYTES) {
+                drain(stripe);
+            }
+            result.writeTo(stripe.buffer);
+        } finally {
+            stripe.lock.unlock();
+        }
+        aggregate(result.getLevelKey()).add(result);
+    }
+
+    /**
+     * Добавляет итог партии и сбрасывает буферы на диск в фоновом потоке хранилища.
+     * Задачи выполняются по порядку и успевают завершиться до close().
+     * @param result Итог партии
+     * @return Завершается после сброса; исключение UncheckedIOException при ошибке записи,
+     *         IllegalStateException, если хранилище закрыто
+     */
+    public CompletableFuture<Void> recordAsync(GameResult result) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    record(result);
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, background);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Хранилище статистики закрыто", e));
+        }
+    }
+
+    /**
+     * Статистика уровня.
+     * @param levelKey Ключ уровня
+     * @return Статистика или null, если партий не было
+     */
+    public LevelStatistics getStatistics(long levelKey) {
+        Aggregate aggregate = index.get(levelKey);
+        return aggregate == null ? null : aggregate.snapshot(levelKey);
+    }
+
+    /**
+     * Статистика всех уровней, по убыванию числа партий.
+     */
+    public List<LevelStatistics> getAllStatistics() {
+        List<LevelStatistics> result = new ArrayList<>(index.size());
+        index.forEach((key, aggregate) -> result.add(aggregate.snapshot(key)));
+        result.sort(Comparator.comparingLong(LevelStatistics::getPlays).reversed());
+        return result;
+    }
+
+    /**
+     * Записывает буферы всех полос в их сегменты.
+     * @throws IOException при ошибке записи
+     */
+    public void flush() throws IOException {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                drain(stripe);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Сворачивает закрытые сегменты в файл агрегатов и удаляет их.
+     * Вызывается фоновым потоком; пишущие потоки не блокируются.
+     * @param minSegments Минимальное число закрытых сегментов, при котором уплотнение выполняется
+     * @return Количество свёрнутых сегментов
+     * @throws IOException при ошибке чтения или записи
+     */
+    int compact(int minSegments) throws IOException {
+        if (sealed.size() < Math.max(1, minSegments)) {
+            return 0;
+        }
+        List<Path> batch = new ArrayList<>();
+        for (Path segment; (segment = sealed.poll()) != null; ) {
+            batch.add(segment);
+        }
+
+        Map<Long, long[]> next = new HashMap<>();
+        compacted.forEach((key, values) -> next.put(key, values.clone()));
+        List<Long> folded = new ArrayList<>(batch.size());
+        for (Path segment : batch) {
+            readSegment(segment, result -> addTo(next.computeIfAbsent(result.getLevelKey(), key -> emptyValues()),
+                    result));
+            folded.add(segmentId(segment));
+        }
+        writeAggregates(directory.resolve(AGGREGATES_FILE), next, folded);
+        compacted = next;
+        for (Path segment : batch) {
+            Files.deleteIfExists(segment);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Сбрасывает буферы, закрывает сегменты и останавливает фоновый поток.
+     */
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        try {
+            background.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                closed = true;
+                drain(stripe);
+                if (stripe.channel != null) {
+                    stripe.channel.close();
+                    stripe.channel = null;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private Aggregate aggregate(long levelKey) {
+        Aggregate aggregate = index.get(levelKey);
+        return aggregate != null ? aggregate : index.computeIfAbsent(levelKey, key -> new Aggregate());
+    }
+
+    /**
+     * Записывает буфер полосы в активный сегмент; заполненный сегмент закрывается.
+     * Вызывается под замком полосы.
+     */
+    private void drain(Stripe stripe) throws IOException {
+        ByteBuffer buffer = stripe.buffer;
+        if (buffer.position() == 0) {
+            return;
+        }
+        if (stripe.channel == null) {
+            stripe.segment = directory.resolve(SEGMENT_PREFIX + nextSegmentId.getAndIncrement() + SEGMENT_SUFFIX);
+            stripe.channel = FileChannel.open(stripe.segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            stripe.segmentBytes = 0;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            stripe.segmentBytes += stripe.channel.write(buffer);
+        }
+        buffer.clear();
+        if (stripe.segmentBytes >= SEGMENT_BYTES) {
+            stripe.channel.close();
+            stripe.channel = null;
+            sealed.add(stripe.segment);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Не удалось сбросить статистику: " + e.getMessage());
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact(COMPACT_MIN_SEGMENTS);
+        } catch (IOException e) {
+            System.err.println("Не удалось уплотнить статистику: " + e.getMessage());
+        }
+    }
+
+    private interface ResultConsumer {
+        void accept(GameResult result);
+    }
+
+    /**
+     * Читает записи сегмента; неполная запись в конце (прерванная дозапись) пропускается.
+     */
+    private static void readSegment(Path segment, ResultConsumer consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % GameResult.RECORD_BYTES;
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Читаем целиком
+            }
+        }
+        buffer.flip();
+        while (buffer.remaining() >= GameResult.RECORD_BYTES) {
+            int start = buffer.position();
+            try {
+                consumer.accept(GameResult.readFrom(buffer));
+            } catch (IllegalArgumentException e) {
+                buffer.position(start + GameResult.RECORD_BYTES); // Повреждённая запись
+            }
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static long segmentId(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long[] emptyValues() {
+        long[] values = new long[FIELDS];
+        values[BEST_WIN_MILLIS] = Long.MAX_VALUE;
+        return values;
+    }
+
+    private static void addTo(long[] values, GameResult result) {
+        values[PLAYS]++;
+        if (result.isWon()) {
+            values[WINS]++;
+            values[BEST_WIN_MILLIS] = Math.min(values[BEST_WIN_MILLIS], result.getDurationMillis());
+        }
+        if (result.isBot()) {
+            values[BOT_PLAYS]++;
+        }
+        values[TOTAL_MILLIS] += result.getDurationMillis();
+        values[MISTAKES] += result.getMistakes();
+        values[HINTS] += result.getHints();
+    }
+
+    /**
+     * Формат файла агрегатов (big-endian): магическое число, версия, число свёрнутых сегментов,
+     * их номера, число уровней, для каждого уровня ключ и FIELDS значений, CRC32 предыдущих байт.
+     */
+    private static void writeAggregates(Path file, Map<Long, long[]> aggregates, List<Long> folded)
+            throws IOException {
+        int size = 4 + 4 + 4 + folded.size() * Long.BYTES + 4
+                + aggregates.size() * (1 + FIELDS) * Long.BYTES + Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(AGGREGATES_MAGIC).putInt(AGGREGATES_VERSION).putInt(folded.size());
+        for (long id : folded) {
+            buffer.putLong(id);
+        }
+        buffer.putInt(aggregates.size());
+        aggregates.forEach((key, values) -> {
+            buffer.putLong(key);
+            for (long value : values) {
+                buffer.putLong(value);
+            }
+        });
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Map<Long, long[]> readAggregates(Path file, Set<Long> folded) throws IOException {
+        Map<Long, long[]> aggregates = new HashMap<>();
+        if (!Files.exists(file)) {
+            return aggregates;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        int limit = buffer.capacity() - Long.BYTES;
+        if (limit < 12 || buffer.getInt() != AGGREGATES_MAGIC || buffer.getInt() != AGGREGATES_VERSION) {
+            throw new IOException("Файл агрегатов статистики повреждён: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, limit);
+        if (buffer.getLong(limit) != crc.getValue()) {
+            throw new IOException("Контрольная сумма агрегатов статистики не совпадает: " + file);
+        }
+        int foldedCount = buffer.getInt();
+        for (int i = 0; i < foldedCount; i++) {
+            folded.add(buffer.getLong());
+        }
+        int levels = buffer.getInt();
+        for (int i = 0; i < levels; i++) {
+            long key = buffer.getLong();
+            long[] values = new long[FIELDS];
+            for (int j = 0; j < FIELDS; j++) {
+                values[j] = buffer.getLong();
+            }
+            aggregates.put(key, values);
+        }
+        return aggregates;
+    }
+}
\ No newline at end of file
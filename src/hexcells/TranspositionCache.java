@@ -0,0 +1,129 @@
+package hexcells;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный кэш результатов по хешу состояния доски (таблица транспозиций).
+ * Двухпозиционные корзины в AtomicReferenceArray: чтение и запись без блокировок,
+ * при заполнении корзины вытесняется запись, к которой дольше не обращались.
+ * Кэш можно разделять между потоками.
+ * @param <V> Тип результата
+ */
+public class TranspositionCache<V> {
+    private static final int WAYS = 2;
+
+    private final AtomicReferenceArray<Entry<V>> slots;
+    private final int bucketMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int clock;
+
+    /**
+     * Неизменяемая запись: ключ, значение и время последнего обращения (по часам кэша).
+     */
+    private static final class Entry<V> {
+        final long key;
+        final V value;
+        final int lastUsed;
+
+        Entry(long key, V value, int lastUsed) {
+            this.key = key;
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Конструктор.
+     * @param capacity Максимальное число записей (округляется вверх до степени двойки)
+     * @throws IllegalArgumentException если capacity не положительна
+     */
+    public TranspositionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость кэша должна быть положительной: " + capacity);
+        }
+        int buckets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(buckets * WAYS);
+        this.bucketMask = buckets - 1;
+    }
+
+    private int bucket(long key) {
+        return (int) (Zobrist.mix(key) & bucketMask) * WAYS;
+    }
+
+    /**
+     * Ищет значение по ключу.
+     * @param key Хеш состояния
+     * @return Значение или null, если записи нет
+     */
+    public V get(long key) {
+        int base = bucket(key);
+        for (int i = 0; i < WAYS; i++) {
+            Entry<V> entry = slots.get(base + i);
+            if (entry != null && entry.key == key) {
+                hits.increment();
+                int now = clock;
+                if (entry.lastUsed != now) {
+                    slots.compareAndSet(base + i, entry, new Entry<>(key, entry.value, now));
+                }
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Сохраняет значение, при необходимости вытесняя давно неиспользованную запись корзины.
+     * @param key Хеш состояния
+     * @param value Значение (не null)
+     */
+    public void put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение кэша не может быть null");
+        }
+        int now = ++clock; // Гонки счётчика допустимы: он лишь упорядочивает вытеснение
+        int base = bucket(key);
+        Entry<V> replacement = new Entry<>(key, value, now);
+        int victim = base;
+        int victimAge = Integer.MIN_VALUE;
+        for (int i = 0; i < WAYS; i++) {
+            Entry<V> entry = slots.get(base + i);
+            if (entry == null || entry.key == key) {
+                victim = base + i;
+                break;
+            }
+            int age = now - entry.lastUsed;
+            if (age > victimAge) {
+                victimAge = age;
+                victim = base + i;
+            }
+        }
+        slots.set(victim, replacement);
+    }
+
+    /**
+     * Возвращает максимальное число записей.
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Удаляет все записи.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
\ No newline at end of file
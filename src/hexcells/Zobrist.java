@@ -0,0 +1,60 @@
+package hexcells;
+
+/**
+ * Ключи хеширования Зобриста для состояния доски.
+ * Ключ ячейки вычисляется смешиванием (SplitMix64) её индекса и вида состояния,
+ * поэтому таблица ключей не хранится и не зависит от размера доски.
+ */
+public final class Zobrist {
+    static final int REVEALED = 0;
+    static final int FLAGGED = 1;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Возвращает ключ состояния ячейки.
+     * @param cellIndex Плоский индекс ячейки
+     * @param kind REVEALED или FLAGGED
+     * @return 64-битный ключ
+     */
+    static long cellKey(int cellIndex, int kind) {
+        return mix(SEED + ((long) cellIndex << 1 | kind) * 0xBF58476D1CE4E5B9L);
+    }
+
+    /**
+     * Вычисляет ключ уровня: размеры, раскладка мин и правила (вид и параметры правила
+     * из CompiledRules.getKeyPayload, ожидаемое значение и ячейки по порядку).
+     * Разные уровни с одинаковыми открытыми ячейками получают разные хеши.
+     * @param rows Количество строк
+     * @param cols Количество столбцов
+     * @param mineBits Битовая маска мин
+     * @param rules Скомпилированные правила
+     * @return 64-битный ключ
+     */
+    static long levelKey(int rows, int cols, CellBits mineBits, CompiledRules rules) {
+        long hash = mix(SEED ^ ((long) rows << 32 | cols));
+        for (int word = 0; word < mineBits.wordCount(); word++) {
+            hash = mix(hash ^ mineBits.word(word));
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            hash = mix(hash ^ rules.getKeyPayload(i));
+            hash = mix(hash ^ ((long) rules.getType(i) << 32 | rules.getExpected(i)));
+            for (int index : rules.getCellIndices(i)) {
+                hash = mix(hash + index);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Финализатор SplitMix64.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file